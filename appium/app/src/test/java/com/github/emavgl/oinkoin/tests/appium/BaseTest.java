@@ -1,47 +1,79 @@
 package com.github.emavgl.oinkoin.tests.appium;
 
-import com.github.emavgl.oinkoin.tests.appium.utils.Constants;
+import com.github.emavgl.oinkoin.tests.appium.perf.RunEnvironment;
+import com.github.emavgl.oinkoin.tests.appium.utils.DataSeeder;
+import com.github.emavgl.oinkoin.tests.appium.utils.DriverPool;
+import com.github.emavgl.oinkoin.tests.appium.utils.RecordData;
+import com.github.emavgl.oinkoin.tests.appium.utils.StandInServer;
 import io.appium.java_client.android.AndroidDriver;
-import io.appium.java_client.android.options.UiAutomator2Options;
+import org.testng.ITestContext;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeSuite;
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 
 public class BaseTest {
-    protected AndroidDriver driver;
+    private static DriverPool driverPool;
+    private static StandInServer standInServer;
+    private static final ThreadLocal<AndroidDriver> currentDriver = new ThreadLocal<>();
 
     @BeforeSuite
-    public void setUp() {
-        UiAutomator2Options options = new UiAutomator2Options()
-                .setAutomationName("UiAutomator2")
-                .setPlatformName(Constants.PLATFORM_NAME)
-                .setPlatformVersion(Constants.PLATFORM_VERSION)
-                .setUdid(Constants.UDID)
-                .setApp(Constants.APP_PATH)
-                .setAppPackage(Constants.APP_PACKAGE)
-                .setFullReset(true)
-                .amend("appium:settings[disableIdLocatorAutocompletion]", true)
-                .amend("appium:newCommandTimeout", 3600);
-
-        driver = new AndroidDriver(getAppiumServerUrl(), options);
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(5));
+    public void setUp(ITestContext context) {
+        standInServer = StandInServer.fromSystemProperties();
+        if (standInServer == null) {
+            driverPool = new DriverPool(DriverPool.configuredDevices());
+        } else {
+            standInServer.start();
+            driverPool = new DriverPool(DriverPool.configuredDevices(), standInServer.url());
+        }
+        if (Arrays.asList(context.getIncludedGroups()).contains("benchmark")) {
+            AndroidDriver driver = driverPool.acquire();
+            try {
+                RunEnvironment.setCurrent(RunEnvironment.detect(driver));
+            } finally {
+                driverPool.release(driver);
+            }
+        }
+    }
+
+    @BeforeMethod
+    public void acquireDriver() {
+        AndroidDriver driver = driverPool.acquire();
+        currentDriver.set(driver);
+        DriverPool.resetAppState(driver);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void releaseDriver() {
+        AndroidDriver driver = currentDriver.get();
+        if (driver != null) {
+            currentDriver.remove();
+            driverPool.release(driver);
+        }
     }
 
-    private URL getAppiumServerUrl() {
-        try {
-            return new URL(Constants.APPIUM_SERVER_URL);
-        } catch (MalformedURLException e) {
-            throw new RuntimeException("Invalid URL for Appium server", e);
+    protected AndroidDriver driver() {
+        AndroidDriver driver = currentDriver.get();
+        if (driver == null) {
+            throw new IllegalStateException("No driver bound to the current test thread");
         }
+        return driver;
+    }
+
+    protected void seed(RecordData... records) {
+        new DataSeeder(driver()).seed(List.of(records));
     }
 
     @AfterSuite
     public void tearDown() {
-        if (driver != null) {
-            driver.quit();
+        if (driverPool != null) {
+            driverPool.quitAll();
+        }
+        if (standInServer != null) {
+            standInServer.stop();
         }
     }
 }
@@ -0,0 +1,73 @@
+package com.github.emavgl.oinkoin.tests.appium;
+
+import com.github.emavgl.oinkoin.tests.appium.pages.BasePage;
+import com.github.emavgl.oinkoin.tests.appium.pages.HomePage;
+import com.github.emavgl.oinkoin.tests.appium.pages.StatisticsPage;
+import com.github.emavgl.oinkoin.tests.appium.perf.BenchmarkReport;
+import com.github.emavgl.oinkoin.tests.appium.perf.FrameMetricsRecorder;
+import com.github.emavgl.oinkoin.tests.appium.utils.RecordData;
+import com.github.emavgl.oinkoin.tests.appium.utils.SampleRecords;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.time.Year;
+
+public class FrameMetricsTest extends BaseTest {
+
+    private static final int FLINGS_PER_DIRECTION = 5;
+
+    private final BenchmarkReport report = new BenchmarkReport("frames");
+
+    @DataProvider(name = "datasetSizes")
+    public Object[][] datasetSizes() {
+        return new Object[][]{{1_000}, {10_000}, {50_000}};
+    }
+
+    @Test(groups = "benchmark", dataProvider = "datasetSizes")
+    public void flingHomeRecordList(int records) {
+        HomePage homePage = new HomePage(driver());
+        seed(currentYearRecords(records));
+        homePage.showRecordsPerYear(Year.now());
+
+        FrameMetricsRecorder recorder = new FrameMetricsRecorder(driver());
+        report.add(recorder.record("fling_home_records_" + records, () -> flingBackAndForth(homePage)));
+    }
+
+    @Test(groups = "benchmark", dataProvider = "datasetSizes")
+    public void flingStatisticsCharts(int records) {
+        HomePage homePage = new HomePage(driver());
+        seed(currentYearRecords(records));
+        homePage.showRecordsPerYear(Year.now());
+        StatisticsPage statisticsPage = homePage.openStatistics();
+
+        FrameMetricsRecorder recorder = new FrameMetricsRecorder(driver());
+        report.add(recorder.record("fling_statistics_" + records, () -> flingBackAndForth(statisticsPage)));
+        statisticsPage.back();
+    }
+
+    private static void flingBackAndForth(BasePage page) {
+        fling(page, "down");
+        fling(page, "up");
+    }
+
+    // Stops early once the list cannot scroll any further in that direction.
+    private static void fling(BasePage page, String direction) {
+        for (int i = 0; i < FLINGS_PER_DIRECTION; i++) {
+            if (!page.flingScrollable(direction)) {
+                return;
+            }
+        }
+    }
+
+    private static RecordData[] currentYearRecords(int count) {
+        LocalDate today = LocalDate.now();
+        return SampleRecords.spreadOver(count, today.withDayOfYear(1), today).toArray(new RecordData[0]);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void writeReport() {
+        report.write();
+    }
+}
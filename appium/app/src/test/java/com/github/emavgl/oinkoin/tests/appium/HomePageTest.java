@@ -1,14 +1,17 @@
 package com.github.emavgl.oinkoin.tests.appium;
 
 import com.github.emavgl.oinkoin.tests.appium.pages.HomePage;
+import com.github.emavgl.oinkoin.tests.appium.pages.RecordListSnapshot;
 import com.github.emavgl.oinkoin.tests.appium.utils.CategoryType;
 import com.github.emavgl.oinkoin.tests.appium.utils.RecordData;
 import com.github.emavgl.oinkoin.tests.appium.utils.RepeatOption;
+import com.github.emavgl.oinkoin.tests.appium.utils.SampleRecords;
 import org.testng.annotations.Test;
 
 import java.time.LocalDate;
 import java.time.Month;
 import java.time.Year;
+import java.util.List;
 
 import static com.github.emavgl.oinkoin.tests.appium.utils.Utils.formatRangeDateText;
 import static org.testng.AssertJUnit.*;
@@ -17,7 +20,7 @@ public class HomePageTest extends BaseTest {
 
     @Test
     public void shouldDisplayCorrectTextForSelectedMonth() {
-        HomePage homePage = new HomePage(driver);
+        HomePage homePage = new HomePage(driver());
 
         homePage.showRecordsPerMonth(Month.OCTOBER);
 
@@ -27,7 +30,7 @@ public class HomePageTest extends BaseTest {
 
     @Test
     public void shouldDisplayCorrectTextForSelectedYear() {
-        HomePage homePage = new HomePage(driver);
+        HomePage homePage = new HomePage(driver());
 
         homePage.showRecordsPerYear(Year.of(2020));
 
@@ -37,7 +40,7 @@ public class HomePageTest extends BaseTest {
 
     @Test
     public void shouldDisplayCorrectTextForCustomDateRange() {
-        HomePage homePage = new HomePage(driver);
+        HomePage homePage = new HomePage(driver());
 
         LocalDate startDate = LocalDate.now().minusMonths(2).minusDays(3);
         LocalDate endDate = LocalDate.now().minusDays(4);
@@ -49,7 +52,7 @@ public class HomePageTest extends BaseTest {
 
     @Test
     public void addExpenseRecord() {
-        HomePage homePage = new HomePage(driver);
+        HomePage homePage = new HomePage(driver());
 
         RecordData expenseRecord = new RecordData(
                 "Groceries",
@@ -70,7 +73,7 @@ public class HomePageTest extends BaseTest {
 
     @Test
     public void addIncomeRecord() {
-        HomePage homePage = new HomePage(driver);
+        HomePage homePage = new HomePage(driver());
 
         RecordData incomeRecord = new RecordData(
                 "Salary",
@@ -91,7 +94,7 @@ public class HomePageTest extends BaseTest {
 
     @Test
     public void deleteRecord() {
-        HomePage homePage = new HomePage(driver);
+        HomePage homePage = new HomePage(driver());
 
         RecordData record = new RecordData(
                 "Salary",
@@ -106,12 +109,12 @@ public class HomePageTest extends BaseTest {
         homePage.addRecord(record);
         homePage.deleteRecord(record.name(), record.categoryType(), record.amount(), record.date());
 
-        assertFalse(homePage.isRecordDisplayedInCurrentView(record.name(), record.categoryType(), record.amount()));
+        assertTrue(homePage.isRecordAbsentFromCurrentView(record.name(), record.categoryType(), record.amount()));
     }
 
     @Test
     public void shouldDisplayRecordsForSelectedMonthOnly() {
-        HomePage homePage = new HomePage(driver);
+        HomePage homePage = new HomePage(driver());
 
         RecordData currentMonthRecord = new RecordData(
                 "Groceries",
@@ -122,7 +125,6 @@ public class HomePageTest extends BaseTest {
                 RepeatOption.NOT_REPEAT,
                 "Test record for current month"
         );
-        homePage.addRecord(currentMonthRecord);
 
         RecordData otherMonthRecord = new RecordData(
                 "Rent",
@@ -133,22 +135,20 @@ public class HomePageTest extends BaseTest {
                 RepeatOption.NOT_REPEAT,
                 "Test record for another month"
         );
-        homePage.addRecord(otherMonthRecord);
+
+        seed(currentMonthRecord, otherMonthRecord);
 
         // Filter by current month
         homePage.showRecordsPerYear(Year.now());
         homePage.showRecordsPerMonth(LocalDate.now().getMonth());
 
         assertTrue(homePage.isRecordDisplayedInCurrentView(currentMonthRecord.name(), currentMonthRecord.categoryType(), currentMonthRecord.amount()));
-        assertFalse(homePage.isRecordDisplayedInCurrentView(otherMonthRecord.name(), otherMonthRecord.categoryType(), otherMonthRecord.amount()));
-
-        homePage.deleteRecord(currentMonthRecord.name(), currentMonthRecord.categoryType(), currentMonthRecord.amount(), currentMonthRecord.date());
-        homePage.deleteRecord(otherMonthRecord.name(), otherMonthRecord.categoryType(), otherMonthRecord.amount(), otherMonthRecord.date());
+        assertTrue(homePage.isRecordAbsentFromCurrentView(otherMonthRecord.name(), otherMonthRecord.categoryType(), otherMonthRecord.amount()));
     }
 
     @Test
     public void shouldDisplayRecordsForSelectedYearOnly() {
-        HomePage homePage = new HomePage(driver);
+        HomePage homePage = new HomePage(driver());
 
         RecordData currentYearRecord = new RecordData(
                 "Salary",
@@ -159,7 +159,6 @@ public class HomePageTest extends BaseTest {
                 RepeatOption.NOT_REPEAT,
                 "Test record for current year"
         );
-        homePage.addRecord(currentYearRecord);
 
         RecordData otherYearRecord = new RecordData(
                 "Bonus",
@@ -170,21 +169,19 @@ public class HomePageTest extends BaseTest {
                 RepeatOption.NOT_REPEAT,
                 "Test record for another year"
         );
-        homePage.addRecord(otherYearRecord);
+
+        seed(currentYearRecord, otherYearRecord);
 
         // Filter by current year
         homePage.showRecordsPerYear(Year.now());
 
         assertTrue(homePage.isRecordDisplayedInCurrentView(currentYearRecord.name(), currentYearRecord.categoryType(), currentYearRecord.amount()));
-        assertFalse(homePage.isRecordDisplayedInCurrentView(otherYearRecord.name(), otherYearRecord.categoryType(), otherYearRecord.amount()));
-
-        homePage.deleteRecord(currentYearRecord.name(), currentYearRecord.categoryType(), currentYearRecord.amount(), currentYearRecord.date());
-        homePage.deleteRecord(otherYearRecord.name(), otherYearRecord.categoryType(), otherYearRecord.amount(), otherYearRecord.date());
+        assertTrue(homePage.isRecordAbsentFromCurrentView(otherYearRecord.name(), otherYearRecord.categoryType(), otherYearRecord.amount()));
     }
 
     @Test
     public void shouldDisplayRecordsForCustomDateRangeOnly() {
-        HomePage homePage = new HomePage(driver);
+        HomePage homePage = new HomePage(driver());
 
         LocalDate startDate = LocalDate.now().minusWeeks(3);
         LocalDate endDate = LocalDate.now().minusWeeks(1);
@@ -198,7 +195,6 @@ public class HomePageTest extends BaseTest {
                 RepeatOption.NOT_REPEAT,
                 "Test record within range"
         );
-        homePage.addRecord(inRangeRecord);
 
         RecordData outOfRangeRecord = new RecordData(
                 "Train ticket",
@@ -209,15 +205,30 @@ public class HomePageTest extends BaseTest {
                 RepeatOption.NOT_REPEAT,
                 "Test record outside range"
         );
-        homePage.addRecord(outOfRangeRecord);
+
+        seed(inRangeRecord, outOfRangeRecord);
 
         // Filter by personalized range
         homePage.showRecordPerDateRange(startDate, endDate);
 
         assertTrue(homePage.isRecordDisplayedInCurrentView(inRangeRecord.name(), inRangeRecord.categoryType(), inRangeRecord.amount()));
-        assertFalse(homePage.isRecordDisplayedInCurrentView(outOfRangeRecord.name(), outOfRangeRecord.categoryType(), outOfRangeRecord.amount()));
+        assertTrue(homePage.isRecordAbsentFromCurrentView(outOfRangeRecord.name(), outOfRangeRecord.categoryType(), outOfRangeRecord.amount()));
+    }
+
+    @Test
+    public void shouldDisplayEveryRecordOfTheSelectedMonth() {
+        HomePage homePage = new HomePage(driver());
+
+        LocalDate today = LocalDate.now();
+        List<RecordData> records = SampleRecords.spreadOver(60, today.withDayOfMonth(1), today);
+        seed(records.toArray(new RecordData[0]));
+
+        homePage.showRecordsPerYear(Year.now());
+        homePage.showRecordsPerMonth(today.getMonth());
+        RecordListSnapshot snapshot = homePage.recordSnapshot(50);
 
-        homePage.deleteRecord(inRangeRecord.name(), inRangeRecord.categoryType(), inRangeRecord.amount(), inRangeRecord.date());
-        homePage.deleteRecord(outOfRangeRecord.name(), outOfRangeRecord.categoryType(), outOfRangeRecord.amount(), outOfRangeRecord.date());
+        for (RecordData record : records) {
+            assertTrue(record.name(), snapshot.containsRecord(record.name(), record.categoryType(), record.amount()));
+        }
     }
 }
@@ -0,0 +1,130 @@
+package com.github.emavgl.oinkoin.tests.appium;
+
+import com.github.emavgl.oinkoin.tests.appium.pages.BasePage;
+import com.github.emavgl.oinkoin.tests.appium.pages.HomePage;
+import com.github.emavgl.oinkoin.tests.appium.perf.Benchmark;
+import com.github.emavgl.oinkoin.tests.appium.perf.BenchmarkReport;
+import com.github.emavgl.oinkoin.tests.appium.utils.Constants;
+import com.github.emavgl.oinkoin.tests.appium.utils.RecordData;
+import com.github.emavgl.oinkoin.tests.appium.utils.SampleRecords;
+import io.appium.java_client.android.nativekey.AndroidKey;
+import io.appium.java_client.android.nativekey.KeyEvent;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.emavgl.oinkoin.tests.appium.utils.Utils.capitalizeFirstLetter;
+
+public class LatencyBenchmarkTest extends BaseTest {
+
+    private static final int SEEDED_YEARS = 3;
+    private static final int SEEDED_RECORDS = 2_000;
+
+    private final BenchmarkReport report = new BenchmarkReport("latency");
+
+    @Test(groups = "benchmark")
+    public void coldStart() {
+        HomePage homePage = new HomePage(driver());
+
+        report.add(Benchmark.run("cold_start",
+                () -> driver().terminateApp(Constants.APP_PACKAGE),
+                () -> {
+                    driver().activateApp(Constants.APP_PACKAGE);
+                    homePage.waitForSelectedTab(BasePage.HOME_TAB);
+                }));
+    }
+
+    @Test(groups = "benchmark")
+    public void warmStart() {
+        HomePage homePage = new HomePage(driver());
+
+        report.add(Benchmark.run("warm_start",
+                () -> driver().pressKey(new KeyEvent(AndroidKey.HOME)),
+                () -> {
+                    driver().activateApp(Constants.APP_PACKAGE);
+                    homePage.waitForSelectedTab(BasePage.HOME_TAB);
+                }));
+    }
+
+    @Test(groups = "benchmark")
+    public void tabSwitches() {
+        HomePage homePage = new HomePage(driver());
+        seed(generateRecords());
+
+        report.add(Benchmark.run("tab_switch_home_to_categories",
+                () -> {
+                    homePage.openHomeTab();
+                    homePage.waitForSelectedTab(BasePage.HOME_TAB);
+                },
+                () -> {
+                    homePage.openCategoriesTab();
+                    homePage.waitForSelectedTab(BasePage.CATEGORIES_TAB);
+                }));
+        report.add(Benchmark.run("tab_switch_categories_to_settings",
+                () -> {
+                    homePage.openCategoriesTab();
+                    homePage.waitForSelectedTab(BasePage.CATEGORIES_TAB);
+                },
+                () -> {
+                    homePage.openSettingsTab();
+                    homePage.waitForSelectedTab(BasePage.SETTINGS_TAB);
+                }));
+        report.add(Benchmark.run("tab_switch_settings_to_home",
+                () -> {
+                    homePage.openSettingsTab();
+                    homePage.waitForSelectedTab(BasePage.SETTINGS_TAB);
+                },
+                () -> {
+                    homePage.openHomeTab();
+                    homePage.waitForSelectedTab(BasePage.HOME_TAB);
+                }));
+    }
+
+    @Test(groups = "benchmark")
+    public void dateRangeChanges() {
+        HomePage homePage = new HomePage(driver());
+        seed(generateRecords());
+
+        // Alternate between two targets so that every iteration really changes the range.
+        int year = LocalDate.now().getYear();
+        List<Month> months = List.of(Month.JANUARY, Month.JULY);
+        AtomicInteger monthIteration = new AtomicInteger();
+        report.add(Benchmark.run("show_records_per_month",
+                () -> {
+                    Month month = months.get(monthIteration.get() % months.size());
+                    homePage.selectRecordsPer("Month", capitalizeFirstLetter(month.toString()).substring(0, 3));
+                },
+                () -> {
+                    Month month = months.get(monthIteration.getAndIncrement() % months.size());
+                    homePage.confirmDateSelection();
+                    homePage.waitForDateRangeText(capitalizeFirstLetter(month.toString()) + " " + year);
+                }));
+
+        List<Year> years = List.of(Year.of(year), Year.of(year - 1));
+        AtomicInteger yearIteration = new AtomicInteger();
+        report.add(Benchmark.run("show_records_per_year",
+                () -> homePage.selectRecordsPer("Year", years.get(yearIteration.get() % years.size()).toString()),
+                () -> {
+                    Year selected = years.get(yearIteration.getAndIncrement() % years.size());
+                    homePage.confirmDateSelection();
+                    homePage.waitForDateRangeText("Jan 1 - Dec 31, " + selected);
+                }));
+    }
+
+    // A few years of history, so that re-rendering the list has a realistic amount of work.
+    private static RecordData[] generateRecords() {
+        LocalDate today = LocalDate.now();
+        return SampleRecords.spreadOver(SEEDED_RECORDS, today.minusYears(SEEDED_YEARS), today)
+                .toArray(new RecordData[0]);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void writeReport() {
+        report.write();
+    }
+}
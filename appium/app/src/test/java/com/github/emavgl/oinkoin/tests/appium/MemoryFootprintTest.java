@@ -0,0 +1,93 @@
+package com.github.emavgl.oinkoin.tests.appium;
+
+import com.github.emavgl.oinkoin.tests.appium.pages.BasePage;
+import com.github.emavgl.oinkoin.tests.appium.pages.HomePage;
+import com.github.emavgl.oinkoin.tests.appium.pages.StatisticsPage;
+import com.github.emavgl.oinkoin.tests.appium.perf.BenchmarkReport;
+import com.github.emavgl.oinkoin.tests.appium.perf.MemoryBudget;
+import com.github.emavgl.oinkoin.tests.appium.perf.MemoryFootprint;
+import com.github.emavgl.oinkoin.tests.appium.perf.MemorySampler;
+import com.github.emavgl.oinkoin.tests.appium.utils.DataSeeder;
+import com.github.emavgl.oinkoin.tests.appium.utils.SyntheticBackupGenerator;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertTrue;
+
+public class MemoryFootprintTest extends BaseTest {
+
+    private static final long DATASET_SEED = 42L;
+
+    private final BenchmarkReport report = new BenchmarkReport("memory");
+    private final MemoryBudget budget = MemoryBudget.load();
+
+    @DataProvider(name = "datasetSizes")
+    public Object[][] datasetSizes() {
+        return new Object[][]{{1_000}, {10_000}, {100_000}};
+    }
+
+    @Test(groups = "benchmark", dataProvider = "datasetSizes")
+    public void shouldStayWithinMemoryBudget(int records) throws IOException {
+        seedSyntheticBackup(records);
+        HomePage homePage = new HomePage(driver());
+        MemorySampler sampler = new MemorySampler(driver());
+        List<String> violations = new ArrayList<>();
+
+        // The backup covers a fixed range, so the screens show its last month and year
+        // rather than today's, which hold no records.
+        LocalDate lastDay = SyntheticBackupGenerator.DEFAULT_TO;
+        homePage.showRecordsPerYear(Year.of(lastDay.getYear()));
+        homePage.showRecordsPerMonth(lastDay.getMonth());
+        homePage.waitForSelectedTab(BasePage.HOME_TAB);
+        violations.addAll(check(sampler.sample("home_month_" + records), records));
+        assertListsRecords(homePage, "month");
+
+        homePage.showRecordsPerYear(Year.of(lastDay.getYear()));
+        violations.addAll(check(sampler.sample("home_year_" + records), records));
+        assertListsRecords(homePage, "year");
+
+        StatisticsPage statisticsPage = homePage.openStatistics();
+        violations.addAll(check(sampler.sample("statistics_" + records), records));
+        assertTrue(statisticsPage.hasEntries(), "The statistics of the sampled year show no entries");
+        statisticsPage.back();
+
+        homePage.openBudgetsTab();
+        homePage.waitForSelectedTab(BasePage.BUDGETS_TAB);
+        violations.addAll(check(sampler.sample("budgets_" + records), records));
+
+        assertTrue(violations.isEmpty(), "Memory budget exceeded:\n" + String.join("\n", violations));
+    }
+
+    private static void assertListsRecords(HomePage homePage, String view) {
+        assertTrue(homePage.recordSnapshot().recordCount() > 0, "The sampled " + view + " lists no records");
+    }
+
+    private List<String> check(MemoryFootprint footprint, int records) {
+        report.add(footprint);
+        return budget.violations(footprint, records);
+    }
+
+    private void seedSyntheticBackup(int records) throws IOException {
+        Path backup = Files.createTempFile("oinkoin-memory-" + records + "-", ".json");
+        try {
+            new SyntheticBackupGenerator(DATASET_SEED, records).write(backup);
+            new DataSeeder(driver()).seed(backup);
+        } finally {
+            Files.deleteIfExists(backup);
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void writeReport() {
+        report.write();
+    }
+}
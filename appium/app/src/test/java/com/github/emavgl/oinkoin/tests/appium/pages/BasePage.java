@@ -1,60 +1,75 @@
 package com.github.emavgl.oinkoin.tests.appium.pages;
 
+import io.appium.java_client.AppiumBy;
 import io.appium.java_client.AppiumDriver;
-import io.appium.java_client.pagefactory.AppiumFieldDecorator;
-import org.openqa.selenium.NoSuchElementException;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.PageFactory;
+import org.openqa.selenium.By;
+import org.openqa.selenium.remote.RemoteWebElement;
+
+import java.time.Duration;
+import java.util.Map;
 
 public abstract class BasePage {
 
-    protected final AppiumDriver driver;
+    public static final String HOME_TAB = "home-tab";
+    public static final String CATEGORIES_TAB = "categories-tab";
+    public static final String BUDGETS_TAB = "budgets-tab";
+    public static final String SETTINGS_TAB = "settings-tab";
+
+    protected static final Duration SCREEN_TIMEOUT = Duration.ofSeconds(30);
+    private static final int FLING_SPEED = 7500;
+    private static final By SCROLLABLE = AppiumBy.androidUIAutomator("new UiSelector().scrollable(true)");
 
-    @FindBy(id = "home-tab")
-    protected WebElement homeTab;
-    @FindBy(id = "home-tab-selected")
-    protected WebElement homeTabSelected;
-    @FindBy(id = "categories-tab")
-    protected WebElement categoriesTab;
-    @FindBy(id = "categories-tab-selected")
-    protected WebElement categoriesTabSelected;
-    @FindBy(id = "settings-tab")
-    protected WebElement settingsTab;
-    @FindBy(id = "settings-tab-selected")
-    protected WebElement settingsTabSelected;
+    protected final AppiumDriver driver;
+    protected final ElementFinder finder;
 
     public BasePage(AppiumDriver driver) {
         this.driver = driver;
-        PageFactory.initElements(new AppiumFieldDecorator(driver), this);
+        this.finder = ElementFinder.of(driver);
     }
 
-    public boolean isDisplayed(WebElement webElement) {
-        try {
-            return webElement.isDisplayed();
-        } catch (NoSuchElementException e) {
-            return false;
-        }
+    public boolean isDisplayed(By locator) {
+        return finder.isPresent(locator, ElementFinder.QUICK_CHECK_TIMEOUT)
+                && finder.withElement(locator, element -> element.isDisplayed());
     }
 
     public void openHomeTab() {
-        if (isDisplayed(homeTab))
-            homeTab.click();
-        else
-            homeTabSelected.click();
+        openTab(HOME_TAB);
     }
 
     public void openCategoriesTab() {
-        if (isDisplayed(categoriesTab))
-            categoriesTab.click();
-        else
-            categoriesTabSelected.click();
+        openTab(CATEGORIES_TAB);
+    }
+
+    public void openBudgetsTab() {
+        openTab(BUDGETS_TAB);
     }
 
     public void openSettingsTab() {
-        if (isDisplayed(settingsTab))
-            settingsTab.click();
-        else
-            settingsTabSelected.click();
+        openTab(SETTINGS_TAB);
+    }
+
+    // A tab is exposed either as "<id>" or, when it is the current one, as "<id>-selected":
+    // wait for whichever shows up first instead of probing them one after the other.
+    private void openTab(String tabId) {
+        By tab = finder.firstPresent(ElementFinder.DEFAULT_TIMEOUT, AppiumBy.id(tabId), AppiumBy.id(tabId + "-selected"));
+        finder.click(tab);
+        finder.invalidate();
+    }
+
+    public void waitForSelectedTab(String tabId) {
+        finder.waitFor(AppiumBy.id(tabId + "-selected"), SCREEN_TIMEOUT);
+    }
+
+    /**
+     * Flings the first scrollable element of the screen in {@code direction}
+     * ("up", "down", "left" or "right"). Returns whether it can still scroll that way.
+     */
+    public boolean flingScrollable(String direction) {
+        Object canScrollMore = finder.withElement(SCROLLABLE, scrollable -> driver.executeScript("mobile: flingGesture", Map.of(
+                "elementId", ((RemoteWebElement) scrollable).getId(),
+                "direction", direction,
+                "speed", FLING_SPEED
+        )));
+        return Boolean.TRUE.equals(canScrollMore);
     }
 }
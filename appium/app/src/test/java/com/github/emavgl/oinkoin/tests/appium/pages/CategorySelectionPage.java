@@ -3,28 +3,24 @@ package com.github.emavgl.oinkoin.tests.appium.pages;
 import com.github.emavgl.oinkoin.tests.appium.utils.CategoryType;
 import io.appium.java_client.AppiumBy;
 import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.FindBy;
 
 public class CategorySelectionPage extends BasePage {
 
-    @FindBy(id = "expenses-tab")
-    private WebElement expensesTab;
-
-    @FindBy(id = "income-tab")
-    private WebElement incomeTab;
+    private static final By EXPENSES_TAB = AppiumBy.id("expenses-tab");
+    private static final By INCOME_TAB = AppiumBy.id("income-tab");
 
     public CategorySelectionPage(AppiumDriver driver) {
         super(driver);
     }
 
     public void selectExpensesTab() {
-        expensesTab.click();
+        finder.click(EXPENSES_TAB);
     }
 
     public void selectIncomeTab() {
-        incomeTab.click();
+        finder.click(INCOME_TAB);
     }
 
     public void selectCategory(CategoryType categoryType, String categoryName) {
@@ -33,7 +29,8 @@ public class CategorySelectionPage extends BasePage {
         else
             selectIncomeTab();
         try {
-            driver.findElement(AppiumBy.accessibilityId(categoryName)).click();
+            finder.click(AppiumBy.accessibilityId(categoryName));
+            finder.invalidate();
         } catch (NoSuchElementException e) {
             throw new NoSuchElementException(
                     String.format("Category not found: Type: %s, Name: %s", categoryType.getDisplayName(), categoryName),
@@ -5,8 +5,7 @@ import com.github.emavgl.oinkoin.tests.appium.utils.RecordData;
 import com.github.emavgl.oinkoin.tests.appium.utils.RepeatOption;
 import io.appium.java_client.AppiumBy;
 import io.appium.java_client.AppiumDriver;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.By;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -19,111 +18,92 @@ public class EditRecordPage extends BasePage {
 
     private static final String DATE_FORMAT = "MM/dd/yyyy";
 
-    @FindBy(id = "amount-field")
-    private WebElement amountField;
-
-    @FindBy(id = "record-name-field")
-    private WebElement recordNameField;
-
-    @FindBy(id = "category-field")
-    private WebElement categoryField;
-
-    @FindBy(id = "date-field")
-    private WebElement dateField;
-
-    @FindBy(id = "repeat-field")
-    private WebElement repeatField;
-
-    @FindBy(id = "note-field")
-    private WebElement noteField;
-
-    @FindBy(id = "save-button")
-    private WebElement saveButton;
-
-    @FindBy(id = "delete-button")
-    private WebElement deleteButton;
+    private static final By AMOUNT_FIELD = AppiumBy.id("amount-field");
+    private static final By RECORD_NAME_FIELD = AppiumBy.id("record-name-field");
+    private static final By CATEGORY_FIELD = AppiumBy.id("category-field");
+    private static final By DATE_FIELD = AppiumBy.id("date-field");
+    private static final By REPEAT_FIELD = AppiumBy.id("repeat-field");
+    private static final By NOTE_FIELD = AppiumBy.id("note-field");
+    private static final By SAVE_BUTTON = AppiumBy.id("save-button");
+    private static final By DELETE_BUTTON = AppiumBy.id("delete-button");
 
     public EditRecordPage(AppiumDriver driver) {
         super(driver);
     }
 
     public CategoryType getCategoryType() {
-        String sign = amountField.getAttribute("hint").split("\n")[0];
+        String sign = finder.attribute(AMOUNT_FIELD, "hint").split("\n")[0];
         return "-".equals(sign) ? CategoryType.EXPENSE : CategoryType.INCOME;
     }
 
     public double getAmount() {
-        return Double.parseDouble(amountField.getText());
+        return Double.parseDouble(finder.text(AMOUNT_FIELD));
     }
 
     public void setAmount(double amount) {
-        amountField.click();
-        amountField.clear();
-        amountField.sendKeys(String.format(Locale.US, "%.2f", amount));
+        finder.type(AMOUNT_FIELD, String.format(Locale.US, "%.2f", amount));
     }
 
     public String getRecordName() {
-        return recordNameField.getText();
+        return finder.text(RECORD_NAME_FIELD);
     }
 
     public void setRecordName(String name) {
-        recordNameField.click();
-        recordNameField.clear();
-        recordNameField.sendKeys(name);
+        finder.type(RECORD_NAME_FIELD, name);
     }
 
     public String getCategory() {
-        return categoryField.getAttribute("content-desc");
+        return finder.attribute(CATEGORY_FIELD, "content-desc");
     }
 
     public LocalDate getDate() {
-        return extractDate(dateField.getAttribute("content-desc"));
+        return extractDate(finder.attribute(DATE_FIELD, "content-desc"));
     }
 
     public void setDate(LocalDate date) {
-        dateField.click();
+        finder.click(DATE_FIELD);
 
-        WebElement datePicker = driver.findElement(AppiumBy.androidUIAutomator("new UiSelector().className(\"android.widget.Button\").instance(0)"));
-        datePicker.click();
-        WebElement editPicker = driver.findElement(AppiumBy.className("android.widget.EditText"));
-        editPicker.click();
-        editPicker.clear();
-        editPicker.sendKeys(date.format(DateTimeFormatter.ofPattern(DATE_FORMAT)));
-        driver.findElement(AppiumBy.accessibilityId("OK")).click();
+        finder.click(AppiumBy.androidUIAutomator("new UiSelector().className(\"android.widget.Button\").instance(0)"));
+        finder.type(AppiumBy.className("android.widget.EditText"), date.format(DateTimeFormatter.ofPattern(DATE_FORMAT)));
+        finder.click(AppiumBy.accessibilityId("OK"));
+        // The picker is gone and the form has been rebuilt with the new date.
+        finder.invalidate();
     }
 
     public RepeatOption getRepeatOption() {
-        return extractRepeatOption(dateField.getAttribute("content-desc"));
+        return extractRepeatOption(finder.attribute(DATE_FIELD, "content-desc"));
     }
 
     public void setRepeatOption(RepeatOption repeatOption) {
         if (repeatOption.equals(RepeatOption.NOT_REPEAT))
             return;
-        repeatField.click();
-        driver.findElement(AppiumBy.accessibilityId(repeatOption.getDisplayName())).click();
+        finder.click(REPEAT_FIELD);
+        finder.click(AppiumBy.accessibilityId(repeatOption.getDisplayName()));
+        finder.invalidate();
     }
 
     public String getNote() {
-        return noteField.getText();
+        return finder.text(NOTE_FIELD);
     }
 
     public void setNote(String note) {
-        noteField.click();
-        noteField.clear();
-        noteField.sendKeys(note);
+        finder.type(NOTE_FIELD, note);
     }
 
     public void saveRecord() {
-        saveButton.click();
+        finder.click(SAVE_BUTTON);
+        finder.invalidate();
     }
 
     public void back()  {
-        driver.findElement(AppiumBy.accessibilityId("Back")).click();
+        finder.click(AppiumBy.accessibilityId("Back"));
+        finder.invalidate();
     }
 
     public void delete() {
-        deleteButton.click();
-        driver.findElement(AppiumBy.accessibilityId("Yes")).click();
+        finder.click(DELETE_BUTTON);
+        finder.click(AppiumBy.accessibilityId("Yes"));
+        finder.invalidate();
     }
 
     public void addRecord(RecordData recordData) {
@@ -0,0 +1,173 @@
+package com.github.emavgl.oinkoin.tests.appium.pages;
+
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.FluentWait;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * Condition based element lookups for the page objects. The drivers run without an
+ * implicit wait: every lookup polls with its own deadline, so checking for an element that
+ * is not there costs only as long as the caller is willing to wait.
+ * <p>
+ * Resolved elements are cached per driver until {@link #invalidate()} is called, which the
+ * page objects do whenever an action moves to another screen. A cached element that turns
+ * out to be stale is looked up again.
+ * <p>
+ * Timeouts can be tuned with the {@code oinkoin.wait.timeoutMs}, {@code oinkoin.wait.quickCheckMs}
+ * and {@code oinkoin.wait.pollingMs} system properties.
+ */
+public class ElementFinder {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMillis(Long.getLong("oinkoin.wait.timeoutMs", 10_000));
+    public static final Duration QUICK_CHECK_TIMEOUT = Duration.ofMillis(Long.getLong("oinkoin.wait.quickCheckMs", 1_500));
+    public static final Duration POLLING_INTERVAL = Duration.ofMillis(Long.getLong("oinkoin.wait.pollingMs", 100));
+
+    private static final Map<AppiumDriver, ElementFinder> FINDERS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final AppiumDriver driver;
+    private final Map<By, WebElement> cache = new HashMap<>();
+
+    private ElementFinder(AppiumDriver driver) {
+        this.driver = driver;
+    }
+
+    public static ElementFinder of(AppiumDriver driver) {
+        return FINDERS.computeIfAbsent(driver, ElementFinder::new);
+    }
+
+    public WebElement find(By locator) {
+        WebElement cached = cache.get(locator);
+        if (cached != null) {
+            return cached;
+        }
+        WebElement element = waitFor(locator, DEFAULT_TIMEOUT);
+        cache.put(locator, element);
+        return element;
+    }
+
+    /**
+     * Waits for the element without going through the cache.
+     *
+     * @throws NoSuchElementException if it does not show up before the timeout
+     */
+    public WebElement waitFor(By locator, Duration timeout) {
+        try {
+            return poll(timeout).until(d -> first(locator));
+        } catch (TimeoutException e) {
+            throw new NoSuchElementException(
+                    String.format("Element not found after %d ms: %s", timeout.toMillis(), locator), e);
+        }
+    }
+
+    public boolean isPresent(By locator, Duration timeout) {
+        try {
+            poll(timeout).until(d -> first(locator));
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    public boolean isAbsent(By locator, Duration timeout) {
+        try {
+            poll(timeout).until(d -> driver.findElements(locator).isEmpty());
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Waits until any of the locators matches and returns the first one that does.
+     */
+    public By firstPresent(Duration timeout, By... locators) {
+        try {
+            return poll(timeout).until(d -> {
+                for (By locator : locators) {
+                    WebElement element = first(locator);
+                    if (element != null) {
+                        cache.put(locator, element);
+                        return locator;
+                    }
+                }
+                return null;
+            });
+        } catch (TimeoutException e) {
+            throw new NoSuchElementException(String.format("None of the elements found after %d ms: %s",
+                    timeout.toMillis(), Arrays.toString(locators)), e);
+        }
+    }
+
+    public <T> T until(Duration timeout, Function<AppiumDriver, T> condition) {
+        return poll(timeout).until(condition::apply);
+    }
+
+    public void click(By locator) {
+        withElement(locator, element -> {
+            element.click();
+            return null;
+        });
+    }
+
+    public void type(By locator, String text) {
+        withElement(locator, element -> {
+            element.click();
+            element.clear();
+            element.sendKeys(text);
+            return null;
+        });
+    }
+
+    public String text(By locator) {
+        return withElement(locator, WebElement::getText);
+    }
+
+    public String attribute(By locator, String name) {
+        return withElement(locator, element -> element.getAttribute(name));
+    }
+
+    /**
+     * Runs {@code action} on the (possibly cached) element, looking it up again once if the
+     * cached handle has gone stale.
+     */
+    public <T> T withElement(By locator, Function<WebElement, T> action) {
+        try {
+            return action.apply(find(locator));
+        } catch (StaleElementReferenceException e) {
+            cache.remove(locator);
+            return action.apply(find(locator));
+        }
+    }
+
+    /**
+     * Forgets every cached element. Called when the screen changes.
+     */
+    public void invalidate() {
+        cache.clear();
+    }
+
+    private WebElement first(By locator) {
+        List<WebElement> elements = driver.findElements(locator);
+        return elements.isEmpty() ? null : elements.get(0);
+    }
+
+    private FluentWait<AppiumDriver> poll(Duration timeout) {
+        return new FluentWait<>(driver)
+                .withTimeout(timeout)
+                .pollingEvery(POLLING_INTERVAL)
+                .ignoring(StaleElementReferenceException.class);
+    }
+}
@@ -4,48 +4,57 @@ import com.github.emavgl.oinkoin.tests.appium.utils.CategoryType;
 import com.github.emavgl.oinkoin.tests.appium.utils.RecordData;
 import io.appium.java_client.AppiumBy;
 import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.FindBy;
 
-import java.text.NumberFormat;
 import java.time.LocalDate;
 import java.time.Month;
 import java.time.Year;
 import java.time.format.DateTimeFormatter;
-import java.util.Locale;
 
 import static com.github.emavgl.oinkoin.tests.appium.utils.Utils.capitalizeFirstLetter;
+import static com.github.emavgl.oinkoin.tests.appium.utils.Utils.generateRecordAccessibilityId;
 
 public class HomePage extends BasePage {
 
     private static final String DATE_FORMAT = "MM/dd/yyyy";
 
-    @FindBy(id = "select-date")
-    private WebElement showRecordsPerButton;
-    @FindBy(id = "statistics")
-    private WebElement statisticsButton;
-    @FindBy(id = "three-dots")
-    private WebElement threeDotsButton;
-    @FindBy(id = "date-text")
-    private WebElement dateRangeText;
-    @FindBy(id = "add-record")
-    private WebElement addRecordButton;
+    private static final By SHOW_RECORDS_PER_BUTTON = AppiumBy.id("select-date");
+    private static final By STATISTICS_BUTTON = AppiumBy.id("statistics");
+    private static final By THREE_DOTS_BUTTON = AppiumBy.id("three-dots");
+    private static final By DATE_RANGE_TEXT = AppiumBy.id("date-text");
+    private static final By ADD_RECORD_BUTTON = AppiumBy.id("add-record");
 
     public HomePage(AppiumDriver driver) {
         super(driver);
     }
 
     public String dateRangeText() {
-        return dateRangeText.getAttribute("content-desc");
+        return finder.attribute(DATE_RANGE_TEXT, "content-desc");
     }
 
     public void showRecordsPer(String option, String value) {
+        selectRecordsPer(option, value);
+        confirmDateSelection();
+    }
+
+    /**
+     * Opens the date picker and selects the given value without confirming it.
+     */
+    public void selectRecordsPer(String option, String value) {
         openHomeTab();
-        showRecordsPerButton.click();
-        driver.findElement(AppiumBy.accessibilityId(option)).click();
-        driver.findElement(AppiumBy.accessibilityId(value)).click();
-        driver.findElement(AppiumBy.accessibilityId("OK")).click();
+        finder.click(SHOW_RECORDS_PER_BUTTON);
+        finder.click(AppiumBy.accessibilityId(option));
+        finder.click(AppiumBy.accessibilityId(value));
+    }
+
+    public void confirmDateSelection() {
+        finder.click(AppiumBy.accessibilityId("OK"));
+        finder.invalidate();
+    }
+
+    public void waitForDateRangeText(String expectedText) {
+        finder.until(SCREEN_TIMEOUT, d -> expectedText.equals(dateRangeText()));
     }
 
     public void showRecordsPerMonth(Month month) {
@@ -59,12 +68,13 @@ public class HomePage extends BasePage {
 
     public void showRecordPerDateRange(LocalDate startDate, LocalDate endDate) {
         openHomeTab();
-        showRecordsPerButton.click();
+        finder.click(SHOW_RECORDS_PER_BUTTON);
 
-        driver.findElement(AppiumBy.accessibilityId("Date Range")).click();
-        driver.findElement(AppiumBy.androidUIAutomator("new UiSelector().className(\"android.widget.Button\").instance(2)")).click();
+        finder.click(AppiumBy.accessibilityId("Date Range"));
+        finder.click(AppiumBy.androidUIAutomator("new UiSelector().className(\"android.widget.Button\").instance(2)"));
         setDateRange(startDate, endDate);
-        driver.findElement(AppiumBy.accessibilityId("OK")).click();
+        finder.click(AppiumBy.accessibilityId("OK"));
+        finder.invalidate();
     }
 
     private void setDateRange(LocalDate startDate, LocalDate endDate) {
@@ -73,25 +83,59 @@ public class HomePage extends BasePage {
     }
 
     private void setDateField(int fieldIndex, LocalDate date) {
-        WebElement dateField = driver.findElement(AppiumBy.androidUIAutomator(
+        finder.type(AppiumBy.androidUIAutomator(
                 "new UiSelector().className(\"android.widget.EditText\").instance(" + fieldIndex + ")"
-        ));
-        dateField.click();
-        dateField.clear();
-        dateField.sendKeys(date.format(DateTimeFormatter.ofPattern(DATE_FORMAT)));
+        ), date.format(DateTimeFormatter.ofPattern(DATE_FORMAT)));
+    }
+
+    public StatisticsPage openStatistics() {
+        openHomeTab();
+        finder.click(STATISTICS_BUTTON);
+        finder.invalidate();
+        return new StatisticsPage(driver);
     }
 
     public void addRecord(RecordData recordData) {
         openHomeTab();
-        addRecordButton.click();
+        finder.click(ADD_RECORD_BUTTON);
+        finder.invalidate();
 
         new CategorySelectionPage(driver).selectCategory(recordData.categoryType(), recordData.category());
         new EditRecordPage(driver).addRecord(recordData);
     }
 
+    /**
+     * Waits at most {@link ElementFinder#QUICK_CHECK_TIMEOUT} for the record to show up.
+     */
     public boolean isRecordDisplayedInCurrentView(String name, CategoryType categoryType, double amount) {
         String accessibilityId = generateRecordAccessibilityId(name, categoryType, amount);
-        return !driver.findElements(AppiumBy.accessibilityId(accessibilityId)).isEmpty();
+        return finder.isPresent(AppiumBy.accessibilityId(accessibilityId), ElementFinder.QUICK_CHECK_TIMEOUT);
+    }
+
+    /**
+     * Returns as soon as the record is not listed, and waits at most
+     * {@link ElementFinder#QUICK_CHECK_TIMEOUT} for it to go away, so asserting that a record
+     * is not listed only waits when the assertion is about to fail.
+     */
+    public boolean isRecordAbsentFromCurrentView(String name, CategoryType categoryType, double amount) {
+        String accessibilityId = generateRecordAccessibilityId(name, categoryType, amount);
+        return finder.isAbsent(AppiumBy.accessibilityId(accessibilityId), ElementFinder.QUICK_CHECK_TIMEOUT);
+    }
+
+    /**
+     * Reads every record row currently on screen with a single request.
+     */
+    public RecordListSnapshot recordSnapshot() {
+        openHomeTab();
+        return RecordListSnapshot.capture(driver);
+    }
+
+    /**
+     * Like {@link #recordSnapshot()}, but scrolls through the whole list (up to {@code maxPages}).
+     */
+    public RecordListSnapshot recordSnapshot(int maxPages) {
+        openHomeTab();
+        return RecordListSnapshot.captureScrolling(driver, maxPages);
     }
 
     public void openRecord(String name, CategoryType categoryType, double amount, LocalDate date) {
@@ -99,7 +143,8 @@ public class HomePage extends BasePage {
         showRecordsPerMonth(date.getMonth());
         String accessibilityId = generateRecordAccessibilityId(name, categoryType, amount);
         try {
-            driver.findElement(AppiumBy.accessibilityId(accessibilityId)).click();
+            finder.click(AppiumBy.accessibilityId(accessibilityId));
+            finder.invalidate();
         } catch (NoSuchElementException e) {
             throw new NoSuchElementException(
                     String.format("Record not found: %s. Year: %d, Month: %s", accessibilityId, date.getYear(), date.getMonth()), e
@@ -107,17 +152,6 @@ public class HomePage extends BasePage {
         }
     }
 
-    private String generateRecordAccessibilityId(String name, CategoryType categoryType, double amount) {
-        String sign = categoryType.getDisplayName().equals("Expense") ? "-" : "";
-
-        NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.US);
-        numberFormat.setMinimumFractionDigits(2);
-        numberFormat.setMaximumFractionDigits(2);
-        String formattedAmount = numberFormat.format(amount);
-
-        return String.format(Locale.US, "%s\n%s%s", name, sign, formattedAmount);
-    }
-
     public RecordData getRecord(String name, CategoryType categoryType, double amount, LocalDate date) {
         openRecord(name, categoryType, amount, date);
         return new EditRecordPage(driver).getRecord();
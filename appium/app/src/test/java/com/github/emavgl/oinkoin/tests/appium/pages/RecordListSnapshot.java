@@ -0,0 +1,155 @@
+package com.github.emavgl.oinkoin.tests.appium.pages;
+
+import com.github.emavgl.oinkoin.tests.appium.utils.CategoryType;
+import io.appium.java_client.AppiumBy;
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.remote.RemoteWebElement;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static com.github.emavgl.oinkoin.tests.appium.utils.Utils.generateRecordAccessibilityId;
+
+/**
+ * Everything the screen exposes through accessibility labels, read with a single page
+ * source request instead of one {@code findElements} call per record. Elements are indexed
+ * by their content description, which for a record row is the id built by
+ * {@link com.github.emavgl.oinkoin.tests.appium.utils.Utils#generateRecordAccessibilityId}.
+ */
+public class RecordListSnapshot {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+    private static final double SCROLL_PERCENT = 0.8;
+    // "<title>\n<signed amount>", the shape of generateRecordAccessibilityId.
+    private static final Pattern RECORD_ID = Pattern.compile("[^\n]+\n-?[\d,]+\.\d{2}");
+
+    /**
+     * An element of the page source, as reported by UiAutomator2.
+     */
+    public record Node(String contentDesc, String text, String resourceId, String bounds) {
+    }
+
+    private final Map<String, List<Node>> nodesByContentDesc;
+
+    private RecordListSnapshot(Map<String, List<Node>> nodesByContentDesc) {
+        this.nodesByContentDesc = nodesByContentDesc;
+    }
+
+    /**
+     * Snapshot of what is currently on screen.
+     */
+    public static RecordListSnapshot capture(AppiumDriver driver) {
+        return new RecordListSnapshot(parse(driver.getPageSource()));
+    }
+
+    /**
+     * Scrolls through the first scrollable list of the screen, a page at a time, and merges
+     * what every page shows. Stops when the list cannot scroll further, when a page brings
+     * nothing new, or after {@code maxPages}. The list is scrolled back to the top afterward.
+     * <p>
+     * Pages overlap, so a node that shows up on several pages is kept once, as it appeared on
+     * the first page where it was seen.
+     */
+    public static RecordListSnapshot captureScrolling(AppiumDriver driver, int maxPages) {
+        Map<String, List<Node>> merged = new LinkedHashMap<>(parse(driver.getPageSource()));
+        ElementFinder finder = ElementFinder.of(driver);
+        String scrollable = ((RemoteWebElement) finder.find(
+                AppiumBy.androidUIAutomator("new UiSelector().scrollable(true)"))).getId();
+
+        for (int page = 1; page < maxPages && scroll(driver, scrollable, "down"); page++) {
+            int before = merged.size();
+            parse(driver.getPageSource()).forEach(merged::putIfAbsent);
+            if (merged.size() == before) {
+                break;
+            }
+        }
+        scrollToTop(driver, scrollable);
+        finder.invalidate();
+        return new RecordListSnapshot(merged);
+    }
+
+    private static void scrollToTop(AppiumDriver driver, String elementId) {
+        boolean canScrollMore;
+        do {
+            canScrollMore = scroll(driver, elementId, "up");
+        } while (canScrollMore);
+    }
+
+    private static boolean scroll(AppiumDriver driver, String elementId, String direction) {
+        Object canScrollMore = driver.executeScript("mobile: scrollGesture", Map.of(
+                "elementId", elementId,
+                "direction", direction,
+                "percent", SCROLL_PERCENT
+        ));
+        return Boolean.TRUE.equals(canScrollMore);
+    }
+
+    static Map<String, List<Node>> parse(String pageSource) {
+        Map<String, List<Node>> nodes = new LinkedHashMap<>();
+        try {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(pageSource));
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    String contentDesc = reader.getAttributeValue(null, "content-desc");
+                    if (contentDesc == null || contentDesc.isEmpty()) {
+                        continue;
+                    }
+                    Node node = new Node(
+                            contentDesc,
+                            reader.getAttributeValue(null, "text"),
+                            reader.getAttributeValue(null, "resource-id"),
+                            reader.getAttributeValue(null, "bounds")
+                    );
+                    nodes.computeIfAbsent(contentDesc, key -> new ArrayList<>()).add(node);
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Unable to parse the page source", e);
+        }
+        return nodes;
+    }
+
+    public boolean contains(String accessibilityId) {
+        return nodesByContentDesc.containsKey(accessibilityId);
+    }
+
+    public boolean containsRecord(String name, CategoryType categoryType, double amount) {
+        return contains(generateRecordAccessibilityId(name, categoryType, amount));
+    }
+
+    public List<Node> nodes(String accessibilityId) {
+        return nodesByContentDesc.getOrDefault(accessibilityId, List.of());
+    }
+
+    public Set<String> accessibilityIds() {
+        return Collections.unmodifiableSet(nodesByContentDesc.keySet());
+    }
+
+    public int size() {
+        return nodesByContentDesc.size();
+    }
+
+    /**
+     * The number of distinct record rows, whatever their title and amount.
+     */
+    public int recordCount() {
+        return (int) nodesByContentDesc.keySet().stream()
+                .filter(contentDesc -> RECORD_ID.matcher(contentDesc).matches())
+                .count();
+    }
+}
@@ -1,4 +1,53 @@
 package com.github.emavgl.oinkoin.tests.appium.pages;
 
-public class SettingsPage {
+import io.appium.java_client.AppiumBy;
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.By;
+
+import java.time.Duration;
+
+public class SettingsPage extends BasePage {
+
+    private static final Duration RESTORE_TIMEOUT = Duration.ofMinutes(5);
+
+    public SettingsPage(AppiumDriver driver) {
+        super(driver);
+    }
+
+    public void openSettingsItem(String title) {
+        openSettingsTab();
+        finder.click(AppiumBy.androidUIAutomator(
+                "new UiScrollable(new UiSelector().scrollable(true))" +
+                        ".scrollIntoView(new UiSelector().descriptionStartsWith(\"" + title + "\"))"
+        ));
+        finder.invalidate();
+    }
+
+    /**
+     * Restores a backup file that is already stored in the device Download folder.
+     */
+    public void restoreBackup(String fileName) {
+        openSettingsItem("Restore Backup");
+        pickFromDownloads(fileName);
+
+        By successful = AppiumBy.accessibilityId("Restore successful");
+        By unsuccessful = AppiumBy.accessibilityId("Restore unsuccessful");
+        boolean restored = finder.firstPresent(RESTORE_TIMEOUT, successful, unsuccessful).equals(successful);
+        finder.click(AppiumBy.accessibilityId("OK"));
+        finder.invalidate();
+        if (!restored) {
+            throw new IllegalStateException("The app could not restore the backup " + fileName);
+        }
+    }
+
+    // Navigates the system document picker to the Downloads root and selects the file.
+    private void pickFromDownloads(String fileName) {
+        finder.click(AppiumBy.accessibilityId("Show roots"));
+        finder.click(AppiumBy.androidUIAutomator("new UiSelector().text(\"Downloads\")"));
+        finder.click(AppiumBy.androidUIAutomator(
+                "new UiScrollable(new UiSelector().scrollable(true))" +
+                        ".scrollIntoView(new UiSelector().text(\"" + fileName + "\"))"
+        ));
+        finder.invalidate();
+    }
 }
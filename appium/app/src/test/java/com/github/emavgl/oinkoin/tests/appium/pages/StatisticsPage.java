@@ -0,0 +1,27 @@
+package com.github.emavgl.oinkoin.tests.appium.pages;
+
+import io.appium.java_client.AppiumBy;
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.By;
+
+public class StatisticsPage extends BasePage {
+
+    private static final By NO_ENTRIES_TEXT = AppiumBy.accessibilityId("No entries to show.");
+
+    public StatisticsPage(AppiumDriver driver) {
+        super(driver);
+    }
+
+    /**
+     * Whether the selected tab has something to chart. The empty state shows up as soon as the
+     * page is built, so it is given {@link ElementFinder#QUICK_CHECK_TIMEOUT} to appear.
+     */
+    public boolean hasEntries() {
+        return !finder.isPresent(NO_ENTRIES_TEXT, ElementFinder.QUICK_CHECK_TIMEOUT);
+    }
+
+    public void back() {
+        finder.click(AppiumBy.accessibilityId("Back"));
+        finder.invalidate();
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Compares the samples of a run with the baseline, metric by metric. Every metric is
+ * "lower is better" (latencies, frame times, memory). A metric regresses only when the
+ * current samples are significantly greater according to {@link MannWhitneyU} and the median
+ * grew by at least {@code maxSlowdown}; a slower median alone is reported but does not fail.
+ */
+public class BaselineComparator {
+
+    public enum Verdict {
+        REGRESSION, IMPROVEMENT, UNCHANGED, TOO_FEW_SAMPLES, NO_BASELINE
+    }
+
+    public record Comparison(String test,
+                             String metric,
+                             String baselineVersion,
+                             double baselineMedian,
+                             double currentMedian,
+                             double change,
+                             double pValue,
+                             Verdict verdict) {
+    }
+
+    private final BaselineStore store;
+    private final String baselineVersion;
+    private final double significance;
+    private final double maxSlowdown;
+    private final int minSamples;
+
+    /**
+     * @param baselineVersion the app version to compare with, or null for the latest other version
+     * @param significance    p-value below which a difference is significant, e.g. 0.05
+     * @param maxSlowdown     relative growth of the median that fails the gate, e.g. 0.2 for 20%
+     * @param minSamples      samples needed on both sides to run the test
+     */
+    public BaselineComparator(BaselineStore store, String baselineVersion, double significance, double maxSlowdown, int minSamples) {
+        this.store = store;
+        this.baselineVersion = baselineVersion;
+        this.significance = significance;
+        this.maxSlowdown = maxSlowdown;
+        this.minSamples = minSamples;
+    }
+
+    public List<Comparison> compare(List<BaselineStore.Entry> run) {
+        List<Comparison> comparisons = new ArrayList<>();
+        for (BaselineStore.Entry current : run) {
+            Optional<BaselineStore.Entry> baseline = store.find(current.test(), current.device(), current.appVersion(), baselineVersion);
+            current.samples().forEach((metric, samples) -> {
+                List<Double> reference = baseline.map(entry -> entry.samples().get(metric)).orElse(null);
+                comparisons.add(compare(current.test(), metric, baseline.map(BaselineStore.Entry::appVersion).orElse(null),
+                        reference, samples));
+            });
+        }
+        return comparisons;
+    }
+
+    private Comparison compare(String test, String metric, String version, List<Double> baseline, List<Double> current) {
+        double currentMedian = median(current);
+        if (baseline == null || baseline.isEmpty() || current.isEmpty()) {
+            return new Comparison(test, metric, version, Double.NaN, currentMedian, Double.NaN, Double.NaN, Verdict.NO_BASELINE);
+        }
+        double baselineMedian = median(baseline);
+        double change = baselineMedian == 0 ? 0 : currentMedian / baselineMedian - 1;
+        if (baseline.size() < minSamples || current.size() < minSamples) {
+            return new Comparison(test, metric, version, baselineMedian, currentMedian, change, Double.NaN, Verdict.TOO_FEW_SAMPLES);
+        }
+
+        double slowerP = MannWhitneyU.greaterPValue(baseline, current);
+        double fasterP = MannWhitneyU.greaterPValue(current, baseline);
+        Verdict verdict;
+        double pValue;
+        if (slowerP < significance && change >= maxSlowdown) {
+            verdict = Verdict.REGRESSION;
+            pValue = slowerP;
+        } else if (fasterP < significance && change <= -maxSlowdown) {
+            verdict = Verdict.IMPROVEMENT;
+            pValue = fasterP;
+        } else {
+            verdict = Verdict.UNCHANGED;
+            pValue = Math.min(slowerP, fasterP);
+        }
+        return new Comparison(test, metric, version, baselineMedian, currentMedian, change, pValue, verdict);
+    }
+
+    static double median(List<Double> values) {
+        if (values.isEmpty()) {
+            return Double.NaN;
+        }
+        List<Double> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The versioned file holding reference samples, one entry per test, device and app version.
+ * Entries are kept in the order they were recorded, so the latest baseline of a test on a
+ * device is the last matching entry.
+ */
+public class BaselineStore {
+
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * @param test    the report and measurement name, e.g. {@code latency/cold_start}
+     * @param samples the samples of every metric of that measurement
+     */
+    public record Entry(String test, String device, String appVersion, Map<String, List<Double>> samples) {
+    }
+
+    private final List<Entry> entries;
+
+    private BaselineStore(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public static BaselineStore empty() {
+        return new BaselineStore(new ArrayList<>());
+    }
+
+    public static BaselineStore load(Path path) {
+        if (!Files.exists(path)) {
+            return empty();
+        }
+        Map<String, Object> json;
+        try {
+            json = new Json().toType(Files.readString(path, StandardCharsets.UTF_8), Json.MAP_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the baseline " + path, e);
+        }
+        Object version = json.get("format_version");
+        if (!(version instanceof Number) || ((Number) version).intValue() != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported baseline format " + version + " in " + path);
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (Object item : (List<?>) json.get("entries")) {
+            Map<?, ?> entry = (Map<?, ?>) item;
+            entries.add(new Entry(
+                    (String) entry.get("test"),
+                    (String) entry.get("device"),
+                    (String) entry.get("app_version"),
+                    toSamples((Map<?, ?>) entry.get("samples"))
+            ));
+        }
+        return new BaselineStore(entries);
+    }
+
+    static Map<String, List<Double>> toSamples(Map<?, ?> json) {
+        Map<String, List<Double>> samples = new LinkedHashMap<>();
+        json.forEach((metric, values) -> {
+            List<Double> doubles = new ArrayList<>();
+            for (Object value : (List<?>) values) {
+                doubles.add(((Number) value).doubleValue());
+            }
+            samples.put((String) metric, doubles);
+        });
+        return samples;
+    }
+
+    public List<Entry> entries() {
+        return List.copyOf(entries);
+    }
+
+    /**
+     * Adds an entry, replacing the one already recorded for the same test, device and app version.
+     */
+    public void put(Entry entry) {
+        entries.removeIf(existing -> existing.test().equals(entry.test())
+                && existing.device().equals(entry.device())
+                && existing.appVersion().equals(entry.appVersion()));
+        entries.add(entry);
+    }
+
+    /**
+     * The baseline to compare a run of {@code test} on {@code device} with: the given app version
+     * if there is one, otherwise the latest entry recorded for another version, otherwise the
+     * latest entry for the same version.
+     */
+    public Optional<Entry> find(String test, String device, String currentVersion, String baselineVersion) {
+        Entry sameVersion = null;
+        Entry otherVersion = null;
+        for (Entry entry : entries) {
+            if (!entry.test().equals(test) || !entry.device().equals(device)) {
+                continue;
+            }
+            if (baselineVersion != null) {
+                if (entry.appVersion().equals(baselineVersion)) {
+                    otherVersion = entry;
+                }
+            } else if (entry.appVersion().equals(currentVersion)) {
+                sameVersion = entry;
+            } else {
+                otherVersion = entry;
+            }
+        }
+        return Optional.ofNullable(otherVersion != null ? otherVersion : sameVersion);
+    }
+
+    public void write(Path path) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Entry entry : entries) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("test", entry.test());
+            row.put("device", entry.device());
+            row.put("app_version", entry.appVersion());
+            row.put("samples", entry.samples());
+            rows.add(row);
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("format_version", FORMAT_VERSION);
+        json.put("entries", rows);
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Files.writeString(path, new Json().toJson(json) + "\n", StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the baseline " + path, e);
+        }
+    }
+}
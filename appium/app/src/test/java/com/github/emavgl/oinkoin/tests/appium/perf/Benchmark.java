@@ -0,0 +1,40 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a scenario a number of times and times only the measured action. Warmup
+ * iterations are executed the same way but their timings are discarded.
+ */
+public class Benchmark {
+
+    public static final int WARMUP_ITERATIONS = Integer.getInteger("oinkoin.benchmark.warmup", 2);
+    public static final int MEASURED_ITERATIONS = Integer.getInteger("oinkoin.benchmark.iterations", 15);
+
+    private Benchmark() {
+    }
+
+    public static LatencyStats run(String name, Runnable setup, Runnable action) {
+        return run(name, WARMUP_ITERATIONS, MEASURED_ITERATIONS, setup, action);
+    }
+
+    /**
+     * @param setup  untimed preparation executed before every iteration
+     * @param action the timed part, which must only return once the screen is ready
+     */
+    public static LatencyStats run(String name, int warmup, int iterations, Runnable setup, Runnable action) {
+        for (int i = 0; i < warmup; i++) {
+            setup.run();
+            action.run();
+        }
+        List<Long> samples = new ArrayList<>(iterations);
+        for (int i = 0; i < iterations; i++) {
+            setup.run();
+            long start = System.nanoTime();
+            action.run();
+            samples.add(System.nanoTime() - start);
+        }
+        return LatencyStats.of(name, samples);
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the results of a benchmark class and writes them as {@code <name>.json} and
+ * {@code <name>.csv} into {@link #OUTPUT_DIR}. The JSON file also records the
+ * {@link RunEnvironment} and the raw samples, which is what {@link PerformanceGate} reads.
+ */
+public class BenchmarkReport {
+
+    public static final Path OUTPUT_DIR = Path.of(System.getProperty("oinkoin.benchmark.dir", "build/benchmarks"));
+
+    private final String name;
+    private final List<Measurement> results = new ArrayList<>();
+
+    public BenchmarkReport(String name) {
+        this.name = name;
+    }
+
+    public synchronized void add(Measurement measurement) {
+        results.add(measurement);
+    }
+
+    public synchronized List<Measurement> results() {
+        return List.copyOf(results);
+    }
+
+    public synchronized void write() {
+        try {
+            Files.createDirectories(OUTPUT_DIR);
+            List<Map<String, Object>> rows = results.stream().map(Measurement::toMap).toList();
+            Map<String, Map<String, List<Double>>> samples = new LinkedHashMap<>();
+            for (Measurement measurement : results) {
+                samples.put(measurement.name(), measurement.samplesByMetric());
+            }
+            RunEnvironment environment = RunEnvironment.current();
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("report", name);
+            json.put("device", environment.device());
+            json.put("app_version", environment.appVersion());
+            json.put("results", rows);
+            json.put("samples", samples);
+            Files.writeString(OUTPUT_DIR.resolve(name + ".json"), new Json().toJson(json), StandardCharsets.UTF_8);
+            writeCsv(OUTPUT_DIR.resolve(name + ".csv"), rows);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write benchmark report " + name, e);
+        }
+    }
+
+    private static void writeCsv(Path path, List<Map<String, Object>> rows) throws IOException {
+        Set<String> columns = new LinkedHashSet<>();
+        for (Map<String, Object> row : rows) {
+            row.forEach((key, value) -> {
+                if (!(value instanceof Collection<?>) && !(value instanceof Map<?, ?>)) {
+                    columns.add(key);
+                }
+            });
+        }
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(String.join(",", columns) + "\n");
+            for (Map<String, Object> row : rows) {
+                writer.write(columns.stream()
+                        .map(column -> formatCell(row.get(column)))
+                        .collect(Collectors.joining(",")) + "\n");
+            }
+        }
+    }
+
+    private static String formatCell(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return String.format(Locale.US, "%.3f", ((Number) value).doubleValue());
+        }
+        return value.toString();
+    }
+}
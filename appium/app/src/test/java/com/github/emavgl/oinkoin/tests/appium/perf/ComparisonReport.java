@@ -0,0 +1,89 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Renders a baseline comparison as a Markdown table (for CI summaries and pull requests)
+ * and as a standalone HTML page.
+ */
+public class ComparisonReport {
+
+    private static final String[] HEADER = {"Test", "Metric", "Baseline", "Baseline median", "Current median", "Change", "p-value", "Verdict"};
+
+    private final String title;
+    private final List<BaselineComparator.Comparison> comparisons;
+
+    public ComparisonReport(String title, List<BaselineComparator.Comparison> comparisons) {
+        this.title = title;
+        this.comparisons = comparisons;
+    }
+
+    public String toMarkdown() {
+        StringBuilder markdown = new StringBuilder("# ").append(title).append("\n\n");
+        markdown.append("| ").append(String.join(" | ", HEADER)).append(" |\n");
+        markdown.append("|---".repeat(HEADER.length)).append("|\n");
+        for (BaselineComparator.Comparison comparison : comparisons) {
+            markdown.append("| ").append(String.join(" | ", cells(comparison))).append(" |\n");
+        }
+        return markdown.toString();
+    }
+
+    public String toHtml() {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>")
+                .append(escape(title))
+                .append("</title><style>")
+                .append("body{font-family:sans-serif}table{border-collapse:collapse}")
+                .append("td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}td:first-child,td:nth-child(2){text-align:left}")
+                .append(".REGRESSION{background:#fdd}.IMPROVEMENT{background:#dfd}")
+                .append("</style></head><body>\n<h1>").append(escape(title)).append("</h1>\n<table>\n<tr>");
+        for (String column : HEADER) {
+            html.append("<th>").append(escape(column)).append("</th>");
+        }
+        html.append("</tr>\n");
+        for (BaselineComparator.Comparison comparison : comparisons) {
+            html.append("<tr class=\"").append(comparison.verdict()).append("\">");
+            for (String cell : cells(comparison)) {
+                html.append("<td>").append(escape(cell)).append("</td>");
+            }
+            html.append("</tr>\n");
+        }
+        return html.append("</table>\n</body></html>\n").toString();
+    }
+
+    public void write(Path directory, String baseName) {
+        try {
+            Files.createDirectories(directory);
+            Files.writeString(directory.resolve(baseName + ".md"), toMarkdown(), StandardCharsets.UTF_8);
+            Files.writeString(directory.resolve(baseName + ".html"), toHtml(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the comparison report to " + directory, e);
+        }
+    }
+
+    private static String[] cells(BaselineComparator.Comparison comparison) {
+        return new String[]{
+                comparison.test(),
+                comparison.metric(),
+                comparison.baselineVersion() == null ? "-" : comparison.baselineVersion(),
+                number(comparison.baselineMedian()),
+                number(comparison.currentMedian()),
+                Double.isNaN(comparison.change()) ? "-" : String.format(Locale.US, "%+.1f%%", comparison.change() * 100),
+                Double.isNaN(comparison.pValue()) ? "-" : String.format(Locale.US, "%.4f", comparison.pValue()),
+                comparison.verdict().toString()
+        };
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "-" : String.format(Locale.US, "%.2f", value);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
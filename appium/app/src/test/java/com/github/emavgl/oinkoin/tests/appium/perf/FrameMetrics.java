@@ -0,0 +1,133 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Frame statistics parsed from {@code dumpsys gfxinfo <package> framestats}.
+ * <p>
+ * The totals, percentiles and histogram come from the summary, which covers every frame
+ * since the last reset. {@code recentFrameTimesMs} comes from the PROFILEDATA section,
+ * which only keeps the last frames rendered (about 120).
+ */
+public record FrameMetrics(String name,
+                           int totalFrames,
+                           int jankyFrames,
+                           double jankyPercent,
+                           int p50Ms,
+                           int p90Ms,
+                           int p95Ms,
+                           int p99Ms,
+                           Map<Integer, Integer> histogram,
+                           List<Double> recentFrameTimesMs) implements Measurement {
+
+    private static final Pattern TOTAL_FRAMES = Pattern.compile("^Total frames rendered: (\\d+)", Pattern.MULTILINE);
+    private static final Pattern JANKY_FRAMES = Pattern.compile("^Janky frames: (\\d+) \\(([\\d.]+)%\\)", Pattern.MULTILINE);
+    private static final Pattern PERCENTILE = Pattern.compile("^(\\d+)th percentile: (\\d+)ms", Pattern.MULTILINE);
+    private static final Pattern HISTOGRAM = Pattern.compile("^HISTOGRAM: (.*)$", Pattern.MULTILINE);
+    private static final String PROFILE_DATA = "---PROFILEDATA---";
+
+    public static FrameMetrics parse(String name, String gfxinfo) {
+        Map<Integer, Integer> percentiles = new TreeMap<>();
+        Matcher percentile = PERCENTILE.matcher(gfxinfo);
+        while (percentile.find()) {
+            percentiles.put(Integer.parseInt(percentile.group(1)), Integer.parseInt(percentile.group(2)));
+        }
+        Matcher janky = JANKY_FRAMES.matcher(gfxinfo);
+        boolean hasJanky = janky.find();
+
+        return new FrameMetrics(
+                name,
+                intGroup(TOTAL_FRAMES.matcher(gfxinfo)),
+                hasJanky ? Integer.parseInt(janky.group(1)) : 0,
+                hasJanky ? Double.parseDouble(janky.group(2)) : 0.0,
+                percentiles.getOrDefault(50, 0),
+                percentiles.getOrDefault(90, 0),
+                percentiles.getOrDefault(95, 0),
+                percentiles.getOrDefault(99, 0),
+                parseHistogram(gfxinfo),
+                parseFrameTimes(gfxinfo)
+        );
+    }
+
+    private static int intGroup(Matcher matcher) {
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+
+    // "HISTOGRAM: 5ms=10 6ms=3 ..." to {5=10, 6=3, ...}
+    private static Map<Integer, Integer> parseHistogram(String gfxinfo) {
+        Map<Integer, Integer> histogram = new TreeMap<>();
+        Matcher matcher = HISTOGRAM.matcher(gfxinfo);
+        if (matcher.find()) {
+            for (String bucket : matcher.group(1).trim().split("\\s+")) {
+                String[] parts = bucket.split("ms=");
+                if (parts.length == 2) {
+                    histogram.put(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+                }
+            }
+        }
+        return histogram;
+    }
+
+    // Frame time is FrameCompleted - IntendedVsync. Rows with non-zero flags are not real
+    // frames (e.g. the first frame after a window change) and are skipped, like the platform does.
+    private static List<Double> parseFrameTimes(String gfxinfo) {
+        List<Double> frameTimes = new ArrayList<>();
+        int start = gfxinfo.indexOf(PROFILE_DATA);
+        if (start < 0) {
+            return frameTimes;
+        }
+        int end = gfxinfo.indexOf(PROFILE_DATA, start + PROFILE_DATA.length());
+        String[] lines = gfxinfo.substring(start + PROFILE_DATA.length(), end < 0 ? gfxinfo.length() : end)
+                .trim()
+                .split("\\R");
+        if (lines.length < 2) {
+            return frameTimes;
+        }
+        List<String> header = List.of(lines[0].split(","));
+        int flags = header.indexOf("Flags");
+        int intendedVsync = header.indexOf("IntendedVsync");
+        int frameCompleted = header.indexOf("FrameCompleted");
+        if (flags < 0 || intendedVsync < 0 || frameCompleted < 0) {
+            return frameTimes;
+        }
+        for (int i = 1; i < lines.length; i++) {
+            String[] columns = lines[i].split(",");
+            if (columns.length <= Math.max(intendedVsync, frameCompleted) || !"0".equals(columns[flags].trim())) {
+                continue;
+            }
+            long nanos = Long.parseLong(columns[frameCompleted].trim()) - Long.parseLong(columns[intendedVsync].trim());
+            frameTimes.add(nanos / 1_000_000.0);
+        }
+        return frameTimes;
+    }
+
+    @Override
+    public Map<String, List<Double>> samplesByMetric() {
+        return Map.of("frame_time_ms", recentFrameTimesMs);
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Integer> buckets = new LinkedHashMap<>();
+        histogram.forEach((bucket, count) -> buckets.put(bucket + "ms", count));
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", name);
+        map.put("total_frames", totalFrames);
+        map.put("janky_frames", jankyFrames);
+        map.put("janky_percent", jankyPercent);
+        map.put("p50_ms", p50Ms);
+        map.put("p90_ms", p90Ms);
+        map.put("p95_ms", p95Ms);
+        map.put("p99_ms", p99Ms);
+        map.put("histogram", buckets);
+        map.put("recent_frame_times_ms", recentFrameTimesMs);
+        return map;
+    }
+}
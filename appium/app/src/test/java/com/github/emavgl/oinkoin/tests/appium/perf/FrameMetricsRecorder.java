@@ -0,0 +1,33 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import com.github.emavgl.oinkoin.tests.appium.utils.Constants;
+import io.appium.java_client.android.AndroidDriver;
+
+import static com.github.emavgl.oinkoin.tests.appium.utils.Utils.shell;
+
+/**
+ * Resets the app's frame statistics before a scenario and collects them afterward.
+ * Relies on {@code mobile: shell}, see {@link com.github.emavgl.oinkoin.tests.appium.utils.Utils#shell}.
+ */
+public class FrameMetricsRecorder {
+
+    private final AndroidDriver driver;
+
+    public FrameMetricsRecorder(AndroidDriver driver) {
+        this.driver = driver;
+    }
+
+    public void reset() {
+        shell(driver, "dumpsys", "gfxinfo", Constants.APP_PACKAGE, "reset");
+    }
+
+    public FrameMetrics collect(String name) {
+        return FrameMetrics.parse(name, shell(driver, "dumpsys", "gfxinfo", Constants.APP_PACKAGE, "framestats"));
+    }
+
+    public FrameMetrics record(String name, Runnable scenario) {
+        reset();
+        scenario.run();
+        return collect(name);
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary of the latency samples collected for one benchmark scenario, in milliseconds.
+ */
+public record LatencyStats(String name,
+                           int samples,
+                           double minMs,
+                           double p50Ms,
+                           double p90Ms,
+                           double p99Ms,
+                           double maxMs,
+                           List<Double> samplesMs) implements Measurement {
+
+    public static LatencyStats of(String name, List<Long> nanos) {
+        if (nanos.isEmpty()) {
+            throw new IllegalArgumentException("No samples collected for " + name);
+        }
+        List<Double> millis = new ArrayList<>(nanos.size());
+        for (long sample : nanos) {
+            millis.add(sample / 1_000_000.0);
+        }
+        List<Double> sorted = new ArrayList<>(millis);
+        Collections.sort(sorted);
+        return new LatencyStats(
+                name,
+                sorted.size(),
+                sorted.get(0),
+                percentile(sorted, 50),
+                percentile(sorted, 90),
+                percentile(sorted, 99),
+                sorted.get(sorted.size() - 1),
+                List.copyOf(millis)
+        );
+    }
+
+    // Nearest-rank percentile over an already sorted list.
+    static double percentile(List<Double> sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1);
+    }
+
+    @Override
+    public Map<String, List<Double>> samplesByMetric() {
+        return Map.of("latency_ms", samplesMs);
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", name);
+        map.put("samples", samples);
+        map.put("min_ms", minMs);
+        map.put("p50_ms", p50Ms);
+        map.put("p90_ms", p90Ms);
+        map.put("p99_ms", p99Ms);
+        map.put("max_ms", maxMs);
+        map.put("samples_ms", samplesMs);
+        return map;
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One-sided Mann-Whitney U test: is {@code current} stochastically greater than
+ * {@code baseline}? Uses the normal approximation with tie and continuity corrections,
+ * which is reasonable from about five samples per side.
+ */
+public final class MannWhitneyU {
+
+    private MannWhitneyU() {
+    }
+
+    /**
+     * Returns the p-value of the hypothesis that the current samples are greater (slower,
+     * larger) than the baseline ones. 1 when the two samples cannot be told apart at all.
+     */
+    public static double greaterPValue(List<Double> baseline, List<Double> current) {
+        int n1 = baseline.size();
+        int n2 = current.size();
+        if (n1 == 0 || n2 == 0) {
+            throw new IllegalArgumentException("Both samples must be non-empty");
+        }
+
+        List<double[]> pooled = new ArrayList<>(n1 + n2);
+        for (double value : baseline) {
+            pooled.add(new double[]{value, 0});
+        }
+        for (double value : current) {
+            pooled.add(new double[]{value, 1});
+        }
+        pooled.sort(Comparator.comparingDouble(entry -> entry[0]));
+
+        // Ranks start at 1, tied values share the average of their ranks.
+        double currentRankSum = 0;
+        double tieCorrection = 0;
+        int n = pooled.size();
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j < n && pooled.get(j)[0] == pooled.get(i)[0]) {
+                j++;
+            }
+            double averageRank = (i + 1 + j) / 2.0;
+            for (int k = i; k < j; k++) {
+                if (pooled.get(k)[1] == 1) {
+                    currentRankSum += averageRank;
+                }
+            }
+            int ties = j - i;
+            tieCorrection += (double) ties * ties * ties - ties;
+            i = j;
+        }
+
+        double u = currentRankSum - n2 * (n2 + 1) / 2.0;
+        double mean = n1 * (double) n2 / 2.0;
+        double variance = n1 * (double) n2 / 12.0 * ((n + 1) - tieCorrection / ((double) n * (n - 1)));
+        if (variance <= 0) {
+            return 1.0;
+        }
+        double z = (u - mean - 0.5) / Math.sqrt(variance);
+        return 1.0 - standardNormalCdf(z);
+    }
+
+    static double standardNormalCdf(double z) {
+        return 0.5 * (1.0 + erf(z / Math.sqrt(2.0)));
+    }
+
+    // Abramowitz and Stegun 7.1.26, absolute error below 1.5e-7.
+    private static double erf(double x) {
+        double sign = Math.signum(x);
+        double t = 1.0 / (1.0 + 0.3275911 * Math.abs(x));
+        double polynomial = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))));
+        return sign * (1.0 - polynomial * Math.exp(-x * x));
+    }
+}
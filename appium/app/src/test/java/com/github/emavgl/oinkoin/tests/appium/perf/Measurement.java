@@ -0,0 +1,22 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A named result that can be written to a {@link BenchmarkReport}. Scalar values become
+ * CSV columns; list values, such as raw samples, only appear in the JSON output.
+ */
+public interface Measurement {
+
+    String name();
+
+    Map<String, Object> toMap();
+
+    /**
+     * Repeated observations per metric, compared against the baseline by {@link BaselineComparator}.
+     */
+    default Map<String, List<Double>> samplesByMetric() {
+        return Map.of();
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Upper bounds for {@link MemoryFootprint} metrics, loaded from a properties file on the test
+ * classpath. Keys are {@code <metric column>.<dataset size>}, e.g.
+ * {@code total_pss_kb.10000=350000}; metrics without a budget are not checked.
+ */
+public class MemoryBudget {
+
+    public static final String DEFAULT_RESOURCE = "/memory-budgets.properties";
+
+    private final Properties budgets;
+
+    private MemoryBudget(Properties budgets) {
+        this.budgets = budgets;
+    }
+
+    public static MemoryBudget load() {
+        return load(DEFAULT_RESOURCE);
+    }
+
+    public static MemoryBudget load(String resource) {
+        Properties budgets = new Properties();
+        try (InputStream in = MemoryBudget.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Memory budget " + resource + " not found on the classpath");
+            }
+            budgets.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read memory budget " + resource, e);
+        }
+        return new MemoryBudget(budgets);
+    }
+
+    /**
+     * Returns a description of every metric of {@code footprint} above its budget.
+     */
+    public List<String> violations(MemoryFootprint footprint, int datasetSize) {
+        List<String> violations = new ArrayList<>();
+        for (String metric : budgets.stringPropertyNames()) {
+            String suffix = "." + datasetSize;
+            if (!metric.endsWith(suffix)) {
+                continue;
+            }
+            String column = metric.substring(0, metric.length() - suffix.length());
+            long limit = Long.parseLong(budgets.getProperty(metric).trim());
+            long actual = footprint.metric(column);
+            if (actual > limit) {
+                violations.add(String.format("%s: %s is %d KB, budget is %d KB", footprint.name(), column, actual, limit));
+            }
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Memory used by the app after one step of a scenario, in kilobytes of PSS.
+ * <p>
+ * Java heap, native heap, graphics and total come from the App Summary of
+ * {@code dumpsys meminfo <package>}. The Dart heap is not broken out there (it is counted as
+ * native and "Other mmap" memory), so it is summed from the {@code [anon:dart-*]} mappings
+ * of {@code /proc/<pid>/smaps}, and is -1 when those could not be read.
+ */
+public record MemoryFootprint(String name,
+                              long totalPssKb,
+                              long javaHeapKb,
+                              long nativeHeapKb,
+                              long graphicsKb,
+                              long dartHeapKb) implements Measurement {
+
+    private static final Pattern JAVA_HEAP = summaryRow("Java Heap");
+    private static final Pattern NATIVE_HEAP = summaryRow("Native Heap");
+    private static final Pattern GRAPHICS = summaryRow("Graphics");
+    // "TOTAL PSS:" on recent releases, "TOTAL:" on older ones.
+    private static final Pattern TOTAL_PSS = summaryRow("TOTAL(?: PSS)?");
+
+    private static final Pattern SMAPS_HEADER = Pattern.compile("^[0-9a-f]+-[0-9a-f]+\\s+\\S+\\s+\\S+\\s+\\S+\\s+\\S+\\s*(.*)$");
+    private static final Pattern SMAPS_PSS = Pattern.compile("^Pss:\\s+(\\d+) kB");
+
+    private static Pattern summaryRow(String label) {
+        return Pattern.compile("^\\s*" + label + ":\\s+(\\d+)", Pattern.MULTILINE);
+    }
+
+    public static MemoryFootprint parse(String name, String meminfo, String smaps) {
+        long totalPss = kilobytes(TOTAL_PSS.matcher(meminfo));
+        if (totalPss < 0) {
+            throw new IllegalArgumentException("No App Summary in dumpsys meminfo output: " + meminfo);
+        }
+        return new MemoryFootprint(
+                name,
+                totalPss,
+                kilobytes(JAVA_HEAP.matcher(meminfo)),
+                kilobytes(NATIVE_HEAP.matcher(meminfo)),
+                kilobytes(GRAPHICS.matcher(meminfo)),
+                dartHeapKb(smaps)
+        );
+    }
+
+    private static long kilobytes(Matcher matcher) {
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private static long dartHeapKb(String smaps) {
+        long total = 0;
+        boolean found = false;
+        boolean inDartMapping = false;
+        for (String line : smaps.split("\n")) {
+            Matcher header = SMAPS_HEADER.matcher(line);
+            if (header.matches()) {
+                inDartMapping = header.group(1).startsWith("[anon:dart-");
+                continue;
+            }
+            Matcher pss = SMAPS_PSS.matcher(line);
+            if (inDartMapping && pss.find()) {
+                total += Long.parseLong(pss.group(1));
+                found = true;
+            }
+        }
+        return found ? total : -1;
+    }
+
+    /**
+     * The value of a metric by its report column, e.g. {@code total_pss_kb}.
+     */
+    public long metric(String column) {
+        Object value = toMap().get(column);
+        if (!(value instanceof Long)) {
+            throw new IllegalArgumentException("Unknown memory metric " + column);
+        }
+        return (Long) value;
+    }
+
+    // A single sample per metric: shown in the baseline comparison, but never enough to fail it.
+    // Memory regressions are caught by MemoryBudget instead.
+    @Override
+    public Map<String, List<Double>> samplesByMetric() {
+        Map<String, List<Double>> samples = new LinkedHashMap<>();
+        toMap().forEach((column, value) -> {
+            if (value instanceof Long kilobytes && kilobytes >= 0) {
+                samples.put(column, List.of(kilobytes.doubleValue()));
+            }
+        });
+        return samples;
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", name);
+        map.put("total_pss_kb", totalPssKb);
+        map.put("java_heap_kb", javaHeapKb);
+        map.put("native_heap_kb", nativeHeapKb);
+        map.put("graphics_kb", graphicsKb);
+        map.put("dart_heap_kb", dartHeapKb);
+        return map;
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import com.github.emavgl.oinkoin.tests.appium.utils.Constants;
+import io.appium.java_client.android.AndroidDriver;
+
+import static com.github.emavgl.oinkoin.tests.appium.utils.Utils.shell;
+
+/**
+ * Samples the app's memory with {@code dumpsys meminfo}. Relies on {@code mobile: shell}, see
+ * {@link com.github.emavgl.oinkoin.tests.appium.utils.Utils#shell}, and on a debuggable build
+ * for the Dart heap, which is read through {@code run-as}.
+ */
+public class MemorySampler {
+
+    private final AndroidDriver driver;
+
+    public MemorySampler(AndroidDriver driver) {
+        this.driver = driver;
+    }
+
+    public MemoryFootprint sample(String name) {
+        String meminfo = shell(driver, "dumpsys", "meminfo", Constants.APP_PACKAGE);
+        return MemoryFootprint.parse(name, meminfo, smaps());
+    }
+
+    // Empty when the process is gone or the build is not debuggable: the Dart heap is then reported as -1.
+    private String smaps() {
+        String pid = shell(driver, "pidof", Constants.APP_PACKAGE).trim();
+        if (pid.isEmpty()) {
+            return "";
+        }
+        try {
+            return shell(driver, "run-as", Constants.APP_PACKAGE, "cat", "/proc/" + pid + "/smaps");
+        } catch (RuntimeException e) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Compares the benchmark reports of a run with the checked-in baseline, writes
+ * {@code comparison.md} and {@code comparison.html} next to the reports and exits with 1
+ * when a metric regressed. With {@code --update} it stores the run as the baseline of its
+ * device and app version instead.
+ * <p>
+ * Usage: {@code PerformanceGate <reports dir> <baseline file> [--update]}. Tuned with the
+ * {@code oinkoin.baseline.version}, {@code oinkoin.baseline.maxSlowdown} (0.2),
+ * {@code oinkoin.baseline.significance} (0.05) and {@code oinkoin.baseline.minSamples} (5)
+ * system properties.
+ */
+public class PerformanceGate {
+
+    private static final double MAX_SLOWDOWN = Double.parseDouble(System.getProperty("oinkoin.baseline.maxSlowdown", "0.2"));
+    private static final double SIGNIFICANCE = Double.parseDouble(System.getProperty("oinkoin.baseline.significance", "0.05"));
+    private static final int MIN_SAMPLES = Integer.getInteger("oinkoin.baseline.minSamples", 5);
+    private static final String COMPARISON_NAME = "comparison";
+
+    private PerformanceGate() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: PerformanceGate <reports dir> <baseline file> [--update]");
+            System.exit(2);
+        }
+        Path reports = Path.of(args[0]);
+        Path baselineFile = Path.of(args[1]);
+        boolean update = args.length > 2 && args[2].equals("--update");
+
+        List<BaselineStore.Entry> run = readRun(reports);
+        if (run.isEmpty()) {
+            System.err.println("No benchmark reports found in " + reports.toAbsolutePath());
+            System.exit(2);
+        }
+        BaselineStore store = BaselineStore.load(baselineFile);
+
+        if (update) {
+            run.forEach(store::put);
+            store.write(baselineFile);
+            System.out.printf("Stored %d results in %s%n", run.size(), baselineFile);
+            return;
+        }
+
+        BaselineComparator comparator = new BaselineComparator(store, System.getProperty("oinkoin.baseline.version"),
+                SIGNIFICANCE, MAX_SLOWDOWN, MIN_SAMPLES);
+        List<BaselineComparator.Comparison> comparisons = comparator.compare(run);
+        BaselineStore.Entry first = run.get(0);
+        ComparisonReport report = new ComparisonReport(
+                "Performance of " + first.appVersion() + " on " + first.device(), comparisons);
+        report.write(reports, COMPARISON_NAME);
+        System.out.print(report.toMarkdown());
+
+        long regressions = comparisons.stream()
+                .filter(comparison -> comparison.verdict() == BaselineComparator.Verdict.REGRESSION)
+                .count();
+        if (regressions > 0) {
+            System.err.printf("%d metrics regressed by more than %.0f%%%n", regressions, MAX_SLOWDOWN * 100);
+            System.exit(1);
+        }
+    }
+
+    // Every <name>.json written by BenchmarkReport, except the comparison itself.
+    static List<BaselineStore.Entry> readRun(Path reports) {
+        List<BaselineStore.Entry> run = new ArrayList<>();
+        if (!Files.isDirectory(reports)) {
+            return run;
+        }
+        try (Stream<Path> files = Files.list(reports)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".json")).sorted().toList()) {
+                Map<String, Object> json = new Json().toType(Files.readString(file, StandardCharsets.UTF_8), Json.MAP_TYPE);
+                if (!(json.get("samples") instanceof Map<?, ?> samples)) {
+                    continue;
+                }
+                samples.forEach((measurement, metrics) -> run.add(new BaselineStore.Entry(
+                        json.get("report") + "/" + measurement,
+                        (String) json.get("device"),
+                        (String) json.get("app_version"),
+                        BaselineStore.toSamples((Map<?, ?>) metrics)
+                )));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the benchmark reports in " + reports, e);
+        }
+        return run;
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.emavgl.oinkoin.tests.appium.perf;
+
+import com.github.emavgl.oinkoin.tests.appium.utils.Constants;
+import io.appium.java_client.android.AndroidDriver;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.github.emavgl.oinkoin.tests.appium.utils.Utils.shell;
+
+/**
+ * The device and app build the benchmarks ran against, used to key the baseline.
+ * Both can be forced with the {@code oinkoin.device} and {@code oinkoin.app.version}
+ * system properties, e.g. when the Appium server does not allow shell commands.
+ */
+public record RunEnvironment(String device, String appVersion) {
+
+    public static final RunEnvironment UNKNOWN = new RunEnvironment("unknown", "unknown");
+
+    private static final Pattern VERSION_NAME = Pattern.compile("versionName=(\\S+)");
+
+    private static volatile RunEnvironment current = UNKNOWN;
+
+    public static RunEnvironment current() {
+        return current;
+    }
+
+    public static void setCurrent(RunEnvironment environment) {
+        current = environment;
+    }
+
+    public static RunEnvironment detect(AndroidDriver driver) {
+        String device = System.getProperty("oinkoin.device");
+        String appVersion = System.getProperty("oinkoin.app.version");
+        try {
+            if (device == null) {
+                device = shell(driver, "getprop", "ro.product.model").trim()
+                        + " (API " + shell(driver, "getprop", "ro.build.version.sdk").trim() + ")";
+            }
+            if (appVersion == null) {
+                Matcher matcher = VERSION_NAME.matcher(shell(driver, "dumpsys", "package", Constants.APP_PACKAGE));
+                appVersion = matcher.find() ? matcher.group(1) : UNKNOWN.appVersion();
+            }
+        } catch (RuntimeException e) {
+            // Shell commands are not allowed by the server: keep whatever could be determined.
+        }
+        return new RunEnvironment(
+                device == null ? UNKNOWN.device() : device,
+                appVersion == null ? UNKNOWN.appVersion() : appVersion
+        );
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.emavgl.oinkoin.tests.appium.utils;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Writes an Oinkoin JSON backup, the same document the app's {@code BackupService} creates
+ * and restores. Rows are written one at a time, so sections can be produced by iterators
+ * and never have to be held in memory as a whole.
+ */
+public class BackupJsonWriter implements Closeable {
+
+    /**
+     * The schema version of the app's database, {@code SqliteDatabase.version}. Keep the two in
+     * step when a migration is added.
+     */
+    public static final String DATABASE_VERSION = "38";
+
+    private final JsonOutput output;
+
+    public BackupJsonWriter(Appendable appendable) {
+        output = new Json().newOutput(appendable)
+                .setPrettyPrint(false)
+                .writeClassName(false);
+        output.beginObject();
+    }
+
+    public BackupJsonWriter field(String name, Object value) {
+        output.name(name).write(value);
+        return this;
+    }
+
+    public BackupJsonWriter section(String name, Iterable<? extends Map<String, ?>> rows) {
+        return section(name, rows.iterator());
+    }
+
+    public BackupJsonWriter section(String name, Iterator<? extends Map<String, ?>> rows) {
+        output.name(name).beginArray();
+        while (rows.hasNext()) {
+            output.write(rows.next());
+        }
+        output.endArray();
+        return this;
+    }
+
+    /**
+     * Writes the metadata fields the app expects next to the data sections. The creation time
+     * is passed in, so that writers of reproducible backups can derive it from their data.
+     */
+    public BackupJsonWriter metadata(long createdAt) {
+        return field("created_at", createdAt)
+                .field("package_name", Constants.APP_PACKAGE)
+                .field("version", "")
+                .field("database_version", DATABASE_VERSION);
+    }
+
+    @Override
+    public void close() {
+        output.endObject();
+        output.close();
+    }
+}
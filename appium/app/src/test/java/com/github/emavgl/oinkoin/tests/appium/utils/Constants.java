@@ -4,6 +4,7 @@ public class Constants {
     public static final String PLATFORM_NAME = "Android";
     public static final String PLATFORM_VERSION = "15";
     public static final String UDID = "your-device-id";
+    public static final String DEVICES_PROPERTY = "oinkoin.devices";
     public static final String APP_PACKAGE = "com.github.emavgl.piggybankpro";
     public static final String APP_PATH = "/path/to/your/apk/app-pro-debug.apk";
     public static final String APPIUM_SERVER_URL = "http://127.0.0.1:4723";
@@ -0,0 +1,124 @@
+package com.github.emavgl.oinkoin.tests.appium.utils;
+
+import com.github.emavgl.oinkoin.tests.appium.pages.SettingsPage;
+import io.appium.java_client.android.AndroidDriver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Loads records into the app without going through the record editor: the records are
+ * written into a backup file, pushed to the device and restored with the app's own
+ * "Restore Backup" flow. The cost is the same for ten records or ten thousand.
+ */
+public class DataSeeder {
+
+    public static final String DEVICE_DOWNLOAD_DIR = "/sdcard/Download";
+    public static final String TIMEZONE = "UTC";
+
+    private final AndroidDriver driver;
+
+    public DataSeeder(AndroidDriver driver) {
+        this.driver = driver;
+    }
+
+    public void seed(List<RecordData> records) {
+        String fileName = "seed-" + UUID.randomUUID() + ".json";
+        StringBuilder backup = new StringBuilder();
+        writeBackup(records, backup);
+
+        driver.pushFile(DEVICE_DOWNLOAD_DIR + "/" + fileName, backup.toString().getBytes(StandardCharsets.UTF_8));
+        new SettingsPage(driver).restoreBackup(fileName);
+    }
+
+    /**
+     * Restores a backup file from the host, e.g. one written by {@link SyntheticBackupGenerator}.
+     */
+    public void seed(Path backupFile) {
+        String fileName = "seed-" + UUID.randomUUID() + ".json";
+        try {
+            driver.pushFile(DEVICE_DOWNLOAD_DIR + "/" + fileName, backupFile.toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to push " + backupFile + " to the device", e);
+        }
+        new SettingsPage(driver).restoreBackup(fileName);
+    }
+
+    public static void writeBackup(List<RecordData> records, Appendable out) {
+        Map<String, Map<String, Object>> categories = new LinkedHashMap<>();
+        List<Map<String, Object>> recordRows = new ArrayList<>();
+        List<Map<String, Object>> patternRows = new ArrayList<>();
+
+        for (RecordData record : records) {
+            categories.computeIfAbsent(record.categoryType() + "/" + record.category(),
+                    key -> categoryRow(record.category(), record.categoryType()));
+            // Repeating records are restored as patterns: the app materializes them,
+            // including the first occurrence, the next time the records are loaded.
+            if (record.repeatOption() == RepeatOption.NOT_REPEAT) {
+                recordRows.add(recordRow(record));
+            } else {
+                patternRows.add(patternRow(record));
+            }
+        }
+
+        try (BackupJsonWriter writer = new BackupJsonWriter(out)) {
+            writer.section("categories", categories.values())
+                    .section("records", recordRows)
+                    .section("recurrent_record_patterns", patternRows)
+                    .section("record_tag_associations", List.of())
+                    .metadata(System.currentTimeMillis());
+        }
+    }
+
+    public static Map<String, Object> categoryRow(String name, CategoryType categoryType) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("name", name);
+        row.put("category_type", categoryTypeIndex(categoryType));
+        row.put("is_archived", 0);
+        row.put("sort_order", 0);
+        return row;
+    }
+
+    private static Map<String, Object> recordRow(RecordData record) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("title", record.name());
+        row.put("value", signedValue(record));
+        row.put("datetime", epochMillis(record));
+        row.put("timezone", TIMEZONE);
+        row.put("category_name", record.category());
+        row.put("category_type", categoryTypeIndex(record.categoryType()));
+        row.put("description", record.note());
+        return row;
+    }
+
+    private static Map<String, Object> patternRow(RecordData record) {
+        Map<String, Object> row = recordRow(record);
+        row.put("id", UUID.randomUUID().toString());
+        row.put("recurrent_period", record.repeatOption().getRecurrentPeriodIndex());
+        row.put("tags", "");
+        return row;
+    }
+
+    private static double signedValue(RecordData record) {
+        return record.categoryType() == CategoryType.EXPENSE ? -record.amount() : record.amount();
+    }
+
+    // Noon keeps the record on the same calendar day whatever the device timezone is.
+    private static long epochMillis(RecordData record) {
+        return record.date().atTime(LocalTime.NOON).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    // Index of the value in the app's CategoryType enum (expense, income).
+    public static int categoryTypeIndex(CategoryType categoryType) {
+        return categoryType == CategoryType.EXPENSE ? 0 : 1;
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.emavgl.oinkoin.tests.appium.utils;
+
+import com.github.emavgl.oinkoin.tests.appium.pages.ElementFinder;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.android.options.UiAutomator2Options;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Holds one {@link AndroidDriver} per configured device. Test threads borrow a driver
+ * for the duration of a test method and give it back afterward, so TestNG can run
+ * methods in parallel with as many threads as there are devices.
+ */
+public class DriverPool {
+
+    private static final int BASE_SYSTEM_PORT = 8200;
+
+    private final List<AndroidDriver> drivers = new ArrayList<>();
+    private final BlockingQueue<AndroidDriver> idleDrivers = new LinkedBlockingQueue<>();
+
+    public DriverPool(List<String> udids) {
+        this(udids, getAppiumServerUrl());
+    }
+
+    /**
+     * @param serverUrl the Appium server, or a {@link StandInServer} in front of it
+     */
+    public DriverPool(List<String> udids, URL serverUrl) {
+        // Session creation installs the app and takes a while: start every device at once.
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, udids.size()));
+        try {
+            List<Future<AndroidDriver>> pending = new ArrayList<>();
+            for (int i = 0; i < udids.size(); i++) {
+                String udid = udids.get(i);
+                int systemPort = BASE_SYSTEM_PORT + i;
+                pending.add(executor.submit(() -> createDriver(serverUrl, udid, systemPort)));
+            }
+            collectDrivers(pending);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for every session, including after one has failed, so that the sessions that
+     * did start can be quit instead of being left open on the Appium servers.
+     */
+    private void collectDrivers(List<Future<AndroidDriver>> pending) {
+        RuntimeException failure = null;
+        for (Future<AndroidDriver> future : pending) {
+            try {
+                AndroidDriver driver = future.get();
+                drivers.add(driver);
+                idleDrivers.add(driver);
+            } catch (ExecutionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException runtime
+                        ? runtime
+                        : new IllegalStateException("Could not start an Appium session", e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new IllegalStateException("Interrupted while starting the Appium sessions", e);
+                }
+            }
+        }
+        if (failure != null) {
+            quitAll();
+            throw failure;
+        }
+    }
+
+    /**
+     * Devices come from the comma separated {@value Constants#DEVICES_PROPERTY} system
+     * property, falling back to {@link Constants#UDID} when it is not set.
+     */
+    public static List<String> configuredDevices() {
+        String devices = System.getProperty(Constants.DEVICES_PROPERTY, "");
+        List<String> udids = Arrays.stream(devices.split(","))
+                .map(String::trim)
+                .filter(udid -> !udid.isEmpty())
+                .toList();
+        return udids.isEmpty() ? List.of(Constants.UDID) : udids;
+    }
+
+    private static AndroidDriver createDriver(URL serverUrl, String udid, int systemPort) {
+        UiAutomator2Options options = new UiAutomator2Options()
+                .setAutomationName("UiAutomator2")
+                .setPlatformName(Constants.PLATFORM_NAME)
+                .setPlatformVersion(Constants.PLATFORM_VERSION)
+                .setUdid(udid)
+                .setSystemPort(systemPort)
+                .setApp(Constants.APP_PATH)
+                .setAppPackage(Constants.APP_PACKAGE)
+                .setFullReset(true)
+                .amend("appium:settings[disableIdLocatorAutocompletion]", true)
+                .amend("appium:newCommandTimeout", 3600);
+
+        AndroidDriver driver = new AndroidDriver(serverUrl, options);
+        // No implicit wait: the page objects poll with their own deadlines, see ElementFinder.
+        driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+        return driver;
+    }
+
+    private static URL getAppiumServerUrl() {
+        try {
+            return new URL(Constants.APPIUM_SERVER_URL);
+        } catch (MalformedURLException e) {
+            throw new RuntimeException("Invalid URL for Appium server", e);
+        }
+    }
+
+    public int size() {
+        return drivers.size();
+    }
+
+    public AndroidDriver acquire() {
+        try {
+            return idleDrivers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free device", e);
+        }
+    }
+
+    public void release(AndroidDriver driver) {
+        idleDrivers.add(driver);
+    }
+
+    /**
+     * Wipes the app data and relaunches it, so the next test starts from the same state
+     * as a freshly installed app. The elements cached for the driver belong to the old app
+     * process, so they are forgotten as well.
+     */
+    public static void resetAppState(AndroidDriver driver) {
+        driver.terminateApp(Constants.APP_PACKAGE);
+        driver.executeScript("mobile: clearApp", Map.of("appId", Constants.APP_PACKAGE));
+        driver.activateApp(Constants.APP_PACKAGE);
+        ElementFinder.of(driver).invalidate();
+    }
+
+    public void quitAll() {
+        for (AndroidDriver driver : drivers) {
+            try {
+                driver.quit();
+            } catch (RuntimeException ignored) {
+                // Keep shutting down the remaining sessions.
+            }
+        }
+        drivers.clear();
+        idleDrivers.clear();
+    }
+}
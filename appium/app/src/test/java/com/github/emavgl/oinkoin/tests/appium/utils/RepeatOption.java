@@ -1,22 +1,29 @@
 package com.github.emavgl.oinkoin.tests.appium.utils;
 
 public enum RepeatOption {
-    NOT_REPEAT("Not repeat"),
-    EVERY_DAY("Every day"),
-    EVERY_WEEK("Every week"),
-    EVERY_TWO_WEEKS("Every two weeks"),
-    EVERY_MONTH("Every month"),
-    EVERY_THREE_MONTHS("Every three months"),
-    EVERY_FOUR_MONTHS("Every four months"),
-    EVERY_YEAR("Every year");
+    NOT_REPEAT("Not repeat", -1),
+    EVERY_DAY("Every day", 0),
+    EVERY_WEEK("Every week", 1),
+    EVERY_TWO_WEEKS("Every two weeks", 3),
+    EVERY_MONTH("Every month", 2),
+    EVERY_THREE_MONTHS("Every three months", 4),
+    EVERY_FOUR_MONTHS("Every four months", 5),
+    EVERY_YEAR("Every year", 6);
 
     private final String displayName;
+    // Index of the matching value in the app's RecurrentPeriod enum, as stored in backups.
+    private final int recurrentPeriodIndex;
 
-    RepeatOption(String displayName) {
+    RepeatOption(String displayName, int recurrentPeriodIndex) {
         this.displayName = displayName;
+        this.recurrentPeriodIndex = recurrentPeriodIndex;
     }
 
     public String getDisplayName() {
         return displayName;
     }
+
+    public int getRecurrentPeriodIndex() {
+        return recurrentPeriodIndex;
+    }
 }
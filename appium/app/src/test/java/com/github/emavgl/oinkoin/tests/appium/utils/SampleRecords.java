@@ -0,0 +1,35 @@
+package com.github.emavgl.oinkoin.tests.appium.utils;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SampleRecords {
+
+    private static final String[] EXPENSE_CATEGORIES = {"Food", "House", "Transport"};
+
+    private SampleRecords() {
+    }
+
+    /**
+     * Spreads {@code count} non repeating records evenly over the days between {@code from} and
+     * {@code to} (both inclusive), alternating between a few default categories.
+     */
+    public static List<RecordData> spreadOver(int count, LocalDate from, LocalDate to) {
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        List<RecordData> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate date = from.plusDays(i % days);
+            if (i % 10 == 0) {
+                records.add(new RecordData("Salary " + i, 100.0 + i % 50, CategoryType.INCOME, "Salary",
+                        date, RepeatOption.NOT_REPEAT, "Sample record"));
+            } else {
+                records.add(new RecordData("Expense " + i, 1.0 + i % 100, CategoryType.EXPENSE,
+                        EXPENSE_CATEGORIES[i % EXPENSE_CATEGORIES.length], date, RepeatOption.NOT_REPEAT,
+                        "Sample record"));
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,228 @@
+package com.github.emavgl.oinkoin.tests.appium.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.json.Json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A local stand-in for the Appium server that the drivers talk to instead of
+ * {@link Constants#APPIUM_SERVER_URL}.
+ * <ul>
+ *     <li>{@link Mode#RECORD} forwards every W3C WebDriver request to the real server and
+ *     appends the request and its response to a recording file.</li>
+ *     <li>{@link Mode#REPLAY} answers from a recording, without a server or a device. Useful to
+ *     profile the page objects themselves and to run the suite on plain CI machines.</li>
+ * </ul>
+ * Requests are matched on method and path, which carry the session and element ids, and the
+ * responses for the same endpoint are replayed in the recorded order; the last one is repeated
+ * once they run out. Bodies are ignored because they hold the dates and seed file names of the
+ * run that recorded them. The only exception is session creation, matched on its capabilities
+ * so that parallel sessions get back the one recorded for their device. Replaying therefore
+ * requires the tests to walk through the same steps as when they were recorded.
+ * <p>
+ * Enabled with {@code -Poinkoin.standin=record|replay}; the recording file is
+ * {@code oinkoin.standin.file} (build/recordings/session.jsonl by default).
+ */
+public class StandInServer {
+
+    public enum Mode {
+        OFF, RECORD, REPLAY
+    }
+
+    public static final String MODE_PROPERTY = "oinkoin.standin";
+    public static final String FILE_PROPERTY = "oinkoin.standin.file";
+
+    private static final Json JSON = new Json();
+
+    private final Mode mode;
+    private final Path recording;
+    private final URI upstream;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final Map<String, Deque<Map<String, Object>>> responses = new HashMap<>();
+    private final Map<String, Map<String, Object>> lastResponses = new HashMap<>();
+    private Writer recordingWriter;
+
+    public StandInServer(Mode mode, Path recording, URI upstream) {
+        this.mode = mode;
+        this.recording = recording;
+        this.upstream = upstream;
+        try {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to start the stand-in server", e);
+        }
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Creates a server from the system properties, or returns null when the stand-in is off.
+     */
+    public static StandInServer fromSystemProperties() {
+        Mode mode = Mode.valueOf(System.getProperty(MODE_PROPERTY, "off").toUpperCase());
+        if (mode == Mode.OFF) {
+            return null;
+        }
+        Path recording = Path.of(System.getProperty(FILE_PROPERTY, "build/recordings/session.jsonl"));
+        return new StandInServer(mode, recording, URI.create(Constants.APPIUM_SERVER_URL));
+    }
+
+    public void start() {
+        try {
+            if (mode == Mode.RECORD) {
+                Files.createDirectories(recording.toAbsolutePath().getParent());
+                recordingWriter = Files.newBufferedWriter(recording, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            } else {
+                loadRecording();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the recording " + recording, e);
+        }
+        server.start();
+    }
+
+    public URL url() {
+        try {
+            return new URL("http://127.0.0.1:" + server.getAddress().getPort());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        if (recordingWriter != null) {
+            try {
+                recordingWriter.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to close the recording " + recording, e);
+            }
+        }
+    }
+
+    private void loadRecording() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(recording, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Map<String, Object> exchange = JSON.toType(line, Json.MAP_TYPE);
+                String key = key((String) exchange.get("method"), (String) exchange.get("path"), (String) exchange.get("request"));
+                responses.computeIfAbsent(key, k -> new ArrayDeque<>()).add(exchange);
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getRawPath();
+            String request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            }
+
+            Map<String, Object> response;
+            try {
+                response = mode == Mode.RECORD ? forward(method, path, request) : replay(method, path, request);
+            } catch (RuntimeException e) {
+                // Answer with a W3C error, otherwise the client only sees a dropped connection.
+                response = Map.of("status", 500, "response",
+                        JSON.toJson(Map.of("value", Map.of("error", "unknown error", "message", String.valueOf(e)))));
+            }
+
+            byte[] body = ((String) response.get("response")).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(((Number) response.get("status")).intValue(), body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Map<String, Object> forward(String method, String path, String request) {
+        HttpRequest.BodyPublisher publisher = request.isEmpty()
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(request);
+        HttpRequest upstreamRequest = HttpRequest.newBuilder(upstream.resolve(path))
+                .method(method, publisher)
+                .header("Content-Type", "application/json; charset=utf-8")
+                .build();
+        HttpResponse<String> upstreamResponse;
+        try {
+            upstreamResponse = client.send(upstreamRequest, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to reach " + upstream, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while forwarding " + method + " " + path, e);
+        }
+
+        Map<String, Object> exchange = new LinkedHashMap<>();
+        exchange.put("method", method);
+        exchange.put("path", path);
+        exchange.put("request", request);
+        exchange.put("status", upstreamResponse.statusCode());
+        exchange.put("response", upstreamResponse.body());
+        synchronized (this) {
+            try {
+                recordingWriter.write(JSON.toJson(exchange).replace("\n", "") + "\n");
+                recordingWriter.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to write the recording " + recording, e);
+            }
+        }
+        return exchange;
+    }
+
+    private synchronized Map<String, Object> replay(String method, String path, String request) {
+        String key = key(method, path, request);
+        Deque<Map<String, Object>> recorded = responses.get(key);
+        if (recorded != null && !recorded.isEmpty()) {
+            Map<String, Object> exchange = recorded.poll();
+            lastResponses.put(key, exchange);
+            return exchange;
+        }
+        Map<String, Object> last = lastResponses.get(key);
+        if (last != null) {
+            return last;
+        }
+        throw new IllegalStateException("No recorded response for " + method + " " + path + " " + request);
+    }
+
+    private static String key(String method, String path, String request) {
+        String key = method + " " + path;
+        return path.equals("/session") ? key + "\n" + request : key;
+    }
+}
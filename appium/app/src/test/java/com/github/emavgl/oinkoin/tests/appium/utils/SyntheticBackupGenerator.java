@@ -0,0 +1,432 @@
+package com.github.emavgl.oinkoin.tests.appium.utils;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Writes large, realistic Oinkoin backups for load and performance tests.
+ * <p>
+ * Records are generated one at a time while the file is written, so memory use does not
+ * depend on the number of records. Every record is derived only from the seed and its
+ * index, which makes the output reproducible and lets the tag associations be generated
+ * in a second pass without keeping the records around.
+ * <p>
+ * Recurrent patterns are written with their last update and their end date set to the end
+ * of the range, so restoring the file does not expand them into additional records. The
+ * backup is dated the day after the range, so the whole file is reproducible.
+ */
+public class SyntheticBackupGenerator {
+
+    private static final String[] TIMEZONES = {"Europe/Rome", "America/New_York", "Asia/Tokyo", "Europe/London"};
+    private static final String[] TAGS = {
+            "work", "family", "vacation", "weekend", "gift", "online", "cash", "kids", "car", "health",
+            "friends", "home", "pets", "sport", "subscription", "travel", "lunch", "coffee", "fuel", "tax"
+    };
+
+    private static final WeightedCategory[] EXPENSE_CATEGORIES = {
+            new WeightedCategory("Food", 30, 25, new String[]{"Groceries", "Supermarket", "Bakery", "Lunch"}),
+            new WeightedCategory("Transport", 15, 15, new String[]{"Train ticket", "Fuel", "Bus pass", "Taxi"}),
+            new WeightedCategory("House", 12, 120, new String[]{"Rent", "Electricity", "Gas bill", "Furniture"}),
+            new WeightedCategory("Shopping", 10, 45, new String[]{"Clothes", "Shoes", "Electronics"}),
+            new WeightedCategory("Health", 6, 35, new String[]{"Pharmacy", "Dentist", "Gym"}),
+            new WeightedCategory("Leisure", 12, 30, new String[]{"Cinema", "Restaurant", "Concert", "Books"}),
+            new WeightedCategory("Bills", 8, 60, new String[]{"Phone", "Internet", "Insurance"}),
+    };
+    private static final WeightedCategory[] INCOME_CATEGORIES = {
+            new WeightedCategory("Salary", 70, 1800, new String[]{"Salary", "Bonus"}),
+            new WeightedCategory("Gifts", 20, 80, new String[]{"Birthday gift", "Present"}),
+            new WeightedCategory("Sales", 10, 150, new String[]{"Second hand sale", "Refund"}),
+    };
+
+    private static final WalletTemplate[] WALLETS = {
+            new WalletTemplate("Bank account", "EUR", 1.0, 2),
+            new WalletTemplate("Cash", "EUR", 1.0, 2),
+            new WalletTemplate("US account", "USD", 1.0, 2),
+            new WalletTemplate("Savings", "GBP", 1.0, 2),
+            new WalletTemplate("Japan travel", "JPY", 150.0, 0),
+    };
+
+    /**
+     * Eight years of history. The range is fixed rather than relative to today, so that a
+     * seed always gives the same backup and baselines measured on it stay comparable.
+     */
+    public static final LocalDate DEFAULT_FROM = LocalDate.of(2017, 1, 1);
+    public static final LocalDate DEFAULT_TO = LocalDate.of(2024, 12, 31);
+
+    private final long seed;
+    private final long recordCount;
+    private final int profileCount;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    public SyntheticBackupGenerator(long seed, long recordCount) {
+        this(seed, recordCount, 2, DEFAULT_FROM, DEFAULT_TO);
+    }
+
+    public SyntheticBackupGenerator(long seed, long recordCount, int profileCount, LocalDate from, LocalDate to) {
+        if (profileCount < 1) {
+            throw new IllegalArgumentException("At least one profile is required");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The range ends before it starts: " + from + " to " + to);
+        }
+        this.seed = seed;
+        this.recordCount = recordCount;
+        this.profileCount = profileCount;
+        this.from = from;
+        this.to = to;
+    }
+
+    public void write(Path path) {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            write(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the backup " + path, e);
+        }
+    }
+
+    public void write(Appendable out) {
+        try (BackupJsonWriter writer = new BackupJsonWriter(out)) {
+            writer.section("profiles", profiles())
+                    .section("wallets", wallets())
+                    .section("categories", categories())
+                    .section("records", records())
+                    .section("record_tag_associations", tagAssociations())
+                    .section("recurrent_record_patterns", recurrentPatterns())
+                    .section("budgets", budgets())
+                    .field("user_currencies", userCurrencies())
+                    .metadata(to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    private List<Map<String, Object>> profiles() {
+        List<Map<String, Object>> profiles = new ArrayList<>();
+        for (int p = 0; p < profileCount; p++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", p + 1);
+            row.put("name", p == 0 ? "Default Profile" : "Profile " + (p + 1));
+            row.put("is_default", p == 0 ? 1 : 0);
+            profiles.add(row);
+        }
+        return profiles;
+    }
+
+    private List<Map<String, Object>> wallets() {
+        List<Map<String, Object>> wallets = new ArrayList<>();
+        for (int p = 0; p < profileCount; p++) {
+            for (int w = 0; w < WALLETS.length; w++) {
+                WalletTemplate template = WALLETS[w];
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("id", walletId(p, w));
+                row.put("name", template.name());
+                row.put("initial_amount", 0.0);
+                row.put("is_archived", 0);
+                row.put("is_default", p == 0 && w == 0 ? 1 : 0);
+                row.put("is_predefined", w == 0 ? 1 : 0);
+                row.put("sort_order", w);
+                row.put("currency", template.currency());
+                row.put("profile_id", p + 1);
+                wallets.add(row);
+            }
+        }
+        return wallets;
+    }
+
+    private static int walletId(int profileIndex, int walletIndex) {
+        return profileIndex * WALLETS.length + walletIndex + 1;
+    }
+
+    private static List<Map<String, Object>> categories() {
+        List<Map<String, Object>> categories = new ArrayList<>();
+        for (WeightedCategory category : EXPENSE_CATEGORIES) {
+            categories.add(DataSeeder.categoryRow(category.name(), CategoryType.EXPENSE));
+        }
+        for (WeightedCategory category : INCOME_CATEGORIES) {
+            categories.add(DataSeeder.categoryRow(category.name(), CategoryType.INCOME));
+        }
+        return categories;
+    }
+
+    private Iterator<Map<String, Object>> records() {
+        return new Iterator<>() {
+            private long index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < recordCount;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return generateRecord(index++).row();
+            }
+        };
+    }
+
+    private Iterator<Map<String, Object>> tagAssociations() {
+        return new Iterator<>() {
+            private long index = 0;
+            private GeneratedRecord current;
+            private int tag = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || tag >= current.tags().size()) {
+                    if (index >= recordCount) {
+                        return false;
+                    }
+                    current = generateRecord(index++);
+                    tag = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("record_id", current.row().get("id"));
+                row.put("tag_name", current.tags().get(tag++));
+                return row;
+            }
+        };
+    }
+
+    private List<Map<String, Object>> recurrentPatterns() {
+        SplittableRandom random = new SplittableRandom(seed);
+        long lastUpdate = to.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        List<Map<String, Object>> patterns = new ArrayList<>();
+        for (int p = 0; p < profileCount; p++) {
+            for (RepeatOption option : RepeatOption.values()) {
+                if (option == RepeatOption.NOT_REPEAT) {
+                    continue;
+                }
+                boolean income = option == RepeatOption.EVERY_MONTH;
+                WeightedCategory category = income ? INCOME_CATEGORIES[0] : pick(random, EXPENSE_CATEGORIES);
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("id", new UUID(random.nextLong(), random.nextLong()).toString());
+                row.put("title", category.titles()[0] + " (" + option.getDisplayName().toLowerCase() + ")");
+                row.put("value", income ? category.typicalAmount() : -category.typicalAmount());
+                row.put("datetime", from.atTime(9, 0).toInstant(ZoneOffset.UTC).toEpochMilli());
+                row.put("timezone", TIMEZONES[p % TIMEZONES.length]);
+                row.put("category_name", category.name());
+                row.put("category_type", DataSeeder.categoryTypeIndex(income ? CategoryType.INCOME : CategoryType.EXPENSE));
+                row.put("description", null);
+                row.put("recurrent_period", option.getRecurrentPeriodIndex());
+                row.put("last_update", lastUpdate);
+                // Ends with the range, so that restoring the backup later adds no records
+                // between the end of the range and the day of the restore.
+                row.put("end_date", lastUpdate);
+                row.put("tags", "");
+                row.put("wallet_id", walletId(p, 0));
+                row.put("profile_id", p + 1);
+                patterns.add(row);
+            }
+        }
+        return patterns;
+    }
+
+    // A monthly budget per expense category and a yearly one over all spending, for every profile.
+    // The budgets screen computes their progress from the whole history of matching records.
+    private List<Map<String, Object>> budgets() {
+        long startDate = from.withDayOfMonth(1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        List<Map<String, Object>> budgets = new ArrayList<>();
+        for (int p = 0; p < profileCount; p++) {
+            for (WeightedCategory category : EXPENSE_CATEGORIES) {
+                budgets.add(budgetRow(category.name(), category.typicalAmount() * 10, RepeatOption.EVERY_MONTH,
+                        List.of(category.name()), startDate, p));
+            }
+            budgets.add(budgetRow("Yearly spending", 30_000.0, RepeatOption.EVERY_YEAR, List.of(), startDate, p));
+        }
+        return budgets;
+    }
+
+    private Map<String, Object> budgetRow(String name, double target, RepeatOption period, List<String> categories,
+                                          long startDate, int profileIndex) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("name", name);
+        row.put("target_amount", target);
+        row.put("budget_type", 0);
+        row.put("start_date", startDate);
+        row.put("end_date", null);
+        row.put("recurrent_period", period.getRecurrentPeriodIndex());
+        row.put("custom_interval_value", null);
+        row.put("custom_interval_unit", null);
+        row.put("category_names", toCompactJson(categories));
+        row.put("tags", "[]");
+        row.put("wallet_ids", "[]");
+        row.put("category_tag_or_logic", 1);
+        row.put("tag_or_logic", 0);
+        row.put("is_archived", 0);
+        row.put("profile_id", profileIndex + 1);
+        row.put("timezone", TIMEZONES[profileIndex % TIMEZONES.length]);
+        return row;
+    }
+
+    private String userCurrencies() {
+        List<Map<String, Object>> currencies = new ArrayList<>();
+        for (String[] currency : new String[][]{{"EUR", "1.0"}, {"USD", "0.92"}, {"GBP", "1.17"}, {"JPY", "0.0062"}}) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("isoCode", currency[0]);
+            row.put("ratioToMain", Double.parseDouble(currency[1]));
+            currencies.add(row);
+        }
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("mainCurrency", "EUR");
+        config.put("currencies", currencies);
+
+        return toCompactJson(config);
+    }
+
+    private static String toCompactJson(Object value) {
+        StringBuilder json = new StringBuilder();
+        new Json().newOutput(json).setPrettyPrint(false).write(value);
+        return json.toString();
+    }
+
+    GeneratedRecord generateRecord(long index) {
+        SplittableRandom random = new SplittableRandom(seed ^ (index * 0x9E3779B97F4A7C15L));
+
+        // Most history belongs to the default profile, like for a typical user.
+        int profile = profileCount == 1 || random.nextInt(100) < 80 ? 0 : 1 + random.nextInt(profileCount - 1);
+        int wallet = pickWallet(random);
+        WalletTemplate walletTemplate = WALLETS[wallet];
+
+        // Records are laid out chronologically, with some jitter inside the day.
+        long fromMillis = from.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        long span = to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli() - fromMillis;
+        long datetime = fromMillis + (long) (span * ((index + random.nextDouble()) / Math.max(recordCount, 1)));
+
+        String timezone = random.nextInt(100) < 95 ? TIMEZONES[profile % TIMEZONES.length] : pick(random, TIMEZONES);
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", index + 1);
+        int kind = random.nextInt(100);
+        if (kind < 2 && WALLETS.length > 1) {
+            int destination = (wallet + 1 + random.nextInt(WALLETS.length - 1)) % WALLETS.length;
+            double value = amount(random, 200, walletTemplate);
+            row.put("title", "Transfer");
+            row.put("value", -value);
+            row.put("category_name", null);
+            row.put("category_type", null);
+            row.put("transfer_wallet_id", walletId(profile, destination));
+            row.put("transfer_value", round(value / walletTemplate.scale() * WALLETS[destination].scale(),
+                    WALLETS[destination].decimals()));
+        } else {
+            boolean income = kind < 12;
+            WeightedCategory category = pick(random, income ? INCOME_CATEGORIES : EXPENSE_CATEGORIES);
+            double value = amount(random, category.typicalAmount(), walletTemplate);
+            row.put("title", category.titles()[random.nextInt(category.titles().length)]);
+            row.put("value", income ? value : -value);
+            row.put("category_name", category.name());
+            row.put("category_type", DataSeeder.categoryTypeIndex(income ? CategoryType.INCOME : CategoryType.EXPENSE));
+        }
+        row.put("datetime", datetime);
+        row.put("timezone", timezone);
+        row.put("description", random.nextInt(100) < 30 ? "Note " + random.nextInt(1000) : null);
+        row.put("recurrence_id", null);
+        row.put("wallet_id", walletId(profile, wallet));
+        row.put("profile_id", profile + 1);
+
+        List<String> tags = new ArrayList<>();
+        int tagCount = random.nextInt(100) < 60 ? 0 : 1 + random.nextInt(3);
+        while (tags.size() < tagCount) {
+            // Squaring skews the choice toward the first tags, so a few tags are very common.
+            double skewed = random.nextDouble();
+            String tag = TAGS[(int) (skewed * skewed * TAGS.length)];
+            if (!tags.contains(tag)) {
+                tags.add(tag);
+            }
+        }
+        return new GeneratedRecord(row, tags);
+    }
+
+    // The first wallet holds most records, the others are used occasionally.
+    private static int pickWallet(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        if (roll < 60) {
+            return 0;
+        }
+        return 1 + random.nextInt(WALLETS.length - 1);
+    }
+
+    // Log-normal amounts around the typical value, converted to the wallet currency.
+    private static double amount(SplittableRandom random, double typical, WalletTemplate wallet) {
+        double gaussian = random.nextDouble() + random.nextDouble() + random.nextDouble() - 1.5;
+        double value = typical * Math.exp(gaussian * 0.8) * wallet.scale();
+        return Math.max(round(value, wallet.decimals()), wallet.decimals() == 0 ? 1 : 0.01);
+    }
+
+    private static double round(double value, int decimals) {
+        double factor = Math.pow(10, decimals);
+        return Math.round(value * factor) / factor;
+    }
+
+    private static WeightedCategory pick(SplittableRandom random, WeightedCategory[] categories) {
+        int total = 0;
+        for (WeightedCategory category : categories) {
+            total += category.weight();
+        }
+        int roll = random.nextInt(total);
+        for (WeightedCategory category : categories) {
+            roll -= category.weight();
+            if (roll < 0) {
+                return category;
+            }
+        }
+        return categories[categories.length - 1];
+    }
+
+    private static <T> T pick(SplittableRandom random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    record GeneratedRecord(Map<String, Object> row, List<String> tags) {
+    }
+
+    private record WeightedCategory(String name, int weight, double typicalAmount, String[] titles) {
+    }
+
+    private record WalletTemplate(String name, String currency, double scale, int decimals) {
+    }
+
+    /**
+     * Usage: {@code SyntheticBackupGenerator <output file> <records> [seed] [from] [to]}, with
+     * the dates as {@code yyyy-MM-dd}. The range defaults to {@link #DEFAULT_FROM} to
+     * {@link #DEFAULT_TO}.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticBackupGenerator <output file> <records> [seed] [from] [to]");
+            System.exit(1);
+        }
+        Path output = Path.of(args[0]);
+        long records = Long.parseLong(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        LocalDate from = args.length > 3 ? LocalDate.parse(args[3]) : DEFAULT_FROM;
+        LocalDate to = args.length > 4 ? LocalDate.parse(args[4]) : DEFAULT_TO;
+        new SyntheticBackupGenerator(seed, records, 2, from, to).write(output);
+        System.out.printf("Wrote %d records from %s to %s to %s%n", records, from, to, output.toAbsolutePath());
+    }
+}
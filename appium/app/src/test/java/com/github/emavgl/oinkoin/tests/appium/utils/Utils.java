@@ -1,7 +1,13 @@
 package com.github.emavgl.oinkoin.tests.appium.utils;
 
+import io.appium.java_client.android.AndroidDriver;
+
+import java.text.NumberFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class Utils {
     public static String capitalizeFirstLetter(String input) {
@@ -16,6 +22,18 @@ public class Utils {
         return String.format("%s %s - %s %s, %s", startDateMonth, startDate.getDayOfMonth(), endDateMonth, endDate.getDayOfMonth(), endDate.getYear());
     }
 
+    // from ("Groceries", EXPENSE, 1250.5) to "Groceries\n-1,250.50", the label of a record row
+    public static String generateRecordAccessibilityId(String name, CategoryType categoryType, double amount) {
+        String sign = categoryType.getDisplayName().equals("Expense") ? "-" : "";
+
+        NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.US);
+        numberFormat.setMinimumFractionDigits(2);
+        numberFormat.setMaximumFractionDigits(2);
+        String formattedAmount = numberFormat.format(amount);
+
+        return String.format(Locale.US, "%s\n%s%s", name, sign, formattedAmount);
+    }
+
     // from "11/30/2024\nEvery day" to LocalDate (11/30/2024)
     public static LocalDate extractDate(String input) {
         String dateString = input.split("\n")[0];
@@ -36,4 +54,11 @@ public class Utils {
         }
         return RepeatOption.NOT_REPEAT;
     }
+
+    // Runs an adb shell command on the device. The Appium server must be started with
+    // --allow-insecure adb_shell (or --relaxed-security).
+    public static String shell(AndroidDriver driver, String command, String... args) {
+        Object output = driver.executeScript("mobile: shell", Map.of("command", command, "args", List.of(args)));
+        return output == null ? "" : output.toString();
+    }
 }
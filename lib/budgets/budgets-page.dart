@@ -17,6 +17,7 @@ import 'package:piggybank/premium/splash-screen.dart';
 import 'package:piggybank/premium/util-widgets.dart';
 import 'package:piggybank/records/components/custom_interval_dialog.dart';
 import 'package:piggybank/records/components/filter_modal_content.dart';
+import 'package:piggybank/services/database/database-change.dart';
 import 'package:piggybank/services/database/database-interface.dart';
 import 'package:piggybank/services/profile-service.dart';
 import 'package:piggybank/services/service-config.dart';
@@ -168,20 +169,40 @@ class BudgetsPage extends StatefulWidget {
 }
 
 class BudgetsPageState extends State<BudgetsPage> {
-  final DatabaseInterface _database = ServiceConfig.database;
+  final DatabaseInterface _database = ServiceConfig.cachedDatabase;
   List<Budget> _budgets = [];
   List<Record> _records = [];
   bool _showArchived = false;
   bool _loading = true;
 
+  // Whether budgets or records changed since they were loaded, and for
+  // which profile they were loaded. Tab changes reload only then.
+  late final StreamSubscription<DatabaseChange> _changes;
+  bool _stale = false;
+  int? _loadedProfileId;
+
   @override
   void initState() {
     super.initState();
+    _changes = ServiceConfig.cachedDatabase.changes.listen((change) {
+      if (change.touches(DatabaseEntity.budgets) ||
+          change.touches(DatabaseEntity.records)) {
+        _stale = true;
+      }
+    });
     _loadData();
   }
 
+  @override
+  void dispose() {
+    _changes.cancel();
+    super.dispose();
+  }
+
   Future<void> _loadData() async {
     final profileId = ProfileService.instance.activeProfileId;
+    _stale = false;
+    _loadedProfileId = profileId;
     final budgets = await _database.getBudgets(profileId: profileId);
     final records = (await _database.getAllRecords(profileId: profileId))
         .whereType<Record>()
@@ -194,7 +215,13 @@ class BudgetsPageState extends State<BudgetsPage> {
     });
   }
 
-  Future<void> onTabChange() => _loadData();
+  Future<void> onTabChange() async {
+    if (!_stale &&
+        _loadedProfileId == ProfileService.instance.activeProfileId) {
+      return;
+    }
+    await _loadData();
+  }
 
   Future<void> _createBudget() async {
     final created = await Navigator.push<Budget>(
@@ -461,7 +488,7 @@ class BudgetDetailPage extends StatefulWidget {
 }
 
 class _BudgetDetailPageState extends State<BudgetDetailPage> {
-  final DatabaseInterface _database = ServiceConfig.database;
+  final DatabaseInterface _database = ServiceConfig.cachedDatabase;
   List<Record> _records = [];
   Map<int, String?> _walletCurrencyMap = {};
   Map<int, Wallet> _walletMap = {};
@@ -242,6 +242,23 @@ tz.Location getLocation(String timeZoneName) {
   }
 }
 
+/// Minutes since the epoch of the wall-clock time shown by [dateTime],
+/// ignoring its offset: 2024-03-31 02:30 maps to the same key whether it is
+/// a local, UTC or TZDateTime. Seconds are truncated.
+int wallClockMinuteKey(DateTime dateTime) {
+  return DateTime.utc(dateTime.year, dateTime.month, dateTime.day,
+              dateTime.hour, dateTime.minute)
+          .millisecondsSinceEpoch ~/
+      Duration.millisecondsPerMinute;
+}
+
+/// Wall-clock minute key of [utcDateTime] as seen in [timeZoneName], the
+/// value stored in records.local_minute so that interval queries can compare
+/// local dates in SQL.
+int localMinuteKey(DateTime utcDateTime, String timeZoneName) {
+  return wallClockMinuteKey(createTzDateTime(utcDateTime, timeZoneName));
+}
+
 // Helper for last day (handles the "31st" issue)
 int lastDayOf(int year, int month) => DateTime(year, month + 1, 0).day;
 
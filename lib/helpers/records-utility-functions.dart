@@ -26,10 +26,13 @@ List<RecordsPerDay> groupRecordsByDay(List<Record?> records) {
   Map<DateTime, List<Record?>> movementsGroups = {};
 
   // Iterate over each record and group them by date (year, month, day).
+  // Record.dateTime converts to the record's time zone on every call, so it
+  // is read once per record and the sort below compares the instants.
   for (var record in records) {
     if (record != null) {
-      DateTime dateKey = DateTime(
-          record.dateTime.year, record.dateTime.month, record.dateTime.day);
+      final dateTime = record.dateTime;
+      DateTime dateKey =
+          DateTime(dateTime.year, dateTime.month, dateTime.day);
 
       if (!movementsGroups.containsKey(dateKey)) {
         movementsGroups[dateKey] = [];
@@ -44,7 +47,7 @@ List<RecordsPerDay> groupRecordsByDay(List<Record?> records) {
     if (groupedMovements.isNotEmpty) {
       groupedMovements.sort((a, b) {
         if (a == null || b == null) return 0;
-        final timeCmp = b.dateTime.compareTo(a.dateTime);
+        final timeCmp = b.utcDateTime.compareTo(a.utcDateTime);
         if (timeCmp != 0) return timeCmp;
         return (b.id ?? 0).compareTo(a.id ?? 0);
       });
@@ -540,6 +543,41 @@ RecordsTotalResult computeTotalInCurrency(
   return RecordsTotalResult(total, targetCurrency);
 }
 
+/// [computeConvertedTotal] of the records whose [buildCurrencyBreakdown] is
+/// [breakdown], for records summed on a statistics worker.
+RecordsTotalResult convertedTotalOfBreakdown(Map<String, double> breakdown) {
+  if (breakdown.isEmpty) return const RecordsTotalResult(0.0, null);
+  final currencies = breakdown.keys.where((c) => c.isNotEmpty).toSet();
+  final defaultCurrency = getDefaultCurrency();
+  final rawTotal = breakdown.values.fold<double>(0.0, (sum, v) => sum + v);
+
+  if (currencies.isEmpty) {
+    final currency = (defaultCurrency != null && defaultCurrency.isNotEmpty)
+        ? defaultCurrency
+        : null;
+    return RecordsTotalResult(rawTotal, currency);
+  }
+  if (defaultCurrency == null) {
+    return RecordsTotalResult(
+        rawTotal, currencies.length == 1 ? currencies.first : null);
+  }
+  if (currencies.length == 1 && currencies.first == defaultCurrency) {
+    return RecordsTotalResult(rawTotal, defaultCurrency);
+  }
+  return totalOfBreakdownInCurrency(breakdown, defaultCurrency);
+}
+
+/// [computeTotalInCurrency] of the records whose [buildCurrencyBreakdown] is
+/// [breakdown].
+RecordsTotalResult totalOfBreakdownInCurrency(
+    Map<String, double> breakdown, String targetCurrency) {
+  final total = _convertAmountsToDefaultCurrency(
+      breakdown.entries.map((e) => _CurrencyAmount(e.key, e.value)),
+      targetCurrency,
+      getConversionRates());
+  return RecordsTotalResult(total, targetCurrency);
+}
+
 /// Formats [value] with currency symbol, position, and locale-appropriate
 /// separators using the customized number format.
 ///
@@ -799,19 +837,31 @@ class _CurrencyAmount {
 
 /// Returns stored currency conversion rates as a Map<String, double>.
 /// Keys are in "FROM_TO" format (e.g. "USD_EUR").
+///
+/// Statistics convert every record, so the rates decoded from the preference
+/// are kept until the stored string changes.
 Map<String, double> getConversionRates() {
   final prefs = ServiceConfig.sharedPreferences;
   if (prefs == null) return {};
   final raw = prefs.getString(PreferencesKeys.currencyConversionRates);
   if (raw == null || raw.isEmpty) return {};
+  if (raw == _decodedRatesSource) return _decodedRates;
+  Map<String, double> rates;
   try {
     final decoded = jsonDecode(raw) as Map<String, dynamic>;
-    return decoded.map((k, v) => MapEntry(k, (v as num).toDouble()));
+    rates = Map.unmodifiable(
+        decoded.map((k, v) => MapEntry(k, (v as num).toDouble())));
   } catch (_) {
-    return {};
+    rates = const {};
   }
+  _decodedRatesSource = raw;
+  _decodedRates = rates;
+  return rates;
 }
 
+String? _decodedRatesSource;
+Map<String, double> _decodedRates = const {};
+
 /// Returns whether the currency symbol should be shown next to amounts.
 bool getShowCurrencySymbol() {
   final prefs = ServiceConfig.sharedPreferences;
@@ -831,8 +881,20 @@ String? getDefaultCurrency() {
 /// Converts [amount] from [fromCurrency] to [toCurrency] using stored rates.
 /// Returns null if no conversion rate is available.
 double? convertAmount(double amount, String fromCurrency, String toCurrency) {
+  return convertAmountWithRates(amount, fromCurrency, toCurrency,
+      getConversionRates(), getDefaultCurrency());
+}
+
+/// [convertAmount] with the given [rates] and [defaultCurrency] instead of
+/// the stored ones, for isolates that cannot read the preferences.
+double? convertAmountWithRates(
+  double amount,
+  String fromCurrency,
+  String toCurrency,
+  Map<String, double> rates,
+  String? defaultCurrency,
+) {
   if (fromCurrency == toCurrency) return amount;
-  final rates = getConversionRates();
   // Direct rate: FROM_TO
   final directRate = rates['${fromCurrency}_$toCurrency'];
   if (directRate != null) return amount * directRate;
@@ -840,7 +902,6 @@ double? convertAmount(double amount, String fromCurrency, String toCurrency) {
   final inverseRate = rates['${toCurrency}_$fromCurrency'];
   if (inverseRate != null && inverseRate != 0) return amount / inverseRate;
   // Via default currency
-  final defaultCurrency = getDefaultCurrency();
   if (defaultCurrency != null &&
       defaultCurrency != fromCurrency &&
       defaultCurrency != toCurrency) {
@@ -0,0 +1,21 @@
+class BackupImportProgress {
+  /// How far a backup restore has got, reported after each batch of records
+  /// is written.
+
+  /// Records of the backup already in the database, including those written
+  /// by an earlier attempt that this restore resumes.
+  final int recordsDone;
+  final int totalRecords;
+
+  /// Records written per second by this attempt so far.
+  final double recordsPerSecond;
+
+  const BackupImportProgress(
+      this.recordsDone, this.totalRecords, this.recordsPerSecond);
+
+  /// Share of the records written, from 0 to 1.
+  double get fraction =>
+      totalRecords == 0 ? 1.0 : (recordsDone / totalRecords).clamp(0.0, 1.0);
+
+  int get percent => (fraction * 100).floor();
+}
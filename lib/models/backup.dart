@@ -94,22 +94,8 @@ class Backup extends Model {
     // Step 2: load records (wallet_id is kept as-is for now; remapping happens in BackupService)
     final recordMaps = map["records"] as List? ?? const [];
     var records = List.generate(recordMaps.length, (i) {
-      Map<String, dynamic> currentRowMap =
-          Map<String, dynamic>.from(recordMaps[i]);
-      String? categoryName = currentRowMap["category_name"];
-      if (categoryName == null || currentRowMap["category_type"] == null) {
-        currentRowMap["category"] = null;
-      } else {
-        CategoryType categoryType =
-            CategoryType.values[currentRowMap["category_type"]];
-        Category matchingCategory = categories.firstWhere(
-            (element) =>
-                element.categoryType == categoryType &&
-                element.name == categoryName,
-            orElse: () => throw Exception("Category not found"));
-        currentRowMap["category"] = matchingCategory;
-      }
-      return Record.fromMap(currentRowMap);
+      return recordFromMap(
+          Map<String, dynamic>.from(recordMaps[i]), categories);
     });
 
     // Step 3: load recurrent record patterns. This key was introduced after
@@ -168,6 +154,27 @@ class Backup extends Model {
         preferences: preferences);
   }
 
+  /// Builds a record of the backup, resolving its category among
+  /// [categories]. Throws if the record names a category the backup does
+  /// not contain.
+  static Record recordFromMap(
+      Map<String, dynamic> currentRowMap, List<Category?> categories) {
+    String? categoryName = currentRowMap["category_name"];
+    if (categoryName == null || currentRowMap["category_type"] == null) {
+      currentRowMap["category"] = null;
+    } else {
+      CategoryType categoryType =
+          CategoryType.values[currentRowMap["category_type"]];
+      Category? matchingCategory = categories.firstWhere(
+          (element) =>
+              element!.categoryType == categoryType &&
+              element.name == categoryName,
+          orElse: () => throw Exception("Category not found"));
+      currentRowMap["category"] = matchingCategory;
+    }
+    return Record.fromMap(currentRowMap);
+  }
+
   static Map<String, dynamic> _preferencesFromMap(Object? rawPreferences) {
     if (rawPreferences is! Map) return {};
     final preferences = <String, dynamic>{};
@@ -0,0 +1,30 @@
+import 'package:piggybank/models/record.dart';
+
+class RecordPageCursor {
+  /// Position of the last record of a page, in the order the record list is
+  /// read: local wall-clock minute (records.local_minute), then id, both
+  /// descending. The next page starts right after it.
+
+  final int localMinute;
+  final int id;
+
+  const RecordPageCursor(this.localMinute, this.id);
+
+  /// First minute of the local day the cursor falls in.
+  int get dayStartMinute =>
+      localMinute - localMinute % Duration.minutesPerDay;
+}
+
+class RecordPage {
+  /// A slice of the records in an interval, newest first. A page always
+  /// ends on a day boundary, so the records of a day never span two pages.
+
+  final List<Record> records;
+
+  /// Where the next page starts, or null when this is the last page.
+  final RecordPageCursor? next;
+
+  const RecordPage(this.records, this.next);
+
+  bool get isLast => next == null;
+}
@@ -1,3 +1,5 @@
+import 'dart:math';
+
 import 'package:flutter/cupertino.dart';
 import 'package:flutter/material.dart';
 import 'package:piggybank/helpers/records-utility-functions.dart';
@@ -19,6 +21,11 @@ class RecordsDayList extends StatefulWidget {
   final void Function(int)? onRecordLongPressed;
   final void Function(int)? onRecordTapped;
 
+  /// Whether the source has records beyond [records]. When the last day is
+  /// reached, [onLoadMoreRecords] is called to fetch them.
+  final bool hasMoreRecords;
+  final Future<void> Function()? onLoadMoreRecords;
+
   RecordsDayList(
     this.records, {
     this.onListBackCallback,
@@ -29,6 +36,8 @@ class RecordsDayList extends StatefulWidget {
     this.selectedRecordIds = const {},
     this.onRecordLongPressed,
     this.onRecordTapped,
+    this.hasMoreRecords = false,
+    this.onLoadMoreRecords,
   });
 
   @override
@@ -50,17 +59,30 @@ class _RecordsDayListState extends State<RecordsDayList> {
     super.didUpdateWidget(oldWidget);
     if (!identical(oldWidget.records, widget.records) ||
         oldWidget.records.length != widget.records.length) {
-      _updateDaysShown();
+      // A new page appended to the source: keep the days already shown.
+      _updateDaysShown(
+          keepDisplayedCount: oldWidget.hasMoreRecords &&
+              widget.records.length > oldWidget.records.length);
     }
   }
 
-  void _updateDaysShown() {
+  void _updateDaysShown({bool keepDisplayedCount = false}) {
     _daysShown = groupRecordsByDay(widget.records);
-    _displayedCount = _daysShown.length.clamp(0, widget.batchSize);
+    final count = keepDisplayedCount
+        ? max(_displayedCount, widget.batchSize)
+        : widget.batchSize;
+    _displayedCount = count.clamp(0, _daysShown.length);
   }
 
   void _loadMore() {
-    if (_displayedCount >= _daysShown.length) return;
+    if (_displayedCount >= _daysShown.length) {
+      if (widget.hasMoreRecords) {
+        WidgetsBinding.instance.addPostFrameCallback((_) {
+          if (mounted) widget.onLoadMoreRecords?.call();
+        });
+      }
+      return;
+    }
 
     WidgetsBinding.instance.addPostFrameCallback((_) {
       if (mounted) {
@@ -74,7 +96,8 @@ class _RecordsDayListState extends State<RecordsDayList> {
 
   @override
   Widget build(BuildContext context) {
-    final bool hasMore = _displayedCount < _daysShown.length;
+    final bool hasMore =
+        _displayedCount < _daysShown.length || widget.hasMoreRecords;
 
     if (widget.isSliver) {
       return SliverList(
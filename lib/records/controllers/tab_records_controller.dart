@@ -14,6 +14,7 @@ import '../../helpers/datetime-utility-functions.dart';
 import '../../helpers/records-utility-functions.dart';
 import '../../i18n.dart';
 import '../../models/category.dart';
+import '../../models/record-page.dart';
 import '../../models/record.dart';
 import '../../models/wallet.dart';
 import '../../premium/splash-screen.dart';
@@ -35,7 +36,7 @@ import '../components/pdf_export_sections_dialog.dart';
 
 class TabRecordsController {
   final VoidCallback onStateChanged;
-  final DatabaseInterface _database = ServiceConfig.database;
+  final DatabaseInterface _database = ServiceConfig.cachedDatabase;
   final TextEditingController _searchController = TextEditingController();
   final GlobalKey<CategoryTabPageViewState> _categoryTabPageViewStateKey =
       GlobalKey();
@@ -63,6 +64,24 @@ class TabRecordsController {
   bool _showFutureRecords = true;
   List<Record> _futureRecords = [];
 
+  // Paging state: the record list is read from the database one page at a
+  // time as the user scrolls. [records] holds the pages loaded so far, and
+  // the summary card reads [intervalTotals] instead of the loaded records.
+  // Search and filters work on the whole interval, so they load the rest.
+  static const int recordsPageSize = 200;
+  bool hasMoreRecords = false;
+  bool _isLoadingMoreRecords = false;
+  int _pageGeneration = 0;
+  RecordPageCursor? _nextPageCursor;
+  DateTime? _pageFrom;
+  DateTime? _pageTo;
+  int? _pageProfileId;
+  List<Record> _pendingFutureRecords = [];
+
+  /// Income/expense sums of the displayed interval (one aggregated record per
+  /// wallet, category type and sign), plus the future records shown in it.
+  List<Record?> intervalTotals = [];
+
   // Point-in-time balance state: when the selected period has fully elapsed
   // (its end is before today), wallet balances are overridden to reflect
   // their value as of the end of that period, instead of the live total.
@@ -76,6 +95,13 @@ class TabRecordsController {
   bool isSearchingEnabled = false;
   bool _isNavigating = false;
 
+  // Search state: a query is answered by the database across the whole
+  // history (see DatabaseInterface.searchRecords). Until the answer for the
+  // current query and filters arrives, the loaded records are matched here.
+  List<Record?> _searchResults = [];
+  String? _searchResultsKey;
+  String? _pendingSearchKey;
+
   TabRecordsController({required this.onStateChanged}) {
     _searchController.addListener(_onSearchChanged);
   }
@@ -115,19 +141,44 @@ class TabRecordsController {
   }
 
   // Search functionality
-  void _onSearchChanged() => filterRecords();
+  void _onSearchChanged() => _applyFilters();
 
-  void startSearch() {
+  Future<void> startSearch() async {
     isSearchingEnabled = true;
     _searchController.clear();
     selectedCategories = [];
     selectedTags = [];
+    onStateChanged();
+    await _fetchFilterOptions();
     filterRecords();
     onStateChanged();
   }
 
+  /// The tags and categories offered by the filters. They come from the
+  /// cached lists, so that searching doesn't load the whole interval.
+  Future<void> _fetchFilterOptions() async {
+    tags = (await _database.getAllTags()).toList();
+    categories = await _database.getAllCategories();
+  }
+
+  /// A query is searched in the database, but category and tag filters
+  /// without one are applied to the records in memory, so they need every
+  /// record of the interval.
+  bool get _filtersNeedAllRecords =>
+      _searchController.text.isEmpty &&
+      (selectedCategories.isNotEmpty || selectedTags.isNotEmpty);
+
+  Future<void> _applyFilters() async {
+    if (_filtersNeedAllRecords) {
+      await loadAllRecords();
+    } else {
+      filterRecords();
+    }
+  }
+
   void stopSearch() {
     isSearchingEnabled = false;
+    _clearSearchResults();
     _searchController.clear();
     selectedCategories = [];
     selectedTags = [];
@@ -135,6 +186,50 @@ class TabRecordsController {
     onStateChanged();
   }
 
+  /// Drops the database search results, after the records have changed.
+  void _clearSearchResults() {
+    _searchResults = [];
+    _searchResultsKey = null;
+    _pendingSearchKey = null;
+  }
+
+  /// The database search for the current query and filters. Selected
+  /// categories narrow it unless they are OR-combined with tags; wallets
+  /// always do. Other filters are applied to its results in [filterRecords].
+  ({String key, List<Category?>? categories, Set<int?>? walletIds})
+      _searchRequest() {
+    final narrowByCategories = selectedCategories.isNotEmpty &&
+        !(selectedTags.isNotEmpty && categoryTagOrLogic);
+    final categories = narrowByCategories ? selectedCategories : null;
+    final walletIds = selectedWallets.isNotEmpty
+        ? selectedWallets.map((w) => w.id).toSet()
+        : null;
+    final key = [
+      _searchController.text.trim(),
+      ProfileService.instance.activeProfileId,
+      categories
+          ?.map((c) => '${c?.name}/${c?.categoryType?.index}')
+          .join(','),
+      walletIds?.join(','),
+    ].join('|');
+    return (key: key, categories: categories, walletIds: walletIds);
+  }
+
+  Future<void> _runSearch(
+      ({String key, List<Category?>? categories, Set<int?>? walletIds})
+          request) async {
+    final results = await _database.searchRecords(
+      _searchController.text,
+      profileId: ProfileService.instance.activeProfileId,
+      categories: request.categories,
+      walletIds: request.walletIds,
+    );
+    if (request.key != _pendingSearchKey) return;
+    _searchResults = results;
+    _searchResultsKey = request.key;
+    filterRecords();
+  }
+
   void filterRecords() {
     List<Record?> tempRecords;
 
@@ -142,14 +237,29 @@ class TabRecordsController {
     final hasCategories = selectedCategories.isNotEmpty;
     final hasTags = selectedTags.isNotEmpty;
 
+    // Search results come from the database once they are in; meanwhile
+    // the loaded records are searched in memory.
+    var source = records;
+    var searchedInDatabase = false;
+    if (hasSearch) {
+      final request = _searchRequest();
+      if (request.key == _searchResultsKey) {
+        source = _searchResults;
+        searchedInDatabase = true;
+      } else if (request.key != _pendingSearchKey) {
+        _pendingSearchKey = request.key;
+        _runSearch(request);
+      }
+    }
+
     if (!hasSearch && !hasCategories && !hasTags) {
       tempRecords = records;
     } else {
       final query = _searchController.text.toLowerCase().trim();
 
-      tempRecords = records.where((record) {
-        bool matchesSearch = !hasSearch;
-        if (hasSearch) {
+      tempRecords = source.where((record) {
+        bool matchesSearch = !hasSearch || searchedInDatabase;
+        if (hasSearch && !searchedInDatabase) {
           matchesSearch = matchesSmartSearch(record?.title, query) ||
               matchesSmartSearch(record?.description, query) ||
               matchesSmartSearch(record?.category?.name, query) ||
@@ -283,7 +393,8 @@ class TabRecordsController {
   Future<void> updateRecurrentRecordsAndFetchRecords() async {
     final activeProfileId = ProfileService.instance.activeProfileId;
     var recurrentRecordService =
-        RecurrentRecordService(profileId: activeProfileId);
+        RecurrentRecordService(profileId: activeProfileId)
+          ..database = _database;
     final int startDay = getHomepageRecordsMonthStartDay();
     HomepageTimeInterval hti = getHomepageTimeIntervalEnumSetting();
 
@@ -354,10 +465,19 @@ class TabRecordsController {
     List<Record> futureRecords =
         await recurrentRecordService.updateRecurrentRecords(viewEndDate);
 
-    // Fetch records from database
-    List<Record?> newRecords;
-    newRecords = await getRecordsByInterval(_database, intervalFrom, intervalTo,
+    // Fetch the first page of records and the interval totals. Any page
+    // still loading for the previous interval is discarded.
+    final generation = ++_pageGeneration;
+    _pageFrom = intervalFrom;
+    _pageTo = intervalTo;
+    _pageProfileId = activeProfileId;
+    final firstPage = await _database.getRecordsPageInInterval(
+        intervalFrom, intervalTo,
+        profileId: activeProfileId, limit: recordsPageSize);
+    final totals = await _database.getRecordTotalsInInterval(
+        intervalFrom, intervalTo,
         profileId: activeProfileId);
+    if (generation != _pageGeneration) return;
     backgroundImageIndex = isFullYear(intervalFrom, intervalTo)
         ? DateTime.now().month
         : intervalFrom.month;
@@ -384,15 +504,23 @@ class TabRecordsController {
     _showFutureRecords = showFutureRecords;
     _futureRecords = filteredFutureRecords;
 
-    // Merge future records with database records (only if enabled)
-    List<Record?> allRecords = showFutureRecords
-        ? [...newRecords, ...filteredFutureRecords]
-        : newRecords;
-
-    records = allRecords;
-    filteredRecords = allRecords;
-    _extractTags(allRecords);
-    _extractCategories(allRecords);
+    // Merge future records with database records (only if enabled). They
+    // are added with the page that covers their day.
+    _pendingFutureRecords =
+        showFutureRecords ? List.of(filteredFutureRecords) : [];
+    intervalTotals = [
+      ...totals,
+      if (showFutureRecords) ...filteredFutureRecords,
+    ];
+
+    records = [];
+    _clearSearchResults();
+    _appendPage(firstPage);
+    filteredRecords = records;
+    if (isSearchingEnabled) {
+      await _fetchFilterOptions();
+      if (_filtersNeedAllRecords) await loadAllRecords();
+    }
     filterRecords();
 
     // Handle overview records
@@ -409,8 +537,8 @@ class TabRecordsController {
           _database, recordTimeIntervalEnum);
       var overviewFrom = overviewInterval[0];
       var overviewTo = overviewInterval[1];
-      var overviewDbRecords = await getRecordsByInterval(
-          _database, overviewFrom, overviewTo,
+      var overviewDbRecords = await _database.getRecordTotalsInInterval(
+          overviewFrom, overviewTo,
           profileId: activeProfileId);
 
       // When showFutureRecords is enabled, also merge future records
@@ -439,24 +567,75 @@ class TabRecordsController {
     onStateChanged();
   }
 
-  void _extractTags(List<Record?> records) {
-    final Set<String> uniqueTags = {};
-    for (var record in records) {
-      if (record != null) {
-        uniqueTags.addAll(record.tags);
-      }
+  /// Adds [page] to [records], with the pending future records that fall on
+  /// the days it covers.
+  void _appendPage(RecordPage page) {
+    final List<Record> future;
+    if (page.isLast) {
+      future = _pendingFutureRecords;
+      _pendingFutureRecords = [];
+    } else {
+      final firstMinuteCovered = page.next!.dayStartMinute;
+      bool isCovered(Record r) =>
+          localMinuteKey(r.utcDateTime, r.timeZoneName!) >= firstMinuteCovered;
+      future = _pendingFutureRecords.where(isCovered).toList();
+      _pendingFutureRecords =
+          _pendingFutureRecords.whereNot(isCovered).toList();
     }
-    tags = uniqueTags.toList();
+    records = [...records, ...page.records, ...future];
+    _nextPageCursor = page.next;
+    hasMoreRecords = !page.isLast;
   }
 
-  void _extractCategories(List<Record?> records) {
-    final Set<Category?> uniqueCategories = {};
-    for (var record in records) {
-      if (record != null && record.category != null) {
-        uniqueCategories.add(record.category);
+  /// Loads the next page of the record list. Pages whose records are all
+  /// hidden by the wallet filter are skipped, so that the list grows.
+  Future<void> loadMoreRecords() async {
+    if (!hasMoreRecords || _isLoadingMoreRecords) return;
+    _isLoadingMoreRecords = true;
+    final generation = _pageGeneration;
+    try {
+      final shownBefore = filteredRecords.length;
+      while (hasMoreRecords && filteredRecords.length == shownBefore) {
+        final page = await _database.getRecordsPageInInterval(
+            _pageFrom, _pageTo,
+            profileId: _pageProfileId,
+            after: _nextPageCursor,
+            limit: recordsPageSize);
+        if (generation != _pageGeneration) return;
+        _appendPage(page);
+        filterRecords();
       }
+    } finally {
+      _isLoadingMoreRecords = false;
+    }
+    onStateChanged();
+  }
+
+  /// Loads every remaining page of the interval, for the features that need
+  /// all of its records: search, filters, exports, statistics, select all.
+  Future<void> loadAllRecords() async {
+    final generation = _pageGeneration;
+    while (hasMoreRecords) {
+      final page = await _database.getRecordsPageInInterval(_pageFrom, _pageTo,
+          profileId: _pageProfileId, after: _nextPageCursor, limit: 5000);
+      if (generation != _pageGeneration) return;
+      _appendPage(page);
     }
-    categories = uniqueCategories.toList();
+    filterRecords();
+  }
+
+  /// Records behind the income/expenses/balance card when it summarizes the
+  /// displayed interval. While searching it sums what the search matches.
+  List<Record?> get displayedTotals {
+    if (isSearchingEnabled &&
+        (_searchController.text.isNotEmpty ||
+            selectedCategories.isNotEmpty ||
+            selectedTags.isNotEmpty)) {
+      return filteredRecords;
+    }
+    if (selectedWallets.isEmpty) return intervalTotals;
+    return applyTransferAwareWalletFilter(
+        intervalTotals, selectedWallets.map((w) => w.id).toSet());
   }
 
   Future<void> _fetchCategories() async {
@@ -620,34 +799,79 @@ class TabRecordsController {
     }
   }
 
-  void navigateToStatisticsPage(BuildContext context) {
+  /// Opens the statistics of the displayed interval. Unless a search or a
+  /// category or tag filter narrows the records, which only the records can
+  /// answer, the page opens on the interval's sums per day, category and
+  /// wallet and reads the records when it needs them.
+  Future<void> navigateToStatisticsPage(BuildContext context) async {
     final currencyMap = walletCurrencyMap;
     final wallets = walletMap;
+    final Widget Function(DateTime?, DateTime?) page;
+    if (_pageFrom != null &&
+        _searchController.text.isEmpty &&
+        !hasActiveFilters) {
+      final intervalFrom = _pageFrom;
+      final intervalTo = _pageTo;
+      final profileId = _pageProfileId;
+      final shown = _statisticsRecords();
+      final dailyTotals = shown(await _database.getRecordDailyTotalsInInterval(
+          intervalFrom, intervalTo,
+          profileId: profileId));
+      page = (from, to) => StatisticsPage.fromDailyTotals(
+            from,
+            to,
+            dailyTotals,
+            loadRecords: () async => shown(await _database
+                .getAllRecordsInInterval(intervalFrom, intervalTo,
+                    profileId: profileId)),
+            walletCurrencyMap: currencyMap,
+            walletMap: wallets,
+          );
+    } else {
+      await loadAllRecords();
+      final records = filteredRecords;
+      page = (from, to) => StatisticsPage(from, to, records,
+          walletCurrencyMap: currencyMap, walletMap: wallets);
+    }
     if (customIntervalTo == null) {
       var hti = getHomepageTimeIntervalEnumSetting();
       getTimeIntervalFromHomepageTimeInterval(_database, hti)
           .then((userDefinedInterval) => Navigator.push(
                 context,
                 MaterialPageRoute(
-                  builder: (context) => StatisticsPage(userDefinedInterval[0],
-                      userDefinedInterval[1], filteredRecords,
-                      walletCurrencyMap: currencyMap, walletMap: wallets),
+                  builder: (context) =>
+                      page(userDefinedInterval[0], userDefinedInterval[1]),
                 ),
               ));
     } else {
       Navigator.push(
         context,
         MaterialPageRoute(
-          builder: (context) => StatisticsPage(
-              customIntervalFrom, customIntervalTo, filteredRecords,
-              walletCurrencyMap: currencyMap, walletMap: wallets),
+          builder: (context) => page(customIntervalFrom, customIntervalTo),
         ),
       );
     }
   }
 
+  /// Turns records of the displayed interval, or their daily sums, into
+  /// what the statistics show: with the future records shown in the
+  /// interval and narrowed to the selected wallets, as they are now.
+  List<Record?> Function(List<Record?>) _statisticsRecords() {
+    final futureRecords =
+        _showFutureRecords ? List<Record>.of(_futureRecords) : <Record>[];
+    final walletIds = selectedWallets.map((w) => w.id).toSet();
+    return (records) {
+      final List<Record?> shown = [...records, ...futureRecords];
+      if (walletIds.isEmpty) return shown;
+      return applyTransferAwareWalletFilter(shown, walletIds);
+    };
+  }
+
   // Menu and modal actions
   Future<void> handleMenuAction(BuildContext context, int index) async {
+    if (index == 1 || index == 2) {
+      await loadAllRecords();
+    }
     if (index == 1) {
       await _exportToCSV();
     } else if (index == 2) {
@@ -656,20 +880,13 @@ class TabRecordsController {
   }
 
   Future<void> showFilterModal(BuildContext context) async {
-    List<Category?> usedCategories =
-        records.map((record) => record?.category).toSet().toList();
-    List<String> usedTags = records
-        .expand((record) => record?.tags ?? {})
-        .cast<String>()
-        .toSet()
-        .toList();
     await showModalBottomSheet(
       isScrollControlled: true, // This allows the modal to take more space
       context: context,
       builder: (context) {
         return FilterModalContent(
-          categories: usedCategories,
-          tags: usedTags,
+          categories: categories,
+          tags: tags,
           currentlySelectedCategories: selectedCategories,
           currentlySelectedTags: selectedTags,
           currentCategoryTagOrLogic: categoryTagOrLogic,
@@ -680,7 +897,7 @@ class TabRecordsController {
             this.selectedTags = selectedTags;
             this.categoryTagOrLogic = categoryOR;
             this.tagORLogic = tagOR;
-            filterRecords();
+            _applyFilters();
           },
         );
       },
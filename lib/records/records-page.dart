@@ -102,7 +102,9 @@ class TabRecordsState extends State<TabRecords> {
     });
   }
 
-  void _selectAll() {
+  Future<void> _selectAll() async {
+    await _controller.loadAllRecords();
+    if (!mounted) return;
     setState(() {
       _selectedRecordIds = _controller.filteredRecords
           .where((r) => r?.id != null)
@@ -333,9 +335,12 @@ class TabRecordsState extends State<TabRecords> {
     return <Widget>[
       if (!_controller.isSearchingEnabled) _buildMainSliverAppBar(),
       _buildSummarySection(),
-      if (_controller.filteredRecords.isEmpty) _buildEmptyState(),
+      if (_controller.filteredRecords.isEmpty && !_controller.hasMoreRecords)
+        _buildEmptyState(),
       RecordsDayList(
         _controller.filteredRecords,
+        hasMoreRecords: _controller.hasMoreRecords,
+        onLoadMoreRecords: _controller.loadMoreRecords,
         onListBackCallback: _onRecordListBack,
         walletCurrencyMap: _controller.walletCurrencyMap,
         isSelectMode: _isSelectMode,
@@ -427,7 +432,7 @@ class TabRecordsState extends State<TabRecords> {
         margin: const EdgeInsets.only(bottom: 5),
         height: showWalletBar ? 130 : 75,
         child: DaysSummaryBox(
-          _controller.overviewRecords ?? _controller.filteredRecords,
+          _controller.overviewRecords ?? _controller.displayedTotals,
           walletLabel: _controller.walletRowLabel,
           walletBalanceString: _controller.selectedWalletsBalanceString,
           walletBalance: _controller.selectedWalletsBalance,
@@ -0,0 +1,647 @@
+import 'dart:async';
+import 'dart:convert';
+import 'dart:io';
+import 'dart:isolate';
+import 'dart:typed_data';
+
+import 'package:crypto/crypto.dart';
+import 'package:pointycastle/export.dart';
+
+/// What [BackupFileReader.summarize] learns from a backup file without
+/// keeping its records: the small top-level fields, the number of records,
+/// the tags of each record and a fingerprint of the file.
+class BackupSummary {
+  /// Top-level fields of the backup object other than the records and the
+  /// record tag associations, decoded as [Backup.fromMap] expects them.
+  final Map<String, dynamic> fields;
+
+  final int recordCount;
+
+  /// SHA-256 of the file bytes, to recognise the same file across attempts.
+  final String fingerprint;
+
+  /// Sorted `record id << _tagBits | tag index` pairs.
+  final Int64List _tagIndex;
+  final List<String> _tagNames;
+
+  BackupSummary._(this.fields, this.recordCount, this.fingerprint,
+      this._tagIndex, this._tagNames);
+
+  /// Tags the backup associates with the record whose backup id is
+  /// [recordId].
+  Set<String> tagsOf(int recordId) {
+    final tags = <String>{};
+    final first = recordId << _tagBits;
+    // Lower bound of the first pair of the record.
+    var low = 0;
+    var high = _tagIndex.length;
+    while (low < high) {
+      final middle = (low + high) >> 1;
+      if (_tagIndex[middle] < first) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    for (var i = low;
+        i < _tagIndex.length && _tagIndex[i] >> _tagBits == recordId;
+        i++) {
+      tags.add(_tagNames[_tagIndex[i] & _tagMask]);
+    }
+    return tags;
+  }
+}
+
+/// Reads a JSON backup file from a background isolate, the counterpart of
+/// [BackupFileWriter].
+///
+/// The isolate reads the file in chunks and decrypts, decodes and scans it
+/// incrementally, so neither the file content nor the object graph of all
+/// the records is held in memory. A restore reads the file twice:
+/// [summarize] collects everything but the records, and [records] then
+/// hands the records over a page at a time, as they are asked for.
+class BackupFileReader {
+  static const int _chunkSize = 64 * 1024;
+
+  /// Reads the whole file once and checks that every record refers to a
+  /// category of the backup.
+  ///
+  /// Throws if the file cannot be decrypted with [encryptionPassword] or is
+  /// not a valid backup.
+  static Future<BackupSummary> summarize(
+    String path, {
+    String? encryptionPassword,
+  }) async {
+    final replyPort = ReceivePort();
+    final replies = StreamIterator<dynamic>(replyPort);
+    final isolate = await Isolate.spawn(
+      _summaryMain,
+      [replyPort.sendPort, path, encryptionPassword],
+      debugName: 'BackupFileReader',
+    );
+    try {
+      final reply = await _reply(replies);
+      return BackupSummary._(
+        reply[0] as Map<String, dynamic>,
+        reply[1] as int,
+        reply[2] as String,
+        (reply[3] as TransferableTypedData).materialize().asInt64List(),
+        reply[4] as List<String>,
+      );
+    } finally {
+      isolate.kill(priority: Isolate.immediate);
+      await replies.cancel();
+    }
+  }
+
+  /// The records of the backup as JSON maps, [pageSize] at a time, after
+  /// skipping the first [skip] records. The next page is read only once the
+  /// listener has taken the previous one.
+  static Stream<List<Map<String, dynamic>>> records(
+    String path, {
+    String? encryptionPassword,
+    int pageSize = 500,
+    int skip = 0,
+  }) async* {
+    final replyPort = ReceivePort();
+    final replies = StreamIterator<dynamic>(replyPort);
+    final isolate = await Isolate.spawn(
+      _recordsMain,
+      [replyPort.sendPort, path, encryptionPassword, pageSize, skip],
+      debugName: 'BackupFileReader',
+    );
+    try {
+      final commands = await _reply(replies) as SendPort;
+      while (true) {
+        commands.send(null);
+        final page = await _reply(replies) as List?;
+        if (page == null) break;
+        yield page.cast<Map<String, dynamic>>();
+      }
+    } finally {
+      isolate.kill(priority: Isolate.immediate);
+      await replies.cancel();
+    }
+  }
+
+  static Future<dynamic> _reply(StreamIterator<dynamic> replies) async {
+    if (!await replies.moveNext()) {
+      throw StateError('The backup reader has stopped');
+    }
+    final reply = replies.current;
+    if (reply is List && reply.isNotEmpty && reply.first == 'error') {
+      throw RemoteError(reply[1] as String, reply[2] as String);
+    }
+    return (reply as List)[1];
+  }
+}
+
+const _recordsKey = 'records';
+const _associationsKey = 'record_tag_associations';
+
+/// Bits of a tag index entry that hold the tag; the record id takes the
+/// rest.
+const _tagBits = 24;
+const _tagMask = (1 << _tagBits) - 1;
+
+Future<void> _summaryMain(List<Object?> args) async {
+  final replies = args[0] as SendPort;
+  try {
+    final fields = <String, dynamic>{};
+    var recordCount = 0;
+    // Categories the records refer to, by type and name.
+    final usedCategories = <String>{};
+    final tagIds = <String, int>{};
+    final tagNames = <String>[];
+    final tagPairs = <int>[];
+
+    final scanner = _BackupJsonScanner(
+      modeOf: (key) => key == _recordsKey || key == _associationsKey
+          ? _ValueMode.elements
+          : _ValueMode.decode,
+      onValue: (key, value) => fields[key] = value,
+      wantsElement: (key, index) => true,
+      onElement: (key, json) {
+        final element = jsonDecode(json);
+        if (key == _recordsKey) {
+          recordCount++;
+          if (element is! Map) return;
+          final name = element['category_name'];
+          final type = element['category_type'];
+          if (name != null && type != null) {
+            usedCategories.add('$type/$name');
+          }
+        } else if (element is Map) {
+          final recordId = element['record_id'] as int;
+          final tagName = element['tag_name'] as String;
+          final tagId = tagIds.putIfAbsent(tagName, () {
+            tagNames.add(tagName);
+            return tagNames.length - 1;
+          });
+          if (tagId > _tagMask) {
+            throw FormatException('Too many tags in the backup');
+          }
+          tagPairs.add(recordId << _tagBits | tagId);
+        }
+      },
+    );
+    final digest = _DigestSink();
+    final bytes = sha256.startChunkedConversion(digest);
+    final input = _BackupInput(args[1] as String, args[2] as String?, scanner,
+        onBytes: bytes.add);
+    try {
+      while (input.readChunk()) {}
+    } finally {
+      input.close();
+    }
+    bytes.close();
+
+    // Same check as Backup.fromMap, before anything is written.
+    final categories = <String>{};
+    for (final category in fields['categories'] as List? ?? const []) {
+      categories.add('${category['category_type']}/${category['name']}');
+    }
+    if (!categories.containsAll(usedCategories)) {
+      throw Exception("Category not found");
+    }
+
+    final tagIndex = Int64List.fromList(tagPairs)..sort();
+    replies.send([
+      'value',
+      [
+        fields,
+        recordCount,
+        digest.value.toString(),
+        TransferableTypedData.fromList([tagIndex]),
+        tagNames,
+      ],
+    ]);
+  } catch (e, st) {
+    replies.send(['error', e.toString(), st.toString()]);
+  }
+}
+
+Future<void> _recordsMain(List<Object?> args) async {
+  final replies = args[0] as SendPort;
+  final commands = ReceivePort();
+  replies.send(['value', commands.sendPort]);
+  final pageSize = args[3] as int;
+  final skip = args[4] as int;
+
+  final page = <Map<String, dynamic>>[];
+  final scanner = _BackupJsonScanner(
+    modeOf: (key) =>
+        key == _recordsKey ? _ValueMode.elements : _ValueMode.skip,
+    onValue: (key, value) {},
+    wantsElement: (key, index) => index >= skip,
+    onElement: (key, json) => page.add(jsonDecode(json)),
+  );
+  late final _BackupInput input;
+  try {
+    input = _BackupInput(args[1] as String, args[2] as String?, scanner);
+  } catch (e, st) {
+    replies.send(['error', e.toString(), st.toString()]);
+    commands.close();
+    return;
+  }
+
+  await for (final _ in commands) {
+    try {
+      while (page.length < pageSize && input.readChunk()) {}
+      if (page.isEmpty) {
+        input.close();
+        replies.send(['value', null]);
+        commands.close();
+        return;
+      }
+      final count = page.length < pageSize ? page.length : pageSize;
+      replies.send(['value', page.sublist(0, count)]);
+      page.removeRange(0, count);
+    } catch (e, st) {
+      replies.send(['error', e.toString(), st.toString()]);
+      commands.close();
+      return;
+    }
+  }
+}
+
+/// The file, read synchronously chunk by chunk (the isolate has nothing
+/// else to do meanwhile) and fed through the decoding pipeline into the
+/// scanner.
+class _BackupInput {
+  final RandomAccessFile _file;
+  final void Function(List<int> bytes)? _onBytes;
+  late final ByteConversionSink _pipeline;
+  bool _done = false;
+
+  _BackupInput(String path, String? password, _BackupJsonScanner scanner,
+      {void Function(List<int> bytes)? onBytes})
+      : _file = File(path).openSync(),
+        _onBytes = onBytes {
+    final text = utf8.decoder.startChunkedConversion(scanner);
+    _pipeline = password != null && password.isNotEmpty
+        ? _Base64Input(
+            base64.decoder.startChunkedConversion(_DecryptSink(text, password)))
+        : text;
+  }
+
+  /// Feeds the next chunk of the file; false once the file has been read
+  /// to the end.
+  bool readChunk() {
+    if (_done) return false;
+    final bytes = _file.readSync(BackupFileReader._chunkSize);
+    if (bytes.isEmpty) {
+      _done = true;
+      _pipeline.close();
+      return false;
+    }
+    _onBytes?.call(bytes);
+    _pipeline.add(bytes);
+    return true;
+  }
+
+  void close() => _file.closeSync();
+}
+
+/// Passes the base64 text of an encrypted file to the decoder, without the
+/// line breaks and spaces an editor may have added.
+class _Base64Input extends ByteConversionSink {
+  final StringConversionSink _decoder;
+
+  _Base64Input(this._decoder);
+
+  @override
+  void add(List<int> chunk) {
+    final text = StringBuffer();
+    var start = 0;
+    for (var i = 0; i < chunk.length; i++) {
+      final c = chunk[i];
+      if (c == 0x20 || c == 0x0A || c == 0x0D || c == 0x09) {
+        if (start < i) text.write(latin1.decode(chunk.sublist(start, i)));
+        start = i + 1;
+      }
+    }
+    if (start == 0) {
+      _decoder.add(latin1.decode(chunk));
+    } else {
+      if (start < chunk.length) text.write(latin1.decode(chunk.sublist(start)));
+      _decoder.add(text.toString());
+    }
+  }
+
+  @override
+  void close() => _decoder.close();
+}
+
+/// Decrypts the output of [BackupService.encryptData] as it arrives: the
+/// IV, then AES/SIC ciphertext whose last block ends in PKCS7 padding. The
+/// last 16 plaintext bytes are held back until the end, where the padding
+/// is checked and dropped; bad padding means a wrong password.
+class _DecryptSink extends ByteConversionSink {
+  final ByteConversionSink _output;
+  final Uint8List _key;
+  final StreamCipher _cipher = SICStreamCipher(AESEngine());
+  final BytesBuilder _iv = BytesBuilder();
+  Uint8List _tail = Uint8List(0);
+  int _length = 0;
+
+  _DecryptSink(this._output, String password)
+      // Same key derivation as BackupService.encryptData.
+      : _key = Uint8List.fromList(
+            utf8.encode(password.padRight(32, '*').substring(0, 32)));
+
+  @override
+  void add(List<int> chunk) {
+    var start = 0;
+    if (_iv.length < 16) {
+      start = 16 - _iv.length < chunk.length ? 16 - _iv.length : chunk.length;
+      _iv.add(chunk.sublist(0, start));
+      if (_iv.length < 16) return;
+      _cipher.init(
+          false, ParametersWithIV(KeyParameter(_key), _iv.toBytes()));
+    }
+    if (start == chunk.length) return;
+    final plain = _cipher.process(Uint8List.fromList(chunk.sublist(start)));
+    _length += plain.length;
+    final all = Uint8List(_tail.length + plain.length)
+      ..setAll(0, _tail)
+      ..setAll(_tail.length, plain);
+    final keep = all.length < 16 ? all.length : 16;
+    if (all.length > keep) _output.add(all.sublist(0, all.length - keep));
+    _tail = all.sublist(all.length - keep);
+  }
+
+  @override
+  void close() {
+    final padding = _tail.isEmpty ? 0 : _tail.last;
+    if (_tail.length != 16 ||
+        _length % 16 != 0 ||
+        padding < 1 ||
+        padding > 16 ||
+        _tail.sublist(16 - padding).any((b) => b != padding)) {
+      throw FormatException('Invalid or corrupted pad block');
+    }
+    _output.add(_tail.sublist(0, 16 - padding));
+    _output.close();
+  }
+}
+
+class _DigestSink implements Sink<Digest> {
+  late Digest value;
+
+  @override
+  void add(Digest data) => value = data;
+
+  @override
+  void close() {}
+}
+
+enum _ValueMode {
+  /// Decode the value and report it with onValue.
+  decode,
+
+  /// Report the elements of the list one by one with onElement.
+  elements,
+
+  /// Step over the value.
+  skip,
+}
+
+enum _State {
+  start,
+  beforeKey,
+  inKey,
+  beforeColon,
+  beforeValue,
+  inValue,
+  afterValue,
+  beforeElement,
+  inElement,
+  afterElement,
+  end,
+}
+
+/// Splits the top-level object of a backup into its fields, and the lists
+/// streamed element by element into their elements, without decoding
+/// anything it is not asked for. Only the nesting of brackets and strings
+/// is tracked; each reported piece is handed over as JSON text.
+class _BackupJsonScanner extends StringConversionSink {
+  final _ValueMode Function(String key) modeOf;
+  final void Function(String key, Object? value) onValue;
+  final bool Function(String key, int index) wantsElement;
+  final void Function(String key, String json) onElement;
+
+  _State _state = _State.start;
+  String _key = '';
+  _ValueMode _mode = _ValueMode.skip;
+  int _index = 0;
+
+  // Value being stepped over.
+  bool _started = false;
+  bool _primitive = false;
+  int _depth = 0;
+  bool _inString = false;
+  bool _escaped = false;
+
+  // Text of the value or key being captured.
+  bool _capture = false;
+  final StringBuffer _text = StringBuffer();
+
+  _BackupJsonScanner({
+    required this.modeOf,
+    required this.onValue,
+    required this.wantsElement,
+    required this.onElement,
+  });
+
+  static bool _isSpace(int c) =>
+      c == 0x20 || c == 0x0A || c == 0x0D || c == 0x09 || c == 0xFEFF;
+
+  @override
+  void addSlice(String chunk, int start, int end, bool isLast) {
+    var i = start;
+    // Start of the captured text in this chunk.
+    var from = start;
+    while (i < end) {
+      final c = chunk.codeUnitAt(i);
+      switch (_state) {
+        case _State.start:
+          if (c == 0x7B) {
+            _state = _State.beforeKey;
+          } else if (!_isSpace(c)) {
+            throw FormatException('A backup must be a JSON object');
+          }
+          i++;
+          break;
+        case _State.beforeKey:
+          if (c == 0x22) {
+            _state = _State.inKey;
+            _beginValue(c, capture: true);
+            from = i;
+          } else if (c == 0x7D) {
+            _state = _State.end;
+          } else if (!_isSpace(c)) {
+            throw FormatException('Expected a key in the backup');
+          }
+          i++;
+          break;
+        case _State.inKey:
+          i++;
+          if (_step(c)) {
+            _text.write(chunk.substring(from, i));
+            _key = jsonDecode(_text.toString()) as String;
+            _text.clear();
+            _started = false;
+            _state = _State.beforeColon;
+          }
+          break;
+        case _State.beforeColon:
+          if (c == 0x3A) {
+            _state = _State.beforeValue;
+          } else if (!_isSpace(c)) {
+            throw FormatException('Expected ":" after "$_key"');
+          }
+          i++;
+          break;
+        case _State.beforeValue:
+          if (_isSpace(c)) {
+            i++;
+            break;
+          }
+          _mode = modeOf(_key);
+          if (_mode == _ValueMode.elements && c == 0x5B) {
+            _state = _State.beforeElement;
+            _index = 0;
+            i++;
+          } else {
+            // A list streamed by elements may also be null.
+            _state = _State.inValue;
+            _beginValue(c, capture: _mode == _ValueMode.decode);
+            from = i;
+            if (!_primitive) i++;
+          }
+          break;
+        case _State.beforeElement:
+          if (_isSpace(c)) {
+            i++;
+          } else if (c == 0x5D) {
+            _state = _State.afterValue;
+            i++;
+          } else {
+            _state = _State.inElement;
+            _beginValue(c, capture: wantsElement(_key, _index));
+            from = i;
+            if (!_primitive) i++;
+          }
+          break;
+        case _State.inValue:
+        case _State.inElement:
+          if (_primitive) {
+            if (c == 0x2C || c == 0x7D || c == 0x5D || _isSpace(c)) {
+              // The delimiter belongs to the enclosing state.
+              _endValue(chunk.substring(from, i));
+              break;
+            }
+            i++;
+          } else {
+            i++;
+            if (_step(c)) _endValue(chunk.substring(from, i));
+          }
+          break;
+        case _State.afterValue:
+          if (c == 0x2C) {
+            _state = _State.beforeKey;
+          } else if (c == 0x7D) {
+            _state = _State.end;
+          } else if (!_isSpace(c)) {
+            throw FormatException('Expected "," or "}" after "$_key"');
+          }
+          i++;
+          break;
+        case _State.afterElement:
+          if (c == 0x2C) {
+            _state = _State.beforeElement;
+          } else if (c == 0x5D) {
+            _state = _State.afterValue;
+          } else if (!_isSpace(c)) {
+            throw FormatException('Expected "," or "]" in "$_key"');
+          }
+          i++;
+          break;
+        case _State.end:
+          if (!_isSpace(c)) {
+            throw FormatException('Unexpected content after the backup');
+          }
+          i++;
+          break;
+      }
+    }
+    if (_capture && _started) _text.write(chunk.substring(from, end));
+    if (isLast) close();
+  }
+
+  void _beginValue(int c, {required bool capture}) {
+    _started = true;
+    _capture = capture;
+    _depth = 0;
+    _inString = false;
+    _escaped = false;
+    _primitive = false;
+    if (c == 0x7B || c == 0x5B) {
+      _depth = 1;
+    } else if (c == 0x22) {
+      _inString = true;
+    } else {
+      _primitive = true;
+    }
+  }
+
+  /// Steps over [c] within a string or container value; true when [c]
+  /// ends the value.
+  bool _step(int c) {
+    if (_inString) {
+      if (_escaped) {
+        _escaped = false;
+      } else if (c == 0x5C) {
+        _escaped = true;
+      } else if (c == 0x22) {
+        _inString = false;
+        return _depth == 0;
+      }
+      return false;
+    }
+    if (c == 0x22) {
+      _inString = true;
+    } else if (c == 0x7B || c == 0x5B) {
+      _depth++;
+    } else if (c == 0x7D || c == 0x5D) {
+      return --_depth == 0;
+    }
+    return false;
+  }
+
+  void _endValue(String lastPiece) {
+    _started = false;
+    String? json;
+    if (_capture) {
+      _text.write(lastPiece);
+      json = _text.toString();
+      _text.clear();
+    }
+    if (_state == _State.inValue) {
+      _state = _State.afterValue;
+      if (json != null) onValue(_key, jsonDecode(json));
+    } else {
+      _state = _State.afterElement;
+      if (json != null) onElement(_key, json);
+      _index++;
+    }
+  }
+
+  @override
+  void close() {
+    if (_state != _State.end) {
+      throw FormatException('The backup ends unexpectedly');
+    }
+  }
+}
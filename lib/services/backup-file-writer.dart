@@ -0,0 +1,269 @@
+import 'dart:async';
+import 'dart:convert';
+import 'dart:io';
+import 'dart:isolate';
+import 'dart:math';
+import 'dart:typed_data';
+
+import 'package:pointycastle/export.dart';
+
+/// Writes a JSON backup file from a background isolate.
+///
+/// The caller sends the document a piece at a time: the small top-level
+/// fields first, then the large lists page by page. The isolate encodes each
+/// piece, encrypts it if a password was given and appends it to the file, so
+/// neither the JSON string nor the object graph of the whole backup is ever
+/// held in memory. Each call completes once its piece is on disk, which keeps
+/// at most one page in flight.
+///
+/// An encrypted file has the layout [BackupService.encryptData] produces,
+/// base64(IV + AES/SIC/PKCS7 ciphertext), so [BackupService.decryptData]
+/// and older app versions read it unchanged.
+class BackupFileWriter {
+  final Isolate _isolate;
+  final SendPort _commands;
+  final StreamIterator<dynamic> _replies;
+
+  BackupFileWriter._(this._isolate, this._commands, this._replies);
+
+  /// Starts the writer isolate on a new file at [path].
+  static Future<BackupFileWriter> open(
+    String path, {
+    String? encryptionPassword,
+  }) async {
+    final replyPort = ReceivePort();
+    final replies = StreamIterator<dynamic>(replyPort);
+    final isolate = await Isolate.spawn(
+      _writerMain,
+      [replyPort.sendPort, path, encryptionPassword],
+      debugName: 'BackupFileWriter',
+    );
+    await replies.moveNext();
+    final writer =
+        BackupFileWriter._(isolate, replies.current as SendPort, replies);
+    await writer._reply();
+    return writer;
+  }
+
+  /// Writes top-level fields of the backup object.
+  Future<void> writeFields(Map<String, dynamic> fields) {
+    return _send(['fields', fields]);
+  }
+
+  /// Starts the top-level list [key]; [writeRows] appends to it until the
+  /// next list is started or the writer is closed.
+  Future<void> beginList(String key) {
+    return _send(['list', key]);
+  }
+
+  Future<void> writeRows(List<Map<String, dynamic>> rows) {
+    return _send(['rows', rows]);
+  }
+
+  /// Completes the document and returns the size of the file in bytes.
+  Future<int> close() async {
+    try {
+      return await _send(['close']) as int;
+    } finally {
+      await _dispose();
+    }
+  }
+
+  /// Stops the isolate and leaves the partial file behind for the caller to
+  /// delete.
+  Future<void> abort() => _dispose();
+
+  Future<dynamic> _send(List<Object?> command) {
+    _commands.send(command);
+    return _reply();
+  }
+
+  Future<dynamic> _reply() async {
+    if (!await _replies.moveNext()) {
+      throw StateError('The backup writer has stopped');
+    }
+    final reply = _replies.current;
+    if (reply is List && reply.isNotEmpty && reply.first == 'error') {
+      await _dispose();
+      throw RemoteError(reply[1] as String, reply[2] as String);
+    }
+    return reply;
+  }
+
+  Future<void> _dispose() async {
+    _isolate.kill(priority: Isolate.immediate);
+    await _replies.cancel();
+  }
+}
+
+Future<void> _writerMain(List<Object?> args) async {
+  final replies = args[0] as SendPort;
+  final commands = ReceivePort();
+  replies.send(commands.sendPort);
+
+  late final IOSink file;
+  late final _BackupOutput output;
+  try {
+    file = File(args[1] as String).openWrite();
+    final password = args[2] as String?;
+    output = password != null && password.isNotEmpty
+        ? _EncryptedOutput(file, password)
+        : _PlainOutput(file);
+    replies.send(null);
+  } catch (e, st) {
+    replies.send(['error', e.toString(), st.toString()]);
+    commands.close();
+    return;
+  }
+
+  var fieldCount = 0;
+  var listOpen = false;
+  var rowCount = 0;
+
+  String separator() => fieldCount++ == 0 ? '{' : ',';
+  String closeList() {
+    if (!listOpen) return '';
+    listOpen = false;
+    return ']';
+  }
+
+  await for (final command in commands) {
+    try {
+      final message = command as List;
+      final buffer = StringBuffer();
+      switch (message[0]) {
+        case 'fields':
+          buffer.write(closeList());
+          (message[1] as Map<String, dynamic>).forEach((key, value) {
+            buffer
+              ..write(separator())
+              ..write(jsonEncode(key))
+              ..write(':')
+              ..write(jsonEncode(value));
+          });
+          break;
+        case 'list':
+          buffer
+            ..write(closeList())
+            ..write(separator())
+            ..write(jsonEncode(message[1]))
+            ..write(':[');
+          listOpen = true;
+          rowCount = 0;
+          break;
+        case 'rows':
+          for (final row in message[1] as List) {
+            if (rowCount++ > 0) buffer.write(',');
+            buffer.write(jsonEncode(row));
+          }
+          break;
+        case 'close':
+          buffer
+            ..write(closeList())
+            ..write(fieldCount == 0 ? '{}' : '}');
+          output.add(utf8.encode(buffer.toString()));
+          output.close();
+          await file.flush();
+          await file.close();
+          replies.send(output.length);
+          commands.close();
+          return;
+      }
+      output.add(utf8.encode(buffer.toString()));
+      await file.flush();
+      replies.send(null);
+    } catch (e, st) {
+      replies.send(['error', e.toString(), st.toString()]);
+      await file.close().catchError((_) {});
+      commands.close();
+      return;
+    }
+  }
+}
+
+abstract class _BackupOutput {
+  /// Bytes written to the file so far.
+  int get length;
+
+  void add(List<int> bytes);
+
+  void close();
+}
+
+class _PlainOutput implements _BackupOutput {
+  final IOSink _file;
+
+  @override
+  int length = 0;
+
+  _PlainOutput(this._file);
+
+  @override
+  void add(List<int> bytes) {
+    length += bytes.length;
+    _file.add(bytes);
+  }
+
+  @override
+  void close() {}
+}
+
+/// Encrypts with AES in SIC (counter) mode as it goes. Counter mode encrypts
+/// any prefix of the plaintext independently of what follows, so the output
+/// equals the one-shot PKCS7-padded encryption once the padding is added at
+/// the end.
+class _EncryptedOutput implements _BackupOutput {
+  final IOSink _file;
+  late final ByteConversionSink _base64;
+  final StreamCipher _cipher = SICStreamCipher(AESEngine());
+  int _plainLength = 0;
+  int _encodedLength = 0;
+
+  _EncryptedOutput(this._file, String password) {
+    // Same key derivation as BackupService.encryptData.
+    final key = utf8.encode(password.padRight(32, '*').substring(0, 32));
+    final random = Random.secure();
+    final iv = Uint8List.fromList(
+      List<int>.generate(16, (_) => random.nextInt(256)),
+    );
+    _cipher.init(
+      true,
+      ParametersWithIV(KeyParameter(Uint8List.fromList(key)), iv),
+    );
+    _base64 = base64.encoder.startChunkedConversion(_CountingSink(this));
+    _base64.add(iv);
+  }
+
+  @override
+  int get length => _encodedLength;
+
+  @override
+  void add(List<int> bytes) {
+    _plainLength += bytes.length;
+    _base64.add(_cipher.process(Uint8List.fromList(bytes)));
+  }
+
+  @override
+  void close() {
+    final padding = 16 - _plainLength % 16;
+    _base64.add(
+      _cipher.process(Uint8List(padding)..fillRange(0, padding, padding)),
+    );
+    _base64.close();
+  }
+}
+
+class _CountingSink implements Sink<String> {
+  final _EncryptedOutput _output;
+
+  _CountingSink(this._output);
+
+  @override
+  void add(String chunk) {
+    _output._encodedLength += chunk.length;
+    _output._file.write(chunk);
+  }
+
+  @override
+  void close() {}
+}
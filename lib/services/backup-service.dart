@@ -8,9 +8,14 @@ import 'package:intl/intl.dart';
 import 'package:package_info_plus/package_info_plus.dart';
 import 'package:path_provider/path_provider.dart';
 import 'package:piggybank/models/backup.dart';
+import 'package:piggybank/models/backup-import-progress.dart';
 import 'package:piggybank/models/budget.dart';
+import 'package:piggybank/models/record-tag-association.dart';
+import 'package:piggybank/models/record.dart';
 import 'package:piggybank/models/wallet.dart';
 import 'package:piggybank/models/currency.dart';
+import 'package:piggybank/services/backup-file-reader.dart';
+import 'package:piggybank/services/backup-file-writer.dart';
 import 'package:piggybank/services/database/exceptions.dart';
 import 'package:piggybank/services/preferences-backup-service.dart';
 import 'package:piggybank/services/service-config.dart';
@@ -42,6 +47,12 @@ class BackupService {
 
   static const Duration AUTOMATIC_BACKUP_THRESHOLD = Duration(hours: 1);
 
+  /// Rows read from the database and handed to the backup writer at a time.
+  static const int BACKUP_PAGE_SIZE = 1000;
+
+  /// Records restored per transaction, and between two import checkpoints.
+  static const int BACKUP_IMPORT_CHUNK_SIZE = 500;
+
   // not final because it is swapped in the tests
   static DatabaseInterface database = ServiceConfig.database;
 
@@ -89,6 +100,9 @@ class BackupService {
   /// [backupFileName] - optional, if not specified uses the generated backup file name.
   /// [directoryPath] - optional, if not specified it uses the application's documents directory.
   /// [encryptionPassword] - optional, if provided, encrypts the backup JSON string with the password.
+  ///
+  /// The file is encoded, encrypted and written by a [BackupFileWriter]
+  /// isolate while the records are read in pages of [BACKUP_PAGE_SIZE].
   static Future<File> createJsonBackupFile({
     String? backupFileName,
     String? directoryPath,
@@ -118,10 +132,8 @@ class BackupService {
 
       _logger.debug('Fetching data for backup...');
       // Create the backup (no profileId filter — backup all profiles)
-      var records = await database.getAllRecords();
       var categories = await database.getAllCategories();
       var recurrentRecordPatterns = await database.getRecurrentRecordPatterns();
-      var recordTagAssociations = await database.getAllRecordTagAssociations();
       var wallets = await database.getAllWallets();
       var profiles = await database.getAllProfiles();
       // Older test doubles and database implementations may not expose the
@@ -140,7 +152,7 @@ class BackupService {
       var preferences = PreferencesBackupService.exportPreferences(prefs);
 
       _logger.info(
-        'Backup data: ${records.length} records, ${categories.length} categories, ${recurrentRecordPatterns.length} recurrent patterns, ${recordTagAssociations.length} tags, ${wallets.length} wallets, ${profiles.length} profiles, ${budgets.length} budgets',
+        'Backup data: ${categories.length} categories, ${recurrentRecordPatterns.length} recurrent patterns, ${wallets.length} wallets, ${profiles.length} profiles, ${budgets.length} budgets',
       );
 
       var backup = Backup(
@@ -148,31 +160,78 @@ class BackupService {
         version,
         databaseVersion,
         categories,
-        records,
+        [],
         recurrentRecordPatterns,
-        recordTagAssociations,
+        [],
         wallets: wallets,
         profiles: profiles,
         budgets: budgets,
         userCurrencies: userCurrencies,
         preferences: preferences,
       );
-      var backupJsonStr = jsonEncode(backup.toMap());
 
-      // Encrypt the backup JSON string if an encryption password is provided
+      // Records and their tag associations grow with the history, so they
+      // are read a page at a time and streamed to the writer isolate after
+      // the small collections; readers decode the whole document, so the
+      // key order does not matter to them.
+      final fields = backup.toMap()
+        ..remove('records')
+        ..remove('record_tag_associations');
+      final backupJsonOnDisk = File("${path.path}/$backupFileName");
+      // Written next to the target and renamed at the end, so a failure
+      // halfway never replaces the previous backup of the same name.
+      final partialFile = File("${backupJsonOnDisk.path}.part");
       if (encryptionPassword != null && encryptionPassword.isNotEmpty) {
         _logger.info('Encrypting backup...');
-        backupJsonStr = encryptData(backupJsonStr, encryptionPassword);
       }
+      final writer = await BackupFileWriter.open(
+        partialFile.path,
+        encryptionPassword: encryptionPassword,
+      );
+      int recordCount = 0;
+      int associationCount = 0;
+      int size;
+      try {
+        await writer.writeFields(fields);
+
+        await writer.beginList('records');
+        int? lastRecordId;
+        while (true) {
+          final page = await database.getRecordsAfterId(
+            lastRecordId,
+            limit: BACKUP_PAGE_SIZE,
+          );
+          await writer.writeRows(page.map((r) => r.toMap()).toList());
+          recordCount += page.length;
+          if (page.length < BACKUP_PAGE_SIZE || page.last.id == null) break;
+          lastRecordId = page.last.id;
+        }
 
-      // Write on disk
-      var backupJsonOnDisk = File("${path.path}/$backupFileName");
-      var result = await backupJsonOnDisk.writeAsString(backupJsonStr);
+        await writer.beginList('record_tag_associations');
+        RecordTagAssociation? lastAssociation;
+        while (true) {
+          final page = await database.getRecordTagAssociationsAfter(
+            lastAssociation,
+            limit: BACKUP_PAGE_SIZE,
+          );
+          await writer.writeRows(page.map((a) => a.toMap()).toList());
+          associationCount += page.length;
+          if (page.length < BACKUP_PAGE_SIZE) break;
+          lastAssociation = page.last;
+        }
+
+        size = await writer.close();
+      } catch (_) {
+        await writer.abort();
+        if (await partialFile.exists()) await partialFile.delete();
+        rethrow;
+      }
+      await partialFile.rename(backupJsonOnDisk.path);
 
       _logger.info(
-        'Backup created successfully: ${backupJsonOnDisk.path} (${backupJsonStr.length} bytes)',
+        'Backup created successfully: ${backupJsonOnDisk.path} ($recordCount records, $associationCount tags, $size bytes)',
       );
-      return result;
+      return backupJsonOnDisk;
     } catch (e, st) {
       _logger.handle(e, st, 'Failed to create backup');
       rethrow;
@@ -302,165 +361,97 @@ class BackupService {
   ///
   /// [inputFile] - the backup file to import.
   /// [encryptionPassword] - optional, if provided, attempts to decrypt the backup file content.
+  /// [onProgress] - optional, called after each batch of records is written.
+  ///
+  /// The file is read by a [BackupFileReader] isolate: once to collect
+  /// everything but the records, then again to stream the records, which
+  /// are written in transactions of [BACKUP_IMPORT_CHUNK_SIZE]. After each
+  /// transaction a checkpoint is saved, so importing the same file again
+  /// after a failure continues where the previous attempt stopped.
   static Future<bool> importDataFromBackupFile(
     File inputFile, {
     String? encryptionPassword,
+    void Function(BackupImportProgress progress)? onProgress,
   }) async {
     try {
       _logger.info('Starting backup import from: ${inputFile.path}');
-      String fileContent = await inputFile.readAsString();
-
-      // Decrypt the file content if an encryption password is provided
       if (encryptionPassword != null && encryptionPassword.isNotEmpty) {
         _logger.info('Decrypting backup...');
-        fileContent = decryptData(fileContent, encryptionPassword);
       }
-
-      var jsonMap = jsonDecode(fileContent);
-      Backup backup = Backup.fromMap(jsonMap);
+      final summary = await BackupFileReader.summarize(
+        inputFile.path,
+        encryptionPassword: encryptionPassword,
+      );
+      // Everything but the records and their tags, which are streamed below.
+      Backup backup = Backup.fromMap(summary.fields);
       _logger.info(
-        'Importing: ${backup.records.length} records, ${backup.categories.length} categories, ${backup.wallets.length} wallets, ${backup.budgets.length} budgets',
+        'Importing: ${summary.recordCount} records, ${backup.categories.length} categories, ${backup.wallets.length} wallets, ${backup.budgets.length} budgets',
       );
 
+      SharedPreferences? prefs;
+      try {
+        prefs = await SharedPreferences.getInstance();
+      } catch (error, stackTrace) {
+        // Preferences are optional for legacy/database-only imports. A
+        // missing platform implementation must not prevent the actual data
+        // from being restored; the import then cannot be resumed either.
+        _logger.handle(
+          error,
+          stackTrace,
+          'Skipping preferences because they are unavailable',
+        );
+      }
+
       // Restore portable preferences independently. A malformed, obsolete, or
       // failing setting is skipped by the preference service and cannot abort
       // the database restore. Very old backups stored user currencies in a
       // top-level field, so expose that field to the same tolerant path when
       // the newer preferences map does not contain it.
-      if (backup.preferences.isNotEmpty || backup.userCurrencies != null) {
-        SharedPreferences? restorePrefs;
-        try {
-          restorePrefs = await SharedPreferences.getInstance();
-        } catch (error, stackTrace) {
-          // Preferences are optional for legacy/database-only imports. A
-          // missing platform implementation must not prevent the actual data
-          // from being restored.
-          _logger.handle(
-            error,
-            stackTrace,
-            'Skipping preferences because they are unavailable',
-          );
-        }
-        if (restorePrefs != null) {
-          final preferencesToRestore = <String, dynamic>{
-            ...backup.preferences,
-            if (!backup.preferences.containsKey(
-                  PreferencesKeys.userCurrencies,
-                ) &&
-                backup.userCurrencies != null)
-              PreferencesKeys.userCurrencies: backup.userCurrencies,
-          };
-          await PreferencesBackupService.restorePreferences(
-            restorePrefs,
-            preferencesToRestore,
-          );
-          ServiceConfig.initBudgetsEnabled();
+      if (prefs != null &&
+          (backup.preferences.isNotEmpty || backup.userCurrencies != null)) {
+        final preferencesToRestore = <String, dynamic>{
+          ...backup.preferences,
+          if (!backup.preferences.containsKey(
+                PreferencesKeys.userCurrencies,
+              ) &&
+              backup.userCurrencies != null)
+            PreferencesKeys.userCurrencies: backup.userCurrencies,
+        };
+        await PreferencesBackupService.restorePreferences(
+          prefs,
+          preferencesToRestore,
+        );
+        ServiceConfig.initBudgetsEnabled();
 
-          // Load custom currencies into CurrencyInfo before wallets are
-          // restored. The payload may come from an old backup and can be
-          // malformed; this must never make an otherwise usable backup fail.
-          _loadRestoredCustomCurrencies(
-            restorePrefs.getString(PreferencesKeys.userCurrencies),
-          );
-        }
+        // Load custom currencies into CurrencyInfo before wallets are
+        // restored. The payload may come from an old backup and can be
+        // malformed; this must never make an otherwise usable backup fail.
+        _loadRestoredCustomCurrencies(
+          prefs.getString(PreferencesKeys.userCurrencies),
+        );
       }
 
-      // Insert profiles and build backup_id → new_db_id mapping
-      final profileIdMap =
-          <int, int>{}; // backup profile id → new db profile id
-      int? fallbackProfileId;
-
-      if (backup.profiles.isNotEmpty) {
-        // Check if a default profile already exists in the database
-        final existingDefaultProfile = await database.getDefaultProfile();
-        final int? existingDefaultProfileId = existingDefaultProfile?.id;
-
-        for (var backupProfile in backup.profiles) {
-          final backupId = backupProfile.id;
-
-          if (backupProfile.isDefault && existingDefaultProfileId != null) {
-            // Reuse the existing Default Profile instead of creating a duplicate
-            if (backupId != null) {
-              profileIdMap[backupId] = existingDefaultProfileId;
-            }
-            fallbackProfileId = existingDefaultProfileId;
-          } else {
-            backupProfile.id = null;
-            final newId = await database.addProfile(backupProfile);
-            if (backupId != null) {
-              profileIdMap[backupId] = newId;
-            }
-            if (backupProfile.isDefault) fallbackProfileId = newId;
-          }
-        }
+      var saved = await _loadImportCheckpoint(prefs, summary.fingerprint);
+      if (saved != null) {
+        _logger.info('Resuming the import after ${saved.recordsDone} records');
       } else {
-        // Old backup with no profiles: assign everything to the existing Default Profile
-        final defaultProfile = await database.getDefaultProfile();
-        fallbackProfileId = defaultProfile?.id;
-      }
-
-      // Insert wallets and build backup_id → new_db_id mapping
-      final walletIdMap = <int, int>{}; // backup wallet id → new db wallet id
-
-      // Check if a default wallet already exists in the database
-      final existingDefaultWallet = await database.getDefaultWallet();
-      final int? existingDefaultWalletId = existingDefaultWallet?.id;
-
-      // Get all existing wallets grouped by profile for name-based merging
-      final existingWalletsByProfile = <int?, List<Wallet>>{};
-      for (var profileId in profileIdMap.values.toSet()) {
-        final wallets = await database.getAllWallets(profileId: profileId);
-        existingWalletsByProfile[profileId] = wallets;
-      }
-
-      for (var backupWallet in backup.wallets) {
-        final backupId = backupWallet.id;
-        // Remap profile_id
-        if (backupWallet.profileId != null &&
-            profileIdMap.containsKey(backupWallet.profileId)) {
-          backupWallet.profileId = profileIdMap[backupWallet.profileId];
-        } else {
-          backupWallet.profileId = fallbackProfileId;
-        }
-
-        int? mappedWalletId;
-
-        // Check if this is a default wallet and reuse existing default
-        if (backupWallet.isDefault && existingDefaultWalletId != null) {
-          mappedWalletId = existingDefaultWalletId;
-        } else {
-          // Check if a wallet with the same name exists in the same profile
-          final existingInProfile =
-              existingWalletsByProfile[backupWallet.profileId] ?? [];
-          final match = existingInProfile.where(
-            (w) => w.name.toLowerCase() == backupWallet.name.toLowerCase(),
-          );
-          if (match.isNotEmpty) {
-            mappedWalletId = match.first.id;
-          }
-        }
-
-        if (mappedWalletId != null) {
-          // Reuse existing wallet
-          if (backupId != null) {
-            walletIdMap[backupId] = mappedWalletId;
-          }
-        } else {
-          // Insert without the old id so the DB auto-assigns a new one
-          backupWallet.id = null;
-          final newId = await database.addWallet(backupWallet);
-          if (backupId != null) {
-            walletIdMap[backupId] = newId;
-          }
-          // Add to existing list for subsequent duplicates in same profile
-          final newWallet = await database.getWalletById(newId);
-          if (newWallet != null) {
-            existingWalletsByProfile
-                .putIfAbsent(backupWallet.profileId, () => [])
-                .add(newWallet);
-          }
-        }
+        final profileIdMap = <int, int>{};
+        final fallbackProfileId = await _importProfiles(backup, profileIdMap);
+        final walletIdMap = <int, int>{};
+        await _importWallets(
+            backup, profileIdMap, fallbackProfileId, walletIdMap);
+        saved = _ImportCheckpoint(
+          summary.fingerprint,
+          profileIdMap,
+          walletIdMap,
+          fallbackProfileId,
+        );
+        await _saveImportCheckpoint(prefs, saved);
       }
+      final checkpoint = saved;
+      final profileIdMap = checkpoint.profileIds;
+      final walletIdMap = checkpoint.walletIds;
+      final fallbackProfileId = checkpoint.fallbackProfileId;
 
       // Records with no wallet mapping (old backups, missing wallet data, etc.)
       // fall back to the Default Wallet, which always exists.
@@ -476,47 +467,74 @@ class BackupService {
         }
       }
 
-      // Build a map of record ID -> tags from the backup's tag associations
-      final recordIdToTags = <int, Set<String>>{};
-      for (var assoc in backup.recordTagAssociations) {
-        recordIdToTags
-            .putIfAbsent(assoc.recordId, () => <String>{})
-            .add(assoc.tagName);
+      final stopwatch = Stopwatch()..start();
+      final firstRecord = checkpoint.recordsDone;
+      void reportProgress() {
+        final seconds = stopwatch.elapsedMicroseconds / 1e6;
+        onProgress?.call(BackupImportProgress(
+          checkpoint.recordsDone,
+          summary.recordCount,
+          seconds > 0 ? (checkpoint.recordsDone - firstRecord) / seconds : 0,
+        ));
       }
 
-      // Populate record.tags and remap wallet_id + profile_id
-      for (var record in backup.records) {
-        if (record == null) continue;
-        if (record.id != null && recordIdToTags.containsKey(record.id)) {
-          record.tags = recordIdToTags[record.id]!;
-        }
-        // Remap profile_id from backup id to new db id
-        if (record.profileId != null &&
-            profileIdMap.containsKey(record.profileId)) {
-          record.profileId = profileIdMap[record.profileId];
-        } else {
-          record.profileId = fallbackProfileId;
-        }
-        // Remap wallet_id from backup id to new db id
-        if (record.walletId != null &&
-            walletIdMap.containsKey(record.walletId)) {
-          record.walletId = walletIdMap[record.walletId];
-        } else if (fallbackWalletId != null) {
-          record.walletId = fallbackWalletId;
-        }
-        // Remap transfer_wallet_id from backup id to new db id
-        if (record.transferWalletId != null &&
-            walletIdMap.containsKey(record.transferWalletId)) {
-          record.transferWalletId = walletIdMap[record.transferWalletId];
-        } else if (record.transferWalletId != null &&
-            !walletIdMap.containsKey(record.transferWalletId)) {
-          // Destination wallet not found in backup mapping — clear the transfer
-          record.transferWalletId = null;
+      reportProgress();
+      await for (final page in BackupFileReader.records(
+        inputFile.path,
+        encryptionPassword: encryptionPassword,
+        pageSize: BACKUP_IMPORT_CHUNK_SIZE,
+        skip: checkpoint.recordsDone,
+      )) {
+        final records = <Record?>[];
+        for (final row in page) {
+          final record = Backup.recordFromMap(row, backup.categories);
+          // Populate record.tags from the backup's tag associations
+          if (record.id != null) {
+            final tags = summary.tagsOf(record.id!);
+            if (tags.isNotEmpty) record.tags = tags;
+          }
+          // Remap profile_id from backup id to new db id
+          if (record.profileId != null &&
+              profileIdMap.containsKey(record.profileId)) {
+            record.profileId = profileIdMap[record.profileId];
+          } else {
+            record.profileId = fallbackProfileId;
+          }
+          // Remap wallet_id from backup id to new db id
+          if (record.walletId != null &&
+              walletIdMap.containsKey(record.walletId)) {
+            record.walletId = walletIdMap[record.walletId];
+          } else if (fallbackWalletId != null) {
+            record.walletId = fallbackWalletId;
+          }
+          // Remap transfer_wallet_id from backup id to new db id
+          if (record.transferWalletId != null &&
+              walletIdMap.containsKey(record.transferWalletId)) {
+            record.transferWalletId = walletIdMap[record.transferWalletId];
+          } else if (record.transferWalletId != null &&
+              !walletIdMap.containsKey(record.transferWalletId)) {
+            // Destination wallet not found in backup mapping — clear the transfer
+            record.transferWalletId = null;
+          }
+          records.add(record);
         }
-      }
 
-      // Add records in batch — Phase 2 will correctly map tags to new IDs
-      await database.addRecordsInBatch(backup.records);
+        // One transaction per chunk, tags included, followed by a
+        // checkpoint so that an interrupted import resumes after the last
+        // chunk written. Records of a chunk that is written twice, because
+        // the checkpoint after it was lost, are recognised as duplicates.
+        await database.addRecordsInBatch(records);
+        checkpoint.recordsDone += records.length;
+        await _saveImportCheckpoint(prefs, checkpoint);
+        reportProgress();
+      }
+      _logger.info(
+        'Imported ${checkpoint.recordsDone - firstRecord} records in ${stopwatch.elapsedMilliseconds} ms',
+      );
+      // The triggers keep the daily summary and the wallet balances current
+      // record by record; a rebuild after a restore also clears rounding
+      // drift from earlier incremental updates.
+      await database.rebuildRecordSummaries();
 
       // Add recurrent patterns (remap profile_id)
       for (var backupRecurrentPatterns in backup.recurrentRecordsPattern) {
@@ -549,8 +567,9 @@ class BackupService {
       }
 
       // Add budgets after profiles have been remapped. Budget filters use
-      // category names, so no category ID remapping is necessary.
-      for (final backupBudget in backup.budgets) {
+      // category names, so no category ID remapping is necessary. Budgets
+      // have no natural key, so the checkpoint counts the ones already added.
+      for (final backupBudget in backup.budgets.skip(checkpoint.budgetsDone)) {
         if (backupBudget.profileId != null &&
             profileIdMap.containsKey(backupBudget.profileId)) {
           backupBudget.profileId = profileIdMap[backupBudget.profileId];
@@ -572,8 +591,11 @@ class BackupService {
         }
         backupBudget.id = null;
         await database.addBudget(backupBudget);
+        checkpoint.budgetsDone++;
+        await _saveImportCheckpoint(prefs, checkpoint);
       }
 
+      await _saveImportCheckpoint(prefs, null);
       _logger.info('Backup imported successfully');
       return true;
     } catch (e, st) {
@@ -582,6 +604,158 @@ class BackupService {
     }
   }
 
+  /// Inserts the profiles of [backup], filling [profileIdMap] with backup
+  /// id → new db id, and returns the profile for records without one.
+  static Future<int?> _importProfiles(
+    Backup backup,
+    Map<int, int> profileIdMap,
+  ) async {
+    int? fallbackProfileId;
+
+    if (backup.profiles.isNotEmpty) {
+      // Check if a default profile already exists in the database
+      final existingDefaultProfile = await database.getDefaultProfile();
+      final int? existingDefaultProfileId = existingDefaultProfile?.id;
+
+      for (var backupProfile in backup.profiles) {
+        final backupId = backupProfile.id;
+
+        if (backupProfile.isDefault && existingDefaultProfileId != null) {
+          // Reuse the existing Default Profile instead of creating a duplicate
+          if (backupId != null) {
+            profileIdMap[backupId] = existingDefaultProfileId;
+          }
+          fallbackProfileId = existingDefaultProfileId;
+        } else {
+          backupProfile.id = null;
+          final newId = await database.addProfile(backupProfile);
+          if (backupId != null) {
+            profileIdMap[backupId] = newId;
+          }
+          if (backupProfile.isDefault) fallbackProfileId = newId;
+        }
+      }
+    } else {
+      // Old backup with no profiles: assign everything to the existing Default Profile
+      final defaultProfile = await database.getDefaultProfile();
+      fallbackProfileId = defaultProfile?.id;
+    }
+    return fallbackProfileId;
+  }
+
+  /// Inserts the wallets of [backup] that do not exist yet, filling
+  /// [walletIdMap] with backup id → new db id.
+  static Future<void> _importWallets(
+    Backup backup,
+    Map<int, int> profileIdMap,
+    int? fallbackProfileId,
+    Map<int, int> walletIdMap,
+  ) async {
+    // Check if a default wallet already exists in the database
+    final existingDefaultWallet = await database.getDefaultWallet();
+    final int? existingDefaultWalletId = existingDefaultWallet?.id;
+
+    // Get all existing wallets grouped by profile for name-based merging
+    final existingWalletsByProfile = <int?, List<Wallet>>{};
+    for (var profileId in profileIdMap.values.toSet()) {
+      final wallets = await database.getAllWallets(profileId: profileId);
+      existingWalletsByProfile[profileId] = wallets;
+    }
+
+    for (var backupWallet in backup.wallets) {
+      final backupId = backupWallet.id;
+      // Remap profile_id
+      if (backupWallet.profileId != null &&
+          profileIdMap.containsKey(backupWallet.profileId)) {
+        backupWallet.profileId = profileIdMap[backupWallet.profileId];
+      } else {
+        backupWallet.profileId = fallbackProfileId;
+      }
+
+      int? mappedWalletId;
+
+      // Check if this is a default wallet and reuse existing default
+      if (backupWallet.isDefault && existingDefaultWalletId != null) {
+        mappedWalletId = existingDefaultWalletId;
+      } else {
+        // Check if a wallet with the same name exists in the same profile
+        final existingInProfile =
+            existingWalletsByProfile[backupWallet.profileId] ?? [];
+        final match = existingInProfile.where(
+          (w) => w.name.toLowerCase() == backupWallet.name.toLowerCase(),
+        );
+        if (match.isNotEmpty) {
+          mappedWalletId = match.first.id;
+        }
+      }
+
+      if (mappedWalletId != null) {
+        // Reuse existing wallet
+        if (backupId != null) {
+          walletIdMap[backupId] = mappedWalletId;
+        }
+      } else {
+        // Insert without the old id so the DB auto-assigns a new one
+        backupWallet.id = null;
+        final newId = await database.addWallet(backupWallet);
+        if (backupId != null) {
+          walletIdMap[backupId] = newId;
+        }
+        // Add to existing list for subsequent duplicates in same profile
+        final newWallet = await database.getWalletById(newId);
+        if (newWallet != null) {
+          existingWalletsByProfile
+              .putIfAbsent(backupWallet.profileId, () => [])
+              .add(newWallet);
+        }
+      }
+    }
+  }
+
+  /// The checkpoint of an earlier, interrupted import of the backup with
+  /// [fingerprint], if the profiles and wallets it refers to still exist.
+  static Future<_ImportCheckpoint?> _loadImportCheckpoint(
+    SharedPreferences? prefs,
+    String fingerprint,
+  ) async {
+    final raw = prefs?.getString(PreferencesKeys.backupImportCheckpoint);
+    if (raw == null) return null;
+    try {
+      final checkpoint = _ImportCheckpoint.fromMap(jsonDecode(raw));
+      if (checkpoint.fingerprint != fingerprint) return null;
+      // The data may have been deleted since the checkpoint was saved.
+      for (final profileId in {
+        ...checkpoint.profileIds.values,
+        if (checkpoint.fallbackProfileId != null) checkpoint.fallbackProfileId!,
+      }) {
+        if (await database.getProfileById(profileId) == null) return null;
+      }
+      for (final walletId in checkpoint.walletIds.values.toSet()) {
+        if (await database.getWalletById(walletId) == null) return null;
+      }
+      return checkpoint;
+    } catch (error, stackTrace) {
+      _logger.handle(error, stackTrace, 'Ignoring unreadable import checkpoint');
+      return null;
+    }
+  }
+
+  /// Saves [checkpoint], or clears the saved one when it is null.
+  static Future<void> _saveImportCheckpoint(
+    SharedPreferences? prefs,
+    _ImportCheckpoint? checkpoint,
+  ) async {
+    if (prefs == null) return;
+    if (checkpoint == null) {
+      await prefs.remove(PreferencesKeys.backupImportCheckpoint);
+    } else {
+      await prefs.setString(
+        PreferencesKeys.backupImportCheckpoint,
+        jsonEncode(checkpoint.toMap()),
+      );
+    }
+  }
+
   static void _loadRestoredCustomCurrencies(String? rawCurrencies) {
     if (rawCurrencies == null || rawCurrencies.isEmpty) {
       _logger.debug('No restored custom currency configuration to load');
@@ -643,18 +817,28 @@ class BackupService {
     return digest.toString().substring(0, 32);
   }
 
+  /// Whether [inputFile] holds an encrypted backup. A plain backup is a JSON
+  /// object, while an encrypted one is base64 text, which never contains
+  /// "{"; the first character is enough to tell them apart.
   static Future<bool> isEncrypted(File inputFile) async {
     try {
-      // Read the content of the file as a string
-      String content = await inputFile.readAsString();
-
-      // Try to parse the content as JSON
-      jsonDecode(content);
-
-      // If no exception is thrown, the file is valid JSON, so it is not encrypted
-      return false;
+      final file = await inputFile.open();
+      try {
+        final head = await file.read(1024);
+        for (final byte in head) {
+          // Skip whitespace and a UTF-8 byte order mark.
+          if (const [0x20, 0x0A, 0x0D, 0x09, 0xEF, 0xBB, 0xBF].contains(byte)) {
+            continue;
+          }
+          return byte != 0x7B;
+        }
+        // Empty or blank: not a backup either way, let the import fail.
+        return true;
+      } finally {
+        await file.close();
+      }
     } catch (e) {
-      // If there's an error (e.g., the content is not valid JSON), assume the file is encrypted
+      // If the file cannot be read, assume the file is encrypted
       return true;
     }
   }
@@ -765,3 +949,49 @@ class BackupService {
     return latestModifiedDate;
   }
 }
+
+/// How far an import of the backup with [fingerprint] got, kept in the
+/// preferences until the import completes.
+class _ImportCheckpoint {
+  final String fingerprint;
+
+  /// Backup id → new db id of the profiles and wallets, which are inserted
+  /// only by the first attempt.
+  final Map<int, int> profileIds;
+  final Map<int, int> walletIds;
+  final int? fallbackProfileId;
+
+  int recordsDone;
+  int budgetsDone;
+
+  _ImportCheckpoint(
+    this.fingerprint,
+    this.profileIds,
+    this.walletIds,
+    this.fallbackProfileId, {
+    this.recordsDone = 0,
+    this.budgetsDone = 0,
+  });
+
+  Map<String, dynamic> toMap() => {
+        'fingerprint': fingerprint,
+        'profile_ids': profileIds.map((k, v) => MapEntry('$k', v)),
+        'wallet_ids': walletIds.map((k, v) => MapEntry('$k', v)),
+        'fallback_profile_id': fallbackProfileId,
+        'records_done': recordsDone,
+        'budgets_done': budgetsDone,
+      };
+
+  static _ImportCheckpoint fromMap(Map<String, dynamic> map) {
+    Map<int, int> ids(Object? raw) => (raw as Map)
+        .map((k, v) => MapEntry(int.parse(k as String), v as int));
+    return _ImportCheckpoint(
+      map['fingerprint'] as String,
+      ids(map['profile_ids']),
+      ids(map['wallet_ids']),
+      map['fallback_profile_id'] as int?,
+      recordsDone: map['records_done'] as int,
+      budgetsDone: map['budgets_done'] as int,
+    );
+  }
+}
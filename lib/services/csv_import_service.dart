@@ -1,12 +1,16 @@
+import 'dart:convert';
+import 'dart:io';
+import 'dart:isolate';
 import 'dart:math';
 
-import 'package:csv/csv.dart';
+import 'package:timezone/data/latest_all.dart' as tz_data;
 import 'package:timezone/timezone.dart' as tz;
 import 'package:piggybank/models/category.dart';
 import 'package:piggybank/models/category-type.dart';
 import 'package:piggybank/models/csv_import_mapping.dart';
 import 'package:piggybank/models/record.dart';
 import 'package:piggybank/models/wallet.dart';
+import 'package:piggybank/services/csv_row_reader.dart';
 import 'package:piggybank/services/database/database-interface.dart';
 import 'package:piggybank/services/database/exceptions.dart';
 import 'package:piggybank/services/logger.dart';
@@ -65,31 +69,44 @@ class CsvParseResult {
   const CsvParseResult(this.headers, this.rows);
 }
 
+/// Amounts and dates parsed from CSV columns, one entry per row, keyed by
+/// column header.
+class CsvParsedColumns {
+  final Map<String, List<double?>> money;
+  final Map<String, List<int?>> dates;
+
+  const CsvParsedColumns(this.money, this.dates);
+}
+
 /// Service for parsing, mapping, and importing records from CSV data.
 ///
 /// Mirrors the behaviour of `scripts/oinkoin_from_csv_importer.py` but imports
-/// directly into the database using the same duplicate-handling logic as
-/// [BackupService.importDataFromBackupFile].
+/// directly into the database, skipping rows that an earlier import already
+/// stored.
 class CsvImportService {
   static final _logger = Logger.withClass(CsvImportService);
 
-  /// Supported date formats for parsing (ordered by likelihood).
+  /// Date layouts tried by [parseToMs], in order. Each one also accepts the
+  /// other separators (`/`, `-`, `.`) and an optional time after a space or
+  /// a `T`, so these cover every format the importer has supported.
   static const _dateFormats = [
-    'yyyy-MM-dd HH:mm:ss',
-    'dd/MM/yyyy HH:mm:ss',
-    'MM/dd/yyyy HH:mm:ss',
-    'dd-MM-yyyy HH:mm:ss',
-    'dd.MM.yyyy HH:mm:ss',
-    'yyyy/MM/dd HH:mm:ss',
     'yyyy-MM-dd',
     'dd/MM/yyyy',
     'MM/dd/yyyy',
-    'dd-MM-yyyy',
-    'dd.MM.yyyy',
-    'yyyy/MM/dd',
     'yyyyMMdd',
   ];
 
+  /// Records inserted per batch by [importRecords].
+  static const importBatchSize = 1000;
+
+  /// Non-empty values of a column that [dateParserForColumn] looks at.
+  static const dateSampleSize = 1000;
+
+  static final _dateSeparators = RegExp(r'[/\-.]');
+  static final _nonAlpha = RegExp(r'[^a-zA-Z]');
+  static final _nonNumeric = RegExp(r'[^\d,.\-]');
+  static final _tagSeparators = RegExp(r'[;,]');
+
   // ---------------------------------------------------------------------------
   // Parsing
   // ---------------------------------------------------------------------------
@@ -100,78 +117,40 @@ class CsvImportService {
   /// Each row is a `Map<String, String>` keyed by the (trimmed) header name.
   static CsvParseResult parseCsv(String content) {
     _logger.debug('Parsing CSV content (${content.length} chars)');
+    final table = _CsvTable();
+    final reader = CsvRowReader(table.add)
+      ..add(content)
+      ..close();
+    return table.build(reader.delimiter!);
+  }
 
-    // Strip optional BOM
-    if (content.startsWith('\uFEFF')) {
-      content = content.substring(1);
-    }
-
-    // Normalise line endings so \r\n works with eol: '\n'
-    content = content.replaceAll('\r\n', '\n');
-
-    // Auto-detect delimiter from first 4096 chars
-    final sniffSample = content.length > 4096
-        ? content.substring(0, 4096)
-        : content;
-    final delimiter = _detectDelimiter(sniffSample);
-
-    final codec = Csv(fieldDelimiter: delimiter, dynamicTyping: false);
-    final List<List<dynamic>> raw = codec.decode(content);
-
-    if (raw.isEmpty) {
-      _logger.warning('CSV parsing produced 0 rows');
-      return CsvParseResult([], []);
-    }
-
-    // Normalise headers — trim whitespace, use original case
-    final headers = raw.first
-        .map((h) => h.toString().trim())
-        .where((h) => h.isNotEmpty)
-        .toList();
-
-    if (headers.isEmpty) {
-      _logger.warning('CSV has no valid headers after normalisation');
-      return CsvParseResult(headers, []);
-    }
-    _logger.debug('Found ${headers.length} headers: ${headers.join(", ")}');
-
-    final rows = <Map<String, String>>[];
-    int skippedEmpty = 0;
-    for (int i = 1; i < raw.length; i++) {
-      final row = raw[i];
-      if (row.every((cell) => cell.toString().trim().isEmpty)) {
-        skippedEmpty++;
-        continue; // skip completely empty rows
-      }
-      final map = <String, String>{};
-      for (int j = 0; j < headers.length; j++) {
-        map[headers[j]] = j < row.length ? row[j].toString().trim() : '';
-      }
-      rows.add(map);
+  /// Like [parseCsv], for text that arrives in [chunks]; only the rows, not
+  /// the whole text, are kept in memory.
+  static Future<CsvParseResult> parseCsvStream(Stream<String> chunks) async {
+    final table = _CsvTable();
+    final reader = CsvRowReader(table.add);
+    await for (final chunk in chunks) {
+      reader.add(chunk);
     }
+    reader.close();
+    return table.build(reader.delimiter!);
+  }
 
-    _logger.info(
-      'Parsed ${rows.length} data rows ($skippedEmpty empty skipped) '
-      'with ${headers.length} columns (delimiter: "${delimiter}")',
-    );
-    _logger.debug(
-      'First row sample: ${rows.isNotEmpty ? rows.first.values.where((v) => v.isNotEmpty).join(" | ") : "<none>"}',
+  /// Reads and parses the UTF-8 CSV file at [path] a chunk at a time on a
+  /// worker isolate.
+  static Future<CsvParseResult> parseCsvFile(String path) {
+    return Isolate.run(
+      () => parseCsvStream(File(path).openRead().transform(utf8.decoder)),
+      debugName: 'CsvImportService.parseCsvFile',
     );
-    return CsvParseResult(headers, rows);
   }
 
-  /// Heuristically detects the CSV delimiter from a sample.
-  static String _detectDelimiter(String sample) {
-    // Count occurrences of common delimiters
-    final counts = <String, int>{',': 0, ';': 0, '\t': 0};
-    for (final char in sample.split('')) {
-      if (counts.containsKey(char)) {
-        counts[char] = counts[char]! + 1;
-      }
-    }
-    // Return the delimiter with the highest count, default to comma
-    final best = counts.entries.reduce((a, b) => a.value > b.value ? a : b);
-    return best.value > 0 ? best.key : ',';
+  /// Runs [parseCsv] on a worker isolate.
+  static Future<CsvParseResult> parseCsvInBackground(String content) {
+    return Isolate.run(
+      () => parseCsv(content),
+      debugName: 'CsvImportService.parseCsv',
+    );
   }
 
   // ---------------------------------------------------------------------------
@@ -238,7 +217,7 @@ class CsvImportService {
     // Handle negative values in parentheses e.g. "(50.00)" — check BEFORE stripping
     if (valStr.startsWith('(') && valStr.endsWith(')')) {
       final inner = valStr.substring(1, valStr.length - 1).trim();
-      final innerClean = inner.replaceAll(RegExp(r'[^\d,.\-]'), '');
+      final innerClean = inner.replaceAll(_nonNumeric, '');
       if (innerClean.isNotEmpty) {
         final parsed = parseMoney('-$innerClean');
         return parsed;
@@ -247,7 +226,7 @@ class CsvImportService {
     }
 
     // Strip everything except digits, comma, period, and leading minus
-    var clean = valStr.replaceAll(RegExp(r'[^\d,.\-]'), '');
+    var clean = valStr.replaceAll(_nonNumeric, '');
 
     if (clean.isEmpty) return null;
 
@@ -285,14 +264,7 @@ class CsvImportService {
       // Otherwise, period is already the decimal separator — leave as-is.
     }
 
-    try {
-      final result = double.parse(clean);
-      _logger.debug('parseMoney: "$valStr" → $result');
-      return result;
-    } catch (e) {
-      _logger.debug('parseMoney: "$valStr" failed to parse — $e');
-      return null;
-    }
+    return double.tryParse(clean);
   }
 
   /// Parses a date/time string into UTC milliseconds-since-epoch.
@@ -303,52 +275,140 @@ class CsvImportService {
     if (value == null) return null;
     final valStr = value.trim();
     if (valStr.isEmpty) return null;
-
-    // Try explicit date formats first (before plain number)
-    for (final fmt in _dateFormats) {
-      final parsed = _tryParseFormat(valStr, fmt);
-      if (parsed != null) {
-        _logger.debug('parseToMs: "$valStr" → format "$fmt" → $parsed');
-        return parsed;
-      }
+    for (final parser in _dateParsers) {
+      final parsed = parser(valStr);
+      if (parsed != null) return parsed;
     }
+    return null;
+  }
 
-    // Try plain number (Unix timestamp) after named formats
-    final numVal = double.tryParse(valStr);
-    if (numVal != null) {
-      if (numVal < 10000000000) {
-        final ms = (numVal * 1000).round();
-        _logger.debug('parseToMs: "$valStr" → Unix seconds → $ms');
-        return ms;
-      } else {
-        final ms = numVal.round();
-        _logger.debug('parseToMs: "$valStr" → Unix ms → $ms');
-        return ms;
+  /// The ways [parseToMs] reads a trimmed, non-empty value, in the order it
+  /// tries them: the explicit date formats first, then a plain number as a
+  /// Unix timestamp, then ISO 8601.
+  static final List<int? Function(String value)> _dateParsers = [
+    for (final fmt in _dateFormats) (value) => _tryParseFormat(value, fmt),
+    _tryParseUnixTimestamp,
+    _tryParseIso8601,
+  ];
+
+  /// Returns a date parser for the column holding [values].
+  ///
+  /// Parsing a cell on its own tries each of [parseToMs]'s formats in turn,
+  /// and an ambiguous value like 01/02/2024 is read day first even in a
+  /// column that elsewhere holds 12/25/2024. This picks the first format
+  /// that reads every date among the first [dateSampleSize] non-empty
+  /// values, so the whole column is read the same way and most cells are
+  /// parsed with one attempt. Cells the format can't read fall back to
+  /// [parseToMs].
+  static int? Function(String? value) dateParserForColumn(
+    Iterable<String?> values,
+  ) {
+    final fits = List<bool>.filled(_dateParsers.length, true);
+    var anyDate = false;
+    var sampled = 0;
+    for (final value in values) {
+      final valStr = value?.trim() ?? '';
+      if (valStr.isEmpty) continue;
+      final parsed = [for (final parser in _dateParsers) parser(valStr) != null];
+      if (parsed.contains(true)) {
+        anyDate = true;
+        for (int i = 0; i < fits.length; i++) {
+          fits[i] = fits[i] && parsed[i];
+        }
       }
+      if (++sampled == dateSampleSize) break;
     }
 
-    // Try ISO 8601
-    final dt = DateTime.tryParse(valStr);
-    if (dt != null) {
-      // Interpret as local time in the user's timezone, then convert to UTC
-      final location = tz.getLocation(ServiceConfig.localTimezone);
-      final local = tz.TZDateTime(
-        location,
-        dt.year,
-        dt.month,
-        dt.day,
-        dt.hour,
-        dt.minute,
-        dt.second,
-        dt.millisecond,
-      );
-      final ms = local.toUtc().millisecondsSinceEpoch;
-      _logger.debug('parseToMs: "$valStr" → ISO 8601 → $ms');
-      return ms;
-    }
+    final index = fits.indexOf(true);
+    if (!anyDate || index == -1) return parseToMs;
+    final parser = _dateParsers[index];
+    return (value) {
+      if (value == null) return null;
+      final valStr = value.trim();
+      if (valStr.isEmpty) return null;
+      return parser(valStr) ?? parseToMs(valStr);
+    };
+  }
 
-    _logger.debug('parseToMs: "$valStr" → null (unrecognised format)');
-    return null;
+  /// Parses [values] as one column of dates, see [dateParserForColumn].
+  static List<int?> parseDateColumn(List<String?> values) {
+    final parse = dateParserForColumn(values);
+    return [for (final value in values) parse(value)];
+  }
+
+  /// Parses the [moneyColumns] and [dateColumns] of [rows] on a worker
+  /// isolate.
+  static Future<CsvParsedColumns> parseColumns(
+    List<Map<String, String>> rows, {
+    Iterable<String> moneyColumns = const [],
+    Iterable<String> dateColumns = const [],
+  }) {
+    final money = {
+      for (final column in moneyColumns)
+        column: [for (final row in rows) row[column]],
+    };
+    final dates = {
+      for (final column in dateColumns)
+        column: [for (final row in rows) row[column]],
+    };
+    return _runInWorker(
+      () => CsvParsedColumns(
+        {
+          for (final entry in money.entries)
+            entry.key: [for (final value in entry.value) parseMoney(value)],
+        },
+        {
+          for (final entry in dates.entries)
+            entry.key: parseDateColumn(entry.value),
+        },
+      ),
+    );
+  }
+
+  /// Runs [computation] on a worker isolate set up to parse dates in the
+  /// user's timezone.
+  static Future<R> _runInWorker<R>(R Function() computation) {
+    final localTimezone = ServiceConfig.localTimezone;
+    return Isolate.run(() {
+      tz_data.initializeTimeZones();
+      ServiceConfig.localTimezone = localTimezone;
+      return computation();
+    }, debugName: 'CsvImportService');
+  }
+
+  static int? _tryParseUnixTimestamp(String value) {
+    final numVal = double.tryParse(value);
+    if (numVal == null) return null;
+    return numVal < 10000000000 ? (numVal * 1000).round() : numVal.round();
+  }
+
+  static int? _tryParseIso8601(String value) {
+    final dt = DateTime.tryParse(value);
+    if (dt == null) return null;
+    // Interpret as local time in the user's timezone, then convert to UTC
+    final local = tz.TZDateTime(
+      _localLocation(),
+      dt.year,
+      dt.month,
+      dt.day,
+      dt.hour,
+      dt.minute,
+      dt.second,
+      dt.millisecond,
+    );
+    return local.toUtc().millisecondsSinceEpoch;
+  }
+
+  static tz.Location? _location;
+
+  /// The location of [ServiceConfig.localTimezone], looked up once rather
+  /// than for every value.
+  static tz.Location _localLocation() {
+    final location = _location;
+    if (location != null && location.name == ServiceConfig.localTimezone) {
+      return location;
+    }
+    return _location = tz.getLocation(ServiceConfig.localTimezone);
   }
 
   /// Splits a date string according to format character positions.
@@ -391,9 +451,8 @@ class CsvImportService {
       final second = timeParts.length > 2 ? int.tryParse(timeParts[2]) ?? 0 : 0;
 
       // Interpret as local time in the user's timezone, then convert to UTC
-      final location = tz.getLocation(ServiceConfig.localTimezone);
       final dt = tz.TZDateTime(
-        location,
+        _localLocation(),
         dateParts[0],
         dateParts[1],
         dateParts[2],
@@ -425,12 +484,12 @@ class CsvImportService {
     if (yIdx == -1 || mIdx == -1 || dIdx == -1) return null;
 
     // Try splitting by common separators first
-    var parts = dateStr.split(RegExp(r'[/\-.]'));
+    var parts = dateStr.split(_dateSeparators);
 
     // If no separators found in the date string AND the format has no
     // separators (e.g., yyyyMMdd), split by format group lengths.
     if (parts.length == 1 && dateStr.length >= 6) {
-      final formatHasOnlyAlpha = !format.contains(RegExp(r'[^a-zA-Z]'));
+      final formatHasOnlyAlpha = !format.contains(_nonAlpha);
       if (formatHasOnlyAlpha) {
         parts = _splitByFormat(dateStr, format);
       }
@@ -501,10 +560,13 @@ class CsvImportService {
     Record? sampleRecord;
     Map<String, String>? sampleCsvRow;
 
+    final dates = parseDateColumn(
+      [for (final row in rows) row[mapping.datetimeColumn]],
+    );
     for (int i = 0; i < rows.length; i++) {
       final row = rows[i];
       final value = parseMoney(row[mapping.valueColumn]);
-      final dateMs = parseToMs(row[mapping.datetimeColumn]);
+      final dateMs = dates[i];
       final cat = row[mapping.categoryColumn] ?? 'Uncategorized';
 
       if (value != null && dateMs != null) {
@@ -517,9 +579,7 @@ class CsvImportService {
         if (mapping.tagsColumn != null) {
           final raw = row[mapping.tagsColumn];
           if (raw != null && raw.isNotEmpty) {
-            final parsed = _splitTags(raw);
-            _logger.debug('Row $i: tags "$raw" → ${parsed.length} tag(s)');
-            for (final t in parsed) {
+            for (final t in _splitTags(raw)) {
               tags.add(t);
             }
           }
@@ -534,13 +594,9 @@ class CsvImportService {
 
         // Keep first parsable row as sample
         sampleCsvRow ??= Map.from(row);
-        if (sampleRecord == null) {
-          sampleRecord = rowToRecord(row, mapping);
-          _logger.debug('Row $i selected as preview sample');
-        }
+        sampleRecord ??= _buildRecord(row, mapping, value, dateMs);
       } else {
         unparseable++;
-        _logger.debug('Row $i: unparseable (value=$value, date=$dateMs)');
       }
     }
 
@@ -589,12 +645,17 @@ class CsvImportService {
 
   /// Imports records from the parsed CSV rows into the database.
   ///
+  ///  - Amounts and dates are parsed on a worker isolate, each date column
+  ///    with the format [dateParserForColumn] detects.
   ///  - Categories are inserted with [ElementAlreadyExists] catch.
-  ///  - Records use [DatabaseInterface.addRecordsInBatchNoDuplicateCheck], so
-  ///    every CSV row is imported as-is, unlike
-  ///    [BackupService.importDataFromBackupFile] which relies on
-  ///    [DatabaseInterface.addRecordsInBatch] to skip duplicates.
-  ///  - Tags are inserted after records are committed.
+  ///  - Rows already in the database are skipped: their fingerprints (see
+  ///    [recordFingerprint]) are looked up in a hash map of the records
+  ///    stored over the dates the file covers. The map counts each
+  ///    fingerprint, so a file with the same transaction twice imports both
+  ///    the first time and neither on a second import.
+  ///  - Records are inserted [importBatchSize] at a time with
+  ///    [DatabaseInterface.addRecordsInBatchNoDuplicateCheck], reporting
+  ///    progress after each batch. Tags are inserted with their records.
   static Future<CsvImportResult> importRecords(
     List<Map<String, String>> rows,
     CsvImportMapping mapping, {
@@ -608,15 +669,27 @@ class CsvImportService {
       'category=${mapping.categoryColumn}, wallet=${mapping.walletColumn}',
     );
 
-    // 1. Collect unique categories
+    // 1. Parse amounts and dates off the UI isolate
+    final valueColumn = mapping.valueColumn;
+    final dateColumn = mapping.datetimeColumn;
+    final columns = await parseColumns(
+      rows,
+      moneyColumns: [if (valueColumn != null) valueColumn],
+      dateColumns: [if (dateColumn != null) dateColumn],
+    );
+    final values = columns.money[valueColumn];
+    final dates = columns.dates[dateColumn];
+    onProgress?.call(0.10);
+
+    // 2. Collect unique categories
     final categoryMap = <String, Map<String, dynamic>>{};
-    for (final row in rows) {
-      final val = parseMoney(row[mapping.valueColumn]);
+    for (int i = 0; i < rows.length; i++) {
+      final val = values?[i];
       if (val == null) continue;
-      final dateMs = parseToMs(row[mapping.datetimeColumn]);
+      final dateMs = dates?[i];
       if (dateMs == null) continue;
 
-      final catName = row[mapping.categoryColumn] ?? 'Uncategorized';
+      final catName = rows[i][mapping.categoryColumn] ?? 'Uncategorized';
       final catType = val < 0 ? CategoryType.expense : CategoryType.income;
       final catKey = '$catName|${catType.index}';
 
@@ -635,7 +708,7 @@ class CsvImportService {
       }
     }
 
-    // 2. Insert categories (skip duplicates)
+    // 3. Insert categories (skip duplicates)
     int categoriesInserted = 0;
     for (final entry in categoryMap.entries) {
       final cat = Category(
@@ -660,10 +733,9 @@ class CsvImportService {
     _logger.info(
       'Categories: $categoriesInserted new / ${categoryMap.length - categoriesInserted} existing',
     );
-    _logger.debug('Category map has ${categoryMap.length} unique entries');
     onProgress?.call(0.15);
 
-    // 3. Build records (only parsable rows)
+    // 4. Build records (only parsable rows)
     final records = <Record>[];
     int skippedErrors = 0;
 
@@ -673,92 +745,155 @@ class CsvImportService {
 
     for (int i = 0; i < rows.length; i++) {
       final row = rows[i];
-      final value = parseMoney(row[mapping.valueColumn]);
-      final dateMs = parseToMs(row[mapping.datetimeColumn]);
+      final value = values?[i];
+      final dateMs = dates?[i];
 
       if (value == null || dateMs == null) {
         skippedErrors++;
-        _logger.debug('Row $i: skipped (value=$value, date=$dateMs)');
         continue;
       }
 
       int? walletId;
-      if (mapping.walletColumn != null) {
-        final walletName = row[mapping.walletColumn]?.trim() ?? '';
-        if (walletName.isEmpty) {
-          walletId = defaultWallet?.id;
-          _logger.debug(
-            'Row $i: wallet column mapped but empty → default wallet ID $walletId',
-          );
-        } else {
-          if (!walletCache.containsKey(walletName)) {
-            _logger.debug('Row $i: resolving wallet "$walletName"');
-            walletCache[walletName] = await _getOrCreateWallet(walletName, db);
-          }
-          walletId = walletCache[walletName]!.id;
-          _logger.debug('Row $i: wallet "$walletName" → ID $walletId');
-        }
-      } else {
+      final walletName = mapping.walletColumn != null
+          ? row[mapping.walletColumn]?.trim() ?? ''
+          : '';
+      if (walletName.isEmpty) {
         walletId = defaultWallet?.id;
-        _logger.debug(
-          'Row $i: no wallet column mapped → default wallet ID $walletId',
-        );
+      } else {
+        if (!walletCache.containsKey(walletName)) {
+          _logger.debug('Row $i: resolving wallet "$walletName"');
+          walletCache[walletName] = await _getOrCreateWallet(walletName, db);
+        }
+        walletId = walletCache[walletName]!.id;
       }
 
-      final record = rowToRecord(row, mapping, walletId: walletId);
-      records.add(record);
-
-      // Report progress every 50 rows during record building.
-      if (i > 0 && i % 50 == 0) {
-        onProgress?.call(0.15 + 0.65 * (i / rows.length));
-      }
+      records.add(
+        _buildRecord(row, mapping, value, dateMs, walletId: walletId),
+      );
     }
     _logger.info(
       'Built ${records.length} records ($skippedErrors parse errors)',
     );
-    onProgress?.call(0.80);
 
-    final totalBeforeBatch = records.length;
+    // 5. Skip rows that are already in the database
+    final existing = await _existingFingerprints(records, db);
+    final newRecords = <Record>[];
+    int skippedDuplicates = 0;
+    for (final record in records) {
+      final fingerprint = recordFingerprint(record);
+      final count = existing[fingerprint] ?? 0;
+      if (count > 0) {
+        existing[fingerprint] = count - 1;
+        skippedDuplicates++;
+      } else {
+        newRecords.add(record);
+      }
+    }
+    onProgress?.call(0.20);
 
-    // 4. Insert records — uses addRecordsInBatchNoDuplicateCheck so every CSV
-    //    row is imported as a distinct transaction.  The original duplicate
-    //    detection (INSERT OR IGNORE) was too aggressive for CSV imports,
-    //    flagging same-day same-amount transactions as duplicates even when
-    //    their descriptions differed.
-    _logger.info('Inserting $totalBeforeBatch records...');
-    await db.addRecordsInBatchNoDuplicateCheck(records);
-    onProgress?.call(0.95);
+    // 6. Insert records in batches
+    _logger.info(
+      'Inserting ${newRecords.length} records '
+      '($skippedDuplicates already imported)...',
+    );
+    for (int start = 0; start < newRecords.length; start += importBatchSize) {
+      final end = min(start + importBatchSize, newRecords.length);
+      await db.addRecordsInBatchNoDuplicateCheck(
+        newRecords.sublist(start, end),
+      );
+      onProgress?.call(0.20 + 0.80 * end / newRecords.length);
+    }
 
-    // 5. Report results.  Since no deduplication is performed all parsable
-    //    records are imported, so the duplicate count is always 0.
     _logger.info(
-      'Import complete: $totalBeforeBatch inserted, '
-      '$skippedErrors parse errors, '
-      'total records in DB now: ${(await db.getAllRecords()).length}',
+      'Import complete: ${newRecords.length} inserted, '
+      '$skippedDuplicates duplicates, $skippedErrors parse errors',
     );
 
     return CsvImportResult(
-      imported: totalBeforeBatch,
-      skippedDuplicates: 0,
+      imported: newRecords.length,
+      skippedDuplicates: skippedDuplicates,
       skippedErrors: skippedErrors,
       totalRows: rows.length,
     );
   }
 
+  /// Identifies a record for duplicate detection by the fields a CSV row
+  /// sets: time, amount, title, description, category and wallet.
+  static String recordFingerprint(Record record) {
+    return [
+      record.utcDateTime.millisecondsSinceEpoch,
+      record.value,
+      record.title ?? '',
+      record.description ?? '',
+      record.category?.name,
+      record.category?.categoryType?.index,
+      record.walletId,
+    ].join('\u0000');
+  }
+
+  /// Counts the fingerprints of the stored records of the active profile
+  /// that could match [records].
+  static Future<Map<String, int>> _existingFingerprints(
+    List<Record> records,
+    DatabaseInterface db,
+  ) async {
+    final counts = <String, int>{};
+    if (records.isEmpty) return counts;
+    var earliest = records.first.utcDateTime;
+    var latest = earliest;
+    for (final record in records) {
+      if (record.utcDateTime.isBefore(earliest)) earliest = record.utcDateTime;
+      if (record.utcDateTime.isAfter(latest)) latest = record.utcDateTime;
+    }
+    // The interval is in wall-clock time, and records match it in their own
+    // timezone; two days either side covers any pair of UTC offsets.
+    final stored = await db.getAllRecordsInInterval(
+      earliest.toLocal().subtract(const Duration(days: 2)),
+      latest.toLocal().add(const Duration(days: 2)),
+      profileId: ProfileService.instance.activeProfileId,
+    );
+    for (final record in stored) {
+      if (record == null) continue;
+      final fingerprint = recordFingerprint(record);
+      counts[fingerprint] = (counts[fingerprint] ?? 0) + 1;
+    }
+    return counts;
+  }
+
   // ---------------------------------------------------------------------------
   // Helpers
   // ---------------------------------------------------------------------------
 
   /// Converts a parsed CSV row to a [Record] using the given mapping.
+  ///
+  /// The amount and date are parsed from the row unless [value] and [dateMs]
+  /// are given, e.g. from [parseColumns].
   static Record rowToRecord(
     Map<String, String> row,
     CsvImportMapping mapping, {
     int? walletId,
+    double? value,
+    int? dateMs,
+  }) {
+    return _buildRecord(
+      row,
+      mapping,
+      value ?? parseMoney(row[mapping.valueColumn]) ?? 0.0,
+      dateMs ??
+          parseToMs(row[mapping.datetimeColumn]) ??
+          DateTime.now().toUtc().millisecondsSinceEpoch,
+      walletId: walletId,
+    );
+  }
+
+  /// Builds the [Record] for [row] from its already parsed amount and date.
+  static Record _buildRecord(
+    Map<String, String> row,
+    CsvImportMapping mapping,
+    double value,
+    int dateMs, {
+    int? walletId,
   }) {
-    final value = parseMoney(row[mapping.valueColumn]) ?? 0.0;
-    final dateMs =
-        parseToMs(row[mapping.datetimeColumn]) ??
-        DateTime.now().toUtc().millisecondsSinceEpoch;
     final utcDateTime = DateTime.fromMillisecondsSinceEpoch(
       dateMs,
       isUtc: true,
@@ -769,12 +904,6 @@ class CsvImportService {
     final category = Category(catName, categoryType: catType);
     final tags = _splitTags(row[mapping.tagsColumn]);
 
-    _logger.debug(
-      'rowToRecord: value=$value, date=${utcDateTime.toIso8601String()}, '
-      'category="$catName", tags=$tags, walletId=$walletId, '
-      'title="${row[mapping.titleColumn] ?? ""}"',
-    );
-
     return Record(
       value,
       row[mapping.titleColumn] ?? '',
@@ -791,7 +920,7 @@ class CsvImportService {
   static List<String> _splitTags(String? raw) {
     if (raw == null || raw.trim().isEmpty) return [];
     return raw
-        .split(RegExp(r'[;,]'))
+        .split(_tagSeparators)
         .map((t) => t.trim())
         .where((t) => t.isNotEmpty)
         .toList();
@@ -848,6 +977,52 @@ class CsvImportService {
   }
 }
 
+/// Collects the rows of a [CsvRowReader] into a [CsvParseResult]: the first
+/// row gives the headers, completely empty rows are skipped.
+class _CsvTable {
+  static final _logger = Logger.withClass(CsvImportService);
+
+  List<String>? _headers;
+  final _rows = <Map<String, String>>[];
+  int _skippedEmpty = 0;
+
+  void add(List<String> row) {
+    final headers = _headers;
+    if (headers == null) {
+      // Normalise headers — trim whitespace, use original case
+      _headers = row.map((h) => h.trim()).where((h) => h.isNotEmpty).toList();
+      return;
+    }
+    if (headers.isEmpty) return;
+    if (row.every((cell) => cell.trim().isEmpty)) {
+      _skippedEmpty++;
+      return; // skip completely empty rows
+    }
+    final map = <String, String>{};
+    for (int j = 0; j < headers.length; j++) {
+      map[headers[j]] = j < row.length ? row[j].trim() : '';
+    }
+    _rows.add(map);
+  }
+
+  CsvParseResult build(String delimiter) {
+    final headers = _headers;
+    if (headers == null) {
+      _logger.warning('CSV parsing produced 0 rows');
+      return CsvParseResult([], []);
+    }
+    if (headers.isEmpty) {
+      _logger.warning('CSV has no valid headers after normalisation');
+      return CsvParseResult(headers, []);
+    }
+    _logger.info(
+      'Parsed ${_rows.length} data rows ($_skippedEmpty empty skipped) '
+      'with ${headers.length} columns (delimiter: "$delimiter")',
+    );
+    return CsvParseResult(headers, _rows);
+  }
+}
+
 /// Internal helper for splitting date strings by format groups.
 class _FmtGroup {
   final String char;
@@ -0,0 +1,178 @@
+/// Splits CSV text into rows as it arrives, so a file can be parsed a chunk
+/// at a time instead of being read into one string first.
+///
+/// Fields may be quoted; a quoted field may contain the delimiter, line
+/// breaks and doubled quotes. Rows end at `\n`, `\r\n` or `\r`, and a `\r\n`
+/// inside a quoted field is read as `\n`. A leading byte order mark is
+/// dropped. The delimiter is detected from the first [sniffLength]
+/// characters, so text is held back until that much has arrived.
+class CsvRowReader {
+  static const sniffLength = 4096;
+
+  static const _quote = 0x22;
+  static const _cr = 0x0D;
+  static const _lf = 0x0A;
+
+  final void Function(List<String> row) onRow;
+
+  String? _delimiter;
+  int _delimiterCode = 0;
+  final _held = StringBuffer();
+  bool _started = false;
+
+  List<String> _row = [];
+  final _field = StringBuffer();
+  bool _fieldStarted = false;
+  bool _inQuotes = false;
+
+  /// A quote was read inside a quoted field: either the closing quote or the
+  /// first of a doubled one, depending on the next character.
+  bool _quotePending = false;
+
+  /// A `\r` was read inside a quoted field and is held back in case a `\n`
+  /// follows.
+  bool _crPending = false;
+
+  /// The last row ended at a `\r`, so a `\n` right after it is skipped.
+  bool _afterCr = false;
+
+  CsvRowReader(this.onRow);
+
+  /// The detected delimiter, known once [sniffLength] characters have been
+  /// added or the reader is closed.
+  String? get delimiter => _delimiter;
+
+  void add(String chunk) {
+    if (!_started) {
+      if (chunk.isEmpty) return;
+      _started = true;
+      if (chunk.startsWith('\uFEFF')) chunk = chunk.substring(1);
+    }
+    if (_delimiter == null) {
+      _held.write(chunk);
+      if (_held.length < sniffLength) return;
+      chunk = _takeHeld();
+    }
+    _process(chunk);
+  }
+
+  void close() {
+    if (_delimiter == null) _process(_takeHeld());
+    if (_crPending) {
+      _field.writeCharCode(_cr);
+      _crPending = false;
+    }
+    if (_fieldStarted || _row.isNotEmpty) _endRow();
+  }
+
+  String _takeHeld() {
+    final text = _held.toString();
+    _held.clear();
+    _delimiter = detectDelimiter(
+        text.length > sniffLength ? text.substring(0, sniffLength) : text);
+    _delimiterCode = _delimiter!.codeUnitAt(0);
+    return text;
+  }
+
+  void _process(String chunk) {
+    for (var i = 0; i < chunk.length; i++) {
+      final c = chunk.codeUnitAt(i);
+
+      if (_afterCr) {
+        _afterCr = false;
+        if (c == _lf) continue;
+      }
+
+      if (_inQuotes) {
+        if (_crPending) {
+          _crPending = false;
+          if (c == _lf) {
+            _field.writeCharCode(_lf);
+            continue;
+          }
+          _field.writeCharCode(_cr);
+        }
+        if (_quotePending) {
+          _quotePending = false;
+          if (c == _quote) {
+            _field.writeCharCode(_quote);
+            continue;
+          }
+          // The quote closed the field; read c as unquoted text.
+          _inQuotes = false;
+        } else if (c == _quote) {
+          _quotePending = true;
+          continue;
+        } else if (c == _cr) {
+          _crPending = true;
+          continue;
+        } else {
+          _field.writeCharCode(c);
+          continue;
+        }
+      }
+
+      if (c == _delimiterCode) {
+        _endField();
+      } else if (c == _lf) {
+        _endRow();
+      } else if (c == _cr) {
+        _endRow();
+        _afterCr = true;
+      } else if (c == _quote && !_fieldStarted) {
+        _inQuotes = true;
+        _fieldStarted = true;
+      } else {
+        _field.writeCharCode(c);
+        _fieldStarted = true;
+      }
+    }
+  }
+
+  void _endField() {
+    if (_quotePending) {
+      _quotePending = false;
+      _inQuotes = false;
+    }
+    _row.add(_field.toString());
+    _field.clear();
+    _fieldStarted = false;
+  }
+
+  void _endRow() {
+    _endField();
+    final row = _row;
+    _row = [];
+    onRow(row);
+  }
+
+  /// Picks the most frequent of comma, semicolon and tab in [sample],
+  /// defaulting to comma.
+  static String detectDelimiter(String sample) {
+    var commas = 0, semicolons = 0, tabs = 0;
+    for (var i = 0; i < sample.length; i++) {
+      switch (sample.codeUnitAt(i)) {
+        case 0x2C:
+          commas++;
+          break;
+        case 0x3B:
+          semicolons++;
+          break;
+        case 0x09:
+          tabs++;
+          break;
+      }
+    }
+    // Ties go to the later candidate, as they always have.
+    var best = ',', count = commas;
+    if (semicolons >= count) {
+      best = ';';
+      count = semicolons;
+    }
+    if (tabs >= count) {
+      best = '\t';
+      count = tabs;
+    }
+    return count > 0 ? best : ',';
+  }
+}
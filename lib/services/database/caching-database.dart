@@ -0,0 +1,600 @@
+import 'dart:async';
+import 'dart:collection';
+
+import 'package:piggybank/models/budget.dart';
+import 'package:piggybank/models/category-type.dart';
+import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/profile.dart';
+import 'package:piggybank/models/record-page.dart';
+import 'package:piggybank/models/record-tag-association.dart';
+import 'package:piggybank/models/record.dart';
+import 'package:piggybank/models/recurrent-record-pattern.dart';
+import 'package:piggybank/models/wallet.dart';
+
+import 'database-change.dart';
+import 'database-interface.dart';
+
+class CachingDatabase implements DatabaseInterface {
+  /// CachingDatabase serves the reads that screens repeat on every tab
+  /// change, resume and filter change from memory, until a write touches
+  /// them. Everything else goes to the wrapped database.
+  ///
+  /// The wrapped database publishes its writes as [DatabaseChange]s; each
+  /// one drops the cached results it touches and is then published again by
+  /// [changes], so that screens can refresh what changed.
+  ///
+  /// Results are kept in least recently used order and the oldest are
+  /// dropped once the cache holds more than [maxCachedRows] rows.
+
+  static const defaultMaxCachedRows = 50000;
+
+  final DatabaseInterface _delegate;
+  final int maxCachedRows;
+  final LinkedHashMap<String, _CacheEntry> _entries = LinkedHashMap();
+  int _cachedRows = 0;
+  final _changes = StreamController<DatabaseChange>.broadcast(sync: true);
+  late final StreamSubscription<DatabaseChange> _delegateChanges;
+
+  CachingDatabase(
+    this._delegate,
+    Stream<DatabaseChange> delegateChanges, {
+    this.maxCachedRows = defaultMaxCachedRows,
+  }) {
+    _delegateChanges = delegateChanges.listen(_onChange);
+  }
+
+  /// The writes to the database, published once the cached results they
+  /// touch have been dropped.
+  Stream<DatabaseChange> get changes => _changes.stream;
+
+  /// Number of results currently cached.
+  int get cachedResults => _entries.length;
+
+  /// Drops every cached result.
+  void clear() {
+    _entries.clear();
+    _cachedRows = 0;
+  }
+
+  /// Stops following the writes to the wrapped database and drops every
+  /// cached result. The cache must not be used afterwards.
+  Future<void> dispose() async {
+    await _delegateChanges.cancel();
+    clear();
+    await _changes.close();
+  }
+
+  void _onChange(DatabaseChange change) {
+    _entries.removeWhere((key, entry) {
+      if (!entry.isTouchedBy(change)) return false;
+      _cachedRows -= entry.rows;
+      return true;
+    });
+    _changes.add(change);
+  }
+
+  /// The result of [read], cached under [key] until a change touches one of
+  /// [entities], or the records from [from] to [to] when [isInterval].
+  /// Callers get a [copy], so that changing it leaves the cache as it is.
+  Future<T> _cached<T>(
+    String key,
+    Future<T> Function() read, {
+    required Set<DatabaseEntity> entities,
+    bool isInterval = false,
+    DateTime? from,
+    DateTime? to,
+    int Function(T value)? rows,
+    T Function(T value)? copy,
+  }) async {
+    copy ??= (value) => value;
+    var entry = _entries.remove(key);
+    if (entry != null) {
+      // Most recently used entries go last.
+      _entries[key] = entry;
+      return copy((await entry.value) as T);
+    }
+
+    entry = _CacheEntry(read(), entities, isInterval, from, to);
+    _entries[key] = entry;
+    _cachedRows += entry.rows;
+    try {
+      final value = (await entry.value) as T;
+      if (identical(_entries[key], entry) && rows != null) {
+        final size = rows(value);
+        _cachedRows += size - entry.rows;
+        entry.rows = size;
+      }
+      _evict();
+      return copy(value);
+    } catch (_) {
+      if (identical(_entries[key], entry)) {
+        _entries.remove(key);
+        _cachedRows -= entry.rows;
+      }
+      rethrow;
+    }
+  }
+
+  void _evict() {
+    while (_cachedRows > maxCachedRows && _entries.length > 1) {
+      final oldest = _entries.keys.first;
+      _cachedRows -= _entries.remove(oldest)!.rows;
+    }
+  }
+
+  static List<Wallet> _copyWallets(List<Wallet> wallets) => [
+        for (final wallet in wallets)
+          Wallet.fromMap({...wallet.toMap(), 'balance': wallet.balance}),
+      ];
+
+  /// Records are changed in place by the screens that edit them, e.g. while
+  /// the user types a title that may never be saved, so every caller gets
+  /// records of its own.
+  static Record _copyRecord(Record record) => record.copyWith(
+        tags: Set.of(record.tags),
+      )..aggregatedValues = record.aggregatedValues;
+
+  static List<Record?> _copyRecords(List<Record?> records) => [
+        for (final record in records)
+          record == null ? null : _copyRecord(record),
+      ];
+
+  static const _records = {DatabaseEntity.records};
+  static const _walletsAndRecords = {
+    DatabaseEntity.wallets,
+    DatabaseEntity.records,
+  };
+
+  // Budgets
+
+  @override
+  Future<List<Budget>> getBudgets({int? profileId}) => _cached(
+        'budgets|$profileId',
+        () => _delegate.getBudgets(profileId: profileId),
+        entities: const {DatabaseEntity.budgets},
+        rows: (budgets) => budgets.length,
+        copy: (budgets) =>
+            [for (final budget in budgets) Budget.fromMap(budget.toMap())],
+      );
+
+  @override
+  Future<int> addBudget(Budget budget) => _delegate.addBudget(budget);
+
+  @override
+  Future<void> updateBudget(Budget budget) => _delegate.updateBudget(budget);
+
+  @override
+  Future<void> deleteBudget(int id) => _delegate.deleteBudget(id);
+
+  @override
+  Future<void> archiveBudget(int id, bool isArchived) =>
+      _delegate.archiveBudget(id, isArchived);
+
+  // Categories
+
+  @override
+  Future<List<Category?>> getAllCategories() => _cached(
+        'categories',
+        _delegate.getAllCategories,
+        entities: const {DatabaseEntity.categories},
+        rows: (categories) => categories.length,
+        copy: List.of,
+      );
+
+  @override
+  Future<List<Category?>> getCategoriesByType(CategoryType categoryType) =>
+      _cached(
+        'categories|${categoryType.index}',
+        () => _delegate.getCategoriesByType(categoryType),
+        entities: const {DatabaseEntity.categories},
+        rows: (categories) => categories.length,
+        copy: List.of,
+      );
+
+  @override
+  Future<Category?> getCategory(
+          String categoryName, CategoryType categoryType) =>
+      _delegate.getCategory(categoryName, categoryType);
+
+  @override
+  Future<int> addCategory(Category? category) =>
+      _delegate.addCategory(category);
+
+  @override
+  Future<int> updateCategory(String? existingCategoryName,
+          CategoryType? existingCategoryType, Category? updatedCategory) =>
+      _delegate.updateCategory(
+          existingCategoryName, existingCategoryType, updatedCategory);
+
+  @override
+  Future<void> deleteCategory(String? name, CategoryType? categoryType) =>
+      _delegate.deleteCategory(name, categoryType);
+
+  @override
+  Future<void> archiveCategory(
+          String categoryName, CategoryType categoryType, bool isArchived) =>
+      _delegate.archiveCategory(categoryName, categoryType, isArchived);
+
+  @override
+  Future<void> resetCategoryOrderIndexes(List<Category> orderedCategories) =>
+      _delegate.resetCategoryOrderIndexes(orderedCategories);
+
+  // Records
+
+  @override
+  Future<Record?> getRecordById(int id) => _delegate.getRecordById(id);
+
+  @override
+  Future<void> deleteRecordById(int? id) => _delegate.deleteRecordById(id);
+
+  @override
+  Future<void> deleteRecordsInBatch(List<int> ids) =>
+      _delegate.deleteRecordsInBatch(ids);
+
+  @override
+  Future<int> addRecord(Record? record) => _delegate.addRecord(record);
+
+  @override
+  Future<void> addRecordsInBatch(List<Record?> records) =>
+      _delegate.addRecordsInBatch(records);
+
+  @override
+  Future<void> addRecordsInBatchNoDuplicateCheck(List<Record?> records) =>
+      _delegate.addRecordsInBatchNoDuplicateCheck(records);
+
+  @override
+  Future<int?> updateRecordById(int? recordId, Record? newRecord) =>
+      _delegate.updateRecordById(recordId, newRecord);
+
+  @override
+  Future<void> updateRecordWalletInBatch(List<int> ids, int? walletId) =>
+      _delegate.updateRecordWalletInBatch(ids, walletId);
+
+  @override
+  Future<void> duplicateRecordsInBatch(List<int> ids) =>
+      _delegate.duplicateRecordsInBatch(ids);
+
+  @override
+  Future<DateTime?> getDateTimeFirstRecord() => _cached(
+        'firstRecordDate',
+        _delegate.getDateTimeFirstRecord,
+        entities: _records,
+      );
+
+  @override
+  Future<List<Record?>> getAllRecords({int? profileId}) => _cached(
+        'records|$profileId',
+        () => _delegate.getAllRecords(profileId: profileId),
+        entities: _records,
+        rows: (records) => records.length,
+        copy: _copyRecords,
+      );
+
+  @override
+  Future<List<Record>> getRecordsAfterId(int? afterId, {int limit = 1000}) =>
+      _delegate.getRecordsAfterId(afterId, limit: limit);
+
+  @override
+  Future<int> getCountRecords() => _cached(
+        'recordCount',
+        _delegate.getCountRecords,
+        entities: _records,
+      );
+
+  @override
+  Future<List<Record?>> getAllRecordsInInterval(DateTime? from, DateTime? to,
+          {int? profileId}) =>
+      _cached(
+        'recordsInInterval|$from|$to|$profileId',
+        () => _delegate.getAllRecordsInInterval(from, to,
+            profileId: profileId),
+        entities: _records,
+        isInterval: true,
+        from: from,
+        to: to,
+        rows: (records) => records.length,
+        copy: _copyRecords,
+      );
+
+  @override
+  Future<RecordPage> getRecordsPageInInterval(DateTime? from, DateTime? to,
+          {int? profileId, RecordPageCursor? after, int limit = 200}) =>
+      _cached(
+        'recordsPage|$from|$to|$profileId'
+            '|${after?.localMinute}|${after?.id}|$limit',
+        () => _delegate.getRecordsPageInInterval(from, to,
+            profileId: profileId, after: after, limit: limit),
+        entities: _records,
+        isInterval: true,
+        from: from,
+        to: to,
+        rows: (page) => page.records.length,
+        copy: (page) => RecordPage(
+            [for (final record in page.records) _copyRecord(record)],
+            page.next),
+      );
+
+  @override
+  Future<List<Record>> getRecordTotalsInInterval(DateTime? from, DateTime? to,
+          {int? profileId}) =>
+      _cached(
+        'recordTotals|$from|$to|$profileId',
+        () => _delegate.getRecordTotalsInInterval(from, to,
+            profileId: profileId),
+        entities: _records,
+        isInterval: true,
+        from: from,
+        to: to,
+        rows: (totals) => totals.length,
+        copy: (totals) => [for (final total in totals) _copyRecord(total)],
+      );
+
+  @override
+  Future<List<Record>> getRecordDailyTotalsInInterval(
+          DateTime? from, DateTime? to,
+          {int? profileId}) =>
+      _cached(
+        'recordDailyTotals|$from|$to|$profileId',
+        () => _delegate.getRecordDailyTotalsInInterval(from, to,
+            profileId: profileId),
+        entities: _records,
+        isInterval: true,
+        from: from,
+        to: to,
+        rows: (totals) => totals.length,
+        copy: (totals) => [for (final total in totals) _copyRecord(total)],
+      );
+
+  @override
+  Future<void> rebuildRecordSummaries() => _delegate.rebuildRecordSummaries();
+
+  @override
+  Future<List<Record>> searchRecords(String query,
+          {int? profileId,
+          List<Category?>? categories,
+          Set<int?>? walletIds,
+          int limit = 500}) =>
+      _delegate.searchRecords(query,
+          profileId: profileId,
+          categories: categories,
+          walletIds: walletIds,
+          limit: limit);
+
+  @override
+  Future<Record?> getMatchingRecord(Record? record) =>
+      _delegate.getMatchingRecord(record);
+
+  @override
+  Future<void> deleteFutureRecordsByPatternId(
+          String recurrentPatternId, DateTime startingTime) =>
+      _delegate.deleteFutureRecordsByPatternId(
+          recurrentPatternId, startingTime);
+
+  @override
+  Future<List<String>> suggestedRecordTitles(
+          String search, String categoryName) =>
+      _delegate.suggestedRecordTitles(search, categoryName);
+
+  // Tags
+
+  @override
+  Future<List<String>> getTagsForRecord(int recordId) =>
+      _delegate.getTagsForRecord(recordId);
+
+  @override
+  Future<Set<String>> getAllTags() => _cached(
+        'tags',
+        _delegate.getAllTags,
+        entities: _records,
+        rows: (tags) => tags.length,
+        copy: Set.of,
+      );
+
+  @override
+  Future<Set<String>> getRecentlyUsedTags() => _cached(
+        'recentTags',
+        _delegate.getRecentlyUsedTags,
+        entities: _records,
+        rows: (tags) => tags.length,
+        copy: Set.of,
+      );
+
+  @override
+  Future<Set<String>> getMostUsedTagsForCategory(
+          String categoryName, CategoryType categoryType) =>
+      _cached(
+        'categoryTags|$categoryName|${categoryType.index}',
+        () => _delegate.getMostUsedTagsForCategory(categoryName, categoryType),
+        entities: _records,
+        rows: (tags) => tags.length,
+        copy: Set.of,
+      );
+
+  @override
+  Future<List<Map<String, dynamic>>> getAggregatedRecordsByTagInInterval(
+          DateTime? from, DateTime? to) =>
+      _delegate.getAggregatedRecordsByTagInInterval(from, to);
+
+  @override
+  Future<List<RecordTagAssociation>> getAllRecordTagAssociations() =>
+      _delegate.getAllRecordTagAssociations();
+
+  @override
+  Future<List<RecordTagAssociation>> getRecordTagAssociationsAfter(
+          RecordTagAssociation? after,
+          {int limit = 1000}) =>
+      _delegate.getRecordTagAssociationsAfter(after, limit: limit);
+
+  @override
+  Future<void> renameTag(String old, String newTag) =>
+      _delegate.renameTag(old, newTag);
+
+  @override
+  Future<void> deleteTag(String tagToDelete) =>
+      _delegate.deleteTag(tagToDelete);
+
+  // Recurrent record patterns
+
+  @override
+  Future<List<RecurrentRecordPattern>> getRecurrentRecordPatterns(
+          {int? profileId}) =>
+      _cached(
+        'patterns|$profileId',
+        () => _delegate.getRecurrentRecordPatterns(profileId: profileId),
+        entities: const {DatabaseEntity.recurrentPatterns},
+        rows: (patterns) => patterns.length,
+        copy: List.of,
+      );
+
+  @override
+  Future<RecurrentRecordPattern?> getRecurrentRecordPattern(
+          String? recurrentPatternId) =>
+      _delegate.getRecurrentRecordPattern(recurrentPatternId);
+
+  @override
+  Future<void> addRecurrentRecordPattern(
+          RecurrentRecordPattern recordPattern) =>
+      _delegate.addRecurrentRecordPattern(recordPattern);
+
+  @override
+  Future<void> deleteRecurrentRecordPatternById(String? recurrentPatternId) =>
+      _delegate.deleteRecurrentRecordPatternById(recurrentPatternId);
+
+  @override
+  Future<void> updateRecordPatternById(
+          String? recurrentPatternId, RecurrentRecordPattern pattern) =>
+      _delegate.updateRecordPatternById(recurrentPatternId, pattern);
+
+  // Wallets
+
+  @override
+  Future<List<Wallet>> getAllWallets({int? profileId}) => _cached(
+        'wallets|$profileId',
+        () => _delegate.getAllWallets(profileId: profileId),
+        entities: _walletsAndRecords,
+        rows: (wallets) => wallets.length,
+        copy: _copyWallets,
+      );
+
+  @override
+  Future<List<Wallet>> getWalletsBalanceAsOf(DateTime asOfDate,
+          {int? profileId}) =>
+      _cached(
+        'walletsAsOf|$asOfDate|$profileId',
+        () => _delegate.getWalletsBalanceAsOf(asOfDate, profileId: profileId),
+        entities: _walletsAndRecords,
+        isInterval: true,
+        to: asOfDate,
+        rows: (wallets) => wallets.length,
+        copy: _copyWallets,
+      );
+
+  @override
+  Future<Wallet?> getWalletById(int id) => _delegate.getWalletById(id);
+
+  @override
+  Future<Wallet?> getWalletByName(String name, int? profileId) =>
+      _delegate.getWalletByName(name, profileId);
+
+  @override
+  Future<int> addWallet(Wallet wallet) => _delegate.addWallet(wallet);
+
+  @override
+  Future<void> updateWallet(int id, Wallet wallet) =>
+      _delegate.updateWallet(id, wallet);
+
+  @override
+  Future<void> deleteWalletAndRecords(int id) =>
+      _delegate.deleteWalletAndRecords(id);
+
+  @override
+  Future<void> moveRecordsToWallet(int fromId, int toId) =>
+      _delegate.moveRecordsToWallet(fromId, toId);
+
+  @override
+  Future<void> archiveWallet(int id, bool isArchived) =>
+      _delegate.archiveWallet(id, isArchived);
+
+  @override
+  Future<void> setDefaultWallet(int id) => _delegate.setDefaultWallet(id);
+
+  @override
+  Future<void> setPredefinedWallet(int id) =>
+      _delegate.setPredefinedWallet(id);
+
+  @override
+  Future<Wallet?> getPredefinedWallet() => _delegate.getPredefinedWallet();
+
+  @override
+  Future<Wallet?> getDefaultWallet() => _delegate.getDefaultWallet();
+
+  @override
+  Future<void> resetWalletOrderIndexes(List<Wallet> ordered) =>
+      _delegate.resetWalletOrderIndexes(ordered);
+
+  // Profiles
+
+  @override
+  Future<List<Profile>> getAllProfiles() => _cached(
+        'profiles',
+        _delegate.getAllProfiles,
+        entities: const {DatabaseEntity.profiles},
+        rows: (profiles) => profiles.length,
+        copy: List.of,
+      );
+
+  @override
+  Future<Profile?> getDefaultProfile() => _delegate.getDefaultProfile();
+
+  @override
+  Future<void> setDefaultProfile(int id) => _delegate.setDefaultProfile(id);
+
+  @override
+  Future<Profile?> getProfileById(int id) => _cached(
+        'profile|$id',
+        () => _delegate.getProfileById(id),
+        entities: const {DatabaseEntity.profiles},
+      );
+
+  @override
+  Future<int> addProfile(Profile profile) => _delegate.addProfile(profile);
+
+  @override
+  Future<void> updateProfile(Profile profile) =>
+      _delegate.updateProfile(profile);
+
+  @override
+  Future<void> deleteProfileAndRecords(int id) =>
+      _delegate.deleteProfileAndRecords(id);
+
+  // Utils
+
+  @override
+  Future<void> deleteDatabase() => _delegate.deleteDatabase();
+}
+
+class _CacheEntry {
+  final Future<Object?> value;
+  final Set<DatabaseEntity> entities;
+
+  /// Whether the records part of [entities] is limited to [from]-[to].
+  final bool isInterval;
+  final DateTime? from;
+  final DateTime? to;
+
+  /// Rows held by [value], counted once it is read.
+  int rows = 1;
+
+  _CacheEntry(this.value, this.entities, this.isInterval, this.from, this.to);
+
+  bool isTouchedBy(DatabaseChange change) {
+    for (final entity in entities) {
+      if (entity == DatabaseEntity.records && isInterval) {
+        if (change.touchesRecordsBetween(from, to)) return true;
+      } else if (change.touches(entity)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
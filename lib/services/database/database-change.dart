@@ -0,0 +1,79 @@
+/// The kinds of data a [DatabaseChange] can touch. Tags are part of
+/// [records], as they are written with them.
+enum DatabaseEntity {
+  records,
+  categories,
+  wallets,
+  budgets,
+  recurrentPatterns,
+  profiles,
+}
+
+class DatabaseChange {
+  /// DatabaseChange describes a write to the database, so that caches and
+  /// screens can refresh only what the write touched.
+
+  final Set<DatabaseEntity> entities;
+
+  /// The UTC range of the dates of the records added, updated or removed,
+  /// inclusive. A null bound means the change may reach records that far.
+  final DateTime? from;
+  final DateTime? to;
+
+  const DatabaseChange(this.entities, {this.from, this.to});
+
+  /// A change that touches everything, e.g. after a restore.
+  static const all = DatabaseChange({
+    DatabaseEntity.records,
+    DatabaseEntity.categories,
+    DatabaseEntity.wallets,
+    DatabaseEntity.budgets,
+    DatabaseEntity.recurrentPatterns,
+    DatabaseEntity.profiles,
+  });
+
+  /// A change to the records dated from [from] to [to], or to records at any
+  /// date when a bound is null.
+  const DatabaseChange.records({this.from, this.to})
+      : entities = const {DatabaseEntity.records};
+
+  /// A change to the records dated [dates].
+  factory DatabaseChange.recordsAt(Iterable<DateTime> dates) {
+    DateTime? from;
+    DateTime? to;
+    for (final date in dates) {
+      if (from == null || date.isBefore(from)) from = date;
+      if (to == null || date.isAfter(to)) to = date;
+    }
+    if (from == null) return const DatabaseChange({});
+    return DatabaseChange.records(from: from, to: to);
+  }
+
+  bool touches(DatabaseEntity entity) => entities.contains(entity);
+
+  /// Whether this change may touch records dated between [from] and [to],
+  /// given as local wall-clock times as the interval queries take them. A
+  /// null bound is open. Dates are compared with a day of margin, because a
+  /// record's wall-clock time depends on its own time zone.
+  bool touchesRecordsBetween(DateTime? from, DateTime? to) {
+    if (!touches(DatabaseEntity.records)) return false;
+    const margin = Duration(days: 1);
+    final changedFrom = this.from;
+    final changedTo = this.to;
+    if (to != null &&
+        changedFrom != null &&
+        changedFrom.subtract(margin).isAfter(to)) {
+      return false;
+    }
+    if (from != null &&
+        changedTo != null &&
+        changedTo.add(margin).isBefore(from)) {
+      return false;
+    }
+    return true;
+  }
+
+  @override
+  String toString() =>
+      'DatabaseChange(${entities.map((e) => e.name).join(', ')}, $from - $to)';
+}
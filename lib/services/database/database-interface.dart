@@ -4,6 +4,7 @@ import 'package:piggybank/models/budget.dart';
 import 'package:piggybank/models/category-type.dart';
 import 'package:piggybank/models/category.dart';
 import 'package:piggybank/models/profile.dart';
+import 'package:piggybank/models/record-page.dart';
 import 'package:piggybank/models/record-tag-association.dart';
 import 'package:piggybank/models/record.dart';
 import 'package:piggybank/models/recurrent-record-pattern.dart';
@@ -45,9 +46,28 @@ abstract class DatabaseInterface {
   Future<void> duplicateRecordsInBatch(List<int> ids);
   Future<DateTime?> getDateTimeFirstRecord();
   Future<List<Record?>> getAllRecords({int? profileId});
+  Future<List<Record>> getRecordsAfterId(int? afterId, {int limit = 1000});
   Future<int> getCountRecords();
   Future<List<Record?>> getAllRecordsInInterval(DateTime? from, DateTime? to,
       {int? profileId});
+  Future<RecordPage> getRecordsPageInInterval(DateTime? from, DateTime? to,
+      {int? profileId, RecordPageCursor? after, int limit = 200});
+  Future<List<Record>> getRecordTotalsInInterval(DateTime? from, DateTime? to,
+      {int? profileId});
+  Future<List<Record>> getRecordDailyTotalsInInterval(
+      DateTime? from, DateTime? to,
+      {int? profileId});
+  Future<void> rebuildRecordSummaries();
+
+  /// Records whose title, description, category or tags contain words
+  /// starting with each word of [query], best matches first, across the
+  /// whole history. [categories] and [walletIds] narrow the results; a
+  /// transfer matches a wallet on either side.
+  Future<List<Record>> searchRecords(String query,
+      {int? profileId,
+      List<Category?>? categories,
+      Set<int?>? walletIds,
+      int limit = 500});
   Future<Record?> getMatchingRecord(Record? record);
   Future<void> deleteFutureRecordsByPatternId(
       String recurrentPatternId, DateTime startingTime);
@@ -63,6 +83,9 @@ abstract class DatabaseInterface {
 
   // New methods for record tag associations
   Future<List<RecordTagAssociation>> getAllRecordTagAssociations();
+  Future<List<RecordTagAssociation>> getRecordTagAssociationsAfter(
+      RecordTagAssociation? after,
+      {int limit = 1000});
   Future<void> renameTag(String old, String newTag);
   Future<void> deleteTag(String tagToDelete);
 
@@ -1,5 +1,7 @@
 import 'dart:async';
 import 'dart:io';
+import 'dart:math' show min;
+import 'dart:typed_data';
 
 import 'package:piggybank/i18n.dart';
 
@@ -10,13 +12,14 @@ import 'package:piggybank/helpers/datetime-utility-functions.dart';
 import 'package:piggybank/models/budget.dart';
 import 'package:piggybank/models/category-type.dart';
 import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/record-page.dart';
 import 'package:piggybank/models/record.dart';
 import 'package:piggybank/models/recurrent-record-pattern.dart';
+import 'package:piggybank/services/database/database-change.dart';
 import 'package:piggybank/services/database/database-interface.dart';
 import 'package:piggybank/services/database/sqlite-migration-service.dart';
 import 'package:sqflite/sqflite.dart';
 import 'package:sqflite_common_ffi/sqflite_ffi.dart';
-import 'package:timezone/timezone.dart' as tz;
 import 'package:uuid/uuid.dart';
 
 import '../../models/profile.dart';
@@ -25,6 +28,7 @@ import '../../models/wallet.dart';
 import '../logger.dart';
 import '../profile-service.dart';
 import 'exceptions.dart';
+import 'tag-dictionary.dart';
 
 class SqliteDatabase implements DatabaseInterface {
   /// SqliteDatabase is an implementation of DatabaseService using sqlite3 database.
@@ -34,13 +38,28 @@ class SqliteDatabase implements DatabaseInterface {
 
   SqliteDatabase._privateConstructor();
   static final SqliteDatabase instance = SqliteDatabase._privateConstructor();
-  static int get version => 31;
+  static int get version => 38;
   static Database? _db;
 
+  /// Names of the tags of [_db], by id.
+  static final _tagNames = TagDictionary();
+
+  static final _changes = StreamController<DatabaseChange>.broadcast(
+    sync: true,
+  );
+
+  /// The writes made through this database, published as soon as they are
+  /// stored, before the write methods return.
+  static Stream<DatabaseChange> get changes => _changes.stream;
+
+  static void _changed(DatabaseChange change) => _changes.add(change);
+
   /// For testing only: allows setting a custom database instance
   @visibleForTesting
   static void setDatabaseForTesting(Database? db) {
     _db = db;
+    _tagNames.clear();
+    _changed(DatabaseChange.all);
   }
 
   Future<Database?> get database async {
@@ -121,6 +140,7 @@ class SqliteDatabase implements DatabaseInterface {
     final map = budget.toMap()..remove('id');
     final id = await db.insert('budgets', map);
     _logger.info('Budget added: ID $id (${budget.name})');
+    _changed(const DatabaseChange({DatabaseEntity.budgets}));
     return id;
   }
 
@@ -131,12 +151,14 @@ class SqliteDatabase implements DatabaseInterface {
     budget.profileId ??= ProfileService.instance.activeProfileId;
     final map = budget.toMap()..remove('id');
     await db.update('budgets', map, where: 'id = ?', whereArgs: [budget.id]);
+    _changed(const DatabaseChange({DatabaseEntity.budgets}));
   }
 
   @override
   Future<void> deleteBudget(int id) async {
     final db = (await database)!;
     await db.delete('budgets', where: 'id = ?', whereArgs: [id]);
+    _changed(const DatabaseChange({DatabaseEntity.budgets}));
   }
 
   @override
@@ -148,6 +170,7 @@ class SqliteDatabase implements DatabaseInterface {
       where: 'id = ?',
       whereArgs: [id],
     );
+    _changed(const DatabaseChange({DatabaseEntity.budgets}));
   }
 
   // Category implementation
@@ -190,6 +213,7 @@ class SqliteDatabase implements DatabaseInterface {
       }
       int result = await db.insert("categories", category.toMap());
       _logger.info('Category added: ${category.name}');
+      _changed(const DatabaseChange({DatabaseEntity.categories}));
       return result;
     } catch (e, st) {
       if (e is ElementAlreadyExists) {
@@ -226,6 +250,7 @@ class SqliteDatabase implements DatabaseInterface {
         whereArgs: [categoryName, categoryIndex],
       );
       _logger.info('Category deleted: $categoryName');
+      _changed(_categoryChange);
     } catch (e, st) {
       _logger.handle(e, st, 'Failed to delete category: $categoryName');
       rethrow;
@@ -258,9 +283,39 @@ class SqliteDatabase implements DatabaseInterface {
       where: "category_name = ? AND category_type = ?",
       whereArgs: [existingCategoryName, categoryIndex],
     );
+    _changed(_categoryChange);
     return newIndex;
   }
 
+  /// What changing a category touches: the records and patterns of the
+  /// category carry its name, color and icon.
+  static const _categoryChange = DatabaseChange({
+    DatabaseEntity.categories,
+    DatabaseEntity.records,
+    DatabaseEntity.recurrentPatterns,
+  });
+
+  /// Local wall-clock minute of [record] in its own timezone, stored in
+  /// records.local_minute.
+  static int _localMinute(Record record) {
+    return localMinuteKey(record.utcDateTime, record.timeZoneName!);
+  }
+
+  /// Duplicate-check key of [record], stored in records.fingerprint. See
+  /// [SqliteMigrationService.recordFingerprint].
+  static int _fingerprint(Record record) {
+    return SqliteMigrationService.recordFingerprint(
+        record.utcDateTime.millisecondsSinceEpoch, record.value, record.title);
+  }
+
+  /// [Record.toMap] plus the columns derived from it. Kept out of the model
+  /// so that backups only carry the record's own fields.
+  static Map<String, dynamic> _recordRow(Record record) {
+    return record.toMap()
+      ..['local_minute'] = _localMinute(record)
+      ..['fingerprint'] = _fingerprint(record);
+  }
+
   @override
   Future<int> addRecord(Record? record) async {
     try {
@@ -275,7 +330,7 @@ class SqliteDatabase implements DatabaseInterface {
               null) {
         await addCategory(record.category);
       }
-      int recordId = await db.insert("records", record.toMap());
+      int recordId = await db.insert("records", _recordRow(record));
 
       // Insert tags into records_tags table
       for (String? tag in record.tags) {
@@ -287,6 +342,7 @@ class SqliteDatabase implements DatabaseInterface {
         }
       }
       _logger.info('Record added: ID $recordId');
+      _changed(DatabaseChange.recordsAt([record.utcDateTime]));
       return recordId;
     } catch (e, st) {
       _logger.handle(e, st, 'Failed to add record: ${record?.title}');
@@ -294,11 +350,100 @@ class SqliteDatabase implements DatabaseInterface {
     }
   }
 
+  /// Columns written by the batch inserts, in the order of [_insertArguments].
+  static const _insertColumns =
+      "title, value, datetime, timezone, category_name, category_type, description, recurrence_id, wallet_id, transfer_wallet_id, transfer_value, profile_id, local_minute, fingerprint";
+
+  static List<Object?> _insertArguments(Record record) => [
+        record.title,
+        record.value,
+        record.utcDateTime.millisecondsSinceEpoch,
+        record.timeZoneName,
+        record.category?.name,
+        record.category?.categoryType?.index,
+        record.description,
+        record.recurrencePatternId,
+        record.walletId,
+        record.transferWalletId,
+        record.transferValue,
+        record.profileId,
+        _localMinute(record),
+        _fingerprint(record),
+      ];
+
+  /// The fields two records must share to count as duplicates in
+  /// [addRecordsInBatch]. The fingerprint narrows the candidates to a point
+  /// lookup; the fields are then compared one by one, since fingerprints
+  /// may collide and leave out category, wallet and profile. The queries
+  /// name the fingerprint index: without table statistics SQLite may pick
+  /// the category or wallet index instead, which hold many rows per key.
+  static const _sameRecordFilter = """
+          fingerprint = ?
+          AND datetime = ?
+          AND value = ?
+          AND title IS ?
+          AND category_name = ?
+          AND category_type = ?
+          AND wallet_id IS ?
+          AND (profile_id IS NULL OR profile_id = ?)
+          AND COALESCE(description, '') = COALESCE(?, '')""";
+
+  static List<Object?> _sameRecordArguments(Record record) => [
+        _fingerprint(record),
+        record.utcDateTime.millisecondsSinceEpoch,
+        record.value,
+        record.title,
+        record.category?.name,
+        record.category?.categoryType?.index,
+        record.walletId,
+        record.profileId,
+        record.description,
+      ];
+
+  /// Inserts a record unless an equal one (see [_sameRecordFilter]) is
+  /// stored. Arguments: [_insertArguments] then [_sameRecordArguments].
+  @visibleForTesting
+  static const insertRecordIfNewQuery = """
+      INSERT INTO records ($_insertColumns)
+      SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?
+      WHERE NOT EXISTS (
+        SELECT 1 FROM records INDEXED BY idx_records_fingerprint
+        WHERE $_sameRecordFilter
+      )
+    """;
+
+  /// Tags the newest record equal to the given one: the record the same
+  /// batch has just inserted, or the stored duplicate it was skipped for.
+  /// Arguments: the tag name then [_sameRecordArguments].
+  @visibleForTesting
+  static const tagMatchingRecordQuery = """
+      INSERT OR IGNORE INTO records_tags (record_id, tag_name)
+      SELECT id, ? FROM records INDEXED BY idx_records_fingerprint
+      WHERE $_sameRecordFilter
+      ORDER BY id DESC
+      LIMIT 1
+    """;
+
+  /// Queues the tag rows of [record] right after its insert in [batch], so
+  /// the batch needs no round trip per record to look up the new ids.
+  static void _tagInBatch(Batch batch, Record record) {
+    for (final tag in record.tags) {
+      if (tag.trim().isEmpty) continue;
+      batch.rawInsert(
+        tagMatchingRecordQuery,
+        [tag, ..._sameRecordArguments(record)],
+      );
+    }
+  }
+
   @override
   Future<void> addRecordsInBatch(List<Record?> records) async {
     try {
       _logger.debug('Adding ${records.length} records in batch...');
       final db = (await database)!;
+      // Rows inserted without a fingerprint (e.g. by raw SQL) would
+      // otherwise never count as duplicates.
+      await SqliteMigrationService.backfillFingerprints(db);
       Batch batch = db.batch();
 
       for (var record in records) {
@@ -308,100 +453,17 @@ class SqliteDatabase implements DatabaseInterface {
         record.id = null;
 
         record.profileId ??= ProfileService.instance.activeProfileId;
-        batch.rawInsert(
-          """
-      INSERT OR IGNORE INTO records (title, value, datetime, timezone, category_name, category_type, description, recurrence_id, wallet_id, transfer_wallet_id, transfer_value, profile_id)
-      SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?
-      WHERE NOT EXISTS (
-        SELECT 1 FROM records
-        WHERE datetime = ?
-          AND value = ?
-          AND title IS ?
-          AND category_name = ?
-          AND category_type = ?
-          AND wallet_id IS ?
-          AND (profile_id IS NULL OR profile_id = ?)
-          AND COALESCE(description, '') = COALESCE(?, '')
-      )
-    """,
-          [
-            record.title,
-            record.value,
-            record.utcDateTime.millisecondsSinceEpoch,
-            record.timeZoneName,
-            record.category?.name,
-            record.category?.categoryType?.index,
-            record.description,
-            record.recurrencePatternId,
-            record.walletId,
-            record.transferWalletId,
-            record.transferValue,
-            record.profileId,
-
-            // Duplicate check values
-            record.utcDateTime.millisecondsSinceEpoch,
-            record.value,
-            record.title,
-            record.category?.name,
-            record.category?.categoryType?.index,
-            record.walletId,
-            record.profileId,
-            record.description,
-          ],
-        );
+        batch.rawInsert(insertRecordIfNewQuery, [
+          ..._insertArguments(record),
+          ..._sameRecordArguments(record),
+        ]);
+        _tagInBatch(batch, record);
       }
 
       await batch.commit(noResult: true);
       _logger.info('Batch insert committed: ${records.length} records');
-
-      // Insert tags for each record in a second batch after getting record IDs
-      Batch tagBatch = db.batch();
-      for (var record in records) {
-        if (record == null || record.tags.isEmpty) {
-          continue;
-        }
-
-        // Find the record ID by querying for the record we just inserted
-        var recordId = await db.rawQuery(
-          """
-        SELECT id FROM records
-        WHERE datetime = ?
-          AND value = ?
-          AND title IS ?
-          AND category_name = ?
-          AND category_type = ?
-          AND wallet_id IS ?
-          AND (profile_id IS NULL OR profile_id = ?)
-          AND COALESCE(description, '') = COALESCE(?, '')
-        LIMIT 1
-      """,
-          [
-            record.utcDateTime.millisecondsSinceEpoch,
-            record.value,
-            record.title,
-            record.category?.name,
-            record.category?.categoryType?.index,
-            record.walletId,
-            record.profileId,
-            record.description,
-          ],
-        );
-
-        if (recordId.isNotEmpty) {
-          final id = recordId.first['id'] as int;
-          for (String tag in record.tags) {
-            if (tag.trim().isNotEmpty) {
-              tagBatch.insert("records_tags", {
-                'record_id': id,
-                'tag_name': tag,
-              }, conflictAlgorithm: ConflictAlgorithm.ignore);
-            }
-          }
-        }
-      }
-
-      await tagBatch.commit(noResult: true);
-      _logger.info('Batch complete with tags');
+      _changed(DatabaseChange.recordsAt(
+          records.whereType<Record>().map((r) => r.utcDateTime)));
     } catch (e, st) {
       _logger.handle(e, st, 'Failed to add records in batch');
       rethrow;
@@ -417,124 +479,66 @@ class SqliteDatabase implements DatabaseInterface {
       final db = (await database)!;
       Batch batch = db.batch();
 
-      // Phase 1: batch-insert every record without any deduplication.
-      // Uses plain INSERT INTO (not INSERT OR IGNORE) so every row is stored.
+      // Uses plain INSERT INTO (no duplicate check) so every row is stored.
+      // The tags of a row go to the newest equal record, which is the row
+      // just inserted even when the batch holds identical rows.
       for (var record in records) {
         if (record == null) continue;
         record.id = null;
         record.profileId ??= ProfileService.instance.activeProfileId;
         batch.rawInsert(
-          """
-      INSERT INTO records (title, value, datetime, timezone, category_name, category_type, description, recurrence_id, wallet_id, transfer_wallet_id, transfer_value, profile_id)
-      VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-    """,
-          [
-            record.title,
-            record.value,
-            record.utcDateTime.millisecondsSinceEpoch,
-            record.timeZoneName,
-            record.category?.name,
-            record.category?.categoryType?.index,
-            record.description,
-            record.recurrencePatternId,
-            record.walletId,
-            record.transferWalletId,
-            record.transferValue,
-            record.profileId,
-          ],
+          "INSERT INTO records ($_insertColumns) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+          _insertArguments(record),
         );
+        _tagInBatch(batch, record);
       }
 
       await batch.commit(noResult: true);
       _logger.info(
         'Batch insert committed (no dup check): ${records.length} records',
       );
-
-      // Phase 2: insert tags (same field-matching approach as addRecordsInBatch)
-      Batch tagBatch = db.batch();
-      for (var record in records) {
-        if (record == null || record.tags.isEmpty) continue;
-
-        var recordId = await db.rawQuery(
-          """
-        SELECT id FROM records
-        WHERE datetime = ?
-          AND value = ?
-          AND title IS ?
-          AND category_name = ?
-          AND category_type = ?
-          AND wallet_id IS ?
-          AND (profile_id IS NULL OR profile_id = ?)
-          AND COALESCE(description, '') = COALESCE(?, '')
-        LIMIT 1
-      """,
-          [
-            record.utcDateTime.millisecondsSinceEpoch,
-            record.value,
-            record.title,
-            record.category?.name,
-            record.category?.categoryType?.index,
-            record.walletId,
-            record.profileId,
-            record.description,
-          ],
-        );
-
-        if (recordId.isNotEmpty) {
-          final id = recordId.first['id'] as int;
-          for (String tag in record.tags) {
-            if (tag.trim().isNotEmpty) {
-              tagBatch.insert("records_tags", {
-                'record_id': id,
-                'tag_name': tag,
-              }, conflictAlgorithm: ConflictAlgorithm.ignore);
-            }
-          }
-        }
-      }
-
-      await tagBatch.commit(noResult: true);
-      _logger.info('Batch complete with tags');
+      _changed(DatabaseChange.recordsAt(
+          records.whereType<Record>().map((r) => r.utcDateTime)));
     } catch (e, st) {
       _logger.handle(e, st, 'Failed to add records in batch (no dup check)');
       rethrow;
     }
   }
 
+  /// Looks up a record by datetime, value, title and category, through its
+  /// fingerprint. Records without a title are matched with [hasTitle] false,
+  /// which drops the title argument.
+  @visibleForTesting
+  static String matchingRecordQuery({required bool hasTitle}) {
+    final titleFilter = hasTitle ? "m.title = ?" : "m.title IS NULL";
+    return """
+            SELECT m.*, c.name, c.color, c.category_type, c.icon, c.icon_emoji
+            FROM records as m INDEXED BY idx_records_fingerprint
+            LEFT JOIN categories as c ON m.category_name = c.name
+            WHERE m.fingerprint = ? AND m.datetime = ? AND m.value = ? AND $titleFilter AND c.name = ? AND c.category_type = ?
+        """;
+  }
+
   @override
   Future<Record?> getMatchingRecord(Record? record) async {
     final db = await database;
+    await SqliteMigrationService.backfillFingerprints(db!);
     var sameDateTime = record!.utcDateTime.millisecondsSinceEpoch;
     var sameValue = record.value;
     var sameTitle = record.title;
     var sameCategoryName = record.category?.name;
     var sameCategoryType = record.category?.categoryType?.index;
-    var maps;
-    if (sameTitle != null) {
-      maps = await db!.rawQuery(
-        """
-            SELECT m.*, c.name, c.color, c.category_type, c.icon, c.icon_emoji
-            FROM records as m LEFT JOIN categories as c ON m.category_name = c.name
-            WHERE m.datetime = ? AND m.value = ? AND m.title = ? AND c.name = ? AND c.category_type = ?
-        """,
-        [
-          sameDateTime,
-          sameValue,
-          sameTitle,
-          sameCategoryName,
-          sameCategoryType,
-        ],
-      );
-    } else {
-      maps = await db!.rawQuery(
-        """
-            SELECT m.*, c.name, c.color, c.category_type, c.icon, c.icon_emoji
-            FROM records as m LEFT JOIN categories as c ON m.category_name = c.name
-            WHERE m.datetime = ? AND m.value = ? AND m.title IS NULL AND c.name = ? AND c.category_type = ?
-        """,
-        [sameDateTime, sameValue, sameCategoryName, sameCategoryType],
-      );
-    }
+    var maps = await db.rawQuery(
+      matchingRecordQuery(hasTitle: sameTitle != null),
+      [
+        _fingerprint(record),
+        sameDateTime,
+        sameValue,
+        if (sameTitle != null) sameTitle,
+        sameCategoryName,
+        sameCategoryType,
+      ],
+    );
     var matching = List.generate(maps.length, (i) {
       Map<String, dynamic> currentRowMap = Map<String, dynamic>.from(maps[i]);
       currentRowMap["category"] = Category.fromNullableMap(currentRowMap);
@@ -550,27 +554,45 @@ class SqliteDatabase implements DatabaseInterface {
         ? "WHERE m.profile_id = $profileId"
         : "";
     var maps = await db.rawQuery("""
+            $_recordsWithCategory
+            $profileFilter
+            ORDER BY m.id
+        """);
+    final records = maps.map(_recordFromRow).toList();
+    await _attachTags(db, records,
+        recordIds: "SELECT m.id FROM records AS m $profileFilter");
+    return records;
+  }
+
+  /// Records of all profiles ordered by id, [limit] at a time, starting
+  /// after [afterId] (from the first when null). Built like [getAllRecords]
+  /// but without tags, which a backup stores as associations.
+  @override
+  Future<List<Record>> getRecordsAfterId(
+    int? afterId, {
+    int limit = 1000,
+  }) async {
+    final db = (await database)!;
+    final cursorFilter = afterId != null ? "WHERE m.id > ?" : "";
+    var maps = await db.rawQuery(
+      """
             SELECT
                 m.*,
                 c.name,
                 c.color,
                 c.category_type,
                 c.icon,
-                c.icon_emoji,
-                GROUP_CONCAT(rt.tag_name) AS tags
+                c.icon_emoji
             FROM records AS m
             LEFT JOIN categories AS c
                 ON m.category_name = c.name AND m.category_type = c.category_type
-            LEFT JOIN records_tags AS rt
-                ON m.id = rt.record_id
-            $profileFilter
-            GROUP BY m.id
-        """);
-    return List.generate(maps.length, (i) {
-      Map<String, dynamic> currentRowMap = Map<String, dynamic>.from(maps[i]);
-      currentRowMap["category"] = Category.fromNullableMap(currentRowMap);
-      return Record.fromMap(currentRowMap);
-    });
+            $cursorFilter
+            ORDER BY m.id
+            LIMIT ?
+        """,
+      [if (afterId != null) afterId, limit],
+    );
+    return maps.map(_recordFromRow).toList();
   }
 
   @override
@@ -614,13 +636,12 @@ class SqliteDatabase implements DatabaseInterface {
   Future<Set<String>> getAllTags() async {
     final db = (await database)!;
     final List<Map<String, dynamic>> maps = await db.query(
-      'records_tags',
-      columns: ['tag_name'],
-      distinct: true,
+      'tags',
+      columns: ['name'],
     );
     return List.generate(
       maps.length,
-      (i) => maps[i]['tag_name'] as String,
+      (i) => maps[i]['name'] as String,
     ).toSet();
   }
 
@@ -641,6 +662,34 @@ class SqliteDatabase implements DatabaseInterface {
     return associations;
   }
 
+  /// Record-tag associations ordered by record id and tag name, [limit] at
+  /// a time, starting after [after] (from the first when null). The cursor
+  /// is spelled with a lower bound on record_id, rather than a row value, so
+  /// it seeks the primary key on every SQLite version Android ships.
+  @override
+  Future<List<RecordTagAssociation>> getRecordTagAssociationsAfter(
+    RecordTagAssociation? after, {
+    int limit = 1000,
+  }) async {
+    final db = (await database)!;
+    final cursorFilter = after != null
+        ? "WHERE record_id >= ? AND (record_id > ? OR tag_name > ?)"
+        : "";
+    final maps = await db.rawQuery(
+      """
+      SELECT record_id, tag_name FROM records_tags
+      $cursorFilter
+      ORDER BY record_id, tag_name
+      LIMIT ?
+    """,
+      [
+        if (after != null) ...[after.recordId, after.recordId, after.tagName],
+        limit,
+      ],
+    );
+    return maps.map(RecordTagAssociation.fromMap).toList();
+  }
+
   @override
   Future<Set<String>> getMostUsedTagsForCategory(
     String categoryName,
@@ -666,74 +715,611 @@ class SqliteDatabase implements DatabaseInterface {
     ).toSet();
   }
 
-  @override
-  Future<List<Record>> getAllRecordsInInterval(
-    DateTime? localDateTimeFrom,
-    DateTime? localDateTimeTo, {
-    int? profileId,
-  }) async {
-    final db = (await database)!;
+  /// Records with their category. Their tags are added by [_attachTags].
+  static const String _recordsWithCategory = """
+            SELECT
+                m.*,
+                c.name,
+                c.color,
+                c.category_type,
+                c.icon,
+                c.icon_emoji,
+                c.is_archived
+            FROM records AS m
+            LEFT JOIN categories AS c
+                ON m.category_name = c.name AND m.category_type = c.category_type
+        """;
 
-    final fromUtc = localDateTimeFrom!
-        .subtract(const Duration(days: 1))
-        .toUtc();
-    final toUtc = localDateTimeTo!.add(const Duration(days: 1)).toUtc();
+  /// Tag ids of the records whose ids [recordIds] lists or selects: a
+  /// primary key lookup per record, answered with integers that
+  /// [_tagNames] turns into shared name strings.
+  @visibleForTesting
+  static String recordTagIdsQuery(String recordIds) => """
+            SELECT rt.record_id, t.id AS tag_id
+            FROM records_tags AS rt
+            JOIN tags AS t ON t.name = rt.tag_name
+            WHERE rt.record_id IN ($recordIds)
+        """;
+
+  /// Ids of the records of [recordsInIntervalQuery], for [recordTagIdsQuery].
+  @visibleForTesting
+  static String recordIdsInIntervalQuery({int? profileId}) {
+    final profileFilter = profileId != null
+        ? "AND m.profile_id = $profileId"
+        : "";
+    return """
+            SELECT m.id FROM records AS m
+            WHERE m.local_minute >= ? AND m.local_minute <= ?
+            $profileFilter
+        """;
+  }
+
+  /// Adds their tags to [records]. With [recordIds], a query selecting the
+  /// ids of all of them, the tags are read in one query; otherwise the ids
+  /// are listed, in chunks below the SQLite variable limit.
+  Future<void> _attachTags(DatabaseExecutor db, List<Record> records,
+      {String? recordIds, List<Object?> arguments = const []}) async {
+    if (records.isEmpty) return;
+    final byId = {for (final record in records) record.id: record};
+    final rows = <Map<String, Object?>>[];
+    if (recordIds != null) {
+      rows.addAll(await db.rawQuery(recordTagIdsQuery(recordIds), arguments));
+    } else {
+      final ids = byId.keys.whereType<int>().toList();
+      for (var first = 0; first < ids.length; first += 500) {
+        final chunk = ids.sublist(first, min(first + 500, ids.length));
+        rows.addAll(await db.rawQuery(
+            recordTagIdsQuery(List.filled(chunk.length, "?").join(", ")),
+            chunk));
+      }
+    }
+    await _tagNames.load(db, rows.map((row) => row['tag_id'] as int));
+    for (final row in rows) {
+      byId[row['record_id']]?.tags.add(_tagNames[row['tag_id'] as int]);
+    }
+  }
 
-    final fromUnix = fromUtc.millisecondsSinceEpoch;
-    final toUnix = toUtc.millisecondsSinceEpoch;
+  /// Records whose local wall-clock minute (see [localMinuteKey]) falls in
+  /// a range.
+  @visibleForTesting
+  static String recordsInIntervalQuery({int? profileId}) {
+    final profileFilter = profileId != null
+        ? "AND m.profile_id = $profileId"
+        : "";
+    return """
+            $_recordsWithCategory
+            WHERE m.local_minute >= ? AND m.local_minute <= ?
+            $profileFilter
+        """;
+  }
 
+  /// A page of [recordsInIntervalQuery], newest first, keyed on
+  /// (local_minute, id) so that each page is an index range read instead of
+  /// an OFFSET that skips the previous pages row by row. Arguments: the
+  /// interval bounds, the cursor (when [hasCursor]: minute, minute, id) and
+  /// the LIMIT. The cursor is spelled out rather than written as a row value,
+  /// which older Android SQLite versions do not support; the plain upper
+  /// bound on local_minute is what narrows the index range.
+  @visibleForTesting
+  static String recordsPageQuery({int? profileId, required bool hasCursor}) {
+    final cursorFilter = hasCursor
+        ? "AND m.local_minute <= ? AND (m.local_minute < ? OR m.id < ?)"
+        : "";
+    return """
+            ${recordsInIntervalQuery(profileId: profileId)}
+            $cursorFilter
+            ORDER BY m.local_minute DESC, m.id DESC
+            LIMIT ?
+        """;
+  }
+
+  /// Sums of the non-transfer records in a local_minute range per wallet and
+  /// category type, positive and negative values apart so that the absolute
+  /// totals of the summary card stay exact when a category mixes refunds in.
+  /// Used for the partial days at the edges of an interval; whole days are
+  /// read from [recordSummaryTotalsQuery].
+  @visibleForTesting
+  static String recordTotalsInIntervalQuery({int? profileId}) {
     final profileFilter = profileId != null
         ? "AND m.profile_id = $profileId"
         : "";
+    return """
+            SELECT
+                m.wallet_id,
+                c.category_type,
+                SUM(CASE WHEN COALESCE(m.value, 0) >= 0 THEN COALESCE(m.value, 0) ELSE 0 END) AS positive_total,
+                SUM(COALESCE(m.value, 0) >= 0) AS positive_count,
+                SUM(CASE WHEN COALESCE(m.value, 0) < 0 THEN m.value ELSE 0 END) AS negative_total,
+                SUM(COALESCE(m.value, 0) < 0) AS negative_count
+            FROM records AS m
+            LEFT JOIN categories AS c
+                ON m.category_name = c.name AND m.category_type = c.category_type
+            WHERE m.local_minute >= ? AND m.local_minute <= ?
+            AND m.transfer_wallet_id IS NULL
+            $profileFilter
+            GROUP BY m.wallet_id, c.category_type
+        """;
+  }
 
-    var maps = await db.rawQuery(
-      """
+  /// Same totals as [recordTotalsInIntervalQuery], for a range of whole local
+  /// days, read from records_daily_summary: one row per day and category
+  /// rather than one per record.
+  @visibleForTesting
+  static String recordSummaryTotalsQuery({int? profileId}) {
+    final profileFilter = profileId != null
+        ? "AND s.profile_id = $profileId"
+        : "";
+    return """
             SELECT
-                m.*,
+                NULLIF(s.wallet_id, 0) AS wallet_id,
+                c.category_type,
+                SUM(s.positive_total) AS positive_total,
+                SUM(s.positive_count) AS positive_count,
+                SUM(s.negative_total) AS negative_total,
+                SUM(s.negative_count) AS negative_count
+            FROM records_daily_summary AS s
+            LEFT JOIN categories AS c
+                ON s.category_name = c.name AND s.category_type = c.category_type
+            WHERE s.day >= ? AND s.day <= ?
+            $profileFilter
+            GROUP BY s.wallet_id, c.category_type
+        """;
+  }
+
+  /// Sums of the non-transfer records in a local_minute range per local day,
+  /// category and wallet, positive and negative values apart, with the
+  /// category columns [Category.fromNullableMap] reads. Used for the partial
+  /// days at the edges of an interval; whole days are read from
+  /// [recordDailySummaryQuery].
+  @visibleForTesting
+  static String recordDailyTotalsInIntervalQuery({int? profileId}) {
+    final profileFilter = profileId != null
+        ? "AND m.profile_id = $profileId"
+        : "";
+    return """
+            SELECT
+                ${SqliteMigrationService.summaryDay("m")} AS day,
+                m.wallet_id,
                 c.name,
                 c.color,
                 c.category_type,
                 c.icon,
                 c.icon_emoji,
                 c.is_archived,
-                GROUP_CONCAT(rt.tag_name) AS tags
+                SUM(CASE WHEN COALESCE(m.value, 0) >= 0 THEN COALESCE(m.value, 0) ELSE 0 END) AS positive_total,
+                SUM(COALESCE(m.value, 0) >= 0) AS positive_count,
+                SUM(CASE WHEN COALESCE(m.value, 0) < 0 THEN m.value ELSE 0 END) AS negative_total,
+                SUM(COALESCE(m.value, 0) < 0) AS negative_count
             FROM records AS m
             LEFT JOIN categories AS c
                 ON m.category_name = c.name AND m.category_type = c.category_type
-            LEFT JOIN records_tags AS rt
-                ON m.id = rt.record_id
-            WHERE m.datetime >= ? AND m.datetime <= ?
+            WHERE m.local_minute >= ? AND m.local_minute <= ?
+            AND m.transfer_wallet_id IS NULL
             $profileFilter
-            GROUP BY m.id
-        """,
-      [fromUnix, toUnix],
+            GROUP BY 1, m.category_name, m.category_type, m.wallet_id
+        """;
+  }
+
+  /// Same sums as [recordDailyTotalsInIntervalQuery], for a range of whole
+  /// local days, read from records_daily_summary.
+  @visibleForTesting
+  static String recordDailySummaryQuery({int? profileId}) {
+    final profileFilter = profileId != null
+        ? "AND s.profile_id = $profileId"
+        : "";
+    return """
+            SELECT
+                s.day,
+                NULLIF(s.wallet_id, 0) AS wallet_id,
+                c.name,
+                c.color,
+                c.category_type,
+                c.icon,
+                c.icon_emoji,
+                c.is_archived,
+                SUM(s.positive_total) AS positive_total,
+                SUM(s.positive_count) AS positive_count,
+                SUM(s.negative_total) AS negative_total,
+                SUM(s.negative_count) AS negative_count
+            FROM records_daily_summary AS s
+            LEFT JOIN categories AS c
+                ON s.category_name = c.name AND s.category_type = c.category_type
+            WHERE s.day >= ? AND s.day <= ?
+            $profileFilter
+            GROUP BY s.day, s.category_name, s.category_type, s.wallet_id
+        """;
+  }
+
+  /// local_minute bounds of an interval. The bounds are compared by their
+  /// wall-clock fields, and a record's minute counts from its first second,
+  /// so a lower bound with seconds starts at the next minute.
+  static (int, int) _localMinuteRange(DateTime from, DateTime to) {
+    var fromMinute = wallClockMinuteKey(from);
+    if (from.second != 0 || from.millisecond != 0 || from.microsecond != 0) {
+      fromMinute += 1;
+    }
+    return (fromMinute, wallClockMinuteKey(to));
+  }
+
+  static Record _recordFromRow(Map<String, dynamic> row) {
+    Map<String, dynamic> currentRowMap = Map<String, dynamic>.from(row);
+    currentRowMap["category"] = Category.fromNullableMap(currentRowMap);
+    return Record.fromMap(currentRowMap);
+  }
+
+  /// Returns the records whose date, read in the timezone they were created
+  /// in, is between [localDateTimeFrom] and [localDateTimeTo] (inclusive, to
+  /// the minute). The bounds are compared by their wall-clock fields, so a
+  /// record made at 23:30 in Tokyo belongs to that day even when browsing
+  /// from Vienna.
+  @override
+  Future<List<Record>> getAllRecordsInInterval(
+    DateTime? localDateTimeFrom,
+    DateTime? localDateTimeTo, {
+    int? profileId,
+  }) async {
+    final db = (await database)!;
+
+    // Rows inserted without local_minute (e.g. by raw SQL) would otherwise
+    // never match; with the local_minute index this is a single lookup.
+    await SqliteMigrationService.backfillLocalMinutes(db);
+
+    final (fromMinute, toMinute) =
+        _localMinuteRange(localDateTimeFrom!, localDateTimeTo!);
+    var maps = await db.rawQuery(
+      recordsInIntervalQuery(profileId: profileId),
+      [fromMinute, toMinute],
     );
 
-    final records = List.generate(maps.length, (i) {
-      Map<String, dynamic> currentRowMap = Map<String, dynamic>.from(maps[i]);
-      currentRowMap["category"] = Category.fromNullableMap(currentRowMap);
-      return Record.fromMap(currentRowMap);
-    });
+    final records = maps.map(_recordFromRow).toList();
+    await _attachTags(db, records,
+        recordIds: recordIdsInIntervalQuery(profileId: profileId),
+        arguments: [fromMinute, toMinute]);
+    return records;
+  }
 
-    final filteredRecords = records.where((record) {
-      // Get the record's local date based on its stored timeZoneName.
-      final recordLocation = getLocation(record.timeZoneName!);
-      final recordLocalTime = tz.TZDateTime.from(
-        record.utcDateTime,
-        recordLocation,
-      );
-      final recordDate = DateTime(
-        recordLocalTime.year,
-        recordLocalTime.month,
-        recordLocalTime.day,
-        recordLocalTime.hour,
-        recordLocalTime.minute,
+  @override
+  Future<RecordPage> getRecordsPageInInterval(
+    DateTime? localDateTimeFrom,
+    DateTime? localDateTimeTo, {
+    int? profileId,
+    RecordPageCursor? after,
+    int limit = 200,
+  }) async {
+    final db = (await database)!;
+    await SqliteMigrationService.backfillLocalMinutes(db);
+
+    final (fromMinute, toMinute) =
+        _localMinuteRange(localDateTimeFrom!, localDateTimeTo!);
+    var maps = await db.rawQuery(
+      recordsPageQuery(profileId: profileId, hasCursor: after != null),
+      [
+        fromMinute,
+        toMinute,
+        if (after != null) ...[after.localMinute, after.localMinute, after.id],
+        limit,
+      ],
+    );
+    if (maps.length < limit) {
+      final records = maps.map(_recordFromRow).toList();
+      await _attachTags(db, records);
+      return RecordPage(records, null);
+    }
+
+    // Finish the last day so that its records never span two pages.
+    var last = RecordPageCursor(
+        maps.last['local_minute'] as int, maps.last['id'] as int);
+    final restOfDay = await db.rawQuery(
+      recordsPageQuery(profileId: profileId, hasCursor: true),
+      [
+        last.dayStartMinute > fromMinute ? last.dayStartMinute : fromMinute,
+        toMinute,
+        last.localMinute,
+        last.localMinute,
+        last.id,
+        -1,
+      ],
+    );
+    if (restOfDay.isNotEmpty) {
+      last = RecordPageCursor(
+          restOfDay.last['local_minute'] as int, restOfDay.last['id'] as int);
+    }
+    final records = [...maps, ...restOfDay].map(_recordFromRow).toList();
+    await _attachTags(db, records);
+    return RecordPage(records, last);
+  }
+
+  /// Weights of the records_search columns (title, description, category,
+  /// tags) when ranking search results.
+  static const _searchColumnWeights = [3.0, 1.0, 2.0, 2.0];
+
+  /// The words of a search as FTS4 prefix queries, so that "cof caf" finds
+  /// "Coffee at the café". Words are split like the unicode61 tokenizer does
+  /// and quoted, so that AND, OR, NEAR and * in the input are plain text.
+  @visibleForTesting
+  static List<String> searchTerms(String query) => query
+      .toLowerCase()
+      .split(RegExp(r'[^\p{L}\p{N}]+', unicode: true))
+      .where((term) => term.isNotEmpty)
+      .toList();
+
+  /// Filters of [searchMatchesQuery] and [searchFallbackQuery] past the
+  /// search itself. Arguments: a name and type per category, then the
+  /// wallet ids twice.
+  static String _searchFilters(
+      {int? profileId, int categoryCount = 0, int walletCount = 0}) {
+    final filters = [
+      if (profileId != null) "m.profile_id = $profileId",
+      if (categoryCount > 0)
+        "(${List.filled(categoryCount, "(m.category_name = ? AND m.category_type = ?)").join(" OR ")})",
+      if (walletCount > 0)
+        "(m.wallet_id IN (${List.filled(walletCount, "?").join(", ")})"
+            " OR m.transfer_wallet_id IN (${List.filled(walletCount, "?").join(", ")}))",
+    ];
+    return filters.map((filter) => "AND $filter").join("\n");
+  }
+
+  /// Ids of the records matching a full-text query, with the match
+  /// statistics [_searchScore] ranks them by. Arguments: the MATCH
+  /// expression, then those of [_searchFilters].
+  @visibleForTesting
+  static String searchMatchesQuery(
+      {int? profileId, int categoryCount = 0, int walletCount = 0}) {
+    return """
+            SELECT m.id, m.datetime,
+                matchinfo(records_search, 'pcx') AS search_match
+            FROM records_search
+            JOIN records AS m ON m.id = records_search.docid
+            WHERE records_search MATCH ?
+            ${_searchFilters(profileId: profileId, categoryCount: categoryCount, walletCount: walletCount)}
+        """;
+  }
+
+  /// Search for SQLite builds without FTS4: every term must occur in the
+  /// title, description, category or a tag. Newest first. Arguments: four
+  /// LIKE patterns per term, those of [_searchFilters], then the LIMIT.
+  @visibleForTesting
+  static String searchFallbackQuery(int termCount,
+      {int? profileId, int categoryCount = 0, int walletCount = 0}) {
+    const termFilter = """
+            AND (m.title LIKE ? OR m.description LIKE ? OR m.category_name LIKE ?
+                OR EXISTS (SELECT 1 FROM records_tags AS rt
+                           WHERE rt.record_id = m.id AND rt.tag_name LIKE ?))""";
+    return """
+            $_recordsWithCategory
+            WHERE 1 = 1
+            ${List.filled(termCount, termFilter).join("\n")}
+            ${_searchFilters(profileId: profileId, categoryCount: categoryCount, walletCount: walletCount)}
+            ORDER BY m.datetime DESC, m.id DESC
+            LIMIT ?
+        """;
+  }
+
+  /// Sum over the query terms and columns of how often the term occurs in
+  /// the row relative to the whole index, by column weight: a word that is
+  /// rare overall and found in the title ranks highest. [matchinfo] is the
+  /// 'pcx' blob of FTS4, native-endian 32 bit integers.
+  static double _searchScore(Uint8List matchinfo) {
+    final data = ByteData.sublistView(matchinfo);
+    int at(int index) => data.getUint32(index * 4, Endian.host);
+    final phrases = at(0), columns = at(1);
+    var score = 0.0;
+    for (var phrase = 0; phrase < phrases; phrase++) {
+      for (var column = 0; column < columns; column++) {
+        final base = 2 + 3 * (phrase * columns + column);
+        final hitsInRow = at(base), hitsInAllRows = at(base + 1);
+        if (hitsInRow > 0 && column < _searchColumnWeights.length) {
+          score += _searchColumnWeights[column] * hitsInRow / hitsInAllRows;
+        }
+      }
+    }
+    return score;
+  }
+
+  @override
+  Future<List<Record>> searchRecords(
+    String query, {
+    int? profileId,
+    List<Category?>? categories,
+    Set<int?>? walletIds,
+    int limit = 500,
+  }) async {
+    final db = (await database)!;
+    final terms = searchTerms(query);
+    if (terms.isEmpty) return [];
+    final categoryList = (categories ?? []).whereType<Category>().toList();
+    final walletList = (walletIds ?? {}).whereType<int>().toList();
+    final filterArguments = [
+      for (final category in categoryList) ...[
+        category.name,
+        category.categoryType?.index,
+      ],
+      ...walletList,
+      ...walletList,
+    ];
+
+    if (!await SqliteMigrationService.hasRecordsSearchIndex(db)) {
+      final maps = await db.rawQuery(
+        searchFallbackQuery(terms.length,
+            profileId: profileId,
+            categoryCount: categoryList.length,
+            walletCount: walletList.length),
+        [
+          for (final term in terms) ...List.filled(4, '%$term%'),
+          ...filterArguments,
+          limit,
+        ],
       );
-      return !recordDate.isBefore(localDateTimeFrom) &&
-          !recordDate.isAfter(localDateTimeTo);
-    }).toList();
+      final records = maps.map(_recordFromRow).toList();
+      await _attachTags(db, records);
+      return records;
+    }
+
+    final matches = await db.rawQuery(
+      searchMatchesQuery(
+          profileId: profileId,
+          categoryCount: categoryList.length,
+          walletCount: walletList.length),
+      [terms.map((term) => '"$term*"').join(" "), ...filterArguments],
+    );
+    final ranked = [
+      for (final match in matches)
+        (
+          id: match['id'] as int,
+          datetime: match['datetime'] as int? ?? 0,
+          score: _searchScore(match['search_match'] as Uint8List),
+        ),
+    ]..sort((a, b) {
+        final byScore = b.score.compareTo(a.score);
+        return byScore != 0 ? byScore : b.datetime.compareTo(a.datetime);
+      });
+    final ids = ranked.take(limit).map((match) => match.id).toList();
+
+    // Load the best matches in chunks below the SQLite variable limit, then
+    // put them back in rank order.
+    final byId = <int, Record>{};
+    for (var first = 0; first < ids.length; first += 500) {
+      final chunk = ids.sublist(first, min(first + 500, ids.length));
+      final maps = await db.rawQuery("""
+            $_recordsWithCategory
+            WHERE m.id IN (${List.filled(chunk.length, "?").join(", ")})
+        """, chunk);
+      for (final row in maps) {
+        byId[row['id'] as int] = _recordFromRow(row);
+      }
+    }
+    final records = [for (final id in ids) if (byId[id] != null) byId[id]!];
+    await _attachTags(db, records);
+    return records;
+  }
+
+  /// Income/expense totals of an interval as aggregated records: one per
+  /// wallet, category type and sign, with [Record.aggregatedValues] set to
+  /// the number of records summed. Whole days come from
+  /// records_daily_summary; only the partial days at the edges of the
+  /// interval, if any, are summed from the records themselves.
+  @override
+  Future<List<Record>> getRecordTotalsInInterval(
+    DateTime? localDateTimeFrom,
+    DateTime? localDateTimeTo, {
+    int? profileId,
+  }) async {
+    final rows = await _summedByWholeDays(
+      localDateTimeFrom!,
+      localDateTimeTo!,
+      recordSummaryTotalsQuery(profileId: profileId),
+      recordTotalsInIntervalQuery(profileId: profileId),
+    );
+
+    final totals = <Record>[];
+    for (final row in rows) {
+      final categoryType = row['category_type'] as int?;
+      for (final sign in const ['positive', 'negative']) {
+        final count = (row['${sign}_count'] as int?) ?? 0;
+        if (count == 0) continue;
+        totals.add(Record(
+          (row['${sign}_total'] as num).toDouble(),
+          null,
+          categoryType != null
+              ? Category(null, categoryType: CategoryType.values[categoryType])
+              : null,
+          localDateTimeFrom.toUtc(),
+          walletId: row['wallet_id'] as int?,
+          profileId: profileId,
+        )..aggregatedValues = count);
+      }
+    }
+    return totals;
+  }
+
+  /// Income/expense sums of an interval per local day, category and wallet
+  /// as aggregated records: one per day, category, wallet and sign, dated
+  /// at the start of the day in UTC, with [Record.aggregatedValues] set to
+  /// the number of records summed. Read like [getRecordTotalsInInterval],
+  /// so that statistics cost one row per day and category rather than one
+  /// per record.
+  @override
+  Future<List<Record>> getRecordDailyTotalsInInterval(
+    DateTime? localDateTimeFrom,
+    DateTime? localDateTimeTo, {
+    int? profileId,
+  }) async {
+    final rows = await _summedByWholeDays(
+      localDateTimeFrom!,
+      localDateTimeTo!,
+      recordDailySummaryQuery(profileId: profileId),
+      recordDailyTotalsInIntervalQuery(profileId: profileId),
+    );
+
+    final epoch = DateTime.utc(1970);
+    final totals = <Record>[];
+    for (final row in rows) {
+      final category = Category.fromNullableMap(row);
+      final day = epoch.add(Duration(days: row['day'] as int));
+      for (final sign in const ['positive', 'negative']) {
+        final count = (row['${sign}_count'] as int?) ?? 0;
+        if (count == 0) continue;
+        totals.add(Record(
+          (row['${sign}_total'] as num).toDouble(),
+          null,
+          category,
+          day,
+          timeZoneName: 'UTC',
+          walletId: row['wallet_id'] as int?,
+          profileId: profileId,
+        )..aggregatedValues = count);
+      }
+    }
+    return totals;
+  }
+
+  /// Rows of [summaryQuery] over the whole local days of an interval and of
+  /// [recordsQuery] over the partial days at its edges, if any. The first
+  /// takes a range of day numbers, the second a range of local minutes.
+  Future<List<Map<String, dynamic>>> _summedByWholeDays(
+    DateTime localDateTimeFrom,
+    DateTime localDateTimeTo,
+    String summaryQuery,
+    String recordsQuery,
+  ) async {
+    final db = (await database)!;
+    await SqliteMigrationService.backfillLocalMinutes(db);
 
-    return filteredRecords;
+    const minutesPerDay = Duration.minutesPerDay;
+    final (fromMinute, toMinute) =
+        _localMinuteRange(localDateTimeFrom, localDateTimeTo);
+    final firstWholeDay = (fromMinute / minutesPerDay).ceil();
+    final lastWholeDay = ((toMinute + 1) / minutesPerDay).floor() - 1;
+
+    if (firstWholeDay > lastWholeDay) {
+      return db.rawQuery(recordsQuery, [fromMinute, toMinute]);
+    }
+    final rows = <Map<String, dynamic>>[
+      ...await db.rawQuery(summaryQuery, [firstWholeDay, lastWholeDay]),
+    ];
+    final wholeDaysFrom = firstWholeDay * minutesPerDay;
+    final wholeDaysTo = (lastWholeDay + 1) * minutesPerDay - 1;
+    if (fromMinute < wholeDaysFrom) {
+      rows.addAll(
+          await db.rawQuery(recordsQuery, [fromMinute, wholeDaysFrom - 1]));
+    }
+    if (toMinute > wholeDaysTo) {
+      rows.addAll(await db.rawQuery(recordsQuery, [wholeDaysTo + 1, toMinute]));
+    }
+    return rows;
+  }
+
+  @override
+  Future<void> rebuildRecordSummaries() async {
+    final db = (await database)!;
+    await db.transaction((txn) async {
+      await SqliteMigrationService.rebuildRecordsDailySummary(txn);
+      await SqliteMigrationService.rebuildWalletBalances(txn);
+      await SqliteMigrationService.rebuildRecordsSearchIndex(txn);
+      await SqliteMigrationService.rebuildTags(txn);
+    });
+    _changed(const DatabaseChange(
+        {DatabaseEntity.records, DatabaseEntity.wallets}));
   }
 
   @override
@@ -750,7 +1336,14 @@ class SqliteDatabase implements DatabaseInterface {
     final toUnix = toUtc.millisecondsSinceEpoch;
 
     final List<Map<String, dynamic>> maps = await db.rawQuery(
-      """
+      aggregatedRecordsByTagQuery,
+      [fromUnix, toUnix],
+    );
+    return maps;
+  }
+
+  @visibleForTesting
+  static const String aggregatedRecordsByTagQuery = """
       SELECT
         rt.tag_name AS key,
         SUM(r.value) AS value
@@ -760,11 +1353,7 @@ class SqliteDatabase implements DatabaseInterface {
       WHERE r.datetime >= ? AND r.datetime <= ?
       GROUP BY rt.tag_name
       ORDER BY value DESC
-    """,
-      [fromUnix, toUnix],
-    );
-    return maps;
-  }
+    """;
 
   Future<void> deleteDatabase() async {
     final db = (await database)!;
@@ -802,6 +1391,8 @@ class SqliteDatabase implements DatabaseInterface {
     );
 
     _db = null;
+    _tagNames.clear();
+    _changed(DatabaseChange.all);
   }
 
   // Profile CRUD
@@ -827,6 +1418,7 @@ class SqliteDatabase implements DatabaseInterface {
     final db = (await database)!;
     await db.rawUpdate('UPDATE profiles SET is_default = 0');
     await db.rawUpdate('UPDATE profiles SET is_default = 1 WHERE id = ?', [id]);
+    _changed(const DatabaseChange({DatabaseEntity.profiles}));
   }
 
   @override
@@ -846,6 +1438,8 @@ class SqliteDatabase implements DatabaseInterface {
       "INSERT INTO wallets (name, is_default, is_predefined, sort_order, profile_id, color) VALUES (?, 1, 1, 0, ?, ?)",
       ["Default Wallet".i18n, profileId, "255:129:199:132"],
     );
+    _changed(const DatabaseChange(
+        {DatabaseEntity.profiles, DatabaseEntity.wallets}));
     return profileId;
   }
 
@@ -854,6 +1448,7 @@ class SqliteDatabase implements DatabaseInterface {
     final db = (await database)!;
     final map = profile.toMap()..remove('id');
     await db.update('profiles', map, where: 'id = ?', whereArgs: [profile.id]);
+    _changed(const DatabaseChange({DatabaseEntity.profiles}));
   }
 
   @override
@@ -863,31 +1458,44 @@ class SqliteDatabase implements DatabaseInterface {
       await db.delete(table, where: 'profile_id = ?', whereArgs: [id]);
     }
     await db.delete('profiles', where: 'id = ?', whereArgs: [id]);
+    _changed(DatabaseChange.all);
   }
 
   // Wallet implementation
 
-  static String _walletBalanceQuery({
+  /// Wallet columns plus the live balance: the initial amount and the
+  /// running total of its records, which the database triggers maintain.
+  static const String _walletWithBalance =
+      "w.*, w.initial_amount + w.records_total AS balance";
+
+  /// Wallets with their balance, or with their balance as of a cutoff when
+  /// [hasAsOfDate]. The as-of balance starts from the live one and takes
+  /// back what moved after the cutoff: whole months from
+  /// wallet_monthly_totals, then the records of the cutoff's own month that
+  /// are dated after it. The caller binds the cutoff month, then the cutoff
+  /// and the start of the next month (UTC millis) twice, for records and for
+  /// received transfers.
+  @visibleForTesting
+  static String walletBalanceQuery({
     int? profileId,
     bool hasAsOfDate = false,
   }) {
     final profileFilter = profileId != null
         ? "WHERE w.profile_id = $profileId"
         : "";
-    // When hasAsOfDate is true, the caller binds the as-of cutoff (as UTC
-    // millis) twice, in textual order: once for the transfer subquery, once
-    // for the main join.
-    final asOfTransferFilter = hasAsOfDate ? "AND t.datetime <= ?" : "";
-    final asOfRecordFilter = hasAsOfDate ? "AND r.datetime <= ?" : "";
+    final balance = hasAsOfDate
+        ? """
+           w.*,
+           w.initial_amount + w.records_total
+           - COALESCE((SELECT SUM(mt.total) FROM wallet_monthly_totals mt WHERE mt.wallet_id = w.id AND mt.month > ?), 0)
+           - COALESCE((SELECT SUM(r.value) FROM records r WHERE r.wallet_id = w.id AND r.datetime > ? AND r.datetime < ?), 0)
+           - COALESCE((SELECT SUM(ABS(COALESCE(t.transfer_value, t.value))) FROM records t WHERE t.transfer_wallet_id = w.id AND t.datetime > ? AND t.datetime < ?), 0)
+           AS balance"""
+        : _walletWithBalance;
     return """
-    SELECT w.*,
-           COALESCE(SUM(r.value), 0) +
-           COALESCE((SELECT SUM(ABS(COALESCE(t.transfer_value, t.value))) FROM records t WHERE t.transfer_wallet_id = w.id $asOfTransferFilter), 0) +
-           w.initial_amount AS balance
+    SELECT $balance
     FROM wallets w
-    LEFT JOIN records r ON r.wallet_id = w.id $asOfRecordFilter
     $profileFilter
-    GROUP BY w.id
     ORDER BY w.sort_order
   """;
   }
@@ -895,7 +1503,7 @@ class SqliteDatabase implements DatabaseInterface {
   @override
   Future<List<Wallet>> getAllWallets({int? profileId}) async {
     final db = (await database)!;
-    final maps = await db.rawQuery(_walletBalanceQuery(profileId: profileId));
+    final maps = await db.rawQuery(walletBalanceQuery(profileId: profileId));
     return maps
         .map((m) => Wallet.fromMap(Map<String, dynamic>.from(m)))
         .toList();
@@ -906,14 +1514,20 @@ class SqliteDatabase implements DatabaseInterface {
     DateTime asOfDate, {
     int? profileId,
   }) async {
-    // Accepted limitation (approach 1 of #391): initial_amount is applied
-    // uniformly to every snapshot, matching the semantics the live balance
-    // already has today. No schema change.
+    // Starts from the live balance (initial_amount plus records_total) and
+    // subtracts the monthly checkpoints in wallet_monthly_totals after the
+    // cutoff's month, then the records of that month dated after the
+    // cutoff, so only one month of records is read. initial_amount counts
+    // in every snapshot, as it does in the live balance.
     final db = (await database)!;
-    final asOfUnix = asOfDate.toUtc().millisecondsSinceEpoch;
+    final asOfUtc = asOfDate.toUtc();
+    final asOfUnix = asOfUtc.millisecondsSinceEpoch;
+    final asOfMonth = asOfUtc.year * 12 + asOfUtc.month - 1;
+    final nextMonthUnix =
+        DateTime.utc(asOfUtc.year, asOfUtc.month + 1).millisecondsSinceEpoch;
     final maps = await db.rawQuery(
-      _walletBalanceQuery(profileId: profileId, hasAsOfDate: true),
-      [asOfUnix, asOfUnix],
+      walletBalanceQuery(profileId: profileId, hasAsOfDate: true),
+      [asOfMonth, asOfUnix, nextMonthUnix, asOfUnix, nextMonthUnix],
     );
     return maps
         .map((m) => Wallet.fromMap(Map<String, dynamic>.from(m)))
@@ -925,14 +1539,9 @@ class SqliteDatabase implements DatabaseInterface {
     final db = (await database)!;
     final maps = await db.rawQuery(
       """
-      SELECT w.*,
-             COALESCE(SUM(r.value), 0) +
-             COALESCE((SELECT SUM(ABS(COALESCE(t.transfer_value, t.value))) FROM records t WHERE t.transfer_wallet_id = w.id), 0) +
-             w.initial_amount AS balance
+      SELECT $_walletWithBalance
       FROM wallets w
-      LEFT JOIN records r ON r.wallet_id = w.id
       WHERE w.id = ?
-      GROUP BY w.id
     """,
       [id],
     );
@@ -945,14 +1554,9 @@ class SqliteDatabase implements DatabaseInterface {
     final db = (await database)!;
     final maps = await db.rawQuery(
       """
-      SELECT w.*,
-             COALESCE(SUM(r.value), 0) +
-             COALESCE((SELECT SUM(ABS(COALESCE(t.transfer_value, t.value))) FROM records t WHERE t.transfer_wallet_id = w.id), 0) +
-             w.initial_amount AS balance
+      SELECT $_walletWithBalance
       FROM wallets w
-      LEFT JOIN records r ON r.wallet_id = w.id
       WHERE w.name = ? AND w.profile_id IS ?
-      GROUP BY w.id
     """,
       [name, profileId],
     );
@@ -968,6 +1572,7 @@ class SqliteDatabase implements DatabaseInterface {
     final map = wallet.toMap()..remove('id');
     final id = await db.insert('wallets', map);
     _logger.info('Wallet added: ID $id (${wallet.name})');
+    _changed(const DatabaseChange({DatabaseEntity.wallets}));
     return id;
   }
 
@@ -978,6 +1583,7 @@ class SqliteDatabase implements DatabaseInterface {
     final map = wallet.toMap()..remove('id');
     await db.update('wallets', map, where: 'id = ?', whereArgs: [id]);
     _logger.info('Wallet updated: ID $id (${wallet.name})');
+    _changed(const DatabaseChange({DatabaseEntity.wallets}));
   }
 
   @override
@@ -1030,6 +1636,7 @@ class SqliteDatabase implements DatabaseInterface {
     if (wasSystemDefault) await _ensureDefaultWallet(db);
     if (wasPredefined) await _ensurePredefinedWallet(db);
     _logger.info('Wallet ID $id deleted');
+    _changed(_walletRecordsMove);
   }
 
   @override
@@ -1040,8 +1647,16 @@ class SqliteDatabase implements DatabaseInterface {
       await _migrateWalletRefsInTable(db, table, fromId, toId);
     }
     _logger.info('Records moved from wallet ID $fromId to wallet ID $toId');
+    _changed(_walletRecordsMove);
   }
 
+  /// What deleting a wallet or moving its records touches.
+  static const _walletRecordsMove = DatabaseChange({
+    DatabaseEntity.wallets,
+    DatabaseEntity.records,
+    DatabaseEntity.recurrentPatterns,
+  });
+
   /// Migrates all wallet references from [fromId] to [toId] in [table].
   ///
   /// Transfers that would become self-referential (source == destination) are
@@ -1101,6 +1716,7 @@ class SqliteDatabase implements DatabaseInterface {
     if (isArchived && wasSystemDefault) await _ensureDefaultWallet(db);
     if (isArchived && wasPredefined) await _ensurePredefinedWallet(db);
     _logger.info('Wallet ID $id ${isArchived ? 'archived' : 'unarchived'}');
+    _changed(const DatabaseChange({DatabaseEntity.wallets}));
   }
 
   /// Promotes the first active wallet to default.
@@ -1143,6 +1759,7 @@ class SqliteDatabase implements DatabaseInterface {
     final db = (await database)!;
     await db.rawUpdate('UPDATE wallets SET is_default = 0');
     await db.rawUpdate('UPDATE wallets SET is_default = 1 WHERE id = ?', [id]);
+    _changed(const DatabaseChange({DatabaseEntity.wallets}));
   }
 
   @override
@@ -1152,20 +1769,16 @@ class SqliteDatabase implements DatabaseInterface {
     await db.rawUpdate('UPDATE wallets SET is_predefined = 1 WHERE id = ?', [
       id,
     ]);
+    _changed(const DatabaseChange({DatabaseEntity.wallets}));
   }
 
   @override
   Future<Wallet?> getPredefinedWallet() async {
     final db = (await database)!;
     final maps = await db.rawQuery("""
-      SELECT w.*,
-             COALESCE(SUM(r.value), 0) +
-             COALESCE((SELECT SUM(ABS(COALESCE(t.transfer_value, t.value))) FROM records t WHERE t.transfer_wallet_id = w.id), 0) +
-             w.initial_amount AS balance
+      SELECT $_walletWithBalance
       FROM wallets w
-      LEFT JOIN records r ON r.wallet_id = w.id
       WHERE w.is_predefined = 1
-      GROUP BY w.id
       LIMIT 1
     """);
     if (maps.isEmpty) return null;
@@ -1185,20 +1798,16 @@ class SqliteDatabase implements DatabaseInterface {
       );
     }
     await batch.commit(noResult: true);
+    _changed(const DatabaseChange({DatabaseEntity.wallets}));
   }
 
   @override
   Future<Wallet?> getDefaultWallet() async {
     final db = (await database)!;
     final maps = await db.rawQuery("""
-      SELECT w.*,
-             COALESCE(SUM(r.value), 0) +
-             COALESCE((SELECT SUM(ABS(COALESCE(t.transfer_value, t.value))) FROM records t WHERE t.transfer_wallet_id = w.id), 0) +
-             w.initial_amount AS balance
+      SELECT $_walletWithBalance
       FROM wallets w
-      LEFT JOIN records r ON r.wallet_id = w.id
       WHERE w.is_default = 1
-      GROUP BY w.id
       LIMIT 1
     """);
     if (maps.isEmpty) return null;
@@ -1251,10 +1860,20 @@ class SqliteDatabase implements DatabaseInterface {
     return results.isNotEmpty ? results[0] : null;
   }
 
+  /// The date of record [id], or null when there is no such record.
+  static Future<DateTime?> _recordDate(DatabaseExecutor db, int? id) async {
+    final millis = Sqflite.firstIntValue(await db.rawQuery(
+        "SELECT datetime FROM records WHERE id = ?", [id]));
+    return millis == null
+        ? null
+        : DateTime.fromMillisecondsSinceEpoch(millis, isUtc: true);
+  }
+
   @override
   Future<int> updateRecordById(int? movementId, Record? newMovement) async {
     final db = (await database)!;
-    var recordMap = newMovement!.toMap();
+    final previousDate = await _recordDate(db, movementId);
+    var recordMap = _recordRow(newMovement!);
     if (recordMap['id'] == null) {
       recordMap['id'] = movementId;
     }
@@ -1281,14 +1900,18 @@ class SqliteDatabase implements DatabaseInterface {
         }, conflictAlgorithm: ConflictAlgorithm.ignore);
       }
     }
+    _changed(DatabaseChange.recordsAt(
+        [newMovement.utcDateTime, if (previousDate != null) previousDate]));
     return updatedRows;
   }
 
   @override
   Future<void> deleteRecordById(int? id) async {
     final db = (await database)!;
+    final date = await _recordDate(db, id);
     await db.delete("records", where: "id = ?", whereArgs: [id]);
     // There is a db trigger, deleting a record automatically delete the associated tags
+    if (date != null) _changed(DatabaseChange.recordsAt([date]));
   }
 
   @override
@@ -1300,6 +1923,7 @@ class SqliteDatabase implements DatabaseInterface {
     await db.delete("records", where: "id IN ($placeholders)", whereArgs: ids);
     _logger.info('Batch deleted ${ids.length} records');
     // There is a db trigger, deleting a record automatically delete the associated tags
+    _changed(const DatabaseChange.records());
   }
 
   @override
@@ -1315,6 +1939,7 @@ class SqliteDatabase implements DatabaseInterface {
       whereArgs: ids,
     );
     _logger.info('Batch moved ${ids.length} records to wallet ID $walletId');
+    _changed(const DatabaseChange.records());
   }
 
   @override
@@ -1359,6 +1984,7 @@ class SqliteDatabase implements DatabaseInterface {
       whereArgs: [recurrentPatternId, millisecondsSinceEpoch],
     );
     // There is a db trigger, deleting a record automatically delete the associated tags
+    _changed(DatabaseChange.records(from: startingDate.toUtc()));
   }
 
   @override
@@ -1414,7 +2040,10 @@ class SqliteDatabase implements DatabaseInterface {
     final db = (await database)!;
     recordPattern.id ??= Uuid().v4();
     recordPattern.profileId ??= ProfileService.instance.activeProfileId;
-    return await db.insert("recurrent_record_patterns", recordPattern.toMap());
+    final id =
+        await db.insert("recurrent_record_patterns", recordPattern.toMap());
+    _changed(const DatabaseChange({DatabaseEntity.recurrentPatterns}));
+    return id;
   }
 
   @override
@@ -1427,6 +2056,7 @@ class SqliteDatabase implements DatabaseInterface {
       where: "id = ?",
       whereArgs: [recurrentPatternId],
     );
+    _changed(const DatabaseChange({DatabaseEntity.recurrentPatterns}));
   }
 
   @override
@@ -1436,12 +2066,14 @@ class SqliteDatabase implements DatabaseInterface {
   ) async {
     final db = (await database)!;
     var patternMap = pattern.toMap();
-    return await db.update(
+    final updatedRows = await db.update(
       "recurrent_record_patterns",
       patternMap,
       where: "id = ?",
       whereArgs: [recurrentPatternId],
     );
+    _changed(const DatabaseChange({DatabaseEntity.recurrentPatterns}));
+    return updatedRows;
   }
 
   @override
@@ -1480,6 +2112,7 @@ class SqliteDatabase implements DatabaseInterface {
       where: "name = ? AND category_type = ?",
       whereArgs: [categoryName, categoryType.index],
     );
+    _changed(_categoryChange);
   }
 
   @override
@@ -1501,18 +2134,21 @@ class SqliteDatabase implements DatabaseInterface {
         whereArgs: [category.name, category.categoryType!.index],
       );
     }
+    _changed(const DatabaseChange({DatabaseEntity.categories}));
   }
 
   @override
   Future<Set<String>> getRecentlyUsedTags() async {
     final db = (await database)!;
+    // The ten newest records come from the datetime index; only their
+    // tags are read.
     final List<Map<String, dynamic>> maps = await db.rawQuery('''
       SELECT DISTINCT rt.tag_name
-      FROM records_tags AS rt
-      INNER JOIN records AS r
+      FROM (SELECT id, datetime FROM records ORDER BY datetime DESC LIMIT 10)
+          AS r
+      INNER JOIN records_tags AS rt
         ON rt.record_id = r.id
       ORDER BY r.datetime DESC
-      LIMIT 10
     ''');
     return List.generate(
       maps.length,
@@ -1545,10 +2181,11 @@ class SqliteDatabase implements DatabaseInterface {
         batch.insert('records_tags', {
           'record_id': row['record_id'],
           'tag_name': newTagName,
-        }, conflictAlgorithm: ConflictAlgorithm.replace);
+        }, conflictAlgorithm: ConflictAlgorithm.ignore);
       }
       await batch.commit();
     });
+    _changed(const DatabaseChange.records());
   }
 
   Future<void> deleteTag(String tagName) async {
@@ -1560,5 +2197,6 @@ class SqliteDatabase implements DatabaseInterface {
       where: 'tag_name = ?',
       whereArgs: [tagName],
     );
+    _changed(const DatabaseChange.records());
   }
 }
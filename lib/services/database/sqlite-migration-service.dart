@@ -2,9 +2,11 @@ import 'package:font_awesome_flutter/font_awesome_flutter.dart';
 import 'package:piggybank/i18n.dart';
 import 'package:sqflite/sqflite.dart';
 
+import '../../helpers/datetime-utility-functions.dart';
 import '../../models/category-type.dart';
 import '../../models/category.dart';
 import '../logger.dart';
+import '../service-config.dart';
 
 class SqliteMigrationService {
   static final _logger = Logger.withClass(SqliteMigrationService);
@@ -43,7 +45,9 @@ class SqliteMigrationService {
               wallet_id   INTEGER,
               transfer_wallet_id INTEGER,
               transfer_value REAL,
-              profile_id  INTEGER
+              profile_id  INTEGER,
+              local_minute INTEGER,
+              fingerprint INTEGER
           );
       """;
     batch.execute(query);
@@ -63,7 +67,8 @@ class SqliteMigrationService {
               is_predefined INTEGER DEFAULT 0,
               sort_order    INTEGER DEFAULT 0,
               currency      TEXT,
-              profile_id    INTEGER
+              profile_id    INTEGER,
+              records_total REAL NOT NULL DEFAULT 0
           );
       """;
     batch.execute(query);
@@ -145,6 +150,571 @@ class SqliteMigrationService {
     batch.execute(query);
   }
 
+  /// Secondary indexes for the hot record queries: interval filters by
+  /// datetime (optionally per profile), wallet balances (covering the summed
+  /// columns), category renames/deletes, recurrent pattern clean-ups and tag
+  /// lookups by name. records_tags joins on record_id already use its
+  /// primary key.
+  static void _createRecordsIndexes(Batch batch) {
+    batch.execute(
+        "CREATE INDEX IF NOT EXISTS idx_records_datetime ON records (datetime);");
+    batch.execute(
+        "CREATE INDEX IF NOT EXISTS idx_records_profile_datetime ON records (profile_id, datetime);");
+    batch.execute(
+        "CREATE INDEX IF NOT EXISTS idx_records_wallet_datetime ON records (wallet_id, datetime, value);");
+    batch.execute("""
+        CREATE INDEX IF NOT EXISTS idx_records_transfer_wallet_datetime
+        ON records (transfer_wallet_id, datetime, transfer_value, value)
+        WHERE transfer_wallet_id IS NOT NULL;
+        """);
+    batch.execute(
+        "CREATE INDEX IF NOT EXISTS idx_records_category ON records (category_name, category_type);");
+    batch.execute("""
+        CREATE INDEX IF NOT EXISTS idx_records_recurrence_id
+        ON records (recurrence_id, datetime)
+        WHERE recurrence_id IS NOT NULL;
+        """);
+    batch.execute(
+        "CREATE INDEX IF NOT EXISTS idx_records_tags_tag_name ON records_tags (tag_name);");
+  }
+
+  /// Indexes for interval queries on the record's local wall-clock minute.
+  /// Kept apart from [_createRecordsIndexes] because local_minute only
+  /// exists from version 33.
+  static void _createLocalMinuteIndexes(Batch batch) {
+    batch.execute(
+        "CREATE INDEX IF NOT EXISTS idx_records_local_minute ON records (local_minute);");
+    batch.execute(
+        "CREATE INDEX IF NOT EXISTS idx_records_profile_local_minute ON records (profile_id, local_minute);");
+  }
+
+  /// Fills records.local_minute for rows that do not have it yet: rows
+  /// written before version 33, or by code that inserts into records
+  /// directly. The timezone database must be initialized.
+  static Future<int> backfillLocalMinutes(DatabaseExecutor db) async {
+    final rows = await db.rawQuery(
+        "SELECT id, datetime, timezone FROM records WHERE local_minute IS NULL");
+    if (rows.isEmpty) return 0;
+    final batch = db.batch();
+    for (final row in rows) {
+      final utcDateTime = DateTime.fromMillisecondsSinceEpoch(
+          row['datetime'] as int,
+          isUtc: true);
+      final timeZoneName =
+          row['timezone'] as String? ?? ServiceConfig.localTimezone;
+      batch.rawUpdate("UPDATE records SET local_minute = ? WHERE id = ?",
+          [localMinuteKey(utcDateTime, timeZoneName), row['id']]);
+    }
+    await batch.commit(noResult: true);
+    _logger.debug('Backfilled local_minute for ${rows.length} records');
+    return rows.length;
+  }
+
+  /// Index on records.fingerprint, which the duplicate checks probe. Not
+  /// unique: identical records are legitimate, e.g. a CSV row repeated on
+  /// purpose or a duplicated record.
+  static void _createFingerprintIndex(Batch batch) {
+    batch.execute(
+        "CREATE INDEX IF NOT EXISTS idx_records_fingerprint ON records (fingerprint);");
+  }
+
+  /// Value of records.fingerprint: a 64-bit FNV-1a hash of the datetime,
+  /// value and title of a record, the fields every duplicate check compares.
+  /// Records that hash alike are compared field by field, so collisions only
+  /// cost a second look. Category, wallet and profile are left out because
+  /// they are rewritten in bulk by SQL (category renames, wallet moves).
+  static int recordFingerprint(int datetime, num? value, String? title) {
+    var hash = 0xcbf29ce484222325;
+    final key = '$datetime|${value?.toDouble()}|${title ?? '\u0000'}';
+    for (final unit in key.codeUnits) {
+      hash = (hash ^ unit) * 0x100000001b3;
+    }
+    return hash;
+  }
+
+  /// Fills records.fingerprint for rows that do not have it yet: rows
+  /// written before version 38, or by code that inserts into records
+  /// directly.
+  static Future<int> backfillFingerprints(DatabaseExecutor db) async {
+    final rows = await db.rawQuery(
+        "SELECT id, datetime, value, title FROM records WHERE fingerprint IS NULL");
+    if (rows.isEmpty) return 0;
+    final batch = db.batch();
+    for (final row in rows) {
+      batch.rawUpdate("UPDATE records SET fingerprint = ? WHERE id = ?", [
+        recordFingerprint(row['datetime'] as int, row['value'] as num?,
+            row['title'] as String?),
+        row['id'],
+      ]);
+    }
+    await batch.commit(noResult: true);
+    _logger.debug('Backfilled fingerprint for ${rows.length} records');
+    return rows.length;
+  }
+
+  /// Income and expense sums per profile, local day, category and wallet
+  /// (hence currency), so that interval totals cost one row per day instead
+  /// of one per record. Transfers are left out, as in every total. NULL keys
+  /// are stored as 0 / '' / -1 because NULLs never collide in a primary key.
+  /// Positive and negative values are summed apart so that absolute totals
+  /// stay exact when refunds are mixed in.
+  static void _createRecordsDailySummaryTable(Batch batch) {
+    batch.execute("""
+      CREATE TABLE IF NOT EXISTS records_daily_summary (
+              profile_id     INTEGER NOT NULL,
+              day            INTEGER NOT NULL,
+              category_name  TEXT NOT NULL,
+              category_type  INTEGER NOT NULL,
+              wallet_id      INTEGER NOT NULL,
+              positive_total REAL NOT NULL DEFAULT 0,
+              positive_count INTEGER NOT NULL DEFAULT 0,
+              negative_total REAL NOT NULL DEFAULT 0,
+              negative_count INTEGER NOT NULL DEFAULT 0,
+              PRIMARY KEY (profile_id, day, category_name, category_type, wallet_id)
+          );
+      """);
+    batch.execute(
+        "CREATE INDEX IF NOT EXISTS idx_records_daily_summary_day ON records_daily_summary (day);");
+  }
+
+  /// Local day number (days since the epoch, in the record's own timezone)
+  /// of [row], rounding down for records before 1970.
+  static String summaryDay(String row) =>
+      "(($row.local_minute - (($row.local_minute % 1440) + 1440) % 1440) / 1440)";
+
+  static String _summaryKeyValues(String row) => """
+      COALESCE($row.profile_id, 0), ${summaryDay(row)},
+      COALESCE($row.category_name, ''), COALESCE($row.category_type, -1),
+      COALESCE($row.wallet_id, 0)""";
+
+  static String _summaryKeyMatch(String row) => """
+      profile_id = COALESCE($row.profile_id, 0)
+      AND day = ${summaryDay(row)}
+      AND category_name = COALESCE($row.category_name, '')
+      AND category_type = COALESCE($row.category_type, -1)
+      AND wallet_id = COALESCE($row.wallet_id, 0)""";
+
+  static String _summaryCounts(String row) =>
+      "$row.local_minute IS NOT NULL AND $row.transfer_wallet_id IS NULL";
+
+  /// Statements adding ([sign] 1) or removing ([sign] -1) [row] from its
+  /// summary row, for use in a trigger body. Plain INSERT OR IGNORE and
+  /// UPDATE rather than an upsert, which older Android SQLite versions
+  /// do not support.
+  static String _summaryDelta(String row, int sign) {
+    final value = "COALESCE($row.value, 0)";
+    final add = sign > 0 ? "+" : "-";
+    final insert = sign > 0
+        ? """
+          INSERT OR IGNORE INTO records_daily_summary
+              (profile_id, day, category_name, category_type, wallet_id)
+          SELECT ${_summaryKeyValues(row)}
+          WHERE ${_summaryCounts(row)};
+        """
+        : "";
+    return """
+          $insert
+          UPDATE records_daily_summary
+          SET
+              positive_total = positive_total $add (CASE WHEN $value >= 0 THEN $value ELSE 0 END),
+              positive_count = positive_count $add ($value >= 0),
+              negative_total = negative_total $add (CASE WHEN $value < 0 THEN $value ELSE 0 END),
+              negative_count = negative_count $add ($value < 0)
+          WHERE ${_summaryKeyMatch(row)}
+              AND ${_summaryCounts(row)};
+        """;
+  }
+
+  /// Removes the summary row of [row] once its last record is gone.
+  static String _summaryDropEmpty(String row) => """
+          DELETE FROM records_daily_summary
+          WHERE ${_summaryKeyMatch(row)}
+              AND positive_count = 0 AND negative_count = 0;
+        """;
+
+  /// Keeps records_daily_summary current inside the statement that writes
+  /// the record, whichever code path it comes from.
+  static void _createRecordsDailySummaryTriggers(Batch batch) {
+    batch.execute("DROP TRIGGER IF EXISTS records_daily_summary_on_insert;");
+    batch.execute("""
+      CREATE TRIGGER records_daily_summary_on_insert
+      AFTER INSERT ON records
+      FOR EACH ROW
+      BEGIN
+          ${_summaryDelta("NEW", 1)}
+      END;
+    """);
+    batch.execute("DROP TRIGGER IF EXISTS records_daily_summary_on_update;");
+    batch.execute("""
+      CREATE TRIGGER records_daily_summary_on_update
+      AFTER UPDATE OF value, local_minute, category_name, category_type,
+          wallet_id, transfer_wallet_id, profile_id ON records
+      FOR EACH ROW
+      BEGIN
+          ${_summaryDelta("OLD", -1)}
+          ${_summaryDelta("NEW", 1)}
+          ${_summaryDropEmpty("OLD")}
+      END;
+    """);
+    batch.execute("DROP TRIGGER IF EXISTS records_daily_summary_on_delete;");
+    batch.execute("""
+      CREATE TRIGGER records_daily_summary_on_delete
+      AFTER DELETE ON records
+      FOR EACH ROW
+      BEGIN
+          ${_summaryDelta("OLD", -1)}
+          ${_summaryDropEmpty("OLD")}
+      END;
+    """);
+  }
+
+  /// Recomputes records_daily_summary from the records table. Used by the
+  /// migration that introduces it and after a backup import; normal writes
+  /// keep it current through the triggers.
+  static Future<void> rebuildRecordsDailySummary(DatabaseExecutor db) async {
+    await backfillLocalMinutes(db);
+    final batch = db.batch();
+    batch.execute("DELETE FROM records_daily_summary;");
+    batch.execute("""
+      INSERT INTO records_daily_summary
+          (profile_id, day, category_name, category_type, wallet_id,
+           positive_total, positive_count, negative_total, negative_count)
+      SELECT ${_summaryKeyValues("r")},
+          SUM(CASE WHEN COALESCE(r.value, 0) >= 0 THEN COALESCE(r.value, 0) ELSE 0 END),
+          SUM(COALESCE(r.value, 0) >= 0),
+          SUM(CASE WHEN COALESCE(r.value, 0) < 0 THEN r.value ELSE 0 END),
+          SUM(COALESCE(r.value, 0) < 0)
+      FROM records AS r
+      WHERE ${_summaryCounts("r")}
+      GROUP BY 1, 2, 3, 4, 5;
+    """);
+    await batch.commit(noResult: true);
+    _logger.debug('Rebuilt records_daily_summary');
+  }
+
+  /// Net movement of each wallet per UTC calendar month (records booked on
+  /// it plus transfers received), the checkpoints that "balance as of" reads
+  /// instead of summing every record. month is year * 12 + month - 1.
+  static void _createWalletMonthlyTotalsTable(Batch batch) {
+    batch.execute("""
+      CREATE TABLE IF NOT EXISTS wallet_monthly_totals (
+              wallet_id INTEGER NOT NULL,
+              month     INTEGER NOT NULL,
+              total     REAL NOT NULL DEFAULT 0,
+              PRIMARY KEY (wallet_id, month)
+          );
+      """);
+  }
+
+  /// UTC calendar month of [row].datetime (milliseconds, rounded down for
+  /// dates before 1970), numbered as in wallet_monthly_totals.
+  static String _walletMonth(String row) {
+    final seconds =
+        "(($row.datetime - (($row.datetime % 1000) + 1000) % 1000) / 1000)";
+    return "(CAST(strftime('%Y', $seconds, 'unixepoch') AS INTEGER) * 12"
+        " + CAST(strftime('%m', $seconds, 'unixepoch') AS INTEGER) - 1)";
+  }
+
+  /// Statements moving [amount] into ([sign] 1) or out of ([sign] -1) the
+  /// running total and the monthly total of [walletId], for a trigger body.
+  static String _walletDelta(
+      String row, String walletId, String amount, int sign) {
+    final add = sign > 0 ? "+" : "-";
+    final insert = sign > 0
+        ? """
+          INSERT OR IGNORE INTO wallet_monthly_totals (wallet_id, month)
+          SELECT $walletId, ${_walletMonth(row)}
+          WHERE $walletId IS NOT NULL AND $row.datetime IS NOT NULL;
+        """
+        : "";
+    return """
+          UPDATE wallets SET records_total = records_total $add $amount
+          WHERE id = $walletId;
+          $insert
+          UPDATE wallet_monthly_totals SET total = total $add $amount
+          WHERE wallet_id = $walletId AND month = ${_walletMonth(row)};
+        """;
+  }
+
+  /// A record moves its value on wallet_id and, for a transfer, the received
+  /// amount on transfer_wallet_id, as in the wallet balance.
+  static String _walletDeltas(String row, int sign) =>
+      _walletDelta(row, "$row.wallet_id", "COALESCE($row.value, 0)", sign) +
+      _walletDelta(row, "$row.transfer_wallet_id",
+          "ABS(COALESCE($row.transfer_value, $row.value, 0))", sign);
+
+  /// Keeps wallets.records_total and wallet_monthly_totals current inside
+  /// the statement that writes the record.
+  static void _createWalletBalanceTriggers(Batch batch) {
+    batch.execute("DROP TRIGGER IF EXISTS wallet_balance_on_insert;");
+    batch.execute("""
+      CREATE TRIGGER wallet_balance_on_insert
+      AFTER INSERT ON records
+      FOR EACH ROW
+      BEGIN
+          ${_walletDeltas("NEW", 1)}
+      END;
+    """);
+    batch.execute("DROP TRIGGER IF EXISTS wallet_balance_on_update;");
+    batch.execute("""
+      CREATE TRIGGER wallet_balance_on_update
+      AFTER UPDATE OF value, datetime, wallet_id, transfer_wallet_id,
+          transfer_value ON records
+      FOR EACH ROW
+      BEGIN
+          ${_walletDeltas("OLD", -1)}
+          ${_walletDeltas("NEW", 1)}
+      END;
+    """);
+    batch.execute("DROP TRIGGER IF EXISTS wallet_balance_on_delete;");
+    batch.execute("""
+      CREATE TRIGGER wallet_balance_on_delete
+      AFTER DELETE ON records
+      FOR EACH ROW
+      BEGIN
+          ${_walletDeltas("OLD", -1)}
+      END;
+    """);
+    batch.execute("DROP TRIGGER IF EXISTS wallet_monthly_totals_on_delete;");
+    batch.execute("""
+      CREATE TRIGGER wallet_monthly_totals_on_delete
+      AFTER DELETE ON wallets
+      FOR EACH ROW
+      BEGIN
+          DELETE FROM wallet_monthly_totals WHERE wallet_id = OLD.id;
+      END;
+    """);
+  }
+
+  /// Recomputes wallets.records_total and wallet_monthly_totals from the
+  /// records table. Used by the migration that introduces them and after a
+  /// backup import.
+  static Future<void> rebuildWalletBalances(DatabaseExecutor db) async {
+    const movements = """
+      SELECT wallet_id, datetime, COALESCE(value, 0) AS amount
+      FROM records WHERE wallet_id IS NOT NULL
+      UNION ALL
+      SELECT transfer_wallet_id, datetime,
+          ABS(COALESCE(transfer_value, value, 0))
+      FROM records WHERE transfer_wallet_id IS NOT NULL
+    """;
+    final batch = db.batch();
+    batch.execute("DELETE FROM wallet_monthly_totals;");
+    batch.execute("""
+      INSERT INTO wallet_monthly_totals (wallet_id, month, total)
+      SELECT m.wallet_id, ${_walletMonth("m")}, SUM(m.amount)
+      FROM ($movements) AS m
+      WHERE m.datetime IS NOT NULL
+      GROUP BY 1, 2;
+    """);
+    batch.execute("""
+      UPDATE wallets SET records_total = COALESCE(
+          (SELECT SUM(m.amount) FROM ($movements) AS m
+           WHERE m.wallet_id = wallets.id), 0);
+    """);
+    await batch.commit(noResult: true);
+    _logger.debug('Rebuilt wallet balances');
+  }
+
+  /// Full-text index of the words a record is searched by: its title,
+  /// description, category name and tags. The docid is the record id. FTS4
+  /// with the unicode61 tokenizer is used because the system SQLite on
+  /// Android does not ship FTS5; where even FTS4 is missing the index is
+  /// not created and search falls back to LIKE (see
+  /// [SqliteDatabase.searchRecords]).
+  static Future<bool> _createRecordsSearchIndex(Database db) async {
+    try {
+      await db.execute("""
+        CREATE VIRTUAL TABLE IF NOT EXISTS records_search USING fts4(
+            title, description, category, tags, tokenize=unicode61
+        );
+      """);
+    } on DatabaseException catch (e) {
+      _logger.warning('Full-text search is not available: $e');
+      return false;
+    }
+    final batch = db.batch();
+    _createRecordsSearchTriggers(batch);
+    await batch.commit(noResult: true);
+    return true;
+  }
+
+  /// The tags of record [recordId] as one space separated text.
+  static String _searchTags(String recordId) => """
+          (SELECT GROUP_CONCAT(tag_name, ' ') FROM records_tags
+           WHERE record_id = $recordId)""";
+
+  /// Statement refreshing the tags column of [recordId]'s index row.
+  static String _searchTagsUpdate(String recordId) => """
+          UPDATE records_search SET tags = ${_searchTags(recordId)}
+          WHERE docid = $recordId;""";
+
+  /// Keeps records_search current inside the statement that writes the
+  /// record or its tags, whichever code path it comes from.
+  static void _createRecordsSearchTriggers(Batch batch) {
+    batch.execute("DROP TRIGGER IF EXISTS records_search_on_insert;");
+    batch.execute("""
+      CREATE TRIGGER records_search_on_insert
+      AFTER INSERT ON records
+      FOR EACH ROW
+      BEGIN
+          INSERT INTO records_search (docid, title, description, category, tags)
+          VALUES (NEW.id, NEW.title, NEW.description, NEW.category_name,
+              ${_searchTags("NEW.id")});
+      END;
+    """);
+    batch.execute("DROP TRIGGER IF EXISTS records_search_on_update;");
+    batch.execute("""
+      CREATE TRIGGER records_search_on_update
+      AFTER UPDATE OF title, description, category_name ON records
+      FOR EACH ROW
+      BEGIN
+          UPDATE records_search
+          SET title = NEW.title, description = NEW.description,
+              category = NEW.category_name
+          WHERE docid = NEW.id;
+      END;
+    """);
+    batch.execute("DROP TRIGGER IF EXISTS records_search_on_delete;");
+    batch.execute("""
+      CREATE TRIGGER records_search_on_delete
+      AFTER DELETE ON records
+      FOR EACH ROW
+      BEGIN
+          DELETE FROM records_search WHERE docid = OLD.id;
+      END;
+    """);
+    batch.execute("DROP TRIGGER IF EXISTS records_search_on_tag_insert;");
+    batch.execute("""
+      CREATE TRIGGER records_search_on_tag_insert
+      AFTER INSERT ON records_tags
+      FOR EACH ROW
+      BEGIN
+          ${_searchTagsUpdate("NEW.record_id")}
+      END;
+    """);
+    batch.execute("DROP TRIGGER IF EXISTS records_search_on_tag_update;");
+    batch.execute("""
+      CREATE TRIGGER records_search_on_tag_update
+      AFTER UPDATE ON records_tags
+      FOR EACH ROW
+      BEGIN
+          ${_searchTagsUpdate("OLD.record_id")}
+          ${_searchTagsUpdate("NEW.record_id")}
+      END;
+    """);
+    batch.execute("DROP TRIGGER IF EXISTS records_search_on_tag_delete;");
+    batch.execute("""
+      CREATE TRIGGER records_search_on_tag_delete
+      AFTER DELETE ON records_tags
+      FOR EACH ROW
+      BEGIN
+          ${_searchTagsUpdate("OLD.record_id")}
+      END;
+    """);
+  }
+
+  /// Whether records_search exists, i.e. this SQLite build has FTS4.
+  static Future<bool> hasRecordsSearchIndex(DatabaseExecutor db) async {
+    final rows = await db.rawQuery(
+        "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'records_search'");
+    return rows.isNotEmpty;
+  }
+
+  /// Recomputes records_search from records and records_tags. Used by the
+  /// migration that introduces it and after a backup import.
+  static Future<void> rebuildRecordsSearchIndex(DatabaseExecutor db) async {
+    if (!await hasRecordsSearchIndex(db)) return;
+    final batch = db.batch();
+    batch.execute("DELETE FROM records_search;");
+    batch.execute("""
+      INSERT INTO records_search (docid, title, description, category, tags)
+      SELECT r.id, r.title, r.description, r.category_name,
+          ${_searchTags("r.id")}
+      FROM records AS r;
+    """);
+    await batch.commit(noResult: true);
+    _logger.debug('Rebuilt records_search');
+  }
+
+  /// One row per distinct tag name, with the id that record tags are read
+  /// by and the number of records carrying it. AUTOINCREMENT keeps the ids
+  /// of removed tags from being reused.
+  static void _createTagsTable(Batch batch) {
+    batch.execute("""
+      CREATE TABLE IF NOT EXISTS tags (
+              id           INTEGER PRIMARY KEY AUTOINCREMENT,
+              name         TEXT NOT NULL UNIQUE,
+              record_count INTEGER NOT NULL DEFAULT 0
+          );
+      """);
+  }
+
+  /// Statements counting one more record for tag [name], for a trigger body.
+  static String _tagUsed(String name) => """
+          INSERT OR IGNORE INTO tags (name) VALUES ($name);
+          UPDATE tags SET record_count = record_count + 1 WHERE name = $name;""";
+
+  /// Statements counting one record less for tag [name] and removing the
+  /// tag once no record carries it, for a trigger body.
+  static String _tagUnused(String name) => """
+          UPDATE tags SET record_count = record_count - 1 WHERE name = $name;
+          DELETE FROM tags WHERE name = $name AND record_count <= 0;""";
+
+  /// Keeps the tags table current inside the statement that writes
+  /// records_tags. Rows replaced by INSERT OR REPLACE do not fire the delete
+  /// trigger, so writers of records_tags insert with OR IGNORE.
+  static void _createTagsTriggers(Batch batch) {
+    batch.execute("DROP TRIGGER IF EXISTS tags_on_record_tag_insert;");
+    batch.execute("""
+      CREATE TRIGGER tags_on_record_tag_insert
+      AFTER INSERT ON records_tags
+      FOR EACH ROW
+      BEGIN
+          ${_tagUsed("NEW.tag_name")}
+      END;
+    """);
+    batch.execute("DROP TRIGGER IF EXISTS tags_on_record_tag_update;");
+    batch.execute("""
+      CREATE TRIGGER tags_on_record_tag_update
+      AFTER UPDATE OF tag_name ON records_tags
+      FOR EACH ROW
+      BEGIN
+          ${_tagUnused("OLD.tag_name")}
+          ${_tagUsed("NEW.tag_name")}
+      END;
+    """);
+    batch.execute("DROP TRIGGER IF EXISTS tags_on_record_tag_delete;");
+    batch.execute("""
+      CREATE TRIGGER tags_on_record_tag_delete
+      AFTER DELETE ON records_tags
+      FOR EACH ROW
+      BEGIN
+          ${_tagUnused("OLD.tag_name")}
+      END;
+    """);
+  }
+
+  /// Recomputes the tags table from records_tags, keeping the ids of tags
+  /// that are still in use. Used by the migration that introduces it.
+  static Future<void> rebuildTags(DatabaseExecutor db) async {
+    final batch = db.batch();
+    batch.execute("""
+      DELETE FROM tags
+      WHERE name NOT IN (SELECT tag_name FROM records_tags);
+    """);
+    batch.execute("""
+      INSERT OR IGNORE INTO tags (name)
+      SELECT DISTINCT tag_name FROM records_tags;
+    """);
+    batch.execute("""
+      UPDATE tags SET record_count =
+          (SELECT COUNT(*) FROM records_tags WHERE tag_name = tags.name);
+    """);
+    await batch.commit(noResult: true);
+    _logger.debug('Rebuilt tags');
+  }
+
   static void _createAddRecordTrigger(Batch batch) {
     batch.execute("DROP TRIGGER IF EXISTS update_category_usage;");
     String addRecordTriggerQuery = """
@@ -581,6 +1151,62 @@ class SqliteMigrationService {
         db, "ALTER TABLE budgets ADD COLUMN wallet_ids TEXT NOT NULL DEFAULT '[]';");
   }
 
+  static Future<void> _migrateTo32(Database db) async {
+    final batch = db.batch();
+    _createRecordsIndexes(batch);
+    await batch.commit();
+  }
+
+  static Future<void> _migrateTo33(Database db) async {
+    await safeAlterTable(
+        db, "ALTER TABLE records ADD COLUMN local_minute INTEGER;");
+    await backfillLocalMinutes(db);
+    final batch = db.batch();
+    _createLocalMinuteIndexes(batch);
+    await batch.commit();
+  }
+
+  static Future<void> _migrateTo34(Database db) async {
+    final batch = db.batch();
+    _createRecordsDailySummaryTable(batch);
+    _createRecordsDailySummaryTriggers(batch);
+    await batch.commit();
+    await rebuildRecordsDailySummary(db);
+  }
+
+  static Future<void> _migrateTo35(Database db) async {
+    await safeAlterTable(db,
+        "ALTER TABLE wallets ADD COLUMN records_total REAL NOT NULL DEFAULT 0;");
+    final batch = db.batch();
+    _createWalletMonthlyTotalsTable(batch);
+    _createWalletBalanceTriggers(batch);
+    await batch.commit();
+    await rebuildWalletBalances(db);
+  }
+
+  static Future<void> _migrateTo36(Database db) async {
+    if (await _createRecordsSearchIndex(db)) {
+      await rebuildRecordsSearchIndex(db);
+    }
+  }
+
+  static Future<void> _migrateTo37(Database db) async {
+    final batch = db.batch();
+    _createTagsTable(batch);
+    _createTagsTriggers(batch);
+    await batch.commit();
+    await rebuildTags(db);
+  }
+
+  static Future<void> _migrateTo38(Database db) async {
+    await safeAlterTable(
+        db, "ALTER TABLE records ADD COLUMN fingerprint INTEGER;");
+    await backfillFingerprints(db);
+    final batch = db.batch();
+    _createFingerprintIndex(batch);
+    await batch.commit();
+  }
+
   static Map<int, Function(Database)?> migrationFunctions = {
     6: SqliteMigrationService._migrateTo6,
     7: SqliteMigrationService._migrateTo7,
@@ -607,6 +1233,13 @@ class SqliteMigrationService {
     29: SqliteMigrationService._migrateTo29,
     30: SqliteMigrationService._migrateTo30,
     31: SqliteMigrationService._migrateTo31,
+    32: SqliteMigrationService._migrateTo32,
+    33: SqliteMigrationService._migrateTo33,
+    34: SqliteMigrationService._migrateTo34,
+    35: SqliteMigrationService._migrateTo35,
+    36: SqliteMigrationService._migrateTo36,
+    37: SqliteMigrationService._migrateTo37,
+    38: SqliteMigrationService._migrateTo38,
   };
 
   // Public Methods
@@ -637,12 +1270,23 @@ class SqliteMigrationService {
     _createWalletsTable(batch);
     _createProfilesTable(batch);
     _createBudgetsTable(batch);
+    _createRecordsDailySummaryTable(batch);
+    _createWalletMonthlyTotalsTable(batch);
+    _createTagsTable(batch);
+
+    // Create Indexes
+    _createRecordsIndexes(batch);
+    _createLocalMinuteIndexes(batch);
+    _createFingerprintIndex(batch);
 
     // Create Triggers
     _createAddRecordTrigger(batch);
     _createUpdateRecordTrigger(batch);
     _createDeleteRecordTrigger(batch);
     _createDeleteRecordTagsTrigger(batch);
+    _createRecordsDailySummaryTriggers(batch);
+    _createWalletBalanceTriggers(batch);
+    _createTagsTriggers(batch);
 
     // Insert Default Categories
     List<Category> defaultCategories = getDefaultCategories();
@@ -665,6 +1309,8 @@ class SqliteMigrationService {
       ["Default Wallet".i18n, defaultProfileId],
     );
 
+    await _createRecordsSearchIndex(db);
+
     _logger.info('Database created successfully');
   }
 }
@@ -0,0 +1,33 @@
+import 'package:sqflite/sqflite.dart';
+
+/// Tag names by their id in the tags table, so that records can be given
+/// their tags from integer ids instead of a tag name string per row. Each
+/// name is held once and shared by every record that carries it.
+///
+/// The tags table is AUTOINCREMENT, so an id is never given to another
+/// name: entries stay valid until the database itself is replaced, when
+/// [clear] must be called.
+///
+/// Only the names are held. The record_count that the records_tags
+/// triggers keep is left in SQL: it changes with every record write, while
+/// these entries never do, and the tag suggestions need what it lacks, the
+/// counts within a category and the tags of the newest records.
+class TagDictionary {
+  final Map<int, String> _names = {};
+
+  /// The name of tag [id], which must have been loaded by [load].
+  String operator [](int id) => _names[id]!;
+
+  /// Makes sure the names of [ids] are known, reading the tags table again
+  /// if any is missing. The table holds one row per distinct tag, so it is
+  /// read whole.
+  Future<void> load(DatabaseExecutor db, Iterable<int> ids) async {
+    if (ids.every(_names.containsKey)) return;
+    final rows = await db.rawQuery("SELECT id, name FROM tags");
+    for (final row in rows) {
+      _names.putIfAbsent(row['id'] as int, () => row['name'] as String);
+    }
+  }
+
+  void clear() => _names.clear();
+}
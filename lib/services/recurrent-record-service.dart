@@ -1,3 +1,4 @@
+import 'package:flutter/foundation.dart' show visibleForTesting;
 import 'package:piggybank/helpers/datetime-utility-functions.dart';
 import 'package:piggybank/models/record.dart';
 import 'package:piggybank/models/recurrent-period.dart';
@@ -8,9 +9,27 @@ import 'package:timezone/timezone.dart' as tz; // Import the timezone package
 import 'database/database-interface.dart';
 import 'logger.dart';
 
+/// Occurrence times of a pattern after the end of some day, generated up to
+/// [utcUntil]. [signature] holds the pattern fields the times depend on.
+class _FutureOccurrences {
+  final String signature;
+  final DateTime utcUntil;
+  final List<DateTime> utcDateTimes;
+
+  _FutureOccurrences(this.signature, this.utcUntil, this.utcDateTimes);
+}
+
 class RecurrentRecordService {
   static final _logger = Logger.withClass(RecurrentRecordService);
 
+  /// Future occurrences per pattern id, kept across refreshes so that
+  /// showing future records does not walk every pattern's calendar again.
+  /// An entry is dropped once its pattern's schedule or watermark changes.
+  static final Map<String, _FutureOccurrences> _futureOccurrences = {};
+
+  @visibleForTesting
+  static void clearFutureOccurrences() => _futureOccurrences.clear();
+
   DatabaseInterface database = ServiceConfig.database;
   final int? profileId;
 
@@ -21,210 +40,218 @@ class RecurrentRecordService {
     try {
       _logger.debug(
           'Generating recurrent records for pattern: ${recordPattern.title}');
-      final List<Record> newRecurrentRecords = [];
-
-      // 1. Get the TZLocation for the pattern's original timezone
-      final tz.Location patternLocation =
-          getLocation(recordPattern.timeZoneName!);
-
-      // 2. Convert the start and end dates to TZDateTime objects
-      final tz.TZDateTime startDate =
-          tz.TZDateTime.from(recordPattern.utcDateTime, patternLocation);
-
-      // Use the pattern's end date if it exists and is before the requested end date
-      DateTime effectiveEndDate = utcEndDate;
-      if (recordPattern.utcEndDate != null &&
-          recordPattern.utcEndDate!.isBefore(utcEndDate)) {
-        effectiveEndDate = recordPattern.utcEndDate!;
-        _logger.debug('Using pattern end date: ${effectiveEndDate}');
-      }
+      final timeZoneName = getLocation(recordPattern.timeZoneName!).name;
+      final newRecurrentRecords = occurrencesUntil(recordPattern, utcEndDate)
+          .map((utcDateTime) =>
+              _recordAt(recordPattern, utcDateTime, timeZoneName))
+          .toList();
+      _logger.info(
+          'Generated ${newRecurrentRecords.length} recurrent records for: ${recordPattern.title}');
+      return newRecurrentRecords;
+    } catch (e, st) {
+      _logger.handle(e, st,
+          'Failed to generate recurrent records for: ${recordPattern.title}');
+      rethrow;
+    }
+  }
 
-      final tz.TZDateTime endDateTz =
-          tz.TZDateTime.from(effectiveEndDate, patternLocation);
-
-      // 3. Determine the last update date in the pattern's timezone
-      tz.TZDateTime? lastUpdateTz = recordPattern.utcLastUpdate != null
-          ? tz.TZDateTime.from(recordPattern.utcLastUpdate!, patternLocation)
-          : null;
-
-      if (lastUpdateTz == null) {
-        // If there's no last update, add the initial record.
-        final newRecord = Record(
-          recordPattern.value,
-          recordPattern.title,
-          recordPattern.category,
-          startDate.toUtc(),
-          timeZoneName: patternLocation.name,
-          description: recordPattern.description,
-          recurrencePatternId: recordPattern.id,
-          walletId: recordPattern.walletId,
-          transferWalletId: recordPattern.transferWalletId,
-          transferValue: recordPattern.transferValue,
-          profileId: recordPattern.profileId,
-          tags: recordPattern.tags,
-        );
-        newRecurrentRecords.add(newRecord);
-        lastUpdateTz = startDate;
-      }
+  /// The record [recordPattern] produces at [utcDateTime]. [timeZoneName]
+  /// is the resolved name of the pattern's time zone.
+  Record _recordAt(RecurrentRecordPattern recordPattern, DateTime utcDateTime,
+      String timeZoneName) {
+    return Record(
+      recordPattern.value,
+      recordPattern.title,
+      recordPattern.category,
+      utcDateTime,
+      timeZoneName: timeZoneName,
+      description: recordPattern.description,
+      recurrencePatternId: recordPattern.id,
+      walletId: recordPattern.walletId,
+      transferWalletId: recordPattern.transferWalletId,
+      transferValue: recordPattern.transferValue,
+      profileId: recordPattern.profileId,
+      tags: recordPattern.tags,
+    );
+  }
 
-      if (endDateTz.isBefore(lastUpdateTz)) {
-        return [];
-      }
+  /// The UTC times at which [recordPattern] recurs after its last update
+  /// (from its start when it has none), up to [utcEndDate] or the pattern's
+  /// own end date, whichever comes first. [utcAfter], an earlier occurrence,
+  /// continues the series from there instead of from the last update.
+  List<DateTime> occurrencesUntil(
+      RecurrentRecordPattern recordPattern, DateTime utcEndDate,
+      {DateTime? utcAfter}) {
+    final List<DateTime> occurrences = [];
+
+    // 1. Get the TZLocation for the pattern's original timezone
+    final tz.Location patternLocation =
+        getLocation(recordPattern.timeZoneName!);
+
+    // 2. Convert the start and end dates to TZDateTime objects
+    final tz.TZDateTime startDate =
+        tz.TZDateTime.from(recordPattern.utcDateTime, patternLocation);
+
+    // Use the pattern's end date if it exists and is before the requested end date
+    DateTime effectiveEndDate = utcEndDate;
+    if (recordPattern.utcEndDate != null &&
+        recordPattern.utcEndDate!.isBefore(utcEndDate)) {
+      effectiveEndDate = recordPattern.utcEndDate!;
+      _logger.debug('Using pattern end date: ${effectiveEndDate}');
+    }
 
-      // Helper function to add records with a given interval
-      void addRecordsByPeriod(int periodValue, {bool isMonth = false}) {
-        tz.TZDateTime currentDate = lastUpdateTz!;
-
-        // Store the original day, hour, minute, and second from the pattern's start date.
-        // This is crucial for maintaining consistency across DST changes and month-end rollovers.
-        final int originalStartDay = recordPattern.localDateTime.day;
-        final int originalHour = recordPattern.localDateTime.hour;
-        final int originalMinute = recordPattern.localDateTime.minute;
-        final int originalSecond = recordPattern.localDateTime.second;
-
-        // Now, calculate and add the subsequent records.
-        while (true) {
-          tz.TZDateTime nextDate;
-
-          // Calculate the next date.
-          if (isMonth) {
-            // Get the target year and month after adding the period value.
-            int targetYear = currentDate.year;
-            int targetMonth = currentDate.month + periodValue;
-
-            if (targetMonth > 12) {
-              targetYear += (targetMonth - 1) ~/ 12;
-              targetMonth = (targetMonth - 1) % 12 + 1;
-            }
-
-            // Create a candidate date using the original start day.
-            tz.TZDateTime candidateDate = tz.TZDateTime(
-              currentDate.location,
-              targetYear,
-              targetMonth,
-              originalStartDay,
-              originalHour,
-              originalMinute,
-              originalSecond,
-            );
+    final tz.TZDateTime endDateTz =
+        tz.TZDateTime.from(effectiveEndDate, patternLocation);
 
-            // Explicitly check for a month rollover. If the original day was invalid
-            // (e.g., day 30 in February), the new date will be in the next month.
-            if (candidateDate.month != targetMonth) {
-              // If a rollover occurred, set the date to the last day of the target month.
-              nextDate = tz.TZDateTime(
-                currentDate.location,
-                targetYear,
-                targetMonth + 1,
-                0,
-                originalHour,
-                originalMinute,
-                originalSecond,
-              );
-            } else {
-              // Otherwise, the candidate date is correct.
-              nextDate = candidateDate;
-            }
-          } else {
-            // Logic for non-monthly recurrence, manually incrementing the calendar day
-            // to avoid time drift issues caused by Daylight Saving Time (DST) changes.
+    // 3. Determine the last update date in the pattern's timezone
+    final utcLastUpdate = utcAfter ?? recordPattern.utcLastUpdate;
+    tz.TZDateTime? lastUpdateTz = utcLastUpdate != null
+        ? tz.TZDateTime.from(utcLastUpdate, patternLocation)
+        : null;
+
+    if (lastUpdateTz == null) {
+      // If there's no last update, add the initial record.
+      occurrences.add(startDate.toUtc());
+      lastUpdateTz = startDate;
+    }
+
+    if (endDateTz.isBefore(lastUpdateTz)) {
+      return [];
+    }
+
+    // Helper function to add records with a given interval
+    void addRecordsByPeriod(int periodValue, {bool isMonth = false}) {
+      tz.TZDateTime currentDate = lastUpdateTz!;
+
+      // Store the original day, hour, minute, and second from the pattern's start date.
+      // This is crucial for maintaining consistency across DST changes and month-end rollovers.
+      final int originalStartDay = recordPattern.localDateTime.day;
+      final int originalHour = recordPattern.localDateTime.hour;
+      final int originalMinute = recordPattern.localDateTime.minute;
+      final int originalSecond = recordPattern.localDateTime.second;
+
+      // Now, calculate and add the subsequent records.
+      while (true) {
+        tz.TZDateTime nextDate;
+
+        // Calculate the next date.
+        if (isMonth) {
+          // Get the target year and month after adding the period value.
+          int targetYear = currentDate.year;
+          int targetMonth = currentDate.month + periodValue;
+
+          if (targetMonth > 12) {
+            targetYear += (targetMonth - 1) ~/ 12;
+            targetMonth = (targetMonth - 1) % 12 + 1;
+          }
+
+          // Create a candidate date using the original start day.
+          tz.TZDateTime candidateDate = tz.TZDateTime(
+            currentDate.location,
+            targetYear,
+            targetMonth,
+            originalStartDay,
+            originalHour,
+            originalMinute,
+            originalSecond,
+          );
+
+          // Explicitly check for a month rollover. If the original day was invalid
+          // (e.g., day 30 in February), the new date will be in the next month.
+          if (candidateDate.month != targetMonth) {
+            // If a rollover occurred, set the date to the last day of the target month.
             nextDate = tz.TZDateTime(
               currentDate.location,
-              currentDate.year,
-              currentDate.month,
-              currentDate.day + periodValue,
+              targetYear,
+              targetMonth + 1,
+              0,
               originalHour,
               originalMinute,
               originalSecond,
             );
-          }
-
-          // Check if the newly calculated date is within the bounds.
-          if (nextDate.isBefore(endDateTz) ||
-              nextDate.isAtSameMomentAs(endDateTz)) {
-            final newRecord = Record(
-              recordPattern.value,
-              recordPattern.title,
-              recordPattern.category,
-              nextDate.toUtc(),
-              timeZoneName: patternLocation.name,
-              description: recordPattern.description,
-              recurrencePatternId: recordPattern.id,
-              walletId: recordPattern.walletId,
-              transferWalletId: recordPattern.transferWalletId,
-              transferValue: recordPattern.transferValue,
-              profileId: recordPattern.profileId,
-              tags: recordPattern.tags,
-            );
-            newRecurrentRecords.add(newRecord);
-            currentDate = nextDate;
           } else {
-            // We've gone past the end date, so stop.
-            break;
+            // Otherwise, the candidate date is correct.
+            nextDate = candidateDate;
           }
+        } else {
+          // Logic for non-monthly recurrence, manually incrementing the calendar day
+          // to avoid time drift issues caused by Daylight Saving Time (DST) changes.
+          nextDate = tz.TZDateTime(
+            currentDate.location,
+            currentDate.year,
+            currentDate.month,
+            currentDate.day + periodValue,
+            originalHour,
+            originalMinute,
+            originalSecond,
+          );
         }
-      }
 
-      switch (recordPattern.recurrentPeriod) {
-        case RecurrentPeriod.EveryDay:
-          addRecordsByPeriod(1);
-          break;
-        case RecurrentPeriod.EveryWeek:
-          addRecordsByPeriod(7);
-          break;
-        case RecurrentPeriod.EveryTwoWeeks:
-          addRecordsByPeriod(14);
-          break;
-        case RecurrentPeriod.EveryFourWeeks:
-          addRecordsByPeriod(28);
-          break;
-        case RecurrentPeriod.EveryMonth:
-          addRecordsByPeriod(1, isMonth: true);
-          break;
-        case RecurrentPeriod.EveryThreeMonths:
-          addRecordsByPeriod(3, isMonth: true);
-          break;
-        case RecurrentPeriod.EveryFourMonths:
-          addRecordsByPeriod(4, isMonth: true);
-          break;
-        case RecurrentPeriod.EveryYear:
-          addRecordsByPeriod(12, isMonth: true);
-          break;
-        case RecurrentPeriod.Custom:
-          final unit = recordPattern.customIntervalUnit;
-          final value = recordPattern.customIntervalValue;
-          if (unit == null || value == null || value <= 0) {
-            _logger.warning(
-                'Skipping pattern with invalid custom interval: ${recordPattern.title}');
-            break;
-          }
-          switch (unit) {
-            case CustomIntervalUnit.day:
-              addRecordsByPeriod(value);
-              break;
-            case CustomIntervalUnit.week:
-              addRecordsByPeriod(value * 7);
-              break;
-            case CustomIntervalUnit.month:
-              addRecordsByPeriod(value, isMonth: true);
-              break;
-            case CustomIntervalUnit.year:
-              addRecordsByPeriod(value * 12, isMonth: true);
-              break;
-          }
-          break;
-        default:
+        // Check if the newly calculated date is within the bounds.
+        if (nextDate.isBefore(endDateTz) ||
+            nextDate.isAtSameMomentAs(endDateTz)) {
+          occurrences.add(nextDate.toUtc());
+          currentDate = nextDate;
+        } else {
+          // We've gone past the end date, so stop.
           break;
+        }
       }
+    }
 
-      _logger.info(
-          'Generated ${newRecurrentRecords.length} recurrent records for: ${recordPattern.title}');
-      return newRecurrentRecords;
-    } catch (e, st) {
-      _logger.handle(e, st,
-          'Failed to generate recurrent records for: ${recordPattern.title}');
-      rethrow;
+    switch (recordPattern.recurrentPeriod) {
+      case RecurrentPeriod.EveryDay:
+        addRecordsByPeriod(1);
+        break;
+      case RecurrentPeriod.EveryWeek:
+        addRecordsByPeriod(7);
+        break;
+      case RecurrentPeriod.EveryTwoWeeks:
+        addRecordsByPeriod(14);
+        break;
+      case RecurrentPeriod.EveryFourWeeks:
+        addRecordsByPeriod(28);
+        break;
+      case RecurrentPeriod.EveryMonth:
+        addRecordsByPeriod(1, isMonth: true);
+        break;
+      case RecurrentPeriod.EveryThreeMonths:
+        addRecordsByPeriod(3, isMonth: true);
+        break;
+      case RecurrentPeriod.EveryFourMonths:
+        addRecordsByPeriod(4, isMonth: true);
+        break;
+      case RecurrentPeriod.EveryYear:
+        addRecordsByPeriod(12, isMonth: true);
+        break;
+      case RecurrentPeriod.Custom:
+        final unit = recordPattern.customIntervalUnit;
+        final value = recordPattern.customIntervalValue;
+        if (unit == null || value == null || value <= 0) {
+          _logger.warning(
+              'Skipping pattern with invalid custom interval: ${recordPattern.title}');
+          break;
+        }
+        switch (unit) {
+          case CustomIntervalUnit.day:
+            addRecordsByPeriod(value);
+            break;
+          case CustomIntervalUnit.week:
+            addRecordsByPeriod(value * 7);
+            break;
+          case CustomIntervalUnit.month:
+            addRecordsByPeriod(value, isMonth: true);
+            break;
+          case CustomIntervalUnit.year:
+            addRecordsByPeriod(value * 12, isMonth: true);
+            break;
+        }
+        break;
+      default:
+        break;
     }
+
+    return occurrences;
   }
 
   Future<List<Record>> updateRecurrentRecords(DateTime endDate) async {
@@ -249,46 +276,38 @@ class RecurrentRecordService {
         999,
       );
 
+      // Past occurrences are written up to the end of today, or up to
+      // [endDate] when the view ends earlier. The pattern's last update is
+      // the watermark, so only the occurrences since then are generated.
+      final DateTime materializeUntil =
+          endDate.isBefore(endOfToday) ? endDate : endOfToday;
+
       int totalRecordsAdded = 0;
       List<Record> allFutureRecords = [];
 
       for (var pattern in patterns) {
-        // Generate records up to the specified endDate
-        var allRecords = generateRecurrentRecordsFromDateTime(pattern, endDate);
-
-        if (allRecords.isNotEmpty) {
-          // Split records into past (up to end of today) and future (after end of today)
-          final pastRecords = allRecords
-              .where((r) =>
-                  r.utcDateTime.isBefore(endOfToday) ||
-                  r.utcDateTime.isAtSameMomentAs(endOfToday))
-              .toList();
-
-          final futureRecords = allRecords
-              .where((r) => r.utcDateTime.isAfter(endOfToday))
-              .toList();
-
-          // Mark future records
-          for (var record in futureRecords) {
-            record.isFutureRecord = true;
-          }
+        final pastRecords =
+            generateRecurrentRecordsFromDateTime(pattern, materializeUntil);
 
-          // Add only past records to the database
-          if (pastRecords.isNotEmpty) {
-            await database.addRecordsInBatch(pastRecords);
-            totalRecordsAdded += pastRecords.length;
+        if (pastRecords.isNotEmpty) {
+          await database.addRecordsInBatch(pastRecords);
+          totalRecordsAdded += pastRecords.length;
 
-            // Update the last update date of the pattern with the latest UTC time.
-            // We use the UTC time from the last generated past record.
-            pattern.utcLastUpdate = pastRecords.last.utcDateTime;
-            await database.updateRecordPatternById(pattern.id, pattern);
-          }
+          // Update the last update date of the pattern with the latest UTC time.
+          // We use the UTC time from the last generated past record.
+          pattern.utcLastUpdate = pastRecords.last.utcDateTime;
+          await database.updateRecordPatternById(pattern.id, pattern);
+        }
 
-          // Collect future records to return
-          allFutureRecords.addAll(futureRecords);
+        if (endDate.isAfter(endOfToday)) {
+          allFutureRecords
+              .addAll(_futureRecords(pattern, endOfToday, endDate));
         }
       }
 
+      final patternIds = patterns.map((pattern) => pattern.id).toSet();
+      _futureOccurrences.removeWhere((id, _) => !patternIds.contains(id));
+
       _logger.info(
           'Recurrent records update completed: ${totalRecordsAdded} records added to database, ${allFutureRecords.length} future records generated from ${patterns.length} patterns');
       return allFutureRecords;
@@ -297,4 +316,45 @@ class RecurrentRecordService {
       rethrow;
     }
   }
+
+  /// Records of [pattern] after [utcAfter] and up to [utcEndDate], marked as
+  /// future records. Their times come from [_futureOccurrences], which is
+  /// extended when a later [utcEndDate] is asked for and rebuilt when the
+  /// pattern has changed.
+  List<Record> _futureRecords(RecurrentRecordPattern pattern,
+      DateTime utcAfter, DateTime utcEndDate) {
+    final signature = [
+      pattern.utcDateTime.millisecondsSinceEpoch,
+      pattern.timeZoneName,
+      pattern.recurrentPeriod?.index,
+      pattern.utcLastUpdate?.millisecondsSinceEpoch,
+      pattern.utcEndDate?.millisecondsSinceEpoch,
+      pattern.customIntervalValue,
+      pattern.customIntervalUnit?.index,
+    ].join('|');
+
+    var cached =
+        pattern.id == null ? null : _futureOccurrences[pattern.id!];
+    if (cached == null ||
+        cached.signature != signature ||
+        (cached.utcDateTimes.isEmpty && cached.utcUntil.isBefore(utcEndDate))) {
+      cached = _FutureOccurrences(
+          signature, utcEndDate, occurrencesUntil(pattern, utcEndDate));
+    } else if (cached.utcUntil.isBefore(utcEndDate)) {
+      // Continue the series from its last known occurrence.
+      cached = _FutureOccurrences(signature, utcEndDate, [
+        ...cached.utcDateTimes,
+        ...occurrencesUntil(pattern, utcEndDate,
+            utcAfter: cached.utcDateTimes.last),
+      ]);
+    }
+    if (pattern.id != null) _futureOccurrences[pattern.id!] = cached;
+
+    final timeZoneName = getLocation(pattern.timeZoneName!).name;
+    return [
+      for (final utcDateTime in cached.utcDateTimes)
+        if (utcDateTime.isAfter(utcAfter) && !utcDateTime.isAfter(utcEndDate))
+          _recordAt(pattern, utcDateTime, timeZoneName)..isFutureRecord = true,
+    ];
+  }
 }
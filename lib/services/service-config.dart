@@ -2,6 +2,7 @@ import 'package:flutter/material.dart';
 import 'package:intl/intl.dart';
 import 'package:shared_preferences/shared_preferences.dart';
 
+import 'database/caching-database.dart';
 import 'database/database-interface.dart';
 import 'database/sqlite-database.dart';
 import '../settings/constants/preferences-keys.dart';
@@ -11,6 +12,11 @@ class ServiceConfig {
   /// used in different parts of the applications.
 
   static final DatabaseInterface database = SqliteDatabase.instance;
+
+  /// [database] behind a cache of the reads the tabs repeat, for the screens
+  /// that refresh on every tab change and resume.
+  static final CachingDatabase cachedDatabase =
+      CachingDatabase(SqliteDatabase.instance, SqliteDatabase.changes);
   static bool isPremium = false; // set in main.dart
   static final ValueNotifier<bool> premiumNotifier = ValueNotifier(false);
   static SharedPreferences? sharedPreferences;
@@ -7,6 +7,7 @@ import 'package:future_progress_dialog/future_progress_dialog.dart';
 import 'package:piggybank/i18n.dart';
 
 import '../helpers/alert-dialog-builder.dart';
+import '../models/backup-import-progress.dart';
 import '../services/backup-service.dart';
 
 class BackupRestoreDialog {
@@ -89,15 +90,37 @@ class BackupRestoreDialog {
           return;
         }
       }
+      final progress = ValueNotifier<BackupImportProgress?>(null);
+      final restore = BackupService.importDataFromBackupFile(
+        file,
+        encryptionPassword: password,
+        onProgress: (value) => progress.value = value,
+      );
       bool successful = await showDialog(
         context: context,
         builder: (context) => FutureProgressDialog(
-          BackupService.importDataFromBackupFile(
-            file,
-            encryptionPassword: password,
+          restore,
+          message: ValueListenableBuilder<BackupImportProgress?>(
+            valueListenable: progress,
+            builder: (context, value, _) {
+              if (value == null || value.totalRecords == 0) {
+                return SizedBox.shrink();
+              }
+              return Column(
+                mainAxisSize: MainAxisSize.min,
+                children: [
+                  LinearProgressIndicator(value: value.fraction),
+                  SizedBox(height: 8),
+                  Text(
+                    "${value.percent}% · ${value.recordsDone}/${value.totalRecords} · ${value.recordsPerSecond.round()}/s",
+                  ),
+                ],
+              );
+            },
           ),
         ),
       );
+      progress.dispose();
       if (successful) {
         await showBackupRestoreDialog(
           context,
@@ -27,6 +27,7 @@ class PreferencesKeys {
   static const backupPassword = 'backupPassword';
   static const enableVersionAndDateInBackupName =
       'enableVersionAndDateInBackupName';
+  static const backupImportCheckpoint = 'backupImportCheckpoint';
 
   // Homepage
   static const homepageTimeInterval = 'homepageTimeInterval';
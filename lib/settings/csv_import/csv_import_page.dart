@@ -1,5 +1,3 @@
-import 'dart:io';
-
 import 'package:file_picker/file_picker.dart';
 import 'package:flutter/material.dart';
 import 'package:flutter/services.dart';
@@ -41,9 +39,9 @@ class _CsvImportPageState extends State<CsvImportPage> {
       }
 
       if (result.isNotEmpty && result.single.path != null) {
-        final file = File(result.single.path!);
-        final content = await file.readAsString();
-        _processContent(content);
+        await _processContent(
+          CsvImportService.parseCsvFile(result.single.path!),
+        );
       } else {
         setState(() => _isLoading = false);
       }
@@ -63,16 +61,19 @@ class _CsvImportPageState extends State<CsvImportPage> {
         _showError('Clipboard is empty or does not contain valid CSV'.i18n);
         return;
       }
-      _processContent(data.text!);
+      await _processContent(
+        CsvImportService.parseCsvInBackground(data.text!),
+      );
     } catch (e) {
       setState(() => _isLoading = false);
       _showError('Could not read clipboard: $e');
     }
   }
 
-  void _processContent(String content) {
+  Future<void> _processContent(Future<CsvParseResult> parsing) async {
     try {
-      final parsed = CsvImportService.parseCsv(content);
+      final parsed = await parsing;
+      if (!mounted) return;
       final headers = parsed.headers;
       final rows = parsed.rows;
 
@@ -44,49 +44,30 @@ class _CsvMappingScreenState extends State<CsvMappingScreen> {
 
   /// Cache of pre-parsed date values: columnHeader → parsed result per row.
   Map<String, List<int?>> _dateCache = {};
-  double _progress = 0;
+  bool _parsed = false;
 
   @override
   void initState() {
     super.initState();
     _mapping = widget.initialMapping;
-    // Parse in small batches, yielding to the event loop between each
-    // batch so the spinner animates smoothly.
-    WidgetsBinding.instance.addPostFrameCallback((_) {
-      // Pre-allocate cache lists once.
-      _moneyCache = {
-        for (final h in widget.headers)
-          h: List.filled(widget.rows.length, null),
-      };
-      _dateCache = {
-        for (final h in widget.headers)
-          h: List.filled(widget.rows.length, null),
-      };
-      _parseBatches(0);
-    });
+    _parseColumns();
   }
 
-  void _parseBatches(int rowStart) {
-    const batchSize = 80;
-    final headers = widget.headers;
-    final rows = widget.rows;
-    final end = (rowStart + batchSize).clamp(0, rows.length);
-
-    for (int i = rowStart; i < end; i++) {
-      final row = rows[i];
-      for (final h in headers) {
-        _moneyCache[h]![i] = CsvImportService.parseMoney(row[h]);
-        _dateCache[h]![i] = CsvImportService.parseToMs(row[h]);
-      }
-    }
-
-    if (end < rows.length) {
-      setState(() => _progress = end / rows.length);
-      Future.delayed(Duration.zero, () => _parseBatches(end));
-    } else {
+  /// Parses every column as amounts and as dates on a worker isolate, so
+  /// the spinner keeps animating however large the file is.
+  Future<void> _parseColumns() async {
+    final columns = await CsvImportService.parseColumns(
+      widget.rows,
+      moneyColumns: widget.headers,
+      dateColumns: widget.headers,
+    );
+    if (!mounted) return;
+    setState(() {
+      _moneyCache = columns.money;
+      _dateCache = columns.dates;
       _parsableRowIndices = _computeParsableRowIndices();
-      setState(() => _progress = 1);
-    }
+      _parsed = true;
+    });
   }
 
   List<int> _computeParsableRowIndices() {
@@ -116,7 +97,12 @@ class _CsvMappingScreenState extends State<CsvMappingScreen> {
     if (_parsableRowIndices.isEmpty) return null;
     final rowIdx =
         _parsableRowIndices[index.clamp(0, _parsableRowIndices.length - 1)];
-    return CsvImportService.rowToRecord(widget.rows[rowIdx], _mapping);
+    return CsvImportService.rowToRecord(
+      widget.rows[rowIdx],
+      _mapping,
+      value: _moneyCache[_mapping.valueColumn]?[rowIdx],
+      dateMs: _dateCache[_mapping.datetimeColumn]?[rowIdx],
+    );
   }
 
   void _nextSample() {
@@ -432,14 +418,14 @@ class _CsvMappingScreenState extends State<CsvMappingScreen> {
           const SizedBox(width: 4),
         ],
       ),
-      body: _progress < 1
+      body: !_parsed
           ? Center(
               child: Padding(
                 padding: const EdgeInsets.all(32),
                 child: Column(
                   mainAxisSize: MainAxisSize.min,
                   children: [
-                    LinearProgressIndicator(value: _progress),
+                    const LinearProgressIndicator(),
                     const SizedBox(height: 16),
                     Text(
                       'Parsing CSV data'.i18n,
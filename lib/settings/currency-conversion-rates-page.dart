@@ -64,7 +64,7 @@ class _CurrencyConversionRatesPageState
       _usedCurrencies = currencies;
       _defaultCurrency =
           (defaultCurrency == null || defaultCurrency.isEmpty) ? null : defaultCurrency;
-      _rates = rates;
+      _rates = Map.of(rates);
       _isLoading = false;
     });
 
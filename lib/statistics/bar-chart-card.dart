@@ -5,6 +5,7 @@ import 'package:community_charts_flutter/community_charts_flutter.dart'
 import 'package:flutter/material.dart';
 import 'package:intl/intl.dart';
 import 'package:piggybank/models/record.dart';
+import 'package:piggybank/statistics/statistics-columns.dart';
 import 'package:piggybank/statistics/statistics-models.dart';
 import 'package:piggybank/statistics/statistics-utils.dart';
 
@@ -19,10 +20,14 @@ class BarChartCard extends StatefulWidget {
   final DateTime? selectedDate;
   final Map<int, String?> walletCurrencyMap;
 
+  /// Statistics of [records] computed off the UI isolate, if any.
+  final StatisticsSeries? series;
+
   BarChartCard(this.from, this.to, this.records, this.aggregationMethod,
       {this.onSelectionChanged,
       this.selectedDate,
-      this.walletCurrencyMap = const {}});
+      this.walletCurrencyMap = const {},
+      this.series});
 
   @override
   _BarChartCardState createState() => _BarChartCardState();
@@ -50,6 +55,7 @@ class _BarChartCardState extends State<BarChartCard> {
   void didUpdateWidget(BarChartCard oldWidget) {
     super.didUpdateWidget(oldWidget);
     if (widget.records != oldWidget.records ||
+        widget.series != oldWidget.series ||
         widget.aggregationMethod != oldWidget.aggregationMethod ||
         widget.from != oldWidget.from ||
         widget.to != oldWidget.to) {
@@ -64,9 +70,9 @@ class _BarChartCardState extends State<BarChartCard> {
   }
 
   void _initializeData() {
-    this.aggregatedRecords = aggregateRecordsByDate(widget.records,
-        widget.aggregationMethod,
-        walletCurrencyMap: widget.walletCurrencyMap);
+    this.aggregatedRecords = widget.series?.byPeriod ??
+        aggregateRecordsByDate(widget.records, widget.aggregationMethod,
+            walletCurrencyMap: widget.walletCurrencyMap);
 
     // Use shared ChartDateRangeConfig for consistent date range handling
     final config = ChartDateRangeConfig.create(
@@ -84,7 +90,7 @@ class _BarChartCardState extends State<BarChartCard> {
         tickLabels.map((label) => charts.TickSpec<String>(label)).toList();
 
     _chartData = _prepareData(
-        widget.records, config.start, config.end, config.formatter);
+        this.aggregatedRecords, config.start, config.end, config.formatter);
     seriesList = _createSeriesList();
 
     double sumValues = (this
@@ -140,11 +146,11 @@ class _BarChartCardState extends State<BarChartCard> {
     });
   }
 
-  List<StringSeriesRecord> _prepareData(List<Record?> records, DateTime start,
-      DateTime end, DateFormat formatter) {
-    List<DateTimeSeriesRecord> dateTimeSeriesRecords = aggregateRecordsByDate(
-        records, widget.aggregationMethod,
-        walletCurrencyMap: widget.walletCurrencyMap);
+  List<StringSeriesRecord> _prepareData(
+      List<DateTimeSeriesRecord> dateTimeSeriesRecords,
+      DateTime start,
+      DateTime end,
+      DateFormat formatter) {
     Map<DateTime?, StringSeriesRecord> aggregatedByDay = new Map();
     for (var d in dateTimeSeriesRecords) {
       DateTime truncated = truncateDateTime(d.time!, widget.aggregationMethod);
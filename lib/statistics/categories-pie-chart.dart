@@ -4,6 +4,7 @@ import 'package:piggybank/models/record.dart';
 import 'package:community_charts_flutter/community_charts_flutter.dart'
     as charts;
 import 'package:piggybank/i18n.dart';
+import 'package:piggybank/statistics/statistics-columns.dart';
 import 'package:piggybank/statistics/statistics-utils.dart';
 
 import '../services/service-config.dart';
@@ -30,10 +31,14 @@ class CategoriesPieChart extends StatefulWidget {
   final String? selectedCategory;
   final Map<int, String?> walletCurrencyMap;
 
+  /// Statistics of [records] computed off the UI isolate, if any.
+  final StatisticsSeries? series;
+
   CategoriesPieChart(this.records,
       {this.onSelectionChanged,
       this.selectedCategory,
-      this.walletCurrencyMap = const {}});
+      this.walletCurrencyMap = const {},
+      this.series});
 
   @override
   _CategoriesPieChartState createState() => _CategoriesPieChartState();
@@ -63,7 +68,8 @@ class _CategoriesPieChartState extends State<CategoriesPieChart> {
   @override
   void didUpdateWidget(CategoriesPieChart oldWidget) {
     super.didUpdateWidget(oldWidget);
-    if (widget.records != oldWidget.records) {
+    if (widget.records != oldWidget.records ||
+        widget.series != oldWidget.series) {
       _animate = true;
       _initializeData();
     } else if (widget.selectedCategory != oldWidget.selectedCategory) {
@@ -109,8 +115,8 @@ class _CategoriesPieChartState extends State<CategoriesPieChart> {
     linearRecords = _preparedData;
   }
 
-  ChartData _prepareData(List<Record?> records) {
-    Map<Category, double> aggregatedCategoriesValuesTemporaryMap = {};
+  Map<Category, double> _sumByCategory(List<Record?> records) {
+    Map<Category, double> sums = {};
 
     // Keep real (signed) values while aggregating; magnitudes are only used
     // for the sorting and percentage representation below.
@@ -118,12 +124,18 @@ class _CategoriesPieChartState extends State<CategoriesPieChart> {
       if (record?.category == null || record?.value == null) continue;
       final value =
           getRecordValueInDefaultCurrency(record!, widget.walletCurrencyMap);
-      aggregatedCategoriesValuesTemporaryMap.update(
+      sums.update(
         record.category!,
         (current) => current + value,
         ifAbsent: () => value,
       );
     }
+    return sums;
+  }
+
+  ChartData _prepareData(List<Record?> records) {
+    Map<Category, double> aggregatedCategoriesValuesTemporaryMap =
+        widget.series?.byCategory ?? _sumByCategory(records);
     final totalSum = aggregatedCategoriesValuesTemporaryMap.values
         .fold<double>(0.0, (sum, value) => sum + value.abs());
 
@@ -1,5 +1,6 @@
 import 'package:flutter/material.dart';
 import 'package:piggybank/models/record.dart';
+import 'package:piggybank/statistics/statistics-columns.dart';
 import 'package:piggybank/statistics/statistics-models.dart';
 import 'package:piggybank/statistics/statistics-utils.dart';
 import 'package:piggybank/statistics/statistics-calculator.dart';
@@ -26,7 +27,8 @@ class OverviewCard extends StatelessWidget {
   final AggregationMethod? aggregationMethod;
   final DateTime? from;
   final DateTime? to;
-  final List<DateTimeSeriesRecord> aggregatedRecords;
+  late final List<DateTimeSeriesRecord> aggregatedRecords =
+      aggregateRecordsByDate(records, aggregationMethod);
   final double? selectedAmount;
   final DateTime? selectedDate;
 
@@ -40,8 +42,24 @@ class OverviewCard extends StatelessWidget {
   final bool isBalance;
   final List<OverviewCardAction> actions;
   final Map<int, String?> walletCurrencyMap;
-  final RecordsTotalResult _convertedResult;
-  final double _signedTotal;
+
+  /// Statistics of [records] computed off the UI isolate, if any. Their
+  /// average and median are only used when not [isBalance], which is how
+  /// they are computed.
+  final StatisticsSeries? series;
+
+  /// The per-currency sums of [records], absolute unless [isBalance].
+  late final Map<String, double> _breakdown =
+      series?.currencySums.of(isAbsValue: !isBalance) ??
+          buildCurrencyBreakdown(records, walletCurrencyMap,
+              isAbsValue: !isBalance);
+  late final RecordsTotalResult _convertedResult = series != null
+      ? convertedTotalOfBreakdown(_breakdown)
+      : computeConvertedTotal(records, walletCurrencyMap,
+          isAbsValue: !isBalance);
+  late final double _signedTotal = series != null
+      ? convertedTotalOfBreakdown(series!.currencySums.signed).total
+      : computeConvertedTotal(records, walletCurrencyMap).total;
 
   OverviewCard(this.from, this.to, this.records, this.aggregationMethod,
       {this.selectedAmount,
@@ -49,13 +67,11 @@ class OverviewCard extends StatelessWidget {
       this.selectedRecords = const [],
       this.isBalance = false,
       this.actions = const [],
-      this.walletCurrencyMap = const {}})
-      : aggregatedRecords = aggregateRecordsByDate(records, aggregationMethod),
-        _convertedResult = computeConvertedTotal(records, walletCurrencyMap,
-            isAbsValue: !isBalance),
-        _signedTotal = computeConvertedTotal(records, walletCurrencyMap).total;
+      this.walletCurrencyMap = const {},
+      this.series});
 
   double get averageValue {
+    if (series != null && !isBalance) return series!.averageValue;
     switch (aggregationMethod) {
       case AggregationMethod.WEEK:
         // For WEEK: show daily average instead of weekly bin average
@@ -71,6 +87,7 @@ class OverviewCard extends StatelessWidget {
   }
 
   double get medianValue {
+    if (series != null && !isBalance) return series!.medianValue;
     switch (aggregationMethod) {
       case AggregationMethod.WEEK:
         // For WEEK: show daily median for consistency with daily average
@@ -163,10 +180,8 @@ class OverviewCard extends StatelessWidget {
       }
     } else {
       // Overall total
-      final breakdown = buildCurrencyBreakdown(records, walletCurrencyMap,
-          isAbsValue: !isBalance);
       final nonEmpty =
-          breakdown.entries.where((e) => e.key.isNotEmpty).toList();
+          _breakdown.entries.where((e) => e.key.isNotEmpty).toList();
       if (nonEmpty.length == 1 &&
           defaultCurrency != null &&
           defaultCurrency.isNotEmpty &&
@@ -211,8 +226,7 @@ class OverviewCard extends StatelessWidget {
       amountWidget = Text(convertedAmountText, style: mainStyle);
     }
 
-    if (selectedAmount != null ||
-        !hasMixedCurrencies(records, walletCurrencyMap)) return amountWidget;
+    if (selectedAmount != null || _breakdown.length <= 1) return amountWidget;
 
     return GestureDetector(
       onTap: () => showCurrencyBreakdownSheet(
@@ -280,10 +294,8 @@ class OverviewCard extends StatelessWidget {
     final average = averageValue;
     final median = medianValue;
 
-    final breakdown = buildCurrencyBreakdown(records, walletCurrencyMap,
-        isAbsValue: !isBalance);
     final nonEmptyCurrencies =
-        breakdown.entries.where((e) => e.key.isNotEmpty).toList();
+        _breakdown.entries.where((e) => e.key.isNotEmpty).toList();
     final originalCurrency =
         nonEmptyCurrencies.length == 1 ? nonEmptyCurrencies.first.key : null;
 
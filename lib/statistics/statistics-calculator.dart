@@ -76,23 +76,7 @@ class StatisticsCalculator {
       walletCurrencyMap: walletCurrencyMap,
     );
 
-    // Filter out zero values
-    final nonZeroValues = dailyValues.where((v) => v != 0.0).toList();
-
-    if (nonZeroValues.isEmpty) return 0.0;
-
-    // Calculate median of non-zero values (real signed values; abs is only
-    // applied to the final magnitude for non-balance display)
-    nonZeroValues.sort();
-    final middle = nonZeroValues.length ~/ 2;
-
-    final double result;
-    if (nonZeroValues.length % 2 == 0) {
-      result = (nonZeroValues[middle - 1] + nonZeroValues[middle]) / 2;
-    } else {
-      result = nonZeroValues[middle];
-    }
-    return isBalance ? result : result.abs();
+    return medianOf(dailyValues, isBalance: isBalance);
   }
 
   /// Calculates the average value from records grouped by aggregation period.
@@ -123,13 +107,7 @@ class StatisticsCalculator {
       walletCurrencyMap: walletCurrencyMap,
     );
 
-    if (values.isEmpty) return 0.0;
-
-    final sum = values.fold<double>(0.0, (acc, v) => acc + v);
-    final result = sum / values.length;
-    // Real signed values are averaged; only the returned magnitude is
-    // abs()ed for non-balance display.
-    return isBalance ? result : result.abs();
+    return averageOf(values, isBalance: isBalance);
   }
 
   /// Calculates the median value from records grouped by aggregation period.
@@ -162,7 +140,22 @@ class StatisticsCalculator {
       walletCurrencyMap: walletCurrencyMap,
     );
 
-    // Filter out zero values for more meaningful median
+    return medianOf(values, isBalance: isBalance);
+  }
+
+  /// Average of the period totals [values]. Real signed values are averaged;
+  /// only the returned magnitude is abs()ed for non-balance display.
+  static double averageOf(List<double> values, {bool isBalance = false}) {
+    if (values.isEmpty) return 0.0;
+
+    final sum = values.fold<double>(0.0, (acc, v) => acc + v);
+    final result = sum / values.length;
+    return isBalance ? result : result.abs();
+  }
+
+  /// Median of the non-zero period totals [values]. Zero values are left out
+  /// so the median represents typical spending periods.
+  static double medianOf(List<double> values, {bool isBalance = false}) {
     final nonZeroValues = values.where((v) => v != 0.0).toList();
 
     if (nonZeroValues.isEmpty) return 0.0;
@@ -193,17 +186,13 @@ class StatisticsCalculator {
     Map<int, String?> walletCurrencyMap = const {},
   }) {
     // Group records by aggregation period and sum values
-    // Use string keys (YYYY-MM-DD) to avoid timezone issues with DateTime objects
     final Map<String, double> periodSums = {};
 
-    String dateKey(DateTime dt) =>
-        '${dt.year}-${dt.month.toString().padLeft(2, '0')}-${dt.day.toString().padLeft(2, '0')}';
-
     for (var record in records) {
       if (record == null) continue;
 
       final period = truncateDateTime(record.dateTime, aggregationMethod);
-      final key = dateKey(period);
+      final key = periodKey(period);
       double value = isBalance
           ? record.value!
           : getRecordValueInDefaultCurrency(record, walletCurrencyMap);
@@ -211,6 +200,22 @@ class StatisticsCalculator {
       periodSums[key] = (periodSums[key] ?? 0.0) + value;
     }
 
+    return periodValues(periodSums, aggregationMethod, from, to);
+  }
+
+  /// Key of a truncated [period] in the sums given to [periodValues]. String
+  /// keys (YYYY-MM-DD) avoid timezone issues with DateTime objects.
+  static String periodKey(DateTime period) =>
+      '${period.year}-${period.month.toString().padLeft(2, '0')}-${period.day.toString().padLeft(2, '0')}';
+
+  /// The totals of [periodSums], keyed by [periodKey], with a 0 for every
+  /// empty period of the range.
+  static List<double> periodValues(
+    Map<String, double> periodSums,
+    AggregationMethod? aggregationMethod,
+    DateTime? from,
+    DateTime? to,
+  ) {
     // Include empty periods (0 value) for complete range
     if (aggregationMethod != null && from != null && to != null) {
       final numPeriods = computeNumberOfIntervals(from, to, aggregationMethod);
@@ -218,7 +223,7 @@ class StatisticsCalculator {
 
       for (var i = 0; i < numPeriods; i++) {
         final period = truncateDateTime(current, aggregationMethod);
-        final key = dateKey(period);
+        final key = periodKey(period);
         if (!periodSums.containsKey(key)) {
           periodSums[key] = 0.0;
         }
@@ -0,0 +1,423 @@
+import 'dart:typed_data';
+
+import 'package:piggybank/helpers/datetime-utility-functions.dart';
+import 'package:piggybank/helpers/records-utility-functions.dart';
+import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/record.dart';
+import 'package:piggybank/statistics/statistics-calculator.dart';
+import 'package:piggybank/statistics/statistics-models.dart';
+import 'package:piggybank/statistics/statistics-utils.dart';
+import 'package:timezone/timezone.dart' as tz;
+
+/// The fields of a list of records that the statistics aggregate, one typed
+/// column per field, so they can be handed to a worker isolate as a few
+/// flat buffers instead of a graph of [Record] objects.
+///
+/// Values are kept in the currency of their wallet, and dates as UTC
+/// instants plus a time zone: converting them to the default currency and
+/// to local dates is the costly part of aggregating and is left to
+/// [computeStatisticsTotals].
+class StatisticsColumns {
+  static const transferFlag = 1;
+  static const hasValueFlag = 2;
+
+  final Int64List utcMillis;
+
+  /// Index of each record's time zone in [timeZoneNames].
+  final Int32List timeZones;
+  final List<String> timeZoneNames;
+
+  /// Each record's value, 0 for none, in the currency of its wallet.
+  final Float64List values;
+  final Uint8List flags;
+
+  /// Index of each record's category in [categoryList], -1 for none.
+  final Int32List categories;
+
+  /// Wallet id of each record, -1 for none.
+  final Int32List wallets;
+
+  /// The tags of record i are [tags] from tagStarts[i] to tagStarts[i + 1],
+  /// as indexes in [tagNames].
+  final Int32List tagStarts;
+  final Int32List tags;
+  final List<String> tagNames;
+
+  /// The currency of each wallet in [wallets], and the default currency and
+  /// conversion rates the values are converted with.
+  final Map<int, String?> walletCurrencies;
+  final String? defaultCurrency;
+  final Map<String, double> conversionRates;
+
+  /// The categories [categories] refers to. They stay on the isolate that
+  /// built the columns and are not part of [toMessage].
+  final List<Category> categoryList;
+
+  StatisticsColumns._(
+    this.utcMillis,
+    this.timeZones,
+    this.timeZoneNames,
+    this.values,
+    this.flags,
+    this.categories,
+    this.wallets,
+    this.tagStarts,
+    this.tags,
+    this.tagNames,
+    this.walletCurrencies,
+    this.defaultCurrency,
+    this.conversionRates,
+    this.categoryList,
+  );
+
+  factory StatisticsColumns.fromRecords(
+    List<Record?> records, {
+    Map<int, String?> walletCurrencyMap = const {},
+  }) {
+    final present = records.whereType<Record>().toList();
+    final length = present.length;
+    final utcMillis = Int64List(length);
+    final timeZones = Int32List(length);
+    final values = Float64List(length);
+    final flags = Uint8List(length);
+    final categories = Int32List(length);
+    final wallets = Int32List(length);
+    final tagStarts = Int32List(length + 1);
+    final tags = <int>[];
+
+    final timeZoneIndexes = <String, int>{};
+    final categoryIndexes = <Category, int>{};
+    final tagIndexes = <String, int>{};
+
+    for (var i = 0; i < length; i++) {
+      final record = present[i];
+      utcMillis[i] = record.utcDateTime.millisecondsSinceEpoch;
+      timeZones[i] = timeZoneIndexes.putIfAbsent(
+          record.timeZoneName!, () => timeZoneIndexes.length);
+      values[i] = record.value ?? 0.0;
+      flags[i] = (record.isTransfer ? transferFlag : 0) |
+          (record.value != null ? hasValueFlag : 0);
+      categories[i] = record.category != null
+          ? categoryIndexes.putIfAbsent(
+              record.category!, () => categoryIndexes.length)
+          : -1;
+      wallets[i] = record.walletId ?? -1;
+      tagStarts[i] = tags.length;
+      for (final tag in record.tags) {
+        tags.add(tagIndexes.putIfAbsent(tag, () => tagIndexes.length));
+      }
+    }
+    tagStarts[length] = tags.length;
+
+    return StatisticsColumns._(
+      utcMillis,
+      timeZones,
+      timeZoneIndexes.keys.toList(),
+      values,
+      flags,
+      categories,
+      wallets,
+      tagStarts,
+      Int32List.fromList(tags),
+      tagIndexes.keys.toList(),
+      walletCurrencyMap,
+      getDefaultCurrency(),
+      getConversionRates(),
+      categoryIndexes.keys.toList(),
+    );
+  }
+
+  int get length => utcMillis.length;
+
+  /// The columns as a message for another isolate, read back by
+  /// [StatisticsColumns.fromMessage].
+  List<Object?> toMessage() => [
+        utcMillis,
+        timeZones,
+        timeZoneNames,
+        values,
+        flags,
+        categories,
+        wallets,
+        tagStarts,
+        tags,
+        tagNames,
+        walletCurrencies,
+        defaultCurrency,
+        conversionRates,
+      ];
+
+  /// Columns sent by [toMessage]; their [categoryList] is empty.
+  factory StatisticsColumns.fromMessage(List<Object?> message) {
+    return StatisticsColumns._(
+      message[0] as Int64List,
+      message[1] as Int32List,
+      (message[2] as List).cast<String>(),
+      message[3] as Float64List,
+      message[4] as Uint8List,
+      message[5] as Int32List,
+      message[6] as Int32List,
+      message[7] as Int32List,
+      message[8] as Int32List,
+      (message[9] as List).cast<String>(),
+      (message[10] as Map).cast<int, String?>(),
+      message[11] as String?,
+      (message[12] as Map).cast<String, double>(),
+      const [],
+    );
+  }
+}
+
+/// Sums of record values per wallet currency, before any conversion, keyed
+/// like [buildCurrencyBreakdown] ('' for no currency). The totals the
+/// overview and the summary show are converted from them, which takes one
+/// step per currency instead of one per record.
+class CurrencySums {
+  final Map<String, double> signed = {};
+  final Map<String, double> absolute = {};
+
+  CurrencySums();
+
+  /// The sums of [parts] together.
+  factory CurrencySums.merge(Iterable<CurrencySums> parts) {
+    final sums = CurrencySums();
+    for (final part in parts) {
+      part.signed.forEach((currency, value) =>
+          sums.signed[currency] = (sums.signed[currency] ?? 0.0) + value);
+      part.absolute.forEach((currency, value) =>
+          sums.absolute[currency] = (sums.absolute[currency] ?? 0.0) + value);
+    }
+    return sums;
+  }
+
+  /// [absolute] if [isAbsValue], [signed] otherwise.
+  Map<String, double> of({required bool isAbsValue}) =>
+      isAbsValue ? absolute : signed;
+
+  void add(String currency, double value) {
+    signed[currency] = (signed[currency] ?? 0.0) + value;
+    absolute[currency] = (absolute[currency] ?? 0.0) + value.abs();
+  }
+}
+
+/// What [computeStatisticsTotals] returns: the sums the charts, the overview
+/// and the summary are drawn from, keyed by the indexes of a
+/// [StatisticsColumns].
+class StatisticsTotals {
+  final Map<DateTime, double> byPeriod;
+  final double averageValue;
+  final double medianValue;
+  final Map<int, double> byCategory;
+  final Map<int, double> byTag;
+  final Map<int, double> byWallet;
+  final CurrencySums currencySums;
+  final Map<int, CurrencySums> categoryCurrencySums;
+  final Map<int, CurrencySums> tagCurrencySums;
+  final Map<int, CurrencySums> walletCurrencySums;
+
+  StatisticsTotals(
+      this.byPeriod,
+      this.averageValue,
+      this.medianValue,
+      this.byCategory,
+      this.byTag,
+      this.byWallet,
+      this.currencySums,
+      this.categoryCurrencySums,
+      this.tagCurrencySums,
+      this.walletCurrencySums);
+}
+
+/// Sums [columns] the way the statistics widgets sum their records:
+/// - by [aggregationMethod] period, transfers left out, as
+///   [aggregateRecordsByDate] does for the bar chart;
+/// - by category, tag and wallet, as the pie charts do;
+/// - into the average and median the [OverviewCard] shows, which are per
+///   day for [AggregationMethod.WEEK];
+/// - per currency, overall and by category, tag and wallet, for the totals
+///   of the [OverviewCard] and the [StatisticsSummaryCard].
+///
+/// Values are converted to the default currency here, as
+/// [getRecordValueInDefaultCurrency] converts them.
+StatisticsTotals computeStatisticsTotals(
+  StatisticsColumns columns,
+  AggregationMethod aggregationMethod,
+  DateTime from,
+  DateTime to,
+) {
+  final overviewMethod = aggregationMethod == AggregationMethod.WEEK
+      ? AggregationMethod.DAY
+      : aggregationMethod;
+  final locations = columns.timeZoneNames.map(getLocation).toList();
+  final byPeriod = <DateTime, double>{};
+  final periodSums = <String, double>{};
+  final byCategory = <int, double>{};
+  final byTag = <int, double>{};
+  final byWallet = <int, double>{};
+  final currencySums = CurrencySums();
+  final categoryCurrencySums = <int, CurrencySums>{};
+  final tagCurrencySums = <int, CurrencySums>{};
+  final walletCurrencySums = <int, CurrencySums>{};
+  var total = 0.0;
+
+  void add<K>(Map<K, double> sums, K key, double value) {
+    sums[key] = (sums[key] ?? 0.0) + value;
+  }
+
+  for (var i = 0; i < columns.length; i++) {
+    final localDateTime = tz.TZDateTime.fromMillisecondsSinceEpoch(
+        locations[columns.timeZones[i]], columns.utcMillis[i]);
+    final wallet = columns.wallets[i];
+    final currency = wallet >= 0 ? columns.walletCurrencies[wallet] : null;
+    final rawValue = columns.values[i];
+    final value = valueInDefaultCurrency(rawValue, currency,
+        columns.defaultCurrency, columns.conversionRates);
+    final flags = columns.flags[i];
+    final hasValue = flags & StatisticsColumns.hasValueFlag != 0;
+
+    if (hasValue && flags & StatisticsColumns.transferFlag == 0) {
+      add(byPeriod, truncateDateTime(localDateTime, aggregationMethod), value);
+    }
+    add(
+      periodSums,
+      StatisticsCalculator.periodKey(
+          truncateDateTime(localDateTime, overviewMethod)),
+      value,
+    );
+    total += value;
+
+    final category = columns.categories[i];
+    if (category >= 0 && hasValue) add(byCategory, category, value);
+    for (var t = columns.tagStarts[i]; t < columns.tagStarts[i + 1]; t++) {
+      add(byTag, columns.tags[t], value);
+    }
+    if (wallet >= 0) add(byWallet, wallet, value);
+
+    if (hasValue) {
+      final currencyKey = currency ?? '';
+      currencySums.add(currencyKey, rawValue);
+      if (category >= 0) {
+        categoryCurrencySums
+            .putIfAbsent(category, CurrencySums.new)
+            .add(currencyKey, rawValue);
+      }
+      for (var t = columns.tagStarts[i]; t < columns.tagStarts[i + 1]; t++) {
+        tagCurrencySums
+            .putIfAbsent(columns.tags[t], CurrencySums.new)
+            .add(currencyKey, rawValue);
+      }
+      if (wallet >= 0) {
+        walletCurrencySums
+            .putIfAbsent(wallet, CurrencySums.new)
+            .add(currencyKey, rawValue);
+      }
+    }
+  }
+
+  final periodValues = StatisticsCalculator.periodValues(
+      periodSums, overviewMethod, from, to);
+  final double averageValue;
+  if (columns.length == 0) {
+    averageValue = 0.0;
+  } else if (aggregationMethod == AggregationMethod.WEEK) {
+    final days = computeNumberOfDays(from, to);
+    averageValue = days > 0 ? (total / days).abs() : 0.0;
+  } else {
+    averageValue = StatisticsCalculator.averageOf(periodValues);
+  }
+  final medianValue =
+      columns.length == 0 ? 0.0 : StatisticsCalculator.medianOf(periodValues);
+
+  return StatisticsTotals(
+      byPeriod,
+      averageValue,
+      medianValue,
+      byCategory,
+      byTag,
+      byWallet,
+      currencySums,
+      categoryCurrencySums,
+      tagCurrencySums,
+      walletCurrencySums);
+}
+
+/// Ready-to-render statistics of a list of records, as computed by
+/// [StatisticsWorkerPool]. Each field holds what the widget it feeds would
+/// otherwise compute from the records while building.
+class StatisticsSeries {
+  /// Period totals for [BarChartCard], ordered like [aggregateRecordsByDate].
+  final List<DateTimeSeriesRecord> byPeriod;
+
+  /// [OverviewCard.averageValue] and [OverviewCard.medianValue].
+  final double averageValue;
+  final double medianValue;
+
+  /// Totals for [CategoriesPieChart], [TagsPieChart] and [WalletsPieChart].
+  final Map<Category, double> byCategory;
+  final Map<String, double> byTag;
+  final Map<int, double> byWallet;
+
+  /// Per-currency sums of all the records, and of those of each category,
+  /// tag and wallet, for the totals of [OverviewCard] and
+  /// [StatisticsSummaryCard].
+  final CurrencySums currencySums;
+  final Map<Category, CurrencySums> categoryCurrencySums;
+  final Map<String, CurrencySums> tagCurrencySums;
+  final Map<int, CurrencySums> walletCurrencySums;
+
+  StatisticsSeries._(
+      this.byPeriod,
+      this.averageValue,
+      this.medianValue,
+      this.byCategory,
+      this.byTag,
+      this.byWallet,
+      this.currencySums,
+      this.categoryCurrencySums,
+      this.tagCurrencySums,
+      this.walletCurrencySums);
+
+  /// The series of [totals], computed from [columns].
+  factory StatisticsSeries.resolve(
+      StatisticsColumns columns, StatisticsTotals totals) {
+    final byPeriod = [
+      for (final entry in totals.byPeriod.entries)
+        DateTimeSeriesRecord(entry.key, entry.value),
+    ]..sort((a, b) => a.value.abs().compareTo(b.value.abs()));
+    return StatisticsSeries._(
+      byPeriod,
+      totals.averageValue,
+      totals.medianValue,
+      {
+        for (final entry in totals.byCategory.entries)
+          columns.categoryList[entry.key]: entry.value,
+      },
+      {
+        for (final entry in totals.byTag.entries)
+          columns.tagNames[entry.key]: entry.value,
+      },
+      totals.byWallet,
+      totals.currencySums,
+      {
+        for (final entry in totals.categoryCurrencySums.entries)
+          columns.categoryList[entry.key]: entry.value,
+      },
+      {
+        for (final entry in totals.tagCurrencySums.entries)
+          columns.tagNames[entry.key]: entry.value,
+      },
+      totals.walletCurrencySums,
+    );
+  }
+
+  /// Computes the series on the calling isolate.
+  factory StatisticsSeries.compute(
+    StatisticsColumns columns,
+    AggregationMethod aggregationMethod,
+    DateTime from,
+    DateTime to,
+  ) {
+    return StatisticsSeries.resolve(
+        columns, computeStatisticsTotals(columns, aggregationMethod, from, to));
+  }
+}
@@ -8,13 +8,35 @@ import 'package:piggybank/statistics/balance-tab-page.dart';
 import 'package:piggybank/i18n.dart';
 
 class StatisticsPage extends StatefulWidget {
-  final List<Record?> records;
+  final List<Record?>? records;
   final DateTime? from;
   final DateTime? to;
   final Map<int, String?> walletCurrencyMap;
   final Map<int, Wallet> walletMap;
-  StatisticsPage(this.from, this.to, this.records,
-      {this.walletCurrencyMap = const {}, this.walletMap = const {}});
+
+  /// Sums of the records per day, category and wallet (see
+  /// DatabaseInterface.getRecordDailyTotalsInInterval), which the expense
+  /// and income tabs are drawn from until the records are needed.
+  final List<Record?>? dailyTotals;
+
+  /// Reads the records of [dailyTotals], once the records list, the tags,
+  /// the balance or a drill-down asks for them.
+  final Future<List<Record?>> Function()? loadRecords;
+
+  StatisticsPage(this.from, this.to, List<Record?> this.records,
+      {this.walletCurrencyMap = const {}, this.walletMap = const {}})
+      : dailyTotals = null,
+        loadRecords = null;
+
+  /// A page that opens on [dailyTotals] and reads the records with
+  /// [loadRecords] only when they are needed, so that opening it costs one
+  /// row per day and category rather than one per record.
+  StatisticsPage.fromDailyTotals(
+      this.from, this.to, List<Record?> this.dailyTotals,
+      {required Future<List<Record?>> Function() this.loadRecords,
+      this.walletCurrencyMap = const {},
+      this.walletMap = const {}})
+      : records = null;
 
   @override
   _StatisticsPageState createState() => _StatisticsPageState();
@@ -26,11 +48,78 @@ class _StatisticsPageState extends State<StatisticsPage>
   DateTime? _selectedDate;
   late TabController _tabController;
 
+  /// The records, once given or loaded, and the records or daily totals of
+  /// each tab, split once rather than on every build. Until the records are
+  /// loaded the tabs show the daily totals, and [_nonTransfers] is null.
+  List<Record?>? _records;
+  Future<void>? _recordsLoading;
+  late List<Record?> _expenses;
+  late List<Record?> _income;
+  List<Record?>? _nonTransfers;
+  List<Record?>? _expenseTotals;
+  List<Record?>? _incomeTotals;
+
   @override
   void initState() {
     super.initState();
     _tabController = TabController(length: 3, vsync: this);
     _tabController.addListener(_handleTabSelection);
+    _records = widget.records;
+    _splitRecords();
+  }
+
+  @override
+  void didUpdateWidget(StatisticsPage oldWidget) {
+    super.didUpdateWidget(oldWidget);
+    if (oldWidget.records != widget.records ||
+        oldWidget.dailyTotals != widget.dailyTotals) {
+      _records = widget.records;
+      _recordsLoading = null;
+      _splitRecords();
+    }
+  }
+
+  /// Reads the records with [StatisticsPage.loadRecords], once.
+  Future<void> _loadRecords() {
+    return _recordsLoading ??= widget.loadRecords!().then((records) {
+      if (!mounted) return;
+      setState(() {
+        _records = records;
+        _splitRecords();
+      });
+    });
+  }
+
+  /// What a tab calls for its records while it shows the daily totals.
+  Future<List<Record?>> Function()? _tabRecordsLoader(
+      List<Record?> Function() tabRecords) {
+    if (_records != null) return null;
+    return () async {
+      await _loadRecords();
+      return tabRecords();
+    };
+  }
+
+  static List<Record?> _ofType(List<Record?> records, CategoryType type) =>
+      records
+          .where((element) =>
+              element?.category?.categoryType == type && !element!.isTransfer)
+          .toList();
+
+  void _splitRecords() {
+    final totals = widget.dailyTotals;
+    _expenseTotals =
+        totals != null ? _ofType(totals, CategoryType.expense) : null;
+    _incomeTotals =
+        totals != null ? _ofType(totals, CategoryType.income) : null;
+    final records = _records;
+    _expenses = records != null
+        ? _ofType(records, CategoryType.expense)
+        : _expenseTotals!;
+    _income =
+        records != null ? _ofType(records, CategoryType.income) : _incomeTotals!;
+    _nonTransfers =
+        records?.where((element) => !element!.isTransfer).toList();
   }
 
   @override
@@ -41,6 +130,8 @@ class _StatisticsPageState extends State<StatisticsPage>
   }
 
   void _handleTabSelection() {
+    // The balance is computed from the records.
+    if (_tabController.index == 2 && _records == null) _loadRecords();
     if (_tabController.indexIsChanging) {
       setState(() {
         _selectedIntervalTitle = null;
@@ -81,11 +172,9 @@ class _StatisticsPageState extends State<StatisticsPage>
             StatisticsTabPage(
               widget.from,
               widget.to,
-              widget.records
-                  .where((element) =>
-                      element?.category?.categoryType == CategoryType.expense &&
-                      !element!.isTransfer)
-                  .toList(),
+              _expenses,
+              dailyTotals: _expenseTotals,
+              loadRecords: _tabRecordsLoader(() => _expenses),
               selectedDate: _selectedDate,
               showRecordsToggle: true,
               walletCurrencyMap: widget.walletCurrencyMap,
@@ -100,11 +189,9 @@ class _StatisticsPageState extends State<StatisticsPage>
             StatisticsTabPage(
               widget.from,
               widget.to,
-              widget.records
-                  .where((element) =>
-                      element?.category?.categoryType == CategoryType.income &&
-                      !element!.isTransfer)
-                  .toList(),
+              _income,
+              dailyTotals: _incomeTotals,
+              loadRecords: _tabRecordsLoader(() => _income),
               selectedDate: _selectedDate,
               showRecordsToggle: true,
               walletCurrencyMap: widget.walletCurrencyMap,
@@ -116,21 +203,23 @@ class _StatisticsPageState extends State<StatisticsPage>
                 });
               },
             ),
-            BalanceTabPage(
-              widget.from,
-              widget.to,
-              widget.records.where((element) => !element!.isTransfer).toList(),
-              selectedDate: _selectedDate,
-              showRecordsToggle: true,
-              walletCurrencyMap: widget.walletCurrencyMap,
-              walletMap: widget.walletMap,
-              onIntervalSelected: (newTitle, date) {
-                setState(() {
-                  _selectedIntervalTitle = newTitle;
-                  _selectedDate = date;
-                });
-              },
-            ),
+            _nonTransfers == null
+                ? const Center(child: CircularProgressIndicator())
+                : BalanceTabPage(
+                    widget.from,
+                    widget.to,
+                    _nonTransfers!,
+                    selectedDate: _selectedDate,
+                    showRecordsToggle: true,
+                    walletCurrencyMap: widget.walletCurrencyMap,
+                    walletMap: widget.walletMap,
+                    onIntervalSelected: (newTitle, date) {
+                      setState(() {
+                        _selectedIntervalTitle = newTitle;
+                        _selectedDate = date;
+                      });
+                    },
+                  ),
           ],
         ),
       ),
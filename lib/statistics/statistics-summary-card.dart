@@ -10,6 +10,7 @@ import 'package:piggybank/statistics/statistics-models.dart';
 import 'package:piggybank/statistics/group-by-dropdown.dart';
 import 'package:piggybank/statistics/summary-rows.dart';
 import 'package:piggybank/statistics/record-filters.dart';
+import 'package:piggybank/statistics/statistics-columns.dart';
 import 'package:piggybank/statistics/statistics-page.dart';
 import 'package:piggybank/statistics/statistics-utils.dart';
 import 'package:piggybank/helpers/records-utility-functions.dart';
@@ -41,6 +42,15 @@ class StatisticsSummaryCard extends StatefulWidget {
   final Map<int, String?> walletCurrencyMap;
   final Map<int, Wallet> walletMap;
 
+  /// Statistics of [records] computed off the UI isolate, if any. Their
+  /// per-currency sums are used while nothing is selected, which is when
+  /// they are the sums of the records the card shows.
+  final StatisticsSeries? series;
+
+  /// Set while [records] are daily totals: reads the records before a row
+  /// or a "view all" row opens them.
+  final Future<List<Record?>> Function()? loadRecords;
+
   const StatisticsSummaryCard({
     Key? key,
     required this.records,
@@ -60,6 +70,8 @@ class StatisticsSummaryCard extends StatefulWidget {
     this.showRecordsToggle = false,
     this.walletCurrencyMap = const {},
     this.walletMap = const {},
+    this.series,
+    this.loadRecords,
   }) : super(key: key);
 
   @override
@@ -70,6 +82,23 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
   bool _showIncome = true;
   bool _showExpenses = true;
 
+  /// [StatisticsSummaryCard.series], unless a selection narrows the records.
+  StatisticsSeries? get _series =>
+      widget.selectedDate == null && widget.selectedCategoryOrTag == null
+          ? widget.series
+          : null;
+
+  /// The total of the records summed into [sums], expressed in
+  /// [commonCurrency] when set, as [computeTotalInCurrency] and
+  /// [computeConvertedTotal] compute it from the records.
+  RecordsTotalResult _totalOf(CurrencySums sums, String? commonCurrency,
+      {required bool isAbsValue}) {
+    final breakdown = sums.of(isAbsValue: isAbsValue);
+    return commonCurrency != null
+        ? totalOfBreakdownInCurrency(breakdown, commonCurrency)
+        : convertedTotalOfBreakdown(breakdown);
+  }
+
   @override
   Widget build(BuildContext context) {
     return Column(
@@ -109,7 +138,8 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
 
   /// Builds the categories summary list with Income and Expense sections.
   Widget _buildCategoriesSummaryList() {
-    final filteredRecords = _getFilteredRecords();
+    final filteredRecords =
+        _series != null ? widget.records : _getFilteredRecords();
     // Determine common currency: if mixed, use default currency so all amounts are comparable
     final commonCurrency = _resolveCommonCurrency(filteredRecords);
     final categoriesByType =
@@ -180,9 +210,17 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
     return getDefaultCurrency();
   }
 
+  /// The records the card shows, or those [StatisticsSummaryCard.loadRecords]
+  /// reads when it shows daily totals.
+  Future<List<Record?>> _recordsToOpen() async => widget.loadRecords != null
+      ? await widget.loadRecords!()
+      : widget.records;
+
   /// Navigate to view all records for the selected period (no category filter).
-  void _navigateToAllCategories() {
+  Future<void> _navigateToAllCategories() async {
     if (widget.selectedDate == null) return;
+    final records = await _recordsToOpen();
+    if (!mounted) return;
 
     final detailFrom = widget.selectedDate;
     final detailTo =
@@ -194,7 +232,7 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
         DateTime(detailFrom!.year, detailFrom.month, detailFrom.day);
     final toDate =
         DateTime(detailTo.year, detailTo.month, detailTo.day, 23, 59, 59);
-    final detailRecords = widget.records.where((r) {
+    final detailRecords = records.where((r) {
       final recordDate = r!.dateTime;
       return !recordDate.isBefore(fromDate) && !recordDate.isAfter(toDate);
     }).toList();
@@ -240,6 +278,24 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
   /// When [commonCurrency] is set, all totals are expressed in that currency.
   Map<String, CategorySumTuple> _aggregateCategories(
       List<Record?> records, String? commonCurrency) {
+    final series = _series;
+    if (series != null) {
+      final aggregatedCategories = <String, CategorySumTuple>{};
+      series.categoryCurrencySums.forEach((category, sums) {
+        final result = _totalOf(sums, commonCurrency, isAbsValue: false);
+        final originalResult = _totalOf(sums, null, isAbsValue: false);
+        aggregatedCategories['${category.name}_${category.categoryType}'] =
+            CategorySumTuple(
+          category,
+          result.total,
+          currency: result.currency,
+          originalValue: originalResult.total,
+          originalCurrency: originalResult.currency,
+        );
+      });
+      return aggregatedCategories;
+    }
+
     final categoryRecordsMap = <String, List<Record?>>{};
     final categoryRef = <String, Category>{};
 
@@ -309,27 +365,41 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
         categories.isNotEmpty ? categories[0].value.abs().toDouble() : 0.0;
     final isExpanded = title == "Income".i18n ? _showIncome : _showExpenses;
 
-    final categoriesOfThisType = categories.map((c) => c.key).toSet();
-    final sectionRecords = filteredRecords.where((r) {
-      if (r?.category == null) return false;
-      return categoriesOfThisType.contains(r!.category);
-    }).toList();
     final defaultCurrency = getDefaultCurrency();
-    final convertedResult = defaultCurrency != null
-        ? computeTotalInCurrency(
-            sectionRecords, widget.walletCurrencyMap, defaultCurrency,
-            isAbsValue: true)
-        : computeConvertedTotal(sectionRecords, widget.walletCurrencyMap,
-            isAbsValue: true);
-    final breakdown = buildCurrencyBreakdown(
-        sectionRecords, widget.walletCurrencyMap,
-        isAbsValue: true);
-    final nonEmptyCurrencies =
-        breakdown.entries.where((e) => e.key.isNotEmpty).toList();
+    final RecordsTotalResult convertedResult;
+    final Map<String, double> breakdown;
     // Signed total drives the header color so expense sections render red
     // (the displayed amounts are absolute).
-    final signedSectionTotal =
-        computeConvertedTotal(sectionRecords, widget.walletCurrencyMap).total;
+    final double signedSectionTotal;
+    final series = _series;
+    if (series != null) {
+      final sums = CurrencySums.merge(categories
+          .map((c) => series.categoryCurrencySums[c.key])
+          .whereType<CurrencySums>());
+      convertedResult = _totalOf(sums, defaultCurrency, isAbsValue: true);
+      breakdown = sums.absolute;
+      signedSectionTotal = _totalOf(sums, null, isAbsValue: false).total;
+    } else {
+      final categoriesOfThisType = categories.map((c) => c.key).toSet();
+      final sectionRecords = filteredRecords.where((r) {
+        if (r?.category == null) return false;
+        return categoriesOfThisType.contains(r!.category);
+      }).toList();
+      convertedResult = defaultCurrency != null
+          ? computeTotalInCurrency(
+              sectionRecords, widget.walletCurrencyMap, defaultCurrency,
+              isAbsValue: true)
+          : computeConvertedTotal(sectionRecords, widget.walletCurrencyMap,
+              isAbsValue: true);
+      breakdown = buildCurrencyBreakdown(
+          sectionRecords, widget.walletCurrencyMap,
+          isAbsValue: true);
+      signedSectionTotal =
+          computeConvertedTotal(sectionRecords, widget.walletCurrencyMap)
+              .total;
+    }
+    final nonEmptyCurrencies =
+        breakdown.entries.where((e) => e.key.isNotEmpty).toList();
     final headerStyle = TextStyle(
       fontSize: 18,
       fontWeight: FontWeight.bold,
@@ -370,6 +440,7 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
               maxSum: maxSum,
               totalSum: totalSum,
               records: widget.records,
+              loadRecords: widget.loadRecords,
               from: widget.from,
               to: widget.to,
               selectedDate: widget.selectedDate,
@@ -430,7 +501,8 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
 
   /// Builds the tags summary list.
   Widget _buildTagsSummaryList() {
-    final recordsToUse = _getFilteredRecordsForTags();
+    final recordsToUse =
+        _series != null ? widget.records : _getFilteredRecordsForTags();
     final commonCurrency = _resolveCommonCurrency(recordsToUse);
     final aggregatedTags = _aggregateTags(recordsToUse, commonCurrency);
 
@@ -503,6 +575,7 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
             maxSum: maxSum,
             totalSum: totalSum,
             records: widget.records,
+            loadRecords: widget.loadRecords,
             from: widget.from,
             to: widget.to,
             selectedDate: widget.selectedDate,
@@ -522,8 +595,10 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
   }
 
   /// Navigate to view all records for the selected period (no tag filter).
-  void _navigateToAllTags() {
+  Future<void> _navigateToAllTags() async {
     if (widget.selectedDate == null) return;
+    final records = await _recordsToOpen();
+    if (!mounted) return;
 
     final detailFrom = widget.selectedDate;
     final detailTo =
@@ -535,7 +610,7 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
         DateTime(detailFrom!.year, detailFrom.month, detailFrom.day);
     final toDate =
         DateTime(detailTo.year, detailTo.month, detailTo.day, 23, 59, 59);
-    final detailRecords = widget.records.where((r) {
+    final detailRecords = records.where((r) {
       final recordDate = r!.dateTime;
       return !recordDate.isBefore(fromDate) && !recordDate.isAfter(toDate);
     }).toList();
@@ -569,6 +644,22 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
   /// When [commonCurrency] is set, all totals are expressed in that currency.
   List<TagSumTuple> _aggregateTags(
       List<Record?> records, String? commonCurrency) {
+    final series = _series;
+    if (series != null) {
+      return series.tagCurrencySums.entries.map((entry) {
+        final result = _totalOf(entry.value, commonCurrency, isAbsValue: true);
+        final originalResult = _totalOf(entry.value, null, isAbsValue: true);
+        return TagSumTuple(entry.key, result.total,
+            currency: result.currency,
+            originalValue: originalResult.total,
+            originalCurrency: originalResult.currency,
+            signedValue:
+                _totalOf(entry.value, commonCurrency, isAbsValue: false).total,
+            signedOriginalValue:
+                _totalOf(entry.value, null, isAbsValue: false).total);
+      }).toList();
+    }
+
     // Group records by tag
     final tagRecordsMap = <String, List<Record?>>{};
 
@@ -617,7 +708,8 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
 
   /// Builds the wallets summary list.
   Widget _buildWalletsSummaryList() {
-    final recordsToUse = _getFilteredRecordsForWallets();
+    final recordsToUse =
+        _series != null ? widget.records : _getFilteredRecordsForWallets();
     final commonCurrency = _resolveCommonCurrency(recordsToUse);
     final aggregatedWallets = _aggregateWallets(recordsToUse, commonCurrency);
 
@@ -694,6 +786,7 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
               maxSum: maxSum,
               totalSum: totalSum,
               records: widget.records,
+              loadRecords: widget.loadRecords,
               from: widget.from,
               to: widget.to,
               selectedDate: widget.selectedDate,
@@ -714,8 +807,10 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
   }
 
   /// Navigate to view all records for the selected period (no wallet filter).
-  void _navigateToAllWallets() {
+  Future<void> _navigateToAllWallets() async {
     if (widget.selectedDate == null) return;
+    final records = await _recordsToOpen();
+    if (!mounted) return;
 
     final detailFrom = widget.selectedDate;
     final detailTo =
@@ -727,7 +822,7 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
         DateTime(detailFrom!.year, detailFrom.month, detailFrom.day);
     final toDate =
         DateTime(detailTo.year, detailTo.month, detailTo.day, 23, 59, 59);
-    final detailRecords = widget.records.where((r) {
+    final detailRecords = records.where((r) {
       final recordDate = r!.dateTime;
       return !recordDate.isBefore(fromDate) && !recordDate.isAfter(toDate);
     }).toList();
@@ -761,6 +856,22 @@ class _StatisticsSummaryCardState extends State<StatisticsSummaryCard> {
   /// When [commonCurrency] is set, all totals are expressed in that currency.
   List<WalletSumTuple> _aggregateWallets(
       List<Record?> records, String? commonCurrency) {
+    final series = _series;
+    if (series != null) {
+      return series.walletCurrencySums.entries.map((entry) {
+        final result = _totalOf(entry.value, commonCurrency, isAbsValue: true);
+        final originalResult = _totalOf(entry.value, null, isAbsValue: true);
+        return WalletSumTuple(entry.key, result.total,
+            currency: result.currency,
+            originalValue: originalResult.total,
+            originalCurrency: originalResult.currency,
+            signedValue:
+                _totalOf(entry.value, commonCurrency, isAbsValue: false).total,
+            signedOriginalValue:
+                _totalOf(entry.value, null, isAbsValue: false).total);
+      }).toList();
+    }
+
     // Group records by wallet
     final walletRecordsMap = <int, List<Record?>>{};
 
@@ -2,10 +2,13 @@ import 'package:flutter/material.dart';
 import 'package:piggybank/i18n.dart';
 import 'package:piggybank/models/record.dart';
 import 'package:piggybank/models/wallet.dart';
+import 'package:piggybank/services/logger.dart';
 import 'package:piggybank/statistics/overview-card.dart';
+import 'package:piggybank/statistics/statistics-columns.dart';
 import 'package:piggybank/statistics/statistics-models.dart';
 import 'package:piggybank/statistics/statistics-summary-card.dart';
 import 'package:piggybank/statistics/statistics-utils.dart';
+import 'package:piggybank/statistics/statistics-worker-pool.dart';
 
 import 'package:piggybank/helpers/datetime-utility-functions.dart';
 import 'package:piggybank/statistics/bar-chart-card.dart';
@@ -31,6 +34,16 @@ class StatisticsTabPage extends StatefulWidget {
   final Map<int, String?> walletCurrencyMap;
   final Map<int, Wallet> walletMap;
 
+  /// Sums of [records] per day, category and wallet, which the charts and
+  /// totals are computed from when given; the records are still listed and
+  /// drilled into. Not used for the tag charts, which need the records.
+  final List<Record?>? dailyTotals;
+
+  /// Set while [records] are the [dailyTotals] themselves: reads the
+  /// records, for the records list, the tags and the drill-downs. The page
+  /// is rebuilt with the records once they are read.
+  final Future<List<Record?>> Function()? loadRecords;
+
   StatisticsTabPage(this.from, this.to, this.records,
       {this.onIntervalSelected,
       this.selectedDate,
@@ -42,7 +55,9 @@ class StatisticsTabPage extends StatefulWidget {
       this.hideWalletsSelection = false,
       this.onListBackCallback,
       this.walletCurrencyMap = const {},
-      this.walletMap = const {}})
+      this.walletMap = const {},
+      this.dailyTotals,
+      this.loadRecords})
       : super();
 
   @override
@@ -50,6 +65,8 @@ class StatisticsTabPage extends StatefulWidget {
 }
 
 class StatisticsTabPageState extends State<StatisticsTabPage> {
+  static final _logger = Logger.withClass(StatisticsTabPage);
+
   int? indexTab;
   AggregationMethod? aggregationMethod;
   double? selectedAmount;
@@ -60,6 +77,17 @@ class StatisticsTabPageState extends State<StatisticsTabPage> {
   late GroupByType groupByType;
   GroupByType? filterGroupByType;
 
+  /// The records the charts show, kept between builds so the charts only
+  /// aggregate again when they change.
+  List<Record?> _recordsToVisualize = const [];
+  Object? _recordsToVisualizeKey;
+  Object? _seriesKey;
+
+  /// Statistics of [_recordsToVisualize] from the [StatisticsWorkerPool],
+  /// for record sets large enough to be aggregated there.
+  StatisticsSeries? _series;
+  bool _awaitingSeries = false;
+
   @override
   void initState() {
     super.initState();
@@ -68,11 +96,13 @@ class StatisticsTabPageState extends State<StatisticsTabPage> {
         getAggregationMethodGivenTheTimeRange(widget.from!, widget.to!);
     this.selectedDate = widget.selectedDate;
     this.groupByType = widget.forceGroupByType ?? GroupByType.category;
+    _updateRecordsToVisualize();
   }
 
   @override
   void didUpdateWidget(StatisticsTabPage oldWidget) {
     super.didUpdateWidget(oldWidget);
+    _updateRecordsToVisualize();
     if (widget.selectedDate != oldWidget.selectedDate) {
       setState(() {
         selectedDate = widget.selectedDate;
@@ -106,11 +136,74 @@ class StatisticsTabPageState extends State<StatisticsTabPage> {
     ];
   }
 
+  /// Recomputes the records the charts show when the records or the tag
+  /// filter change, and their statistics when the daily totals or the
+  /// currency map change too. The statistics are computed from the daily
+  /// totals when there are any, on the spot while they are few, and large
+  /// sets are sent to the [StatisticsWorkerPool] to be aggregated.
+  void _updateRecordsToVisualize() {
+    final onlyTagged = widget.footer == null && groupByType == GroupByType.tag;
+    final recordsKey = (widget.records, onlyTagged);
+    if (recordsKey != _recordsToVisualizeKey) {
+      _recordsToVisualizeKey = recordsKey;
+      _recordsToVisualize = onlyTagged
+          ? widget.records.where((r) => r!.tags.isNotEmpty).toList()
+          : widget.records;
+    }
+
+    // Records read in place of the daily totals leave the series as it is.
+    final dailyTotals = onlyTagged ? null : widget.dailyTotals;
+    final source = dailyTotals ?? _recordsToVisualize;
+    final key = (source, widget.walletCurrencyMap);
+    if (key == _seriesKey) return;
+    _seriesKey = key;
+    _series = null;
+    _awaitingSeries = false;
+
+    if (aggregationMethod == AggregationMethod.NOT_AGGREGATED) return;
+    if (source.length < StatisticsWorkerPool.minimumRecords) {
+      if (dailyTotals != null) {
+        _series = StatisticsSeries.compute(
+            StatisticsColumns.fromRecords(dailyTotals,
+                walletCurrencyMap: widget.walletCurrencyMap),
+            aggregationMethod!,
+            widget.from!,
+            widget.to!);
+      }
+      return;
+    }
+    _awaitingSeries = true;
+    final columns = StatisticsColumns.fromRecords(source,
+        walletCurrencyMap: widget.walletCurrencyMap);
+    StatisticsWorkerPool.instance
+        .aggregate(columns, aggregationMethod!, widget.from!, widget.to!)
+        .then((series) {
+      if (!mounted || key != _seriesKey) return;
+      setState(() {
+        _series = series;
+        _awaitingSeries = false;
+      });
+    }, onError: (Object e, StackTrace st) {
+      // The widgets aggregate the records themselves instead.
+      _logger.handle(e, st, 'Statistics aggregation failed');
+      if (!mounted || key != _seriesKey) return;
+      setState(() => _awaitingSeries = false);
+    });
+  }
+
+  /// Whether the selected grouping needs the records while the daily
+  /// totals are shown instead: tags and the records list.
+  bool get _awaitingRecords =>
+      widget.loadRecords != null &&
+      (groupByType == GroupByType.tag || groupByType == GroupByType.records);
+
   List<Widget> _buildContentSlivers() {
-    final List<Record?> recordsToVisualize =
-        (widget.footer == null && groupByType == GroupByType.tag)
-            ? widget.records.where((r) => r!.tags.isNotEmpty).toList()
-            : widget.records;
+    if (_awaitingRecords) {
+      return const [
+        SliverFillRemaining(child: Center(child: CircularProgressIndicator())),
+      ];
+    }
+    final List<Record?> recordsToVisualize = _recordsToVisualize;
 
     final List<Widget> slivers = [];
 
@@ -121,6 +214,7 @@ class StatisticsTabPageState extends State<StatisticsTabPage> {
           recordsToVisualize,
           selectedTag: selectedCategory,
           walletCurrencyMap: widget.walletCurrencyMap,
+          series: _series,
           onSelectionChanged: (amount, tag, topTags) {
             setState(() {
               selectedAmount = amount;
@@ -136,6 +230,7 @@ class StatisticsTabPageState extends State<StatisticsTabPage> {
           walletMap: widget.walletMap,
           selectedWalletId: selectedCategory,
           walletCurrencyMap: widget.walletCurrencyMap,
+          series: _series,
           onSelectionChanged: (amount, walletId, topWallets) {
             setState(() {
               selectedAmount = amount;
@@ -150,6 +245,7 @@ class StatisticsTabPageState extends State<StatisticsTabPage> {
           recordsToVisualize,
           selectedCategory: selectedCategory,
           walletCurrencyMap: widget.walletCurrencyMap,
+          series: _series,
           onSelectionChanged: (amount, category, topCats) {
             setState(() {
               selectedAmount = amount;
@@ -168,6 +264,7 @@ class StatisticsTabPageState extends State<StatisticsTabPage> {
         aggregationMethod,
         selectedDate: selectedDate,
         walletCurrencyMap: widget.walletCurrencyMap,
+        series: _series,
         onSelectionChanged: (double? amount, DateTime? date) {
           setState(() {
             selectedAmount = amount;
@@ -202,47 +299,25 @@ class StatisticsTabPageState extends State<StatisticsTabPage> {
       );
     }
 
-    final OverviewCard ov = OverviewCard(
-      widget.from,
-      widget.to,
-      recordsToVisualize,
-      aggregationMethod,
-      selectedAmount: selectedAmount,
-      selectedDate: selectedDate,
-      selectedRecords: (selectedDate != null || selectedCategory != null)
-          ? _getSelectionRecords()
-          : const [],
-      walletCurrencyMap: widget.walletCurrencyMap,
-      actions: <OverviewCardAction>[
-        OverviewCardAction(
-          icon: showPieChart ? Icons.bar_chart : Icons.pie_chart,
-          onTap: () {
-            setState(() {
-              showPieChart = !showPieChart;
-              selectedAmount = null;
-              selectedDate = null;
-              selectedCategory = null;
-              topCategories = null;
-              filterGroupByType = null;
-              if (widget.onIntervalSelected != null) {
-                widget.onIntervalSelected!(null, null, null);
-              }
-            });
-          },
-          tooltip: showPieChart
-              ? "Switch to bar chart".i18n
-              : "Switch to pie chart".i18n,
+    if (_awaitingSeries) {
+      // The overview, the chart and the summary are drawn from the series,
+      // so they are only built once it has arrived.
+      slivers.add(const SliverToBoxAdapter(
+        child: SizedBox(
+          height: 250,
+          child: Center(child: CircularProgressIndicator()),
         ),
-      ],
-    );
-
-    slivers.add(SliverToBoxAdapter(child: ov));
-    slivers.add(const SliverToBoxAdapter(child: SizedBox(height: 10)));
-    slivers.add(SliverToBoxAdapter(child: chartWidget));
+      ));
+    } else {
+      slivers.add(SliverToBoxAdapter(child: _buildOverviewCard()));
+      slivers.add(const SliverToBoxAdapter(child: SizedBox(height: 10)));
+      slivers.add(SliverToBoxAdapter(child: chartWidget));
+    }
     slivers.add(const SliverToBoxAdapter(child: SizedBox(height: 10)));
 
     // Summary Section
-    if (!(groupByType == GroupByType.records && !widget.showRecordsToggle)) {
+    if (!_awaitingSeries &&
+        !(groupByType == GroupByType.records && !widget.showRecordsToggle)) {
       slivers.add(SliverToBoxAdapter(
         child: StatisticsSummaryCard(
           records: recordsToVisualize,
@@ -260,9 +335,16 @@ class StatisticsTabPageState extends State<StatisticsTabPage> {
           hideWalletsSelection: widget.hideWalletsSelection,
           walletCurrencyMap: widget.walletCurrencyMap,
           walletMap: widget.walletMap,
+          series: _series,
+          loadRecords: widget.loadRecords,
           onGroupByTypeChanged: (newType) {
+            if (newType == GroupByType.tag ||
+                newType == GroupByType.records) {
+              widget.loadRecords?.call();
+            }
             setState(() {
               groupByType = newType;
+              _updateRecordsToVisualize();
               // Don't clear selectedCategory/topCategories when switching to Records
               // We need them to filter the records list
               if (newType != GroupByType.records) {
@@ -321,6 +403,45 @@ class StatisticsTabPageState extends State<StatisticsTabPage> {
     return slivers;
   }
 
+  /// The overview of [_recordsToVisualize], built only once their series,
+  /// if they are aggregated on the [StatisticsWorkerPool], has arrived.
+  OverviewCard _buildOverviewCard() {
+    return OverviewCard(
+      widget.from,
+      widget.to,
+      _recordsToVisualize,
+      aggregationMethod,
+      selectedAmount: selectedAmount,
+      selectedDate: selectedDate,
+      selectedRecords: (selectedDate != null || selectedCategory != null)
+          ? _getSelectionRecords()
+          : const [],
+      walletCurrencyMap: widget.walletCurrencyMap,
+      series: _series,
+      actions: <OverviewCardAction>[
+        OverviewCardAction(
+          icon: showPieChart ? Icons.bar_chart : Icons.pie_chart,
+          onTap: () {
+            setState(() {
+              showPieChart = !showPieChart;
+              selectedAmount = null;
+              selectedDate = null;
+              selectedCategory = null;
+              topCategories = null;
+              filterGroupByType = null;
+              if (widget.onIntervalSelected != null) {
+                widget.onIntervalSelected!(null, null, null);
+              }
+            });
+          },
+          tooltip: showPieChart
+              ? "Switch to bar chart".i18n
+              : "Switch to pie chart".i18n,
+        ),
+      ],
+    );
+  }
+
   /// Returns the records matching the current selection: the records of the
   /// selected date/bar period and/or the records of the selected category, tag
   /// or wallet slice (including the "Others" bucket). Shared by the records
@@ -136,15 +136,24 @@ DateTime truncateDateTime(
 /// in a single currency instead of summing raw numeric values (issue #411).
 double getRecordValueInDefaultCurrency(
     Record record, Map<int, String?> walletCurrencyMap) {
-  final raw = record.value ?? 0.0;
-  final defaultCurrency = getDefaultCurrency();
+  return valueInDefaultCurrency(
+    record.value ?? 0.0,
+    record.walletId != null ? walletCurrencyMap[record.walletId] : null,
+    getDefaultCurrency(),
+    getConversionRates(),
+  );
+}
+
+/// [getRecordValueInDefaultCurrency] of a record worth [raw] in [currency],
+/// with the given [defaultCurrency] and [rates] instead of the stored ones.
+double valueInDefaultCurrency(double raw, String? currency,
+    String? defaultCurrency, Map<String, double> rates) {
   if (defaultCurrency == null || defaultCurrency.isEmpty) return raw;
-  final currency =
-      record.walletId != null ? walletCurrencyMap[record.walletId] : null;
   if (currency == null || currency.isEmpty || currency == defaultCurrency) {
     return raw;
   }
-  final converted = convertAmount(raw, currency, defaultCurrency);
+  final converted = convertAmountWithRates(
+      raw, currency, defaultCurrency, rates, defaultCurrency);
   return converted ?? raw;
 }
 
@@ -0,0 +1,129 @@
+import 'dart:async';
+import 'dart:io';
+import 'dart:isolate';
+import 'dart:math';
+
+import 'package:piggybank/statistics/statistics-columns.dart';
+import 'package:piggybank/statistics/statistics-models.dart';
+import 'package:timezone/data/latest_all.dart' as tz_data;
+
+/// Aggregates statistics on long-lived background isolates, so that opening
+/// the statistics of a multi-year range does not walk every record on the
+/// UI isolate.
+///
+/// Requests carry the records as [StatisticsColumns] and are handed to the
+/// workers in turn; each worker loads the time zone database once, when it
+/// is started on its first request.
+class StatisticsWorkerPool {
+  /// Below this many records the widgets aggregate while building, which
+  /// takes less than the round trip to a worker.
+  static const minimumRecords = 2000;
+
+  static StatisticsWorkerPool? _instance;
+
+  /// The pool the statistics pages share, started on first use.
+  static StatisticsWorkerPool get instance =>
+      _instance ??= StatisticsWorkerPool();
+
+  final int size;
+  final List<Future<_Worker>> _workers = [];
+  final ReceivePort _replies = ReceivePort();
+  final Map<int, Completer<StatisticsTotals>> _pending = {};
+  int _nextRequest = 0;
+
+  StatisticsWorkerPool({int? size})
+      : size = size ?? max(1, min(2, Platform.numberOfProcessors - 1)) {
+    _replies.listen(_onReply);
+  }
+
+  /// The statistics of [columns] over the range [from]-[to], aggregated by
+  /// [aggregationMethod].
+  Future<StatisticsSeries> aggregate(
+    StatisticsColumns columns,
+    AggregationMethod aggregationMethod,
+    DateTime from,
+    DateTime to,
+  ) async {
+    final id = _nextRequest++;
+    final worker = await _worker(id % size);
+    final completer = Completer<StatisticsTotals>();
+    _pending[id] = completer;
+    worker.requests.send(
+        [id, columns.toMessage(), aggregationMethod.index, from, to]);
+    return StatisticsSeries.resolve(columns, await completer.future);
+  }
+
+  /// Stops the workers. Requests still running fail.
+  Future<void> close() async {
+    for (final worker in _workers) {
+      (await worker).isolate.kill(priority: Isolate.immediate);
+    }
+    _workers.clear();
+    _replies.close();
+    for (final completer in _pending.values) {
+      completer.completeError(StateError('The statistics pool was closed'));
+    }
+    _pending.clear();
+    if (identical(_instance, this)) _instance = null;
+  }
+
+  Future<_Worker> _worker(int index) {
+    if (index < _workers.length) return _workers[index];
+    final worker = _Worker.start(_replies.sendPort, index);
+    _workers.add(worker);
+    return worker;
+  }
+
+  void _onReply(dynamic message) {
+    final reply = message as List<Object?>;
+    final completer = _pending.remove(reply[0] as int);
+    if (completer == null) return;
+    if (reply[1] == 'error') {
+      completer.completeError(
+          RemoteError(reply[2] as String, reply[3] as String));
+    } else {
+      completer.complete(reply[1] as StatisticsTotals);
+    }
+  }
+}
+
+class _Worker {
+  final Isolate isolate;
+  final SendPort requests;
+
+  _Worker(this.isolate, this.requests);
+
+  static Future<_Worker> start(SendPort replies, int index) async {
+    final ready = ReceivePort();
+    final isolate = await Isolate.spawn(
+      _workerMain,
+      [ready.sendPort, replies],
+      debugName: 'StatisticsWorker$index',
+    );
+    final requests = await ready.first as SendPort;
+    return _Worker(isolate, requests);
+  }
+}
+
+void _workerMain(List<Object?> args) {
+  tz_data.initializeTimeZones();
+  final requests = ReceivePort();
+  (args[0] as SendPort).send(requests.sendPort);
+  final replies = args[1] as SendPort;
+
+  requests.listen((message) {
+    final request = message as List<Object?>;
+    final id = request[0] as int;
+    try {
+      final totals = computeStatisticsTotals(
+        StatisticsColumns.fromMessage(request[1] as List<Object?>),
+        AggregationMethod.values[request[2] as int],
+        request[3] as DateTime,
+        request[4] as DateTime,
+      );
+      replies.send([id, totals]);
+    } catch (e, st) {
+      replies.send([id, 'error', e.toString(), st.toString()]);
+    }
+  });
+}
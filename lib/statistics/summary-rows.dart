@@ -39,6 +39,10 @@ abstract class SummaryRow extends StatelessWidget {
   final double? signedValue;
   final double? signedOriginalValue;
 
+  /// Reads the records behind the row when [records] are daily totals
+  /// rather than records, before the row opens them.
+  final Future<List<Record?>> Function()? loadRecords;
+
   const SummaryRow({
     Key? key,
     required this.label,
@@ -57,6 +61,7 @@ abstract class SummaryRow extends StatelessWidget {
     this.originalCurrency,
     this.signedValue,
     this.signedOriginalValue,
+    this.loadRecords,
   }) : super(key: key);
 
   @override
@@ -171,6 +176,10 @@ abstract class SummaryRow extends StatelessWidget {
 
   /// Called when the row is tapped. Must be implemented by subclasses.
   void onTap(BuildContext context);
+
+  /// The records the row opens: [records], or those [loadRecords] reads.
+  Future<List<Record?>> recordsToOpen() async =>
+      loadRecords != null ? await loadRecords!() : records;
 }
 
 /// Widget that displays a row for a single category in the summary list.
@@ -191,6 +200,7 @@ class CategorySummaryRow extends SummaryRow {
     String? currency,
     double originalValue = 0.0,
     String? originalCurrency,
+    Future<List<Record?>> Function()? loadRecords,
   }) : super(
           key: key,
           label: category.name!,
@@ -205,6 +215,7 @@ class CategorySummaryRow extends SummaryRow {
           currency: currency,
           originalValue: originalValue,
           originalCurrency: originalCurrency,
+          loadRecords: loadRecords,
         );
 
   @override
@@ -218,7 +229,9 @@ class CategorySummaryRow extends SummaryRow {
   }
 
   @override
-  void onTap(BuildContext context) {
+  Future<void> onTap(BuildContext context) async {
+    final records = await recordsToOpen();
+    if (!context.mounted) return;
     final categoryRecords = records
         .where((element) => element?.category?.name == category.name)
         .toList();
@@ -283,6 +296,7 @@ class TagSummaryRow extends SummaryRow {
     String? originalCurrency,
     double? signedValue,
     double? signedOriginalValue,
+    Future<List<Record?>> Function()? loadRecords,
   }) : super(
           key: key,
           label: tag,
@@ -299,6 +313,7 @@ class TagSummaryRow extends SummaryRow {
           originalCurrency: originalCurrency,
           signedValue: signedValue,
           signedOriginalValue: signedOriginalValue,
+          loadRecords: loadRecords,
         );
 
   @override
@@ -315,7 +330,9 @@ class TagSummaryRow extends SummaryRow {
   }
 
   @override
-  void onTap(BuildContext context) {
+  Future<void> onTap(BuildContext context) async {
+    final records = await recordsToOpen();
+    if (!context.mounted) return;
     final tagRecords = records
         .where((element) => element?.tags.contains(label) ?? false)
         .toList();
@@ -431,6 +448,7 @@ class WalletSummaryRow extends SummaryRow {
     String? originalCurrency,
     double? signedValue,
     double? signedOriginalValue,
+    Future<List<Record?>> Function()? loadRecords,
   }) : super(
           key: key,
           label: wallet.name,
@@ -447,6 +465,7 @@ class WalletSummaryRow extends SummaryRow {
           originalCurrency: originalCurrency,
           signedValue: signedValue,
           signedOriginalValue: signedOriginalValue,
+          loadRecords: loadRecords,
         );
 
   @override
@@ -459,7 +478,9 @@ class WalletSummaryRow extends SummaryRow {
   }
 
   @override
-  void onTap(BuildContext context) {
+  Future<void> onTap(BuildContext context) async {
+    final records = await recordsToOpen();
+    if (!context.mounted) return;
     final walletRecords =
         records.where((element) => element?.walletId == wallet.id).toList();
 
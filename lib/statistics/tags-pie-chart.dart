@@ -3,6 +3,7 @@ import 'package:piggybank/models/record.dart';
 import 'package:community_charts_flutter/community_charts_flutter.dart'
     as charts;
 import 'package:piggybank/i18n.dart';
+import 'package:piggybank/statistics/statistics-columns.dart';
 import 'package:piggybank/statistics/statistics-utils.dart';
 
 import '../services/service-config.dart';
@@ -22,10 +23,14 @@ class TagsPieChart extends StatefulWidget {
   final String? selectedTag;
   final Map<int, String?> walletCurrencyMap;
 
+  /// Statistics of [records] computed off the UI isolate, if any.
+  final StatisticsSeries? series;
+
   TagsPieChart(this.records,
       {this.onSelectionChanged,
       this.selectedTag,
-      this.walletCurrencyMap = const {}});
+      this.walletCurrencyMap = const {},
+      this.series});
 
   @override
   _TagsPieChartState createState() => _TagsPieChartState();
@@ -54,7 +59,8 @@ class _TagsPieChartState extends State<TagsPieChart> {
   @override
   void didUpdateWidget(TagsPieChart oldWidget) {
     super.didUpdateWidget(oldWidget);
-    if (widget.records != oldWidget.records) {
+    if (widget.records != oldWidget.records ||
+        widget.series != oldWidget.series) {
       _animate = true;
       _initializeData();
     } else if (widget.selectedTag != oldWidget.selectedTag) {
@@ -98,8 +104,8 @@ class _TagsPieChartState extends State<TagsPieChart> {
     linearRecords = _preparedData;
   }
 
-  TagChartData _prepareData(List<Record?> records) {
-    Map<String, double> aggregatedTagsValuesTemporaryMap = {};
+  Map<String, double> _sumByTag(List<Record?> records) {
+    Map<String, double> sums = {};
 
     // Keep real (signed) values while aggregating; magnitudes are only used
     // for the sorting and percentage representation below.
@@ -108,7 +114,7 @@ class _TagsPieChartState extends State<TagsPieChart> {
         final value =
             getRecordValueInDefaultCurrency(record, widget.walletCurrencyMap);
         for (var tag in record.tags) {
-          aggregatedTagsValuesTemporaryMap.update(
+          sums.update(
             tag,
             (current) => current + value,
             ifAbsent: () => value,
@@ -116,6 +122,12 @@ class _TagsPieChartState extends State<TagsPieChart> {
         }
       }
     }
+    return sums;
+  }
+
+  TagChartData _prepareData(List<Record?> records) {
+    Map<String, double> aggregatedTagsValuesTemporaryMap =
+        widget.series?.byTag ?? _sumByTag(records);
     final totalSum = aggregatedTagsValuesTemporaryMap.values
         .fold<double>(0.0, (sum, value) => sum + value.abs());
 
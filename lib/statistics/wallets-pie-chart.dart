@@ -4,6 +4,7 @@ import 'package:piggybank/models/wallet.dart';
 import 'package:community_charts_flutter/community_charts_flutter.dart'
     as charts;
 import 'package:piggybank/i18n.dart';
+import 'package:piggybank/statistics/statistics-columns.dart';
 import 'package:piggybank/statistics/statistics-utils.dart';
 
 import '../services/service-config.dart';
@@ -25,11 +26,15 @@ class WalletsPieChart extends StatefulWidget {
   final String? selectedWalletId;
   final Map<int, String?> walletCurrencyMap;
 
+  /// Statistics of [records] computed off the UI isolate, if any.
+  final StatisticsSeries? series;
+
   WalletsPieChart(this.records,
       {this.walletMap = const {},
       this.onSelectionChanged,
       this.selectedWalletId,
-      this.walletCurrencyMap = const {}});
+      this.walletCurrencyMap = const {},
+      this.series});
 
   @override
   _WalletsPieChartState createState() => _WalletsPieChartState();
@@ -59,6 +64,7 @@ class _WalletsPieChartState extends State<WalletsPieChart> {
   void didUpdateWidget(WalletsPieChart oldWidget) {
     super.didUpdateWidget(oldWidget);
     if (widget.records != oldWidget.records ||
+        widget.series != oldWidget.series ||
         widget.walletMap != oldWidget.walletMap) {
       _animate = true;
       _initializeData();
@@ -108,8 +114,8 @@ class _WalletsPieChartState extends State<WalletsPieChart> {
     linearRecords = _preparedData;
   }
 
-  WalletChartData _prepareData(List<Record?> records) {
-    Map<int, double> aggregatedWalletsValuesTemporaryMap = {};
+  Map<int, double> _sumByWallet(List<Record?> records) {
+    Map<int, double> sums = {};
 
     // Keep real (signed) values while aggregating; magnitudes are only used
     // for the sorting and percentage representation below.
@@ -117,13 +123,19 @@ class _WalletsPieChartState extends State<WalletsPieChart> {
       if (record != null && record.walletId != null) {
         final value =
             getRecordValueInDefaultCurrency(record, widget.walletCurrencyMap);
-        aggregatedWalletsValuesTemporaryMap.update(
+        sums.update(
           record.walletId!,
           (current) => current + value,
           ifAbsent: () => value,
         );
       }
     }
+    return sums;
+  }
+
+  WalletChartData _prepareData(List<Record?> records) {
+    Map<int, double> aggregatedWalletsValuesTemporaryMap =
+        widget.series?.byWallet ?? _sumByWallet(records);
     final totalSum = aggregatedWalletsValuesTemporaryMap.values
         .fold<double>(0.0, (sum, value) => sum + value.abs());
 
@@ -1,9 +1,12 @@
+import 'dart:async';
+
 import 'package:flutter/material.dart';
 import 'package:piggybank/helpers/records-utility-functions.dart';
 import 'package:piggybank/i18n.dart';
 import 'package:piggybank/models/wallet.dart';
 import 'package:piggybank/premium/splash-screen.dart';
 import 'package:piggybank/premium/util-widgets.dart';
+import 'package:piggybank/services/database/database-change.dart';
 import 'package:piggybank/services/database/database-interface.dart';
 import 'package:piggybank/services/profile-service.dart';
 import 'package:piggybank/services/service-config.dart';
@@ -22,7 +25,7 @@ class WalletsTabPage extends StatefulWidget {
 }
 
 class WalletsTabPageState extends State<WalletsTabPage> {
-  DatabaseInterface database = ServiceConfig.database;
+  DatabaseInterface database = ServiceConfig.cachedDatabase;
   List<Wallet>? _wallets;
   List<Wallet> _selectedWallets = [];
   bool _walletPrefsLoaded = false;
@@ -39,12 +42,30 @@ class WalletsTabPageState extends State<WalletsTabPage> {
   // Holds the pending reordered list while the user drags (before pressing OK).
   List<Wallet>? _pendingOrderWallets;
 
+  // Whether wallets or their records changed since the wallets were loaded,
+  // and for which profile they were loaded. Tab changes reload only then.
+  late final StreamSubscription<DatabaseChange> _changes;
+  bool _stale = false;
+  int? _loadedProfileId;
+
   @override
   void initState() {
     super.initState();
+    _changes = ServiceConfig.cachedDatabase.changes.listen((change) {
+      if (change.touches(DatabaseEntity.wallets) ||
+          change.touches(DatabaseEntity.records)) {
+        _stale = true;
+      }
+    });
     _loadWallets().then((_) => _initializeSortPreference());
   }
 
+  @override
+  void dispose() {
+    _changes.cancel();
+    super.dispose();
+  }
+
   Future<void> _initializeSortPreference() async {
     final key = PreferencesKeys.walletListSortOption;
     if (ServiceConfig.sharedPreferences!.containsKey(key)) {
@@ -70,6 +91,8 @@ class WalletsTabPageState extends State<WalletsTabPage> {
   }
 
   Future<void> _loadWallets() async {
+    _stale = false;
+    _loadedProfileId = ProfileService.instance.activeProfileId;
     final wallets = await database.getAllWallets(
         profileId: ProfileService.instance.activeProfileId);
     final allNonArchived = wallets.where((w) => !w.isArchived).toList();
@@ -108,6 +131,10 @@ class WalletsTabPageState extends State<WalletsTabPage> {
   }
 
   Future<void> onTabChange() async {
+    if (!_stale &&
+        _loadedProfileId == ProfileService.instance.activeProfileId) {
+      return;
+    }
     await _loadWallets();
   }
 
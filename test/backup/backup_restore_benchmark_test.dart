@@ -0,0 +1,134 @@
+import 'dart:convert';
+import 'dart:io';
+
+import 'package:flutter/material.dart';
+import 'package:flutter/services.dart';
+import 'package:flutter_test/flutter_test.dart';
+import 'package:piggybank/models/backup-import-progress.dart';
+import 'package:piggybank/models/category-type.dart';
+import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/record.dart';
+import 'package:piggybank/services/backup-service.dart';
+import 'package:piggybank/services/service-config.dart';
+import 'package:shared_preferences/shared_preferences.dart';
+import 'package:sqflite_common_ffi/sqflite_ffi.dart';
+import 'package:test/test.dart' as testlib;
+import 'package:timezone/data/latest_all.dart' as tz;
+
+import '../helpers/test_database.dart';
+
+/// Times a backup and restore of a large database. Skipped unless
+/// BACKUP_BENCHMARK_RECORDS lists the database sizes to try, e.g.
+///
+///     BACKUP_BENCHMARK_RECORDS=100000,1000000 \
+///         flutter test test/backup/backup_restore_benchmark_test.dart
+///
+/// Each size prints one JSON line with the timings.
+void main() {
+  final sizes = (Platform.environment['BACKUP_BENCHMARK_RECORDS'] ?? '')
+      .split(',')
+      .map((size) => int.tryParse(size.trim()))
+      .whereType<int>()
+      .toList();
+  late Directory testDir;
+
+  final categories = [
+    Category("Rent", categoryType: CategoryType.expense, color: Colors.blue),
+    Category("Food", categoryType: CategoryType.expense, color: Colors.red),
+    Category("Salary", categoryType: CategoryType.income, color: Colors.green),
+  ];
+
+  setUpAll(() {
+    TestWidgetsFlutterBinding.ensureInitialized();
+    sqfliteFfiInit();
+    databaseFactory = databaseFactoryFfi;
+    tz.initializeTimeZones();
+    ServiceConfig.localTimezone = 'UTC';
+
+    const packageInfoChannel =
+        MethodChannel('dev.fluttercommunity.plus/package_info');
+    TestDefaultBinaryMessengerBinding.instance.defaultBinaryMessenger
+        .setMockMethodCallHandler(packageInfoChannel, (call) async {
+      if (call.method == 'getAll') {
+        return <String, dynamic>{
+          'appName': 'test',
+          'packageName': 'com.example.oinkoin',
+          'version': '1.0.0',
+          'buildNumber': '1',
+        };
+      }
+      return null;
+    });
+
+    SharedPreferences.setMockInitialValues(<String, Object>{});
+    testDir = Directory('test/temp_backup_benchmark');
+  });
+
+  tearDownAll(() async {
+    if (await testDir.exists()) {
+      await testDir.delete(recursive: true);
+    }
+  });
+
+  for (final size in sizes.isEmpty ? [100000] : sizes) {
+    testlib.test(
+      'backup and restore of $size records',
+      skip: sizes.isEmpty ? 'Set BACKUP_BENCHMARK_RECORDS to run' : false,
+      timeout: testlib.Timeout.none,
+      () async {
+        await testDir.create(recursive: true);
+        await TestDatabaseHelper.setupTestDatabase();
+        final source = ServiceConfig.database;
+        for (final category in categories) {
+          await source.addCategory(category);
+        }
+        const batchSize = 10000;
+        final start = DateTime.utc(2015, 1, 1);
+        for (var first = 0; first < size; first += batchSize) {
+          await source.addRecordsInBatchNoDuplicateCheck([
+            for (var i = first; i < first + batchSize && i < size; i++)
+              Record(
+                i % 3 == 2 ? 1500.0 : -(i % 97) - 0.5,
+                'Record $i',
+                categories[i % 3],
+                start.add(Duration(minutes: 7 * i)),
+                tags: i % 4 == 0 ? {'tag${i % 50}', 'weekly'} : <String>{},
+              ),
+          ]);
+        }
+
+        BackupService.database = source;
+        final backupWatch = Stopwatch()..start();
+        final backupFile = await BackupService.createJsonBackupFile(
+          directoryPath: testDir.path,
+          backupFileName: 'benchmark_$size.obackup.json',
+          encryptionPassword: 'benchmark',
+        );
+        backupWatch.stop();
+
+        await TestDatabaseHelper.setupTestDatabase();
+        BackupService.database = ServiceConfig.database;
+        BackupImportProgress? last;
+        final restoreWatch = Stopwatch()..start();
+        final restored = await BackupService.importDataFromBackupFile(
+          backupFile,
+          encryptionPassword: 'benchmark',
+          onProgress: (progress) => last = progress,
+        );
+        restoreWatch.stop();
+
+        expect(restored, isTrue);
+        expect(last!.recordsDone, size);
+        print(jsonEncode({
+          'benchmark': 'backup_restore',
+          'records': size,
+          'file_bytes': await backupFile.length(),
+          'backup_ms': backupWatch.elapsedMilliseconds,
+          'restore_ms': restoreWatch.elapsedMilliseconds,
+          'restore_records_per_second': last!.recordsPerSecond.round(),
+        }));
+        await backupFile.delete();
+      },
+    );
+  }
+}
@@ -5,6 +5,7 @@ import 'package:flutter/services.dart';
 import 'package:flutter_test/flutter_test.dart';
 import 'package:mockito/annotations.dart';
 import 'package:mockito/mockito.dart';
+import 'package:piggybank/models/backup-import-progress.dart';
 import 'package:piggybank/models/budget-type.dart';
 import 'package:piggybank/models/budget.dart';
 import 'package:piggybank/models/category-type.dart';
@@ -23,6 +24,7 @@ import 'package:piggybank/settings/constants/preferences-keys.dart';
 import 'package:shared_preferences/shared_preferences.dart';
 import 'package:test/test.dart' as testlib;
 
+import '../helpers/backup_pages.dart';
 import './backup_service_test.mocks.dart';
 
 @GenerateMocks([DatabaseInterface])
@@ -139,12 +141,14 @@ void main() {
       ),
     ];
 
-    when(mockDatabase.getAllRecords()).thenAnswer((_) async => records);
+    stubBackupPages(
+      mockDatabase,
+      records: () => records,
+      associations: () => recordTagAssociations,
+    );
     when(mockDatabase.getAllCategories()).thenAnswer((_) async => categories);
     when(mockDatabase.getRecurrentRecordPatterns())
         .thenAnswer((_) async => recurrentPatterns);
-    when(mockDatabase.getAllRecordTagAssociations())
-        .thenAnswer((_) async => recordTagAssociations);
     when(mockDatabase.getBudgets()).thenAnswer((_) async => budgets);
     when(mockDatabase.getAllWallets()).thenAnswer((_) async => []);
     when(mockDatabase.addWallet(any)).thenAnswer((_) async => 1);
@@ -505,6 +509,55 @@ void main() {
     expect(() => jsonDecode(backupContent), throwsFormatException);
   });
 
+  testlib.test(
+    'createJsonBackupFile streams several pages that decryptData reads back',
+    () async {
+      final originalRecords = records;
+      final originalAssociations = recordTagAssociations;
+      final count = BackupService.BACKUP_PAGE_SIZE * 2 + 17;
+      records = List.generate(
+        count,
+        (i) => Record(
+          -1.5 * i,
+          'Record $i',
+          categories[i % categories.length],
+          DateTime.utc(2020, 1, 1).add(Duration(minutes: i)),
+          id: i + 1,
+        ),
+      );
+      recordTagAssociations = [
+        for (var i = 1; i <= count; i++) ...[
+          RecordTagAssociation(recordId: i, tagName: 'a'),
+          RecordTagAssociation(recordId: i, tagName: 'b'),
+        ],
+      ];
+
+      try {
+        const encryptionPassword = 'testpassword';
+        final backupFile = await BackupService.createJsonBackupFile(
+          directoryPath: testDir.path,
+          encryptionPassword: encryptionPassword,
+        );
+        final backupMap = jsonDecode(
+          BackupService.decryptData(
+            await backupFile.readAsString(),
+            encryptionPassword,
+          ),
+        );
+
+        expect(backupMap['records'].length, count);
+        expect(backupMap['records'].first, records.first!.toMap());
+        expect(backupMap['records'].last, records.last!.toMap());
+        expect(backupMap['record_tag_associations'].length, count * 2);
+        expect(backupMap['categories'].length, categories.length);
+        expect(await File('${backupFile.path}.part').exists(), isFalse);
+      } finally {
+        records = originalRecords;
+        recordTagAssociations = originalAssociations;
+      }
+    },
+  );
+
   testlib.test(
     'importDataFromBackupFile imports data from a backup file including tags',
     () async {
@@ -610,6 +663,181 @@ void main() {
     },
   );
 
+  testlib.test(
+    'importDataFromBackupFile writes records in chunks and reports progress',
+    () async {
+      final originalRecords = records;
+      final originalAssociations = recordTagAssociations;
+      const chunk = BackupService.BACKUP_IMPORT_CHUNK_SIZE;
+      final count = chunk * 2 + 17;
+      records = List.generate(
+        count,
+        (i) => Record(
+          -1.5 * i,
+          'Record $i',
+          categories[i % categories.length],
+          DateTime.utc(2020, 1, 1).add(Duration(minutes: i)),
+          id: i + 1,
+        ),
+      );
+      recordTagAssociations = [
+        for (var i = 1; i <= count; i += 2)
+          RecordTagAssociation(recordId: i, tagName: 'odd'),
+      ];
+      final chunks = <List<Record?>>[];
+      final progress = <BackupImportProgress>[];
+      when(mockDatabase.addRecordsInBatch(any))
+          .thenAnswer((Invocation invocation) async {
+            chunks.add(invocation.positionalArguments[0]);
+          });
+
+      try {
+        const encryptionPassword = 'testpassword';
+        final backupFile = await BackupService.createJsonBackupFile(
+          directoryPath: testDir.path,
+          encryptionPassword: encryptionPassword,
+        );
+        final result = await BackupService.importDataFromBackupFile(
+          backupFile,
+          encryptionPassword: encryptionPassword,
+          onProgress: progress.add,
+        );
+
+        expect(result, isTrue);
+        expect(chunks.map((records) => records.length), [chunk, chunk, 17]);
+        final imported = chunks.expand((records) => records).toList();
+        expect(
+            imported.map((r) => r!.id), [for (var i = 1; i <= count; i++) i]);
+        expect(imported.first!.tags, {'odd'});
+        expect(imported[1]!.tags, isEmpty);
+        expect(imported.last!.title, 'Record ${count - 1}');
+
+        expect(progress.map((p) => p.recordsDone),
+            [0, chunk, chunk * 2, count]);
+        expect(progress.every((p) => p.totalRecords == count), isTrue);
+        expect(progress.last.fraction, 1.0);
+      } finally {
+        records = originalRecords;
+        recordTagAssociations = originalAssociations;
+        when(mockDatabase.addRecordsInBatch(any)).thenAnswer((_) async {});
+        clearInteractions(mockDatabase);
+      }
+    },
+  );
+
+  testlib.test(
+    'importDataFromBackupFile resumes an interrupted import of the same file',
+    () async {
+      final originalRecords = records;
+      const chunk = BackupService.BACKUP_IMPORT_CHUNK_SIZE;
+      final count = chunk * 3;
+      records = List.generate(
+        count,
+        (i) => Record(
+          -1.0,
+          'Record $i',
+          categories[0],
+          DateTime.utc(2020, 1, 1).add(Duration(minutes: i)),
+          id: i + 1,
+        ),
+      );
+      final imported = <Record?>[];
+      var failOnChunk = 2;
+      when(mockDatabase.addRecordsInBatch(any))
+          .thenAnswer((Invocation invocation) async {
+            if (--failOnChunk == 0) throw Exception('Disk full');
+            imported.addAll(invocation.positionalArguments[0]);
+          });
+
+      try {
+        final backupFile = await BackupService.createJsonBackupFile(
+          directoryPath: testDir.path,
+        );
+        expect(await BackupService.importDataFromBackupFile(backupFile),
+            isFalse);
+        expect(imported, hasLength(chunk));
+        clearInteractions(mockDatabase);
+
+        final progress = <BackupImportProgress>[];
+        expect(
+          await BackupService.importDataFromBackupFile(backupFile,
+              onProgress: progress.add),
+          isTrue,
+        );
+        // The second attempt starts with the chunk that failed, and does not
+        // add the profiles and wallets again.
+        expect(
+            imported.map((r) => r!.id), [for (var i = 1; i <= count; i++) i]);
+        expect(progress.first.recordsDone, chunk);
+        verifyNever(mockDatabase.getDefaultProfile());
+
+        // A completed import leaves no checkpoint behind.
+        imported.clear();
+        expect(await BackupService.importDataFromBackupFile(backupFile),
+            isTrue);
+        expect(imported, hasLength(count));
+      } finally {
+        records = originalRecords;
+        when(mockDatabase.addRecordsInBatch(any)).thenAnswer((_) async {});
+        clearInteractions(mockDatabase);
+      }
+    },
+  );
+
+  testlib.test(
+    'importDataFromBackupFile reads records listed before their categories',
+    () async {
+      final capturedRecords = <Record?>[];
+      when(mockDatabase.addRecordsInBatch(any))
+          .thenAnswer((Invocation invocation) async {
+            capturedRecords.addAll(invocation.positionalArguments[0]);
+          });
+      final backupFile = File('${testDir.path}/records_first.json');
+      await testDir.create(recursive: true);
+      // Hand-written backups and old exports may order the keys freely.
+      await backupFile.writeAsString('''
+{
+  "record_tag_associations": [{"record_id": 1, "tag_name": "rent"}],
+  "records": [
+    ${jsonEncode(records[0]!.toMap())},
+    ${jsonEncode(records[2]!.toMap())}
+  ],
+  "categories": ${jsonEncode(categories.map((c) => c!.toMap()).toList())}
+}
+''');
+
+      try {
+        expect(await BackupService.isEncrypted(backupFile), isFalse);
+        expect(await BackupService.importDataFromBackupFile(backupFile),
+            isTrue);
+        expect(capturedRecords.map((r) => r!.title), ['April Rent', 'Pizza']);
+        expect(capturedRecords.first!.tags, {'rent'});
+        expect(capturedRecords.last!.category!.name, 'Food');
+      } finally {
+        when(mockDatabase.addRecordsInBatch(any)).thenAnswer((_) async {});
+        clearInteractions(mockDatabase);
+      }
+    },
+  );
+
+  testlib.test(
+    'importDataFromBackupFile rejects a record of an unknown category before writing',
+    () async {
+      final backupFile = File('${testDir.path}/unknown_category.json');
+      await testDir.create(recursive: true);
+      await backupFile.writeAsString(jsonEncode({
+        'records': [records[0]!.toMap()],
+        'categories': [],
+      }));
+
+      expect(await BackupService.importDataFromBackupFile(backupFile),
+          isFalse);
+      verifyNever(mockDatabase.getDefaultProfile());
+      verifyNever(mockDatabase.addRecordsInBatch(any));
+      clearInteractions(mockDatabase);
+    },
+  );
+
   testlib.test('removeOldBackups removes files older than one week', () async {
     // Create test files
     final now = DateTime.now();
@@ -12,6 +12,7 @@ import 'package:piggybank/services/backup-service.dart';
 import 'package:piggybank/services/database/database-interface.dart';
 import 'package:test/test.dart' as testlib;
 
+import '../helpers/backup_pages.dart';
 import 'backup_service_test.mocks.dart';
 
 /// Test to verify the fix for the user's issue with messed-up labels/tags during import
@@ -130,11 +131,13 @@ void main() {
 
     final capturedRecords = <Record?>[];
 
-    when(mockDatabase.getAllRecords()).thenAnswer((_) async => records);
+    stubBackupPages(
+      mockDatabase,
+      records: () => records,
+      associations: () => recordTagAssociations,
+    );
     when(mockDatabase.getAllCategories()).thenAnswer((_) async => categories);
     when(mockDatabase.getRecurrentRecordPatterns()).thenAnswer((_) async => []);
-    when(mockDatabase.getAllRecordTagAssociations())
-        .thenAnswer((_) async => recordTagAssociations);
     when(mockDatabase.getAllWallets()).thenAnswer((_) async => []);
     when(mockDatabase.addWallet(any)).thenAnswer((_) async => 1);
     when(mockDatabase.getDefaultWallet()).thenAnswer((_) async => null);
@@ -252,12 +255,14 @@ void main() {
 
       final capturedRecords = <Record?>[];
 
-      when(mockDatabase.getAllRecords()).thenAnswer((_) async => records);
+      stubBackupPages(
+        mockDatabase,
+        records: () => records,
+        associations: () => recordTagAssociations,
+      );
       when(mockDatabase.getAllCategories()).thenAnswer((_) async => categories);
       when(mockDatabase.getRecurrentRecordPatterns())
           .thenAnswer((_) async => []);
-      when(mockDatabase.getAllRecordTagAssociations())
-          .thenAnswer((_) async => recordTagAssociations);
       when(mockDatabase.getAllWallets()).thenAnswer((_) async => []);
       when(mockDatabase.addWallet(any)).thenAnswer((_) async => 1);
       when(mockDatabase.getDefaultWallet()).thenAnswer((_) async => null);
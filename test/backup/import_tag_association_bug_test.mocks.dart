@@ -231,6 +231,16 @@ class MockDatabaseInterface extends _i1.Mock implements _i2.DatabaseInterface {
         returnValue: _i3.Future<List<_i7.Record?>>.value(<_i7.Record?>[]),
       ) as _i3.Future<List<_i7.Record?>>);
 
+  @override
+  _i3.Future<List<_i7.Record>> getRecordsAfterId(
+    int? afterId, {
+    int? limit = 1000,
+  }) =>
+      (super.noSuchMethod(
+        Invocation.method(#getRecordsAfterId, [afterId], {#limit: limit}),
+        returnValue: _i3.Future<List<_i7.Record>>.value(<_i7.Record>[]),
+      ) as _i3.Future<List<_i7.Record>>);
+
   @override
   _i3.Future<int> getCountRecords() => (super.noSuchMethod(
     Invocation.method(#getCountRecords, []),
@@ -251,6 +261,34 @@ class MockDatabaseInterface extends _i1.Mock implements _i2.DatabaseInterface {
     returnValue: _i3.Future<List<_i7.Record?>>.value(<_i7.Record?>[]),
   ) as _i3.Future<List<_i7.Record?>>);
 
+  @override
+  _i3.Future<void> rebuildRecordSummaries() => (super.noSuchMethod(
+    Invocation.method(#rebuildRecordSummaries, []),
+    returnValue: _i3.Future<void>.value(),
+    returnValueForMissingStub: _i3.Future<void>.value(),
+  ) as _i3.Future<void>);
+
+  @override
+  _i3.Future<List<_i7.Record>> searchRecords(
+    String? query, {
+    int? profileId,
+    List<_i5.Category?>? categories,
+    Set<int?>? walletIds,
+    int? limit = 500,
+  }) => (super.noSuchMethod(
+    Invocation.method(
+      #searchRecords,
+      [query],
+      {
+        #profileId: profileId,
+        #categories: categories,
+        #walletIds: walletIds,
+        #limit: limit,
+      },
+    ),
+    returnValue: _i3.Future<List<_i7.Record>>.value(<_i7.Record>[]),
+  ) as _i3.Future<List<_i7.Record>>);
+
   @override
   _i3.Future<_i7.Record?> getMatchingRecord(_i7.Record? record) =>
       (super.noSuchMethod(
@@ -331,6 +369,22 @@ class MockDatabaseInterface extends _i1.Mock implements _i2.DatabaseInterface {
         ),
       ) as _i3.Future<List<_i8.RecordTagAssociation>>);
 
+  @override
+  _i3.Future<List<_i8.RecordTagAssociation>> getRecordTagAssociationsAfter(
+    _i8.RecordTagAssociation? after, {
+    int? limit = 1000,
+  }) =>
+      (super.noSuchMethod(
+        Invocation.method(
+          #getRecordTagAssociationsAfter,
+          [after],
+          {#limit: limit},
+        ),
+        returnValue: _i3.Future<List<_i8.RecordTagAssociation>>.value(
+          <_i8.RecordTagAssociation>[],
+        ),
+      ) as _i3.Future<List<_i8.RecordTagAssociation>>);
+
   @override
   _i3.Future<void> renameTag(String? old, String? newTag) =>
       (super.noSuchMethod(
@@ -13,6 +13,7 @@ import 'package:piggybank/services/backup-service.dart';
 import 'package:piggybank/services/database/database-interface.dart';
 import 'package:test/test.dart' as testlib;
 
+import '../helpers/backup_pages.dart';
 import 'backup_service_test.mocks.dart';
 
 /// This test verifies the backup import functionality with tags.
@@ -286,11 +287,13 @@ void main() {
       return Record.fromMap(row);
     }).toList();
 
-    when(mockDatabase.getAllRecords()).thenAnswer((_) async => records);
+    stubBackupPages(
+      mockDatabase,
+      records: () => records,
+      associations: () => originalAssociations,
+    );
     when(mockDatabase.getAllCategories()).thenAnswer((_) async => categories);
     when(mockDatabase.getRecurrentRecordPatterns()).thenAnswer((_) async => []);
-    when(mockDatabase.getAllRecordTagAssociations())
-        .thenAnswer((_) async => originalAssociations);
     when(mockDatabase.getAllWallets()).thenAnswer((_) async => []);
     when(mockDatabase.addWallet(any)).thenAnswer((_) async => 1);
     when(mockDatabase.getDefaultWallet()).thenAnswer((_) async => null);
@@ -55,6 +55,46 @@ void main() {
     });
   });
 
+  group('addRecordsInBatch', () {
+    test('skips records already stored, found through their fingerprint',
+        () async {
+      final raw = await TestDatabaseHelper.setupTestDatabase();
+      DatabaseInterface db = ServiceConfig.database;
+      final walletId = await db.addWallet(Wallet('Test Wallet'));
+      await db.addCategory(testCategory);
+      final when = DateTime.utc(2025, 1, 1, 12);
+      Record lunch({String? description}) => Record(
+          -10.0, 'Lunch', testCategory, when,
+          walletId: walletId, description: description);
+      // Written without a fingerprint, as by code that inserts directly.
+      await raw.rawInsert(
+        "INSERT INTO records (title, value, datetime, timezone, category_name, category_type, wallet_id) VALUES ('Lunch', -10.0, ?, 'UTC', 'Food', 0, ?)",
+        [when.millisecondsSinceEpoch, walletId],
+      );
+
+      expect(await db.getMatchingRecord(lunch()), isNotNull);
+      await db.addRecordsInBatch([lunch(), lunch(description: 'Other')]);
+
+      final records = await db.getAllRecords();
+      expect(records.map((r) => r!.description),
+          unorderedEquals([null, 'Other']));
+    });
+
+    test('keeps identical records of the same batch apart from stored ones',
+        () async {
+      DatabaseInterface db = ServiceConfig.database;
+      final when = DateTime.utc(2025, 1, 1, 12);
+      await db.addRecordsInBatchNoDuplicateCheck([
+        Record(-10.0, 'Lunch', testCategory, when),
+        Record(-10.0, 'Lunch', testCategory, when),
+      ]);
+
+      await db.addRecordsInBatch([Record(-10.0, 'Lunch', testCategory, when)]);
+
+      expect(await db.getAllRecords(), hasLength(2));
+    });
+  });
+
   group('deleteRecordsInBatch', () {
     test('deletes all specified records', () async {
       DatabaseInterface db = ServiceConfig.database;
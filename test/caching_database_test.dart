@@ -0,0 +1,196 @@
+import 'package:flutter/material.dart';
+import 'package:flutter_test/flutter_test.dart';
+import 'package:piggybank/models/category-type.dart';
+import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/record.dart';
+import 'package:piggybank/models/wallet.dart';
+import 'package:piggybank/services/database/caching-database.dart';
+import 'package:piggybank/services/database/database-change.dart';
+import 'package:piggybank/services/database/sqlite-database.dart';
+import 'package:piggybank/services/service-config.dart';
+import 'package:sqflite_common_ffi/sqflite_ffi.dart';
+import 'package:timezone/data/latest_all.dart' as tz;
+
+import 'helpers/test_database.dart';
+
+void main() {
+  final food = Category(
+    "Food",
+    iconCodePoint: 1,
+    categoryType: CategoryType.expense,
+    color: Colors.orange,
+  );
+
+  late Database rawDb;
+  late CachingDatabase db;
+
+  setUpAll(() {
+    TestWidgetsFlutterBinding.ensureInitialized();
+    sqfliteFfiInit();
+    databaseFactory = databaseFactoryFfi;
+    tz.initializeTimeZones();
+    ServiceConfig.localTimezone = "Europe/Vienna";
+  });
+
+  setUp(() async {
+    rawDb = await TestDatabaseHelper.setupTestDatabase();
+    db = CachingDatabase(SqliteDatabase.instance, SqliteDatabase.changes);
+    await db.addCategory(food);
+  });
+
+  tearDown(() => db.dispose());
+
+  Record lunch(DateTime dateTime) =>
+      Record(-12.0, "Lunch", food, dateTime, walletId: 1);
+
+  /// Inserts a record behind the cache's back, so that a read only sees it
+  /// when it goes to the database.
+  Future<void> insertUnnoticed(DateTime dateTime) async {
+    await rawDb.rawInsert("""
+      INSERT INTO records (title, value, datetime, timezone, category_name, category_type, wallet_id)
+      VALUES ('Unnoticed', -1.0, ?, 'UTC', 'Food', 0, 1)
+    """, [dateTime.millisecondsSinceEpoch]);
+  }
+
+  final january = (DateTime(2024, 1, 1), DateTime(2024, 1, 31, 23, 59));
+  final march = (DateTime(2024, 3, 1), DateTime(2024, 3, 31, 23, 59));
+
+  Future<int> countIn((DateTime, DateTime) interval) async =>
+      (await db.getAllRecordsInInterval(interval.$1, interval.$2)).length;
+
+  test('repeated reads are served from memory', () async {
+    await db.addRecord(lunch(DateTime.utc(2024, 1, 10, 12)));
+    expect(await countIn(january), 1);
+    expect(await db.getCountRecords(), 1);
+
+    await insertUnnoticed(DateTime.utc(2024, 1, 11, 12));
+
+    expect(await countIn(january), 1);
+    expect(await db.getCountRecords(), 1);
+  });
+
+  test('a write drops the intervals it touches and keeps the others',
+      () async {
+    expect(await countIn(january), 0);
+    expect(await countIn(march), 0);
+    await insertUnnoticed(DateTime.utc(2024, 1, 11, 12));
+
+    await db.addRecord(lunch(DateTime.utc(2024, 3, 10, 12)));
+
+    expect(await countIn(march), 1);
+    expect(await countIn(january), 0, reason: 'January was not touched');
+
+    await db.addRecord(lunch(DateTime.utc(2024, 1, 12, 12)));
+    expect(await countIn(january), 2);
+  });
+
+  test('updates and deletes drop the intervals of the old date', () async {
+    final id = await db.addRecord(lunch(DateTime.utc(2024, 1, 10, 12)));
+    expect(await countIn(january), 1);
+    expect(await countIn(march), 0);
+
+    await db.updateRecordById(id, lunch(DateTime.utc(2024, 3, 10, 12)));
+    expect(await countIn(january), 0);
+    expect(await countIn(march), 1);
+
+    await db.deleteRecordById(id);
+    expect(await countIn(march), 0);
+  });
+
+  test('wallet balances follow record writes', () async {
+    final walletId = await db.addWallet(Wallet('Cash', initialAmount: 100.0));
+    double? balance(List<Wallet> wallets) =>
+        wallets.firstWhere((w) => w.id == walletId).balance;
+    expect(balance(await db.getAllWallets()), closeTo(100.0, 1e-9));
+
+    await db.addRecord(Record(-30.0, "Lunch", food, DateTime.utc(2024, 1, 10),
+        walletId: walletId));
+
+    expect(balance(await db.getAllWallets()), closeTo(70.0, 1e-9));
+  });
+
+  test('callers get copies they can change', () async {
+    final walletId = await db.addWallet(Wallet('Cash', initialAmount: 100.0));
+    await db.addRecord(lunch(DateTime.utc(2024, 1, 10, 12)));
+
+    final wallets = await db.getAllWallets();
+    wallets.firstWhere((w) => w.id == walletId).balance = 0.0;
+    final records = await db.getAllRecords()
+      ..clear();
+
+    expect(records, isEmpty);
+    expect(await db.getAllRecords(), hasLength(1));
+    expect(
+      (await db.getAllWallets()).firstWhere((w) => w.id == walletId).balance,
+      closeTo(100.0, 1e-9),
+    );
+  });
+
+  test('changing a returned record leaves the cached one as it is', () async {
+    final date = DateTime.utc(2024, 1, 10, 12);
+    await db.addRecord(lunch(date)..tags = {'work'});
+
+    final edited = (await db.getAllRecordsInInterval(january.$1, january.$2))
+        .single!
+      ..title = 'Unsaved'
+      ..category = null
+      ..utcDateTime = DateTime.utc(2024, 3, 1)
+      ..tags.add('unsaved');
+    (await db.getAllRecords()).single!.description = 'Unsaved';
+    (await db.getRecordsPageInInterval(january.$1, january.$2))
+        .records
+        .single
+        .value = 0.0;
+
+    final record =
+        (await db.getAllRecordsInInterval(january.$1, january.$2)).single!;
+    expect(edited.title, 'Unsaved');
+    expect(record.title, 'Lunch');
+    expect(record.category?.name, 'Food');
+    expect(record.utcDateTime, date);
+    expect(record.tags, {'work'});
+    expect((await db.getAllRecords()).single!.description, isNull);
+    expect(
+      (await db.getRecordsPageInInterval(january.$1, january.$2))
+          .records
+          .single
+          .value,
+      -12.0,
+    );
+  });
+
+  test('publishes the changes of the writes', () async {
+    final changes = <DatabaseChange>[];
+    final subscription = db.changes.listen(changes.add);
+    addTearDown(subscription.cancel);
+
+    await db.addRecord(lunch(DateTime.utc(2024, 1, 10, 12)));
+    await db.addWallet(Wallet('Cash'));
+
+    expect(changes.map((c) => c.entities), [
+      {DatabaseEntity.records},
+      {DatabaseEntity.wallets},
+    ]);
+    expect(changes.first.from, DateTime.utc(2024, 1, 10, 12));
+    expect(changes.first.touchesRecordsBetween(march.$1, march.$2), isFalse);
+  });
+
+  test('drops the least recently used results beyond its limit', () async {
+    await db.dispose();
+    db = CachingDatabase(SqliteDatabase.instance, SqliteDatabase.changes,
+        maxCachedRows: 2);
+    await db.addRecord(lunch(DateTime.utc(2024, 1, 10, 12)));
+    await db.addRecord(lunch(DateTime.utc(2024, 3, 10, 12)));
+
+    expect(await countIn(january), 1);
+    expect(await countIn(march), 1);
+    expect(await countIn(january), 1);
+    expect(db.cachedResults, 2);
+
+    expect(await db.getAllRecords(), hasLength(2));
+    expect(db.cachedResults, 1);
+
+    await insertUnnoticed(DateTime.utc(2024, 1, 11, 12));
+    expect(await countIn(january), 2, reason: 'January was dropped');
+  });
+}
@@ -0,0 +1,110 @@
+import 'dart:convert';
+import 'dart:io';
+
+import 'package:flutter_test/flutter_test.dart';
+import 'package:piggybank/models/csv_import_mapping.dart';
+import 'package:piggybank/services/csv_import_service.dart';
+import 'package:piggybank/services/service-config.dart';
+import 'package:sqflite_common_ffi/sqflite_ffi.dart';
+import 'package:test/test.dart' as testlib;
+import 'package:timezone/data/latest_all.dart' as tz;
+
+import 'helpers/test_database.dart';
+
+/// Times parsing and importing a large bank export, then importing it again
+/// (every row a duplicate). Skipped unless CSV_BENCHMARK_ROWS lists the file
+/// sizes to try, e.g.
+///
+///     CSV_BENCHMARK_ROWS=100000,500000 \
+///         flutter test test/csv_import_benchmark_test.dart
+///
+/// Each size prints one JSON line with the timings.
+void main() {
+  final sizes = (Platform.environment['CSV_BENCHMARK_ROWS'] ?? '')
+      .split(',')
+      .map((size) => int.tryParse(size.trim()))
+      .whereType<int>()
+      .toList();
+  late Directory testDir;
+
+  setUpAll(() {
+    TestWidgetsFlutterBinding.ensureInitialized();
+    sqfliteFfiInit();
+    databaseFactory = databaseFactoryFfi;
+    tz.initializeTimeZones();
+    ServiceConfig.localTimezone = 'Europe/Vienna';
+    testDir = Directory('test/temp_csv_benchmark');
+  });
+
+  tearDownAll(() async {
+    if (await testDir.exists()) {
+      await testDir.delete(recursive: true);
+    }
+  });
+
+  for (final size in sizes.isEmpty ? [100000] : sizes) {
+    testlib.test(
+      'import of a $size row CSV export',
+      skip: sizes.isEmpty ? 'Set CSV_BENCHMARK_ROWS to run' : false,
+      timeout: testlib.Timeout.none,
+      () async {
+        await testDir.create(recursive: true);
+        await TestDatabaseHelper.setupTestDatabase();
+        final file = File('${testDir.path}/export_$size.csv');
+        final sink = file.openWrite()
+          ..writeln('Booking date;Payee;Purpose;Amount;Account');
+        final start = DateTime(2015, 1, 1);
+        for (int i = 0; i < size; i++) {
+          final date = start.add(Duration(minutes: 37 * i));
+          sink.writeln('${date.day.toString().padLeft(2, '0')}.'
+              '${date.month.toString().padLeft(2, '0')}.${date.year} '
+              '${date.hour.toString().padLeft(2, '0')}:'
+              '${date.minute.toString().padLeft(2, '0')};'
+              '"Payee ${i % 300}";"Invoice $i; ref ${i * 7}";'
+              '${i % 11 == 0 ? '2.500,00' : '-${i % 97},${i % 100}'};'
+              '${i % 3 == 0 ? 'Savings' : 'Checking'}');
+        }
+        await sink.close();
+        final mapping = CsvImportMapping(
+          titleColumn: 'Payee',
+          descriptionColumn: 'Purpose',
+          valueColumn: 'Amount',
+          datetimeColumn: 'Booking date',
+          walletColumn: 'Account',
+        );
+
+        final parseWatch = Stopwatch()..start();
+        final parsed = await CsvImportService.parseCsvFile(file.path);
+        parseWatch.stop();
+
+        final importWatch = Stopwatch()..start();
+        final first = await CsvImportService.importRecords(
+          parsed.rows,
+          mapping,
+          database: ServiceConfig.database,
+        );
+        importWatch.stop();
+
+        final reimportWatch = Stopwatch()..start();
+        final second = await CsvImportService.importRecords(
+          parsed.rows,
+          mapping,
+          database: ServiceConfig.database,
+        );
+        reimportWatch.stop();
+
+        expect(first.imported, size);
+        expect(second.skippedDuplicates, size);
+        print(jsonEncode({
+          'benchmark': 'csv_import',
+          'rows': size,
+          'file_bytes': await file.length(),
+          'parse_ms': parseWatch.elapsedMilliseconds,
+          'import_ms': importWatch.elapsedMilliseconds,
+          'reimport_ms': reimportWatch.elapsedMilliseconds,
+        }));
+        await file.delete();
+      },
+    );
+  }
+}
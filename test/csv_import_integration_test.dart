@@ -114,7 +114,7 @@ void main() {
     expect(values, contains(3000.0));
   });
 
-  test('import same CSV twice creates duplicate records', () async {
+  test('import same CSV twice skips the rows already imported', () async {
     const csv = 'title,amount,date,category\n'
         'Groceries,-45.50,2024-01-15,Food';
 
@@ -130,11 +130,12 @@ void main() {
     expect(
         (await ServiceConfig.database.getAllRecords()).length, 1);
 
-    // Second import — CSV import does not deduplicate, so the row is
-    // imported again as a distinct transaction.
-    await importCsvString(csv, mapping);
+    // Second import — the row is already in the database.
+    final result = await importCsvString(csv, mapping);
+    expect(result.imported, 0);
+    expect(result.skippedDuplicates, 1);
     expect(
-        (await ServiceConfig.database.getAllRecords()).length, 2);
+        (await ServiceConfig.database.getAllRecords()).length, 1);
   });
 
   test('import assigns records to the default wallet', () async {
@@ -417,7 +418,7 @@ void main() {
     expect(myBankWallets.length, 1);
   });
 
-  test('import same CSV twice with wallets creates duplicate records',
+  test('import same CSV twice with wallets skips the rows already imported',
       () async {
     const csv = 'title,amount,date,category,wallet\n'
         'Coffee,-5,2024-06-01,Food,Cash\n'
@@ -437,15 +438,85 @@ void main() {
     expect(
         (await ServiceConfig.database.getAllRecords()).length, 3);
 
-    // Second import — CSV import does not deduplicate, so rows are
-    // imported again as distinct transactions.
-    await importCsvString(csv, mapping);
+    // Second import — every row is already in the database.
+    final result = await importCsvString(csv, mapping);
+    expect(result.skippedDuplicates, 3);
     expect(
-        (await ServiceConfig.database.getAllRecords()).length, 6);
+        (await ServiceConfig.database.getAllRecords()).length, 3);
 
     // Wallets should not be duplicated (they're deduplicated by name)
     final wallets = await ServiceConfig.database.getAllWallets();
     expect(wallets.where((w) => w.name == 'Cash').length, 1);
     expect(wallets.where((w) => w.name == 'Bank').length, 1);
   });
+
+  test('import keeps identical rows of one file and skips them on reimport',
+      () async {
+    const header = 'title,amount,date,category\n';
+    const coffee = 'Coffee,-3,2024-03-01 08:15:00,Food\n';
+    final mapping = CsvImportMapping(
+      titleColumn: 'title',
+      valueColumn: 'amount',
+      datetimeColumn: 'date',
+      categoryColumn: 'category',
+    );
+
+    // Two coffees bought the same minute are two transactions.
+    var result = await importCsvString('$header$coffee$coffee', mapping);
+    expect(result.imported, 2);
+    expect(result.skippedDuplicates, 0);
+
+    // A later export with a third coffee and a tea adds just those two.
+    result = await importCsvString(
+        '$header$coffee$coffee${coffee}Tea,-2,2024-03-01,Food\n', mapping);
+    expect(result.imported, 2);
+    expect(result.skippedDuplicates, 2);
+    final records = await ServiceConfig.database.getAllRecords();
+    expect(records.where((r) => r!.title == 'Coffee').length, 3);
+    expect(records.where((r) => r!.title == 'Tea').length, 1);
+  });
+
+  test('rows differing only in description are not duplicates', () async {
+    final mapping = CsvImportMapping(
+      titleColumn: 'title',
+      valueColumn: 'amount',
+      datetimeColumn: 'date',
+      descriptionColumn: 'note',
+    );
+    await importCsvString(
+        'title,amount,date,note\nShop,-10,2024-03-01,Bread', mapping);
+    final result = await importCsvString(
+        'title,amount,date,note\nShop,-10,2024-03-01,Milk', mapping);
+    expect(result.imported, 1);
+    expect(result.skippedDuplicates, 0);
+  });
+
+  test('import inserts large files in batches with progress', () async {
+    final buffer = StringBuffer('title,amount,date,category\n');
+    const rowCount = CsvImportService.importBatchSize * 2 + 500;
+    for (int i = 0; i < rowCount; i++) {
+      buffer.write('Row $i,-${i % 50 + 1},'
+          '2024-01-${(i % 28 + 1).toString().padLeft(2, '0')} '
+          '${(i % 24).toString().padLeft(2, '0')}:00:00,'
+          'Category ${i % 5}\n');
+    }
+    final parsed = CsvImportService.parseCsv(buffer.toString());
+    final progress = <double>[];
+    final result = await CsvImportService.importRecords(
+      parsed.rows,
+      CsvImportMapping(
+        titleColumn: 'title',
+        valueColumn: 'amount',
+        datetimeColumn: 'date',
+        categoryColumn: 'category',
+      ),
+      database: ServiceConfig.database,
+      onProgress: progress.add,
+    );
+
+    expect(result.imported, rowCount);
+    expect(await ServiceConfig.database.getCountRecords(), rowCount);
+    expect(progress, orderedEquals([...progress]..sort()));
+    expect(progress.last, 1.0);
+  });
 }
@@ -1,3 +1,5 @@
+import 'dart:io';
+
 import 'package:flutter_test/flutter_test.dart';
 import 'package:piggybank/models/csv_import_mapping.dart';
 import 'package:piggybank/services/csv_import_service.dart';
@@ -123,6 +125,51 @@ void main() {
       expect(rows[1]['Description'], 'Costa Coffee');
       expect(rows[2]['Amount'], '50.25');
     });
+
+    test('parses the same rows from a stream of small chunks', () async {
+      final content = '\uFEFFtitle;amount;note\r\n'
+          '"Rent";-800;"line one\r\nline two"\r\n'
+          '\r\n'
+          '"Say ""hi""";12,50;plain\r'
+          'Last;1;';
+      final whole = CsvImportService.parseCsv(content);
+
+      for (final size in [1, 2, 3, 5, 64]) {
+        final chunks = [
+          for (int i = 0; i < content.length; i += size)
+            content.substring(i, (i + size).clamp(0, content.length)),
+        ];
+        final streamed =
+            await CsvImportService.parseCsvStream(Stream.fromIterable(chunks));
+        expect(streamed.headers, whole.headers);
+        expect(streamed.rows, whole.rows);
+      }
+
+      expect(whole.headers, ['title', 'amount', 'note']);
+      expect(whole.rows.length, 3);
+      expect(whole.rows[0]['note'], 'line one\nline two');
+      expect(whole.rows[1]['title'], 'Say "hi"');
+      expect(whole.rows[1]['amount'], '12,50');
+      expect(whole.rows[2]['note'], '');
+    });
+
+    test('parseCsvFile reads a file on a worker isolate', () async {
+      final dir = await Directory.systemTemp.createTemp('csv_import_test');
+      addTearDown(() => dir.delete(recursive: true));
+      final file = File('${dir.path}/export.csv');
+      final buffer = StringBuffer('date,amount,title\n');
+      for (int i = 0; i < 5000; i++) {
+        buffer.write('2024-01-${(i % 28 + 1).toString().padLeft(2, '0')},'
+            '-$i.25,"Shop, branch $i"\n');
+      }
+      await file.writeAsString(buffer.toString());
+
+      final parsed = await CsvImportService.parseCsvFile(file.path);
+      expect(parsed.headers, ['date', 'amount', 'title']);
+      expect(parsed.rows.length, 5000);
+      expect(parsed.rows[4999]['title'], 'Shop, branch 4999');
+      expect(parsed.rows[4999]['amount'], '-4999.25');
+    });
   });
 
   group('CsvImportService.autoMap', () {
@@ -415,6 +462,47 @@ void main() {
     });
   });
 
+  group('CsvImportService.dateParserForColumn', () {
+    DateTime parse(List<String?> column, int index) {
+      final ms = CsvImportService.dateParserForColumn(column)(column[index]);
+      return DateTime.fromMillisecondsSinceEpoch(ms!, isUtc: true);
+    }
+
+    test('reads a whole column month first when one date needs it', () {
+      final column = ['01/02/2024', '12/25/2024', ''];
+      expect(parse(column, 0), DateTime.utc(2024, 1, 2));
+      expect(parse(column, 1), DateTime.utc(2024, 12, 25));
+      // Parsed on its own the first date is read day first.
+      expect(CsvImportService.parseToMs('01/02/2024'),
+          DateTime.utc(2024, 2, 1).millisecondsSinceEpoch);
+    });
+
+    test('keeps day first when every date fits it', () {
+      final column = ['01/02/2024', '25/12/2024'];
+      expect(parse(column, 0), DateTime.utc(2024, 2, 1));
+      expect(parse(column, 1), DateTime.utc(2024, 12, 25));
+    });
+
+    test('parses cells like parseToMs when no format fits the column', () {
+      final column = [
+        '2024-01-15',
+        '15/01/2024',
+        '1705312200',
+        'not a date',
+        null,
+      ];
+      final parser = CsvImportService.dateParserForColumn(column);
+      for (final value in column) {
+        expect(parser(value), CsvImportService.parseToMs(value));
+      }
+    });
+
+    test('parseDateColumn parses Unix timestamps', () {
+      expect(CsvImportService.parseDateColumn(['1705312200', '1705312260']),
+          [1705312200000, 1705312260000]);
+    });
+  });
+
   group('CsvImportService.buildPreview', () {
     final mapping = CsvImportMapping(
       titleColumn: 'Title',
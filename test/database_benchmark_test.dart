@@ -0,0 +1,273 @@
+import 'dart:convert';
+import 'dart:io';
+import 'dart:math';
+
+import 'package:flutter/material.dart';
+import 'package:flutter/services.dart';
+import 'package:flutter_test/flutter_test.dart';
+import 'package:piggybank/models/category-type.dart';
+import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/csv_import_mapping.dart';
+import 'package:piggybank/models/record.dart';
+import 'package:piggybank/models/recurrent-period.dart';
+import 'package:piggybank/models/recurrent-record-pattern.dart';
+import 'package:piggybank/models/wallet.dart';
+import 'package:piggybank/services/backup-service.dart';
+import 'package:piggybank/services/csv_import_service.dart';
+import 'package:piggybank/services/recurrent-record-service.dart';
+import 'package:piggybank/services/service-config.dart';
+import 'package:shared_preferences/shared_preferences.dart';
+import 'package:sqflite_common_ffi/sqflite_ffi.dart';
+import 'package:test/test.dart' as testlib;
+import 'package:timezone/data/latest_all.dart' as tz;
+
+import 'helpers/test_database.dart';
+
+/// Measures the database queries and the services built on them against
+/// database files of growing size. Skipped unless DATABASE_BENCHMARK_RECORDS
+/// lists the database sizes to try, e.g.
+///
+///     DATABASE_BENCHMARK_RECORDS=10000,100000,1000000 \
+///     DATABASE_BENCHMARK_OUTPUT=build/database_benchmark.jsonl \
+///         flutter test test/database_benchmark_test.dart
+///
+/// It needs no device or display. Each operation prints one JSON line with
+/// its calls per second, time per call and resident memory growth per call;
+/// the lines are also appended to DATABASE_BENCHMARK_OUTPUT when it is set,
+/// so that runs can be compared.
+void main() {
+  final sizes = (Platform.environment['DATABASE_BENCHMARK_RECORDS'] ?? '')
+      .split(',')
+      .map((size) => int.tryParse(size.trim()))
+      .whereType<int>()
+      .toList();
+  final output = Platform.environment['DATABASE_BENCHMARK_OUTPUT'];
+  late Directory testDir;
+
+  final categories = [
+    Category("Rent", categoryType: CategoryType.expense, color: Colors.blue),
+    Category("Food", categoryType: CategoryType.expense, color: Colors.red),
+    Category("Salary", categoryType: CategoryType.income, color: Colors.green),
+  ];
+  final start = DateTime.utc(2015, 1, 1);
+  final end = DateTime.utc(2025, 1, 1);
+
+  setUpAll(() {
+    TestWidgetsFlutterBinding.ensureInitialized();
+    sqfliteFfiInit();
+    databaseFactory = databaseFactoryFfi;
+    tz.initializeTimeZones();
+    ServiceConfig.localTimezone = 'UTC';
+
+    const packageInfoChannel =
+        MethodChannel('dev.fluttercommunity.plus/package_info');
+    TestDefaultBinaryMessengerBinding.instance.defaultBinaryMessenger
+        .setMockMethodCallHandler(packageInfoChannel, (call) async {
+      if (call.method == 'getAll') {
+        return <String, dynamic>{
+          'appName': 'test',
+          'packageName': 'com.example.oinkoin',
+          'version': '1.0.0',
+          'buildNumber': '1',
+        };
+      }
+      return null;
+    });
+
+    SharedPreferences.setMockInitialValues(<String, Object>{});
+    testDir = Directory('test/temp_database_benchmark');
+  });
+
+  tearDownAll(() async {
+    if (await testDir.exists()) {
+      await testDir.delete(recursive: true);
+    }
+  });
+
+  /// A new database file at [name] in the benchmark directory.
+  Future<Database> openDatabaseFile(String name) async {
+    final file = File('${testDir.path}/$name');
+    if (await file.exists()) await file.delete();
+    return TestDatabaseHelper.setupTestDatabase(path: file.absolute.path);
+  }
+
+  /// Records evenly spread over ten years, across [walletIds], a quarter of
+  /// them tagged.
+  List<Record> recordsFrom(int first, int count, int size, List<int> walletIds,
+      {String title = 'Record'}) {
+    final step = end.difference(start).inMinutes ~/ size;
+    return [
+      for (var i = first; i < first + count; i++)
+        Record(
+          i % 3 == 2 ? 1500.0 : -(i % 97) - 0.5,
+          '$title $i',
+          categories[i % 3],
+          start.add(Duration(minutes: step * (i % size), seconds: i ~/ size)),
+          walletId: walletIds[i % walletIds.length],
+          tags: i % 4 == 0 ? {'tag${i % 50}', 'weekly'} : <String>{},
+        ),
+    ];
+  }
+
+  /// Calls [call] until it has run at least five times and for at least a
+  /// second, after one call to warm up, or only once when not [repeat].
+  /// Prints the results as one JSON line.
+  Future<void> measure(
+    int size,
+    String operation,
+    Future<void> Function() call, {
+    bool repeat = true,
+    Map<String, Object> details = const {},
+  }) async {
+    if (repeat) await call();
+    final rssBefore = ProcessInfo.currentRss;
+    final watch = Stopwatch()..start();
+    var calls = 0;
+    do {
+      await call();
+      calls++;
+    } while (repeat && (calls < 5 || watch.elapsedMilliseconds < 1000));
+    watch.stop();
+    final rssAfter = ProcessInfo.currentRss;
+
+    final line = jsonEncode({
+      'benchmark': 'database',
+      'records': size,
+      'operation': operation,
+      ...details,
+      'calls': calls,
+      'ops_per_second': calls * 1e6 / watch.elapsedMicroseconds,
+      'us_per_call': watch.elapsedMicroseconds ~/ calls,
+      'rss_bytes_per_call': (rssAfter - rssBefore) ~/ calls,
+      'max_rss_bytes': ProcessInfo.maxRss,
+    });
+    print(line);
+    if (output != null) {
+      await File(output).writeAsString('$line\n', mode: FileMode.append);
+    }
+  }
+
+  for (final size in sizes.isEmpty ? [10000] : sizes) {
+    testlib.test(
+      'database operations on $size records',
+      skip: sizes.isEmpty ? 'Set DATABASE_BENCHMARK_RECORDS to run' : false,
+      timeout: testlib.Timeout.none,
+      () async {
+        await testDir.create(recursive: true);
+        await openDatabaseFile('records_$size.db');
+        final database = ServiceConfig.database;
+        for (final category in categories) {
+          await database.addCategory(category);
+        }
+        final walletIds = [
+          for (final name in ['Checking', 'Savings', 'Cash'])
+            await database.addWallet(Wallet(name, initialAmount: 1000.0)),
+        ];
+        const batchSize = 10000;
+        for (var first = 0; first < size; first += batchSize) {
+          await database.addRecordsInBatchNoDuplicateCheck(recordsFrom(
+              first, min(batchSize, size - first), size, walletIds));
+        }
+
+        // Reads
+        await measure(size, 'getAllRecordsInInterval', () async {
+          final records = await database.getAllRecordsInInterval(
+              DateTime(2020, 3, 1), DateTime(2020, 3, 31, 23, 59, 59));
+          expect(records, isNotEmpty);
+        });
+        await measure(size, 'getAllWallets', () async {
+          expect(await database.getAllWallets(), hasLength(4));
+        });
+        await measure(size, 'getWalletsBalanceAsOf', () async {
+          expect(await database.getWalletsBalanceAsOf(DateTime(2020, 6, 30)),
+              hasLength(4));
+        });
+
+        // Recurrent records: the first refresh writes the occurrences since
+        // the patterns started, the next ones only compute future records.
+        final today = DateTime.now().toUtc();
+        for (var i = 0; i < 30; i++) {
+          await database.addRecurrentRecordPattern(RecurrentRecordPattern(
+            -(i + 1) * 10.0,
+            'Pattern $i',
+            categories[i % 2],
+            today.subtract(Duration(days: 90 + i)),
+            [
+              RecurrentPeriod.EveryDay,
+              RecurrentPeriod.EveryWeek,
+              RecurrentPeriod.EveryMonth,
+            ][i % 3],
+            walletId: walletIds[i % walletIds.length],
+          ));
+        }
+        final viewEnd = today.add(const Duration(days: 365));
+        await measure(size, 'updateRecurrentRecords', repeat: false, () async {
+          await RecurrentRecordService().updateRecurrentRecords(viewEnd);
+        }, details: {'patterns': 30, 'phase': 'first'});
+        await measure(size, 'updateRecurrentRecords', () async {
+          await RecurrentRecordService().updateRecurrentRecords(viewEnd);
+        }, details: {'patterns': 30, 'phase': 'steady'});
+
+        // Writes: every call adds records that are not stored yet.
+        const importSize = 1000;
+        var next = size;
+        await measure(size, 'addRecordsInBatch', () async {
+          await database.addRecordsInBatch(recordsFrom(
+              next, importSize, size, walletIds,
+              title: 'Imported'));
+          next += importSize;
+        }, details: {'rows_per_call': importSize});
+
+        final mapping = CsvImportMapping(
+          titleColumn: 'Payee',
+          valueColumn: 'Amount',
+          datetimeColumn: 'Booking date',
+          walletColumn: 'Account',
+        );
+        var csvCall = 0;
+        await measure(size, 'CsvImportService.importRecords', () async {
+          csvCall++;
+          final rows = [
+            for (final record in recordsFrom(next, importSize, size, walletIds,
+                title: 'CSV $csvCall'))
+              {
+                'Booking date': record.utcDateTime.toIso8601String(),
+                'Payee': record.title!,
+                'Amount': record.value!.toStringAsFixed(2),
+                'Account': 'Checking',
+              },
+          ];
+          final result = await CsvImportService.importRecords(rows, mapping,
+              database: database);
+          expect(result.imported, importSize);
+        }, details: {'rows_per_call': importSize});
+
+        // Backups
+        final count = await database.getCountRecords();
+        BackupService.database = database;
+        late File backupFile;
+        await measure(size, 'BackupService.createJsonBackupFile', repeat: false,
+            () async {
+          backupFile = await BackupService.createJsonBackupFile(
+            directoryPath: testDir.path,
+            backupFileName: 'benchmark_$size.obackup.json',
+            encryptionPassword: 'benchmark',
+          );
+        }, details: {'rows_per_call': count});
+
+        await openDatabaseFile('restore_$size.db');
+        BackupService.database = ServiceConfig.database;
+        await measure(size, 'BackupService.importDataFromBackupFile',
+            repeat: false, () async {
+          expect(
+            await BackupService.importDataFromBackupFile(backupFile,
+                encryptionPassword: 'benchmark'),
+            isTrue,
+          );
+        }, details: {'rows_per_call': count});
+        expect(await ServiceConfig.database.getCountRecords(), count);
+        await backupFile.delete();
+      },
+    );
+  }
+}
@@ -0,0 +1,31 @@
+import 'package:mockito/mockito.dart';
+import 'package:piggybank/models/record-tag-association.dart';
+import 'package:piggybank/models/record.dart';
+import 'package:piggybank/services/database/database-interface.dart';
+
+/// Answers the paged reads of BackupService.createJsonBackupFile on a mock
+/// database from in-memory lists, in list order. The lists are read on each
+/// call, so a test may replace them after stubbing.
+void stubBackupPages(
+  DatabaseInterface database, {
+  required List<Record?> Function() records,
+  required List<RecordTagAssociation> Function() associations,
+}) {
+  when(database.getRecordsAfterId(any, limit: anyNamed('limit')))
+      .thenAnswer((invocation) async {
+    final afterId = invocation.positionalArguments[0] as int?;
+    final limit = invocation.namedArguments[#limit] as int? ?? 1000;
+    final all = records().whereType<Record>().toList();
+    final start =
+        afterId == null ? 0 : all.indexWhere((r) => r.id == afterId) + 1;
+    return all.skip(start).take(limit).toList();
+  });
+  when(database.getRecordTagAssociationsAfter(any, limit: anyNamed('limit')))
+      .thenAnswer((invocation) async {
+    final after = invocation.positionalArguments[0] as RecordTagAssociation?;
+    final limit = invocation.namedArguments[#limit] as int? ?? 1000;
+    final all = associations();
+    final start = after == null ? 0 : all.indexOf(after) + 1;
+    return all.skip(start).take(limit).toList();
+  });
+}
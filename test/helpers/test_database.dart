@@ -6,11 +6,13 @@ import 'package:sqflite_common/sqflite.dart';
 /// Each test gets its own independent in-memory database, allowing parallel execution
 /// without database locking issues.
 class TestDatabaseHelper {
-  /// Creates and sets up a new isolated in-memory database for testing
+  /// Creates and sets up a new isolated in-memory database for testing, or
+  /// a database file at [path] when given.
   /// Returns the created database instance
-  static Future<Database> setupTestDatabase() async {
+  static Future<Database> setupTestDatabase(
+      {String path = inMemoryDatabasePath}) async {
     final db = await databaseFactory.openDatabase(
-      inMemoryDatabasePath, // Each call creates a new isolated in-memory database
+      path, // By default each call creates a new isolated in-memory database
       options: OpenDatabaseOptions(
         singleInstance: false,
         version: SqliteDatabase.version,
@@ -0,0 +1,168 @@
+import 'dart:convert';
+import 'dart:io';
+
+import 'package:flutter/material.dart';
+import 'package:flutter_test/flutter_test.dart';
+import 'package:piggybank/models/category-type.dart';
+import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/record.dart';
+import 'package:piggybank/services/database/sqlite-migration-service.dart';
+import 'package:piggybank/services/service-config.dart';
+import 'package:sqflite_common_ffi/sqflite_ffi.dart';
+import 'package:test/test.dart' as testlib;
+import 'package:timezone/data/latest_all.dart' as tz;
+
+import 'helpers/test_database.dart';
+
+/// Compares the fingerprint lookup of [addRecordsInBatch] with the
+/// duplicate check it replaced, which searched the datetime index and
+/// compared every field of the records found, and times the migration that
+/// fills the fingerprints. Skipped unless RECORD_BATCH_BENCHMARK_RECORDS
+/// lists the database sizes to try, e.g.
+///
+///     RECORD_BATCH_BENCHMARK_RECORDS=100000,500000 \
+///         flutter test test/record_batch_insert_benchmark_test.dart
+///
+/// Each size imports a fifth as many records, half of them already stored,
+/// and prints one JSON line with the timings.
+void main() {
+  final sizes = (Platform.environment['RECORD_BATCH_BENCHMARK_RECORDS'] ?? '')
+      .split(',')
+      .map((size) => int.tryParse(size.trim()))
+      .whereType<int>()
+      .toList();
+
+  final categories = [
+    Category("Rent", categoryType: CategoryType.expense, color: Colors.blue),
+    Category("Food", categoryType: CategoryType.expense, color: Colors.red),
+    Category("Salary", categoryType: CategoryType.income, color: Colors.green),
+  ];
+  final start = DateTime.utc(2015, 1, 1);
+
+  Record recordAt(int i) => Record(
+        i % 3 == 2 ? 1500.0 : -(i % 97) - 0.5,
+        'Record $i',
+        categories[i % 3],
+        start.add(Duration(minutes: 7 * i)),
+        description: i % 5 == 0 ? 'Note $i' : null,
+      );
+
+  Future<Database> seededDatabase(int size) async {
+    final db = await TestDatabaseHelper.setupTestDatabase();
+    final database = ServiceConfig.database;
+    for (final category in categories) {
+      await database.addCategory(category);
+    }
+    const batchSize = 10000;
+    for (var first = 0; first < size; first += batchSize) {
+      await database.addRecordsInBatchNoDuplicateCheck([
+        for (var i = first; i < first + batchSize && i < size; i++)
+          recordAt(i),
+      ]);
+    }
+    return db;
+  }
+
+  /// The duplicate check before records had a fingerprint.
+  const insertIfNoEqualDatetime = """
+      INSERT INTO records (title, value, datetime, timezone, category_name,
+        category_type, description, wallet_id, profile_id, local_minute)
+      SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?
+      WHERE NOT EXISTS (
+        SELECT 1 FROM records INDEXED BY idx_records_datetime
+        WHERE datetime = ?
+          AND value = ?
+          AND title IS ?
+          AND category_name = ?
+          AND category_type = ?
+          AND wallet_id IS ?
+          AND (profile_id IS NULL OR profile_id = ?)
+          AND COALESCE(description, '') = COALESCE(?, '')
+      )
+    """;
+
+  setUpAll(() {
+    TestWidgetsFlutterBinding.ensureInitialized();
+    sqfliteFfiInit();
+    databaseFactory = databaseFactoryFfi;
+    tz.initializeTimeZones();
+    ServiceConfig.localTimezone = 'UTC';
+  });
+
+  for (final size in sizes.isEmpty ? [100000] : sizes) {
+    testlib.test(
+      'batch insert into $size records',
+      skip: sizes.isEmpty ? 'Set RECORD_BATCH_BENCHMARK_RECORDS to run' : false,
+      timeout: testlib.Timeout.none,
+      () async {
+        final importSize = size ~/ 5;
+        final firstImported = size - importSize ~/ 2;
+        List<Record> importedRecords() => [
+              for (var i = firstImported; i < firstImported + importSize; i++)
+                recordAt(i),
+            ];
+
+        var db = await seededDatabase(size);
+        final profileId = Sqflite.firstIntValue(
+            await db.rawQuery("SELECT profile_id FROM records LIMIT 1"));
+        final records = importedRecords();
+        final datetimeWatch = Stopwatch()..start();
+        final batch = db.batch();
+        for (final record in records) {
+          final arguments = [
+            record.utcDateTime.millisecondsSinceEpoch,
+            record.value,
+            record.title,
+            record.category!.name,
+            record.category!.categoryType!.index,
+            record.walletId,
+            profileId,
+          ];
+          batch.rawInsert(insertIfNoEqualDatetime, [
+            record.title,
+            record.value,
+            record.utcDateTime.millisecondsSinceEpoch,
+            record.timeZoneName,
+            record.category!.name,
+            record.category!.categoryType!.index,
+            record.description,
+            record.walletId,
+            profileId,
+            0,
+            ...arguments,
+            record.description,
+          ]);
+        }
+        await batch.commit(noResult: true);
+        datetimeWatch.stop();
+        final notExistsCount = Sqflite.firstIntValue(
+            await db.rawQuery("SELECT COUNT(*) FROM records"));
+        await db.close();
+
+        db = await seededDatabase(size);
+        await db.rawUpdate("UPDATE records SET fingerprint = NULL");
+        final migrationWatch = Stopwatch()..start();
+        await SqliteMigrationService.backfillFingerprints(db);
+        migrationWatch.stop();
+
+        final fingerprintWatch = Stopwatch()..start();
+        await ServiceConfig.database.addRecordsInBatch(importedRecords());
+        fingerprintWatch.stop();
+        final fingerprintCount = Sqflite.firstIntValue(
+            await db.rawQuery("SELECT COUNT(*) FROM records"));
+        await db.close();
+
+        expect(notExistsCount, firstImported + importSize);
+        expect(fingerprintCount, notExistsCount);
+        print(jsonEncode({
+          'benchmark': 'record_batch_insert',
+          'records': size,
+          'imported': importSize,
+          'datetime_lookup_ms': datetimeWatch.elapsedMilliseconds,
+          'fingerprint_migration_ms': migrationWatch.elapsedMilliseconds,
+          'fingerprint_insert_ms': fingerprintWatch.elapsedMilliseconds,
+        }));
+      },
+    );
+  }
+}
@@ -0,0 +1,301 @@
+import 'package:flutter_test/flutter_test.dart';
+import 'package:piggybank/services/database/sqlite-database.dart';
+import 'package:piggybank/services/database/sqlite-migration-service.dart';
+import 'package:piggybank/services/service-config.dart';
+import 'package:sqflite_common_ffi/sqflite_ffi.dart';
+import 'package:timezone/data/latest_all.dart' as tz;
+
+import 'helpers/test_database.dart';
+
+/// Aliases (and table names) under which the hot queries read records,
+/// records_tags and records_daily_summary. The wallets table is small and
+/// may be scanned.
+const _recordTables = {
+  'records',
+  'records_tags',
+  'records_daily_summary',
+  'm',
+  'r',
+  's',
+  't',
+  'rt',
+};
+
+final _scan = RegExp(r'^SCAN (?:TABLE )?(\w+)(?: AS (\w+))?');
+
+Future<List<String>> _queryPlan(
+    Database db, String sql, List<Object?> arguments) async {
+  final rows = await db.rawQuery('EXPLAIN QUERY PLAN $sql', arguments);
+  return rows.map((row) => row['detail'] as String).toList();
+}
+
+/// Plan steps that read a whole records/records_tags table (or a whole
+/// index of it) instead of searching a range. SQLite reports them as
+/// "SCAN m" or, before 3.36, "SCAN TABLE records AS m".
+List<String> _fullScans(List<String> plan) {
+  return plan.where((detail) {
+    final match = _scan.firstMatch(detail);
+    if (match == null) return false;
+    return _recordTables.contains(match.group(2) ?? match.group(1));
+  }).toList();
+}
+
+void main() {
+  setUpAll(() {
+    TestWidgetsFlutterBinding.ensureInitialized();
+    sqfliteFfiInit();
+    databaseFactory = databaseFactoryFfi;
+    tz.initializeTimeZones();
+    ServiceConfig.localTimezone = "Europe/Vienna";
+  });
+
+  late Database db;
+
+  setUp(() async {
+    db = await TestDatabaseHelper.setupTestDatabase();
+  });
+
+  tearDown(() async {
+    await db.close();
+  });
+
+  final hotQueries = <String, (String, List<Object?>)>{
+    'records in interval': (
+      SqliteDatabase.recordsInIntervalQuery(),
+      [0, 1000],
+    ),
+    'records in interval for a profile': (
+      SqliteDatabase.recordsInIntervalQuery(profileId: 1),
+      [0, 1000],
+    ),
+    'first page of records in interval': (
+      SqliteDatabase.recordsPageQuery(profileId: 1, hasCursor: false),
+      [0, 1000, 200],
+    ),
+    'next page of records in interval': (
+      SqliteDatabase.recordsPageQuery(profileId: 1, hasCursor: true),
+      [0, 1000, 500, 500, 42, 200],
+    ),
+    'record totals in interval': (
+      SqliteDatabase.recordTotalsInIntervalQuery(profileId: 1),
+      [0, 1000],
+    ),
+    'record totals of whole days': (
+      SqliteDatabase.recordSummaryTotalsQuery(profileId: 1),
+      [0, 10],
+    ),
+    'record totals of whole days for all profiles': (
+      SqliteDatabase.recordSummaryTotalsQuery(),
+      [0, 10],
+    ),
+    'record daily totals in interval': (
+      SqliteDatabase.recordDailyTotalsInIntervalQuery(profileId: 1),
+      [0, 1000],
+    ),
+    'record daily totals of whole days': (
+      SqliteDatabase.recordDailySummaryQuery(profileId: 1),
+      [0, 10],
+    ),
+    'matching record with title': (
+      SqliteDatabase.matchingRecordQuery(hasTitle: true),
+      [42, 0, -10.0, 'Rent', 'House', 0],
+    ),
+    'matching record without title': (
+      SqliteDatabase.matchingRecordQuery(hasTitle: false),
+      [42, 0, -10.0, 'House', 0],
+    ),
+    'duplicate check on batch insert': (
+      SqliteDatabase.insertRecordIfNewQuery,
+      [
+        'Rent', -10.0, 0, 'UTC', 'House', 0, null, null, 1, null, null, 1, 0,
+        42, 42, 0, -10.0, 'Rent', 'House', 0, 1, 1, null,
+      ],
+    ),
+    'tagging the record a batch just inserted': (
+      SqliteDatabase.tagMatchingRecordQuery,
+      ['weekly', 42, 0, -10.0, 'Rent', 'House', 0, 1, 1, null],
+    ),
+    'full-text search with filters': (
+      SqliteDatabase.searchMatchesQuery(
+          profileId: 1, categoryCount: 1, walletCount: 1),
+      ['"rent*"', 'House', 0, 1, 1],
+    ),
+    'tags of the records in interval': (
+      SqliteDatabase.recordTagIdsQuery(
+          SqliteDatabase.recordIdsInIntervalQuery(profileId: 1)),
+      [0, 1000],
+    ),
+    'tags of a page of records': (
+      SqliteDatabase.recordTagIdsQuery('?, ?, ?'),
+      [1, 2, 3],
+    ),
+    'records aggregated by tag': (
+      SqliteDatabase.aggregatedRecordsByTagQuery,
+      [0, 1000],
+    ),
+    'wallet balances': (SqliteDatabase.walletBalanceQuery(), []),
+    'wallet balances for a profile as of a date': (
+      SqliteDatabase.walletBalanceQuery(profileId: 1, hasAsOfDate: true),
+      [24000, 1000, 2000, 1000, 2000],
+    ),
+  };
+
+  for (final entry in hotQueries.entries) {
+    test('${entry.key} does not scan records or records_tags', () async {
+      final (sql, arguments) = entry.value;
+      final plan = await _queryPlan(db, sql, arguments);
+      expect(_fullScans(plan), isEmpty, reason: plan.join('\n'));
+    });
+  }
+
+  test('duplicate checks are point lookups on the fingerprint', () async {
+    final checks = {
+      SqliteDatabase.matchingRecordQuery(hasTitle: true):
+          [42, 0, -10.0, 'Rent', 'House', 0],
+      SqliteDatabase.tagMatchingRecordQuery:
+          ['weekly', 42, 0, -10.0, 'Rent', 'House', 0, 1, 1, null],
+    };
+    for (final check in checks.entries) {
+      final plan = await _queryPlan(db, check.key, check.value);
+      expect(plan.where((detail) => detail.contains('idx_records_fingerprint')),
+          isNotEmpty,
+          reason: plan.join('\n'));
+    }
+  });
+
+  test('record pages are read in index order, without sorting', () async {
+    for (final hasCursor in [false, true]) {
+      final plan = await _queryPlan(
+        db,
+        SqliteDatabase.recordsPageQuery(profileId: 1, hasCursor: hasCursor),
+        [0, 1000, if (hasCursor) ...[500, 500, 42], 200],
+      );
+      expect(plan.where((detail) => detail.contains('TEMP B-TREE')), isEmpty,
+          reason: plan.join('\n'));
+    }
+  });
+
+  test('wallet balances are computed from covering indexes', () async {
+    final plan = await _queryPlan(
+      db,
+      SqliteDatabase.walletBalanceQuery(hasAsOfDate: true),
+      [24000, 1000, 2000, 1000, 2000],
+    );
+    expect(
+      plan.where((detail) => detail.contains('USING COVERING INDEX idx_')),
+      hasLength(2),
+      reason: plan.join('\n'),
+    );
+  });
+
+  test('migrations 31 -> 33 add the record indexes', () async {
+    final indexes = await db.rawQuery(
+      "SELECT name FROM sqlite_master WHERE type = 'index' AND name LIKE 'idx_%'",
+    );
+    for (final index in indexes) {
+      await db.execute('DROP INDEX ${index['name']}');
+    }
+    final before = await _queryPlan(
+      db,
+      SqliteDatabase.recordsInIntervalQuery(profileId: 1),
+      [0, 1000],
+    );
+    expect(_fullScans(before), isNotEmpty);
+
+    await SqliteMigrationService.onUpgrade(db, 31, 33);
+    // Idempotent, like the other migrations.
+    await SqliteMigrationService.onUpgrade(db, 31, 33);
+    // The fingerprint index comes with version 38.
+    await SqliteMigrationService.onUpgrade(db, 37, 38);
+
+    final after = await db.rawQuery(
+      "SELECT name FROM sqlite_master WHERE type = 'index' AND name LIKE 'idx_%'",
+    );
+    expect(after.length, indexes.length);
+    expect(indexes, isNotEmpty);
+    final plan = await _queryPlan(
+      db,
+      SqliteDatabase.recordsInIntervalQuery(profileId: 1),
+      [0, 1000],
+    );
+    expect(_fullScans(plan), isEmpty, reason: plan.join('\n'));
+  });
+
+  Future<void> insertRawRecord(String? title, DateTime utc, String timezone) {
+    return db.rawInsert(
+      "INSERT INTO records (title, value, datetime, timezone, category_name, category_type, profile_id) VALUES (?, -1, ?, ?, 'House', 0, 1)",
+      [title, utc.millisecondsSinceEpoch, timezone],
+    );
+  }
+
+  test('migration 32 -> 33 backfills local_minute in each record timezone',
+      () async {
+    await insertRawRecord(
+        'Tokyo', DateTime.utc(2023, 1, 1, 15, 30), 'Asia/Tokyo');
+    await insertRawRecord(
+        'New York', DateTime.utc(2023, 1, 2, 0, 0), 'America/New_York');
+
+    await SqliteMigrationService.onUpgrade(db, 32, 33);
+
+    final rows = await db.rawQuery(
+        'SELECT title, local_minute FROM records ORDER BY id');
+    // 2023-01-02 00:30 in Tokyo, 2023-01-01 19:00 in New York.
+    expect(rows[0]['local_minute'],
+        DateTime.utc(2023, 1, 2, 0, 30).millisecondsSinceEpoch ~/ 60000);
+    expect(rows[1]['local_minute'],
+        DateTime.utc(2023, 1, 1, 19, 0).millisecondsSinceEpoch ~/ 60000);
+  });
+
+  test('migration 37 -> 38 backfills and indexes the fingerprints', () async {
+    await db.execute('DROP INDEX idx_records_fingerprint');
+    await insertRawRecord('Rent', DateTime.utc(2023, 1, 1), 'UTC');
+    await insertRawRecord(null, DateTime.utc(2023, 1, 2), 'UTC');
+
+    await SqliteMigrationService.onUpgrade(db, 37, 38);
+    // Idempotent, like the other migrations.
+    await SqliteMigrationService.onUpgrade(db, 37, 38);
+
+    final rows =
+        await db.rawQuery('SELECT title, fingerprint FROM records ORDER BY id');
+    expect(rows[0]['fingerprint'],
+        SqliteMigrationService.recordFingerprint(
+            DateTime.utc(2023, 1, 1).millisecondsSinceEpoch, -1.0, 'Rent'));
+    expect(rows[1]['fingerprint'],
+        SqliteMigrationService.recordFingerprint(
+            DateTime.utc(2023, 1, 2).millisecondsSinceEpoch, -1.0, null));
+    expect(
+      await db.rawQuery(
+          "SELECT name FROM sqlite_master WHERE name = 'idx_records_fingerprint'"),
+      hasLength(1),
+    );
+  });
+
+  test('interval queries match records by their local minute', () async {
+    await insertRawRecord(
+        'Tokyo', DateTime.utc(2023, 1, 1, 15, 30), 'Asia/Tokyo');
+    await insertRawRecord(
+        'New York', DateTime.utc(2023, 1, 2, 0, 0), 'America/New_York');
+    await insertRawRecord(
+        'Vienna', DateTime.utc(2023, 1, 1, 22, 59), 'Europe/Vienna');
+
+    final database = SqliteDatabase.instance;
+    final firstOfJanuary = await database.getAllRecordsInInterval(
+        DateTime(2023, 1, 1), DateTime(2023, 1, 1, 23, 59, 59));
+    expect(firstOfJanuary.map((r) => r.title),
+        unorderedEquals(['New York', 'Vienna']));
+
+    // Bounds are inclusive to the minute; a lower bound with seconds starts
+    // at the following minute.
+    final lastMinute = await database.getAllRecordsInInterval(
+        DateTime(2023, 1, 1, 23, 59), DateTime(2023, 1, 1, 23, 59));
+    expect(lastMinute.map((r) => r.title), ['Vienna']);
+    final afterLastMinute = await database.getAllRecordsInInterval(
+        DateTime(2023, 1, 1, 23, 59, 1), DateTime(2023, 1, 2, 0, 29));
+    expect(afterLastMinute, isEmpty);
+
+    final secondOfJanuary = await database.getAllRecordsInInterval(
+        DateTime(2023, 1, 2), DateTime(2023, 1, 2, 23, 59),
+        profileId: 1);
+    expect(secondOfJanuary.map((r) => r.title), ['Tokyo']);
+  });
+}
@@ -0,0 +1,179 @@
+import 'package:flutter/material.dart';
+import 'package:flutter_test/flutter_test.dart';
+import 'package:piggybank/models/category-type.dart';
+import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/record.dart';
+import 'package:piggybank/services/database/database-interface.dart';
+import 'package:piggybank/services/database/sqlite-migration-service.dart';
+import 'package:piggybank/services/service-config.dart';
+import 'package:sqflite_common_ffi/sqflite_ffi.dart';
+import 'package:timezone/data/latest_all.dart' as tz;
+
+import 'helpers/test_database.dart';
+
+void main() {
+  final food = Category(
+    "Food",
+    iconCodePoint: 1,
+    categoryType: CategoryType.expense,
+    color: Colors.orange,
+  );
+  final rent = Category(
+    "Rent",
+    iconCodePoint: 2,
+    categoryType: CategoryType.expense,
+    color: Colors.blue,
+  );
+
+  late Database rawDb;
+  late DatabaseInterface db;
+
+  setUpAll(() {
+    TestWidgetsFlutterBinding.ensureInitialized();
+    sqfliteFfiInit();
+    databaseFactory = databaseFactoryFfi;
+    tz.initializeTimeZones();
+    ServiceConfig.localTimezone = "Europe/Vienna";
+  });
+
+  setUp(() async {
+    rawDb = await TestDatabaseHelper.setupTestDatabase();
+    db = ServiceConfig.database;
+    await db.addCategory(food);
+    await db.addCategory(rent);
+  });
+
+  Future<List<String?>> titles(String query,
+          {List<Category?>? categories, Set<int?>? walletIds}) async =>
+      (await db.searchRecords(query,
+              categories: categories, walletIds: walletIds))
+          .map((record) => record.title)
+          .toList();
+
+  group('searchRecords', () {
+    test('finds records of any date by title, description, category or tag',
+        () async {
+      await db.addRecord(Record(-4.0, "Coffee", food, DateTime.utc(2015, 3, 1),
+          description: "Flat white at the station"));
+      await db.addRecord(Record(-900.0, "Flat", rent, DateTime.utc(2024, 5, 1),
+          tags: {'monthly'}));
+      await db.addRecord(Record(-12.0, "Lunch", food, DateTime.utc(2020, 7, 9),
+          tags: {'work-trip'}));
+
+      expect(await titles("coff"), ["Coffee"]);
+      expect(await titles("station"), ["Coffee"]);
+      expect(await titles("month"), ["Flat"]);
+      expect(await titles("trip"), ["Lunch"]);
+      expect(await titles("rent"), ["Flat"]);
+      expect(await titles("flat white"), ["Coffee"]);
+      expect(await titles("flat"), containsAll(["Coffee", "Flat"]));
+      expect(await titles("dinner"), isEmpty);
+      expect(await titles("  "), isEmpty);
+    });
+
+    test('ranks title matches above description matches', () async {
+      await db.addRecord(Record(-4.0, "Groceries", food, DateTime.utc(2024, 1, 2),
+          description: "bread and pizza dough"));
+      await db.addRecord(
+          Record(-9.0, "Pizza", food, DateTime.utc(2020, 1, 1)));
+
+      expect(await titles("pizza"), ["Pizza", "Groceries"]);
+    });
+
+    test('treats search syntax in the query as plain words', () async {
+      await db.addRecord(Record(-4.0, "Salt OR pepper", food,
+          DateTime.utc(2024, 1, 2),
+          description: 'the "best" NEAR home'));
+
+      expect(await titles('pepper OR'), ["Salt OR pepper"]);
+      expect(await titles('"best" near*'), ["Salt OR pepper"]);
+      expect(await titles('NOT salt'), isEmpty);
+    });
+
+    test('combines with category and wallet filters', () async {
+      await db.addRecord(Record(-4.0, "Market", food, DateTime.utc(2024, 1, 2),
+          walletId: 1));
+      await db.addRecord(Record(-500.0, "Market hall", rent,
+          DateTime.utc(2024, 1, 3),
+          walletId: 2));
+      await db.addRecord(Record(-50.0, "Market move", rent,
+          DateTime.utc(2024, 1, 4),
+          walletId: 3, transferWalletId: 1));
+
+      expect(await titles("market", categories: [food]), ["Market"]);
+      expect(await titles("market", walletIds: {2}), ["Market hall"]);
+      expect(await titles("market", walletIds: {1}),
+          unorderedEquals(["Market", "Market move"]));
+      expect(await titles("market", categories: [rent], walletIds: {1}),
+          ["Market move"]);
+    });
+
+    test('follows record edits, deletes and tag changes', () async {
+      final id = await db.addRecord(Record(-4.0, "Coffee", food,
+          DateTime.utc(2024, 1, 2),
+          tags: {'morning'}));
+      await db.addRecordsInBatch([
+        Record(-3.0, "Tea", food, DateTime.utc(2024, 1, 3), tags: {'morning'}),
+      ]);
+      expect(await titles("morning"), unorderedEquals(["Coffee", "Tea"]));
+
+      await db.renameTag('morning', 'breakfast');
+      expect(await titles("morning"), isEmpty);
+      expect(await titles("breakfast"), unorderedEquals(["Coffee", "Tea"]));
+
+      await db.deleteTag('breakfast');
+      expect(await titles("breakfast"), isEmpty);
+
+      final coffee = (await db.getRecordById(id))!;
+      coffee.title = "Espresso";
+      await db.updateRecordById(id, coffee);
+      expect(await titles("coffee"), isEmpty);
+      expect(await titles("espresso"), ["Espresso"]);
+
+      await db.deleteRecordById(id);
+      expect(await titles("espresso"), isEmpty);
+    });
+
+    test('migration 36 indexes the existing records', () async {
+      await db.addRecord(Record(-4.0, "Coffee", food, DateTime.utc(2024, 1, 2),
+          tags: {'morning'}));
+      for (final trigger in [
+        'on_insert',
+        'on_update',
+        'on_delete',
+        'on_tag_insert',
+        'on_tag_update',
+        'on_tag_delete',
+      ]) {
+        await rawDb.execute("DROP TRIGGER records_search_$trigger");
+      }
+      await rawDb.execute("DROP TABLE records_search");
+
+      await SqliteMigrationService.onUpgrade(rawDb, 35, 36);
+
+      expect(await titles("morning"), ["Coffee"]);
+    });
+
+    test('falls back to LIKE where full-text search is missing', () async {
+      for (final trigger in [
+        'on_insert',
+        'on_update',
+        'on_delete',
+        'on_tag_insert',
+        'on_tag_update',
+        'on_tag_delete',
+      ]) {
+        await rawDb.execute("DROP TRIGGER records_search_$trigger");
+      }
+      await rawDb.execute("DROP TABLE records_search");
+      await db.addRecord(Record(-4.0, "Coffee", food, DateTime.utc(2024, 1, 2),
+          tags: {'morning'}));
+      await db.addRecord(Record(-3.0, "Tea", food, DateTime.utc(2024, 1, 3),
+          description: "Coffee shop was closed"));
+
+      expect(await titles("coff"), ["Tea", "Coffee"]);
+      expect(await titles("morn coff"), ["Coffee"]);
+      expect(await titles("coffee", categories: [rent]), isEmpty);
+    });
+  });
+}
@@ -0,0 +1,221 @@
+import 'package:flutter/material.dart';
+import 'package:flutter_test/flutter_test.dart';
+import 'package:piggybank/models/category-type.dart';
+import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/record.dart';
+import 'package:piggybank/services/database/sqlite-database.dart';
+import 'package:piggybank/services/database/sqlite-migration-service.dart';
+import 'package:piggybank/services/service-config.dart';
+import 'package:sqflite_common_ffi/sqflite_ffi.dart';
+import 'package:timezone/data/latest_all.dart' as tz;
+
+import 'helpers/test_database.dart';
+
+void main() {
+  final rent = Category("Rent",
+      iconCodePoint: 1,
+      categoryType: CategoryType.expense,
+      color: Colors.blue);
+  final salary = Category("Salary",
+      iconCodePoint: 2,
+      categoryType: CategoryType.income,
+      color: Colors.green);
+
+  setUpAll(() {
+    TestWidgetsFlutterBinding.ensureInitialized();
+    sqfliteFfiInit();
+    databaseFactory = databaseFactoryFfi;
+    tz.initializeTimeZones();
+    ServiceConfig.localTimezone = "Europe/Vienna";
+  });
+
+  late Database db;
+  final database = SqliteDatabase.instance;
+
+  setUp(() async {
+    db = await TestDatabaseHelper.setupTestDatabase();
+    await database.addCategory(rent);
+    await database.addCategory(salary);
+  });
+
+  tearDown(() async {
+    await db.close();
+  });
+
+  Future<List<Map<String, Object?>>> summaryRows() {
+    return db.rawQuery("""
+      SELECT profile_id, day, category_name, category_type, wallet_id,
+          ROUND(positive_total, 6) AS positive_total, positive_count,
+          ROUND(negative_total, 6) AS negative_total, negative_count
+      FROM records_daily_summary
+      ORDER BY profile_id, day, category_name, category_type, wallet_id
+    """);
+  }
+
+  /// The summary as maintained by the triggers must equal a rebuild from
+  /// the records table.
+  Future<void> expectSummaryMatchesRecords() async {
+    final maintained = await summaryRows();
+    await SqliteMigrationService.rebuildRecordsDailySummary(db);
+    expect(maintained, await summaryRows());
+  }
+
+  test('the summary follows adds, updates, deletes and batch writes',
+      () async {
+    final firstId = await database.addRecord(
+        Record(-10.0, "Rent", rent, DateTime.utc(2024, 3, 1, 10)));
+    await database.addRecord(
+        Record(3.0, "Refund", rent, DateTime.utc(2024, 3, 1, 12)));
+    await database.addRecordsInBatch([
+      Record(1500.0, "Salary", salary, DateTime.utc(2024, 3, 2, 9)),
+      Record(-20.0, "Rent", rent, DateTime.utc(2024, 3, 2, 23, 30)),
+    ]);
+    await database.addRecordsInBatchNoDuplicateCheck([
+      Record(-7.5, "Rent", rent, DateTime.utc(2024, 3, 3, 8),
+          timeZoneName: "Asia/Tokyo"),
+    ]);
+    await expectSummaryMatchesRecords();
+
+    await database.updateRecordById(
+        firstId, Record(-12.0, "Rent", salary, DateTime.utc(2024, 3, 5, 10)));
+    await expectSummaryMatchesRecords();
+
+    final ids = (await db.rawQuery("SELECT id FROM records ORDER BY id"))
+        .map((row) => row['id'] as int)
+        .toList();
+    await database.duplicateRecordsInBatch(ids.take(2).toList());
+    await database.updateRecordWalletInBatch([ids[1]], 1);
+    await database.deleteRecordById(ids[2]);
+    await database.deleteRecordsInBatch(ids.skip(3).toList());
+    await expectSummaryMatchesRecords();
+
+    await database.deleteRecordsInBatch(
+        (await db.rawQuery("SELECT id FROM records"))
+            .map((row) => row['id'] as int)
+            .toList());
+    expect(await summaryRows(), isEmpty);
+  });
+
+  test('transfers and records without local_minute are not summarized',
+      () async {
+    await db.rawInsert(
+      "INSERT INTO records (title, value, datetime, timezone, category_name, category_type, wallet_id, transfer_wallet_id, profile_id, local_minute) VALUES ('Transfer', -50, 0, 'Europe/Vienna', NULL, NULL, 1, 2, 1, 100)",
+    );
+    await db.rawInsert(
+      "INSERT INTO records (title, value, datetime, timezone, category_name, category_type, profile_id) VALUES ('Raw', -5, 0, 'Europe/Vienna', 'Rent', 0, 1)",
+    );
+    expect(await summaryRows(), isEmpty);
+
+    // Filling local_minute in counts the raw record.
+    await SqliteMigrationService.backfillLocalMinutes(db);
+    final rows = await summaryRows();
+    expect(rows, hasLength(1));
+    expect(rows.single['negative_total'], -5.0);
+  });
+
+  test('interval totals combine whole days from the summary with edge records',
+      () async {
+    await database.addRecordsInBatchNoDuplicateCheck([
+      // 2024-03-01 08:30 and 23:00, 2024-03-02 12:00 in Vienna.
+      Record(-10.0, "Rent", rent, DateTime.utc(2024, 3, 1, 7, 30)),
+      Record(-4.0, "Rent", rent, DateTime.utc(2024, 3, 1, 22)),
+      Record(2.0, "Refund", rent, DateTime.utc(2024, 3, 2, 11)),
+      Record(100.0, "Salary", salary, DateTime.utc(2024, 3, 2, 11)),
+    ]);
+
+    Future<Map<String, double>> totals(DateTime from, DateTime to) async {
+      final result = <String, double>{};
+      for (final r in await database.getRecordTotalsInInterval(from, to)) {
+        final key = "${r.category!.categoryType!.name}/${r.value! >= 0}";
+        result[key] = (result[key] ?? 0) + r.value!;
+      }
+      return result;
+    }
+
+    // Whole days only.
+    expect(await totals(DateTime(2024, 3, 1), DateTime(2024, 3, 2, 23, 59)), {
+      "expense/false": -14.0,
+      "expense/true": 2.0,
+      "income/true": 100.0,
+    });
+    // Partial first day, one whole day.
+    expect(await totals(DateTime(2024, 3, 1, 9), DateTime(2024, 3, 2, 23, 59)),
+        {"expense/false": -4.0, "expense/true": 2.0, "income/true": 100.0});
+    // Within a single day.
+    expect(await totals(DateTime(2024, 3, 1, 8), DateTime(2024, 3, 1, 9)),
+        {"expense/false": -10.0});
+  });
+
+  test('daily totals sum each day and category of an interval', () async {
+    await database.addRecordsInBatchNoDuplicateCheck([
+      // 2024-03-01 08:30 and 23:00, 2024-03-02 12:00 twice in Vienna.
+      Record(-10.0, "Rent", rent, DateTime.utc(2024, 3, 1, 7, 30)),
+      Record(-4.0, "Rent", rent, DateTime.utc(2024, 3, 1, 22)),
+      Record(2.0, "Refund", rent, DateTime.utc(2024, 3, 2, 11)),
+      Record(100.0, "Salary", salary, DateTime.utc(2024, 3, 2, 11)),
+      Record(50.0, "Salary", salary, DateTime.utc(2024, 3, 2, 11, 5)),
+    ]);
+
+    Future<Map<String, (double, int)>> dailyTotals(
+        DateTime from, DateTime to) async {
+      final result = <String, (double, int)>{};
+      for (final r
+          in await database.getRecordDailyTotalsInInterval(from, to)) {
+        final key = "${r.localDateTime.day}/${r.category!.name}/"
+            "${r.value! >= 0}";
+        expect(result, isNot(contains(key)));
+        result[key] = (r.value!, r.aggregatedValues);
+      }
+      return result;
+    }
+
+    // Whole days only.
+    expect(
+        await dailyTotals(DateTime(2024, 3, 1), DateTime(2024, 3, 2, 23, 59)),
+        {
+          "1/Rent/false": (-14.0, 2),
+          "2/Rent/true": (2.0, 1),
+          "2/Salary/true": (150.0, 2),
+        });
+    // Partial first day, one whole day.
+    expect(
+        await dailyTotals(
+            DateTime(2024, 3, 1, 9), DateTime(2024, 3, 2, 23, 59)),
+        {
+          "1/Rent/false": (-4.0, 1),
+          "2/Rent/true": (2.0, 1),
+          "2/Salary/true": (150.0, 2),
+        });
+    // Within a single day.
+    expect(
+        await dailyTotals(
+            DateTime(2024, 3, 2, 12), DateTime(2024, 3, 2, 12, 3)),
+        {"2/Rent/true": (2.0, 1), "2/Salary/true": (100.0, 1)});
+
+    final totals = await database.getRecordDailyTotalsInInterval(
+        DateTime(2024, 3, 1), DateTime(2024, 3, 2, 23, 59));
+    final rentTotal = totals.firstWhere((r) => r.category == rent);
+    expect(rentTotal.category!.color, rent.color);
+    expect(
+        (rentTotal.localDateTime.month, rentTotal.localDateTime.day), (3, 1));
+  });
+
+  test('migration 33 -> 34 builds the summary from existing records',
+      () async {
+    await database.addRecord(
+        Record(-10.0, "Rent", rent, DateTime.utc(2024, 3, 1, 10)));
+    await database.addRecord(
+        Record(100.0, "Salary", salary, DateTime.utc(2024, 3, 1, 11)));
+    final expected = await summaryRows();
+    expect(expected, hasLength(2));
+
+    await db.execute("DROP TABLE records_daily_summary");
+    await SqliteMigrationService.onUpgrade(db, 33, 34);
+    expect(await summaryRows(), expected);
+
+    // The triggers are in place again.
+    await database.addRecord(
+        Record(-1.0, "Rent", rent, DateTime.utc(2024, 3, 1, 12)));
+    await expectSummaryMatchesRecords();
+  });
+}
@@ -0,0 +1,140 @@
+import 'package:flutter/material.dart';
+import 'package:flutter_test/flutter_test.dart';
+import 'package:piggybank/models/category-type.dart';
+import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/record.dart';
+import 'package:piggybank/models/recurrent-period.dart';
+import 'package:piggybank/models/recurrent-record-pattern.dart';
+import 'package:piggybank/services/recurrent-record-service.dart';
+import 'package:piggybank/services/service-config.dart';
+import 'package:sqflite_common_ffi/sqflite_ffi.dart';
+import 'package:timezone/data/latest_all.dart' as tz;
+
+import 'helpers/test_database.dart';
+
+void main() {
+  final testCategoryExpense = Category(
+    "Rent",
+    iconCodePoint: 1,
+    categoryType: CategoryType.expense,
+    color: Colors.blue,
+  );
+
+  setUpAll(() {
+    TestWidgetsFlutterBinding.ensureInitialized();
+    sqfliteFfiInit();
+    databaseFactory = databaseFactoryFfi;
+    tz.initializeTimeZones();
+    ServiceConfig.localTimezone = "Europe/Vienna";
+  });
+
+  setUp(() async {
+    await TestDatabaseHelper.setupTestDatabase();
+    RecurrentRecordService.clearFutureOccurrences();
+  });
+
+  final now = DateTime.now().toUtc();
+  final startDate = DateTime.utc(now.year, now.month, now.day)
+      .subtract(const Duration(days: 10));
+
+  Future<RecurrentRecordPattern> addDailyPattern() async {
+    final db = ServiceConfig.database;
+    await db.addCategory(testCategoryExpense);
+    final pattern = RecurrentRecordPattern(
+      10.0,
+      "Coffee",
+      testCategoryExpense,
+      startDate,
+      RecurrentPeriod.EveryDay,
+      id: "daily-coffee",
+    );
+    await db.addRecurrentRecordPattern(pattern);
+    return pattern;
+  }
+
+  List<DateTime> times(List<Record> records) =>
+      records.map((record) => record.utcDateTime).toList();
+
+  group('Updating recurrent records', () {
+    test('a second refresh writes nothing and returns the same future records',
+        () async {
+      final db = ServiceConfig.database;
+      await addDailyPattern();
+      final service = RecurrentRecordService();
+      final viewEnd = now.add(const Duration(days: 20));
+
+      final first = await service.updateRecurrentRecords(viewEnd);
+      final stored = await db.getAllRecords();
+      final watermark =
+          (await db.getRecurrentRecordPattern("daily-coffee"))!.utcLastUpdate;
+
+      final second = await service.updateRecurrentRecords(viewEnd);
+
+      expect(stored, isNotEmpty);
+      expect(first, isNotEmpty);
+      expect(first.every((record) => record.isFutureRecord), isTrue);
+      expect(times(second), times(first));
+      expect((await db.getAllRecords()).length, stored.length);
+      expect(
+        (await db.getRecurrentRecordPattern("daily-coffee"))!.utcLastUpdate,
+        watermark,
+      );
+    });
+
+    test('future records match a fresh expansion as the view moves forward',
+        () async {
+      await addDailyPattern();
+      final service = RecurrentRecordService();
+
+      for (final days in [5, 40, 20, 90]) {
+        final viewEnd = now.add(Duration(days: days));
+        final future = await service.updateRecurrentRecords(viewEnd);
+        final pattern =
+            (await ServiceConfig.database.getRecurrentRecordPattern(
+                "daily-coffee"))!;
+        final lastStored = pattern.utcLastUpdate!;
+        final expected = service
+            .generateRecurrentRecordsFromDateTime(pattern, viewEnd)
+            .where((record) => record.utcDateTime.isAfter(lastStored));
+
+        expect(times(future), times(expected.toList()),
+            reason: 'view ending $days days from now');
+      }
+    });
+
+    test('future records follow a pattern edit', () async {
+      final db = ServiceConfig.database;
+      await addDailyPattern();
+      final service = RecurrentRecordService();
+      final viewEnd = now.add(const Duration(days: 30));
+      final daily = await service.updateRecurrentRecords(viewEnd);
+
+      final pattern = (await db.getRecurrentRecordPattern("daily-coffee"))!;
+      pattern.recurrentPeriod = RecurrentPeriod.EveryWeek;
+      pattern.value = 12.0;
+      await db.updateRecordPatternById(pattern.id, pattern);
+      final weekly = await service.updateRecurrentRecords(viewEnd);
+
+      expect(weekly.length, lessThan(daily.length));
+      expect(weekly.every((record) => record.value == 12.0), isTrue);
+      for (var i = 1; i < weekly.length; i++) {
+        expect(
+          weekly[i].utcDateTime.difference(weekly[i - 1].utcDateTime).inDays,
+          closeTo(7, 1),
+        );
+      }
+    });
+
+    test('a deleted pattern no longer produces future records', () async {
+      final db = ServiceConfig.database;
+      await addDailyPattern();
+      final service = RecurrentRecordService();
+      final viewEnd = now.add(const Duration(days: 30));
+      expect(await service.updateRecurrentRecords(viewEnd), isNotEmpty);
+
+      await db.deleteRecurrentRecordPatternById("daily-coffee");
+
+      expect(await service.updateRecurrentRecords(viewEnd), isEmpty);
+    });
+  });
+}
@@ -0,0 +1,263 @@
+import 'package:flutter/material.dart';
+import 'package:flutter_test/flutter_test.dart';
+import 'package:piggybank/helpers/records-utility-functions.dart';
+import 'package:piggybank/models/category-type.dart';
+import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/record.dart';
+import 'package:piggybank/services/service-config.dart';
+import 'package:piggybank/statistics/statistics-calculator.dart';
+import 'package:piggybank/statistics/statistics-columns.dart';
+import 'package:piggybank/statistics/statistics-models.dart';
+import 'package:piggybank/statistics/statistics-utils.dart';
+import 'package:piggybank/statistics/statistics-worker-pool.dart';
+import 'package:shared_preferences/shared_preferences.dart';
+import 'package:timezone/data/latest_all.dart' as tz;
+
+final food = Category('Food',
+    color: Colors.red, categoryType: CategoryType.expense);
+final salary = Category('Salary',
+    color: Colors.green, categoryType: CategoryType.income);
+
+const walletCurrencyMap = {1: 'USD', 2: 'BRL'};
+
+/// Records over two years, in two time zones and two currencies, with
+/// transfers, tags and a record without a value.
+List<Record?> sampleRecords() {
+  final records = <Record?>[null];
+  final start = DateTime.utc(2023, 1, 1, 22, 30);
+  for (var i = 0; i < 700; i++) {
+    records.add(Record(
+      i % 7 == 0 ? 1200.0 : -(i % 53) - 0.25,
+      'Record $i',
+      i % 7 == 0 ? salary : food,
+      start.add(Duration(hours: 25 * i)),
+      walletId: i % 5 == 0 ? 2 : 1,
+      transferWalletId: i % 31 == 0 ? 2 : null,
+      timeZoneName: i % 3 == 0 ? 'America/Sao_Paulo' : 'Europe/Vienna',
+      tags: {if (i % 4 == 0) 'weekly', if (i % 6 == 0) 'family'},
+    ));
+  }
+  records.add(Record(null, 'No value', food, DateTime.utc(2023, 6, 1),
+      walletId: 1, tags: {'weekly'}));
+  return records;
+}
+
+Map<DateTime?, double> byTime(List<DateTimeSeriesRecord> series) =>
+    {for (final record in series) record.time: record.value};
+
+void main() {
+  setUpAll(() async {
+    tz.initializeTimeZones();
+    TestWidgetsFlutterBinding.ensureInitialized();
+    ServiceConfig.localTimezone = 'Europe/Vienna';
+    SharedPreferences.setMockInitialValues({
+      'defaultCurrency': 'USD',
+      'currencyConversionRates': '{"BRL_USD": 0.1931}',
+    });
+    ServiceConfig.sharedPreferences = await SharedPreferences.getInstance();
+  });
+
+  final from = DateTime(2023, 1, 1);
+  final to = DateTime(2024, 12, 31, 23, 59, 59);
+
+  group('StatisticsSeries', () {
+    for (final method in [
+      AggregationMethod.DAY,
+      AggregationMethod.WEEK,
+      AggregationMethod.MONTH,
+      AggregationMethod.YEAR,
+    ]) {
+      test('matches the widgets\' own aggregation by ${method.name}', () {
+        final records = sampleRecords();
+        final series = StatisticsSeries.compute(
+            StatisticsColumns.fromRecords(records,
+                walletCurrencyMap: walletCurrencyMap),
+            method,
+            from,
+            to);
+
+        final expected = aggregateRecordsByDate(records, method,
+            walletCurrencyMap: walletCurrencyMap);
+        expect(byTime(series.byPeriod).keys, byTime(expected).keys);
+        byTime(expected).forEach((time, value) {
+          expect(byTime(series.byPeriod)[time], closeTo(value, 1e-6));
+        });
+
+        final expectedAverage = method == AggregationMethod.WEEK
+            ? StatisticsCalculator.calculateDailyAverage(records, from, to,
+                walletCurrencyMap: walletCurrencyMap)
+            : StatisticsCalculator.calculateAverage(records, method, from, to,
+                walletCurrencyMap: walletCurrencyMap);
+        final expectedMedian = method == AggregationMethod.WEEK
+            ? StatisticsCalculator.calculateDailyMedian(records, from, to,
+                walletCurrencyMap: walletCurrencyMap)
+            : StatisticsCalculator.calculateMedian(records, method, from, to,
+                walletCurrencyMap: walletCurrencyMap);
+        expect(series.averageValue, closeTo(expectedAverage, 1e-6));
+        expect(series.medianValue, closeTo(expectedMedian, 1e-6));
+      });
+    }
+
+    test('sums categories, tags and wallets in the default currency', () {
+      final records = sampleRecords();
+      final series = StatisticsSeries.compute(
+          StatisticsColumns.fromRecords(records,
+              walletCurrencyMap: walletCurrencyMap),
+          AggregationMethod.MONTH,
+          from,
+          to);
+
+      double sum(bool Function(Record record) test) => records
+          .whereType<Record>()
+          .where(test)
+          .fold(
+              0.0,
+              (total, record) =>
+                  total +
+                  getRecordValueInDefaultCurrency(record, walletCurrencyMap));
+
+      expect(series.byCategory.keys, unorderedEquals([food, salary]));
+      expect(series.byCategory[food],
+          closeTo(sum((r) => r.category == food && r.value != null), 1e-6));
+      expect(series.byTag.keys, unorderedEquals(['weekly', 'family']));
+      expect(series.byTag['family'],
+          closeTo(sum((r) => r.tags.contains('family')), 1e-6));
+      expect(series.byWallet[1], closeTo(sum((r) => r.walletId == 1), 1e-6));
+      expect(series.byWallet[2], closeTo(sum((r) => r.walletId == 2), 1e-6));
+    });
+
+    test('sums per currency for the overview and summary totals', () {
+      final records = sampleRecords();
+      final series = StatisticsSeries.compute(
+          StatisticsColumns.fromRecords(records,
+              walletCurrencyMap: walletCurrencyMap),
+          AggregationMethod.MONTH,
+          from,
+          to);
+      final valued = records.where((r) => r?.value != null).toList();
+
+      for (final isAbsValue in [false, true]) {
+        final breakdown = buildCurrencyBreakdown(valued, walletCurrencyMap,
+            isAbsValue: isAbsValue);
+        final sums = series.currencySums.of(isAbsValue: isAbsValue);
+        expect(sums.keys, unorderedEquals(breakdown.keys));
+        breakdown.forEach((currency, value) {
+          expect(sums[currency], closeTo(value, 1e-6));
+        });
+
+        final expected = computeConvertedTotal(valued, walletCurrencyMap,
+            isAbsValue: isAbsValue);
+        final total = convertedTotalOfBreakdown(sums);
+        expect(total.currency, expected.currency);
+        expect(total.total, closeTo(expected.total, 1e-6));
+      }
+
+      void expectTotals(CurrencySums? sums, List<Record?> records) {
+        final expected =
+            computeTotalInCurrency(records, walletCurrencyMap, 'USD');
+        expect(totalOfBreakdownInCurrency(sums!.signed, 'USD').total,
+            closeTo(expected.total, 1e-6));
+      }
+
+      expectTotals(series.categoryCurrencySums[food],
+          valued.where((r) => r!.category == food).toList());
+      expectTotals(series.tagCurrencySums['weekly'],
+          valued.where((r) => r!.tags.contains('weekly')).toList());
+      expectTotals(series.walletCurrencySums[2],
+          valued.where((r) => r!.walletId == 2).toList());
+    });
+  });
+
+  group('StatisticsSeries of daily sums', () {
+    /// [records] summed per local day, category, wallet and sign, like
+    /// DatabaseInterface.getRecordDailyTotalsInInterval sums them.
+    List<Record?> dailySums(List<Record?> records) {
+      final sums = <(DateTime, Category?, int?, bool), Record>{};
+      for (final record in records.whereType<Record>()) {
+        final local = record.localDateTime;
+        final value = record.value ?? 0.0;
+        final key = (
+          DateTime.utc(local.year, local.month, local.day),
+          record.category,
+          record.walletId,
+          value >= 0
+        );
+        final sum = sums.putIfAbsent(
+            key,
+            () => Record(0.0, null, key.$2, key.$1,
+                timeZoneName: 'UTC', walletId: key.$3)
+              ..aggregatedValues = 0);
+        sum.value = sum.value! + value;
+        sum.aggregatedValues++;
+      }
+      return sums.values.toList();
+    }
+
+    for (final method in [AggregationMethod.WEEK, AggregationMethod.MONTH]) {
+      test('matches the series of their records by ${method.name}', () {
+        final records = sampleRecords()
+            .where((r) => r != null && !r.isTransfer && r.value != null)
+            .toList();
+        StatisticsSeries seriesOf(List<Record?> records) =>
+            StatisticsSeries.compute(
+                StatisticsColumns.fromRecords(records,
+                    walletCurrencyMap: walletCurrencyMap),
+                method,
+                from,
+                to);
+        final expected = seriesOf(records);
+        final series = seriesOf(dailySums(records));
+
+        final expectedByTime = byTime(expected.byPeriod);
+        final actualByTime = byTime(series.byPeriod);
+        expect(actualByTime.keys, unorderedEquals(expectedByTime.keys));
+        expectedByTime.forEach((time, value) {
+          expect(actualByTime[time], closeTo(value, 1e-6));
+        });
+        expect(series.averageValue, closeTo(expected.averageValue, 1e-6));
+        expect(series.medianValue, closeTo(expected.medianValue, 1e-6));
+        expect(series.byCategory[food],
+            closeTo(expected.byCategory[food]!, 1e-6));
+        expect(series.byWallet[2], closeTo(expected.byWallet[2]!, 1e-6));
+        for (final isAbsValue in [false, true]) {
+          final sums = series.currencySums.of(isAbsValue: isAbsValue);
+          expected.currencySums.of(isAbsValue: isAbsValue).forEach(
+              (currency, value) =>
+                  expect(sums[currency], closeTo(value, 1e-6)));
+        }
+      });
+    }
+  });
+
+  group('StatisticsWorkerPool', () {
+    late StatisticsWorkerPool pool;
+
+    setUp(() => pool = StatisticsWorkerPool(size: 2));
+    tearDown(() => pool.close());
+
+    test('aggregates on its workers as on the calling isolate', () async {
+      final columns = StatisticsColumns.fromRecords(sampleRecords(),
+          walletCurrencyMap: walletCurrencyMap);
+
+      final results = await Future.wait([
+        for (final method in [AggregationMethod.DAY, AggregationMethod.YEAR])
+          pool.aggregate(columns, method, from, to),
+      ]);
+
+      for (final (index, method)
+          in [AggregationMethod.DAY, AggregationMethod.YEAR].indexed) {
+        final expected = StatisticsSeries.compute(columns, method, from, to);
+        expect(byTime(results[index].byPeriod), byTime(expected.byPeriod));
+        expect(results[index].averageValue, expected.averageValue);
+        expect(results[index].medianValue, expected.medianValue);
+        expect(results[index].byCategory, expected.byCategory);
+        expect(results[index].byTag, expected.byTag);
+        expect(results[index].byWallet, expected.byWallet);
+        expect(results[index].currencySums.signed,
+            expected.currencySums.signed);
+        expect(results[index].tagCurrencySums['weekly']!.absolute,
+            expected.tagCurrencySums['weekly']!.absolute);
+      }
+    });
+  });
+}
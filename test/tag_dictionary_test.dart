@@ -0,0 +1,144 @@
+import 'package:flutter/material.dart';
+import 'package:flutter_test/flutter_test.dart';
+import 'package:piggybank/models/category-type.dart';
+import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/record.dart';
+import 'package:piggybank/services/database/database-interface.dart';
+import 'package:piggybank/services/database/sqlite-migration-service.dart';
+import 'package:piggybank/services/service-config.dart';
+import 'package:sqflite_common_ffi/sqflite_ffi.dart';
+import 'package:timezone/data/latest_all.dart' as tz;
+
+import 'helpers/test_database.dart';
+
+void main() {
+  final food = Category(
+    "Food",
+    iconCodePoint: 1,
+    categoryType: CategoryType.expense,
+    color: Colors.orange,
+  );
+
+  late Database rawDb;
+  late DatabaseInterface db;
+
+  setUpAll(() {
+    TestWidgetsFlutterBinding.ensureInitialized();
+    sqfliteFfiInit();
+    databaseFactory = databaseFactoryFfi;
+    tz.initializeTimeZones();
+    ServiceConfig.localTimezone = "Europe/Vienna";
+  });
+
+  setUp(() async {
+    rawDb = await TestDatabaseHelper.setupTestDatabase();
+    db = ServiceConfig.database;
+    await db.addCategory(food);
+  });
+
+  Future<Map<String, int>> tagCounts() async {
+    final rows = await rawDb.rawQuery("SELECT name, record_count FROM tags");
+    return {
+      for (final row in rows)
+        row['name'] as String: row['record_count'] as int,
+    };
+  }
+
+  Record lunch(DateTime dateTime, Set<String> tags) =>
+      Record(-12.0, "Lunch", food, dateTime, tags: tags);
+
+  group('tags table', () {
+    test('counts the records of each tag as records change', () async {
+      final first =
+          await db.addRecord(lunch(DateTime.utc(2024, 1, 2), {'work', 'team'}));
+      await db.addRecord(lunch(DateTime.utc(2024, 1, 3), {'work'}));
+      expect(await tagCounts(), {'work': 2, 'team': 1});
+
+      await db.updateRecordById(
+          first, lunch(DateTime.utc(2024, 1, 2), {'team', 'client'}));
+      expect(await tagCounts(), {'work': 1, 'team': 1, 'client': 1});
+
+      await db.renameTag('team', 'client');
+      expect(await tagCounts(), {'work': 1, 'client': 1});
+
+      await db.deleteRecordById(first);
+      expect(await tagCounts(), {'work': 1});
+
+      await db.deleteTag('work');
+      expect(await tagCounts(), isEmpty);
+      expect(await db.getAllTags(), isEmpty);
+    });
+
+    test('is filled from records_tags by the migration', () async {
+      await db.addRecord(lunch(DateTime.utc(2024, 1, 2), {'work', 'team'}));
+      await db.addRecord(lunch(DateTime.utc(2024, 1, 3), {'work'}));
+      for (final trigger in ['insert', 'update', 'delete']) {
+        await rawDb.execute("DROP TRIGGER tags_on_record_tag_$trigger");
+      }
+      await rawDb.execute("DROP TABLE tags");
+
+      await SqliteMigrationService.onUpgrade(rawDb, 36, 37);
+
+      expect(await tagCounts(), {'work': 2, 'team': 1});
+      expect(await db.getAllTags(), {'work', 'team'});
+    });
+  });
+
+  group('record tags', () {
+    test('are read with the records by every query', () async {
+      await db.addRecord(lunch(DateTime.utc(2024, 1, 2), {'work', 'team'}));
+      await db.addRecord(lunch(DateTime.utc(2024, 1, 3), {}));
+      await db.addRecord(lunch(DateTime.utc(2024, 1, 4), {'work'}));
+      final from = DateTime.utc(2024, 1, 1);
+      final to = DateTime.utc(2024, 1, 31);
+      Map<DateTime, Set<String>> tagsByDate(Iterable<Record?> records) => {
+            for (final record in records) record!.utcDateTime: record.tags,
+          };
+      final expected = {
+        DateTime.utc(2024, 1, 2): {'work', 'team'},
+        DateTime.utc(2024, 1, 3): <String>{},
+        DateTime.utc(2024, 1, 4): {'work'},
+      };
+
+      expect(tagsByDate(await db.getAllRecords()), expected);
+      expect(tagsByDate(await db.getAllRecordsInInterval(from, to)), expected);
+      expect(
+        tagsByDate((await db.getRecordsPageInInterval(from, to)).records),
+        expected,
+      );
+      expect(tagsByDate(await db.searchRecords("lunch")), expected);
+    });
+
+    test('share one string per tag name', () async {
+      await db.addRecord(lunch(DateTime.utc(2024, 1, 2), {'work'}));
+      await db.addRecord(lunch(DateTime.utc(2024, 1, 3), {'work'}));
+
+      final records = await db.getAllRecords();
+
+      expect(identical(records[0]!.tags.single, records[1]!.tags.single),
+          isTrue);
+    });
+
+    test('of a renamed tag are read under the new name', () async {
+      await db.addRecord(lunch(DateTime.utc(2024, 1, 2), {'work'}));
+      expect((await db.getAllRecords()).single!.tags, {'work'});
+
+      await db.renameTag('work', 'office');
+
+      expect((await db.getAllRecords()).single!.tags, {'office'});
+    });
+  });
+
+  test('recently used tags come from the ten newest records', () async {
+    await db.addRecord(lunch(DateTime.utc(2015, 1, 1), {'old'}));
+    for (var day = 1; day <= 10; day++) {
+      await db.addRecord(lunch(DateTime.utc(2024, 1, day), {'day$day'}));
+    }
+
+    final recent = await db.getRecentlyUsedTags();
+
+    expect(recent, hasLength(10));
+    expect(recent.first, 'day10');
+    expect(recent, isNot(contains('old')));
+  });
+}
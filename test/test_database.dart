@@ -5,6 +5,8 @@ import 'package:flutter/services.dart';
 import 'package:flutter_test/flutter_test.dart';
 import 'package:piggybank/models/category-type.dart';
 import 'package:piggybank/models/category.dart';
+import 'package:piggybank/models/record-page.dart';
+import 'package:piggybank/models/record-tag-association.dart';
 import 'package:piggybank/models/record.dart';
 import 'package:piggybank/models/recurrent-period.dart';
 import 'package:piggybank/models/recurrent-record-pattern.dart';
@@ -341,6 +343,46 @@ Future main() async {
       );
     });
 
+    test('addRecordsInBatch tags new records and merges tags into skipped duplicates', () async {
+      DatabaseInterface db = ServiceConfig.database;
+      await db.addCategory(testCategoryExpense);
+      final date = DateTime.utc(2024, 6, 14, 12, 0, 0);
+      await db.addRecordsInBatch([
+        Record(15.0, "Coffee", testCategoryExpense, date, tags: {'morning'}),
+        Record(20.0, "Lunch", testCategoryExpense, date, tags: {'noon', 'work'}),
+      ]);
+      await db.addRecordsInBatch([
+        Record(15.0, "Coffee", testCategoryExpense, date, tags: {'caffeine'}),
+      ]);
+
+      final allRecords = await db.getAllRecords();
+      expect(allRecords.length, 2);
+      final coffee = allRecords.firstWhere((r) => r!.title == "Coffee")!;
+      final lunch = allRecords.firstWhere((r) => r!.title == "Lunch")!;
+      expect(coffee.tags, {'morning', 'caffeine'});
+      expect(lunch.tags, {'noon', 'work'});
+    });
+
+    test('addRecordsInBatchNoDuplicateCheck gives identical records their own tags', () async {
+      DatabaseInterface db = ServiceConfig.database;
+      await db.addCategory(testCategoryExpense);
+      final date = DateTime.utc(2024, 6, 14, 12, 0, 0);
+      await db.addRecordsInBatchNoDuplicateCheck([
+        Record(15.0, "Coffee", testCategoryExpense, date, tags: {'first'}),
+        Record(15.0, "Coffee", testCategoryExpense, date, tags: {'second'}),
+      ]);
+
+      final allRecords = await db.getAllRecords();
+      expect(allRecords.length, 2);
+      expect(
+        allRecords.map((r) => r!.tags).toList(),
+        unorderedEquals([
+          {'first'},
+          {'second'},
+        ]),
+      );
+    });
+
     test('updateRecordById should modify an existing record', () async {
       DatabaseInterface db = ServiceConfig.database;
       await db.addCategory(testCategoryExpense);
@@ -488,6 +530,47 @@ Future main() async {
       expect(count, 4);
     });
 
+    test('getRecordsAfterId and getRecordTagAssociationsAfter page in key order',
+        () async {
+      DatabaseInterface db = ServiceConfig.database;
+      await db.addCategory(testCategoryExpense);
+      await db.addRecordsInBatch(List.generate(
+        5,
+        (i) => Record(
+          10.0 * (i + 1),
+          "Record $i",
+          testCategoryExpense,
+          DateTime.utc(2023, 1, 1 + i),
+          tags: {'b$i', 'a$i'},
+        ),
+      ));
+
+      final records = <Record>[];
+      int? afterId;
+      while (true) {
+        final page = await db.getRecordsAfterId(afterId, limit: 2);
+        records.addAll(page);
+        if (page.length < 2) break;
+        afterId = page.last.id;
+      }
+      expect(records.map((r) => r.title),
+          ["Record 0", "Record 1", "Record 2", "Record 3", "Record 4"]);
+      expect(records.first.category?.name, testCategoryExpense.name);
+
+      final associations = <String>[];
+      RecordTagAssociation? after;
+      while (true) {
+        final page = await db.getRecordTagAssociationsAfter(after, limit: 3);
+        associations.addAll(page.map((a) => "${a.recordId}/${a.tagName}"));
+        if (page.length < 3) break;
+        after = page.last;
+      }
+      final ids = records.map((r) => r.id).toList();
+      expect(associations, [
+        for (var i = 0; i < 5; i++) ...["${ids[i]}/a$i", "${ids[i]}/b$i"],
+      ]);
+    });
+
     test('deleteFutureRecordsByPatternId should remove records with a specific pattern ID after a certain date', () async {
       DatabaseInterface db = ServiceConfig.database;
       await db.addCategory(testCategoryExpense);
@@ -591,6 +674,87 @@ Future main() async {
       expect(records[0]!.title, contains("Record 1"));
     });
 
+    test(
+      'getRecordsPageInInterval should page newest first without splitting days',
+      () async {
+        DatabaseInterface db = ServiceConfig.database;
+        await db.addCategory(testCategoryExpense);
+        // Three records a day on January 1st to 10th, 2023 (Vienna time).
+        final batch = <Record?>[];
+        for (var day = 1; day <= 10; day++) {
+          for (var hour = 9; hour < 12; hour++) {
+            batch.add(Record(
+              -1.0 * day,
+              "Day $day at $hour",
+              testCategoryExpense,
+              DateTime.utc(2023, 1, day, hour),
+            ));
+          }
+        }
+        await db.addRecordsInBatchNoDuplicateCheck(batch);
+
+        final from = DateTime(2023, 1, 2);
+        final to = DateTime(2023, 1, 9, 23, 59);
+        final allInInterval = await db.getAllRecordsInInterval(from, to);
+
+        final pages = <RecordPage>[];
+        RecordPageCursor? cursor;
+        do {
+          final page = await db.getRecordsPageInInterval(from, to,
+              after: cursor, limit: 4);
+          pages.add(page);
+          cursor = page.next;
+        } while (cursor != null);
+
+        final paged = pages.expand((page) => page.records).toList();
+        expect(paged.map((r) => r.id).toSet(),
+            allInInterval.map((r) => r!.id).toSet());
+        expect(paged.length, allInInterval.length);
+        for (var i = 1; i < paged.length; i++) {
+          expect(paged[i].utcDateTime.isAfter(paged[i - 1].utcDateTime),
+              isFalse);
+        }
+        // A page of 4 is completed to the end of its last day: 6 records.
+        expect(pages.first.records.length, 6);
+        for (final page in pages) {
+          final days = page.records.map((r) => r.dateTime.day).toSet();
+          for (final other in pages.where((p) => p != page)) {
+            expect(
+                other.records.where((r) => days.contains(r.dateTime.day)),
+                isEmpty);
+          }
+        }
+      },
+    );
+
+    test(
+      'getRecordTotalsInInterval should sum records per wallet, type and sign',
+      () async {
+        DatabaseInterface db = ServiceConfig.database;
+        await db.addCategory(testCategoryExpense);
+        await db.addCategory(testCategoryIncome);
+        await db.addRecordsInBatchNoDuplicateCheck([
+          Record(-10.0, "Rent", testCategoryExpense, DateTime.utc(2023, 1, 3)),
+          Record(-5.0, "Rent", testCategoryExpense, DateTime.utc(2023, 1, 4)),
+          Record(2.0, "Refund", testCategoryExpense, DateTime.utc(2023, 1, 5)),
+          Record(100.0, "Salary", testCategoryIncome, DateTime.utc(2023, 1, 6)),
+          Record(-99.0, "Rent", testCategoryExpense, DateTime.utc(2023, 2, 1)),
+        ]);
+
+        final totals = await db.getRecordTotalsInInterval(
+            DateTime(2023, 1, 1), DateTime(2023, 1, 31, 23, 59));
+
+        double sum(CategoryType type, bool positive) => totals
+            .where((r) =>
+                r.category?.categoryType == type && (r.value! >= 0) == positive)
+            .fold(0.0, (total, r) => total + r.value!);
+        expect(sum(CategoryType.expense, false), -15.0);
+        expect(sum(CategoryType.expense, true), 2.0);
+        expect(sum(CategoryType.income, true), 100.0);
+        expect(totals.fold<int>(0, (n, r) => n + r.aggregatedValues), 4);
+      },
+    );
+
     test('getAggregatedRecordsByTagInInterval should return aggregated values by tag', () async {
       DatabaseInterface db = ServiceConfig.database;
       await db.addCategory(testCategoryExpense);
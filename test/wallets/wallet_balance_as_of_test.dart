@@ -2,6 +2,7 @@ import 'package:flutter_test/flutter_test.dart';
 import 'package:piggybank/models/wallet.dart';
 import 'package:piggybank/services/database/database-interface.dart';
 import 'package:piggybank/services/database/sqlite-database.dart';
+import 'package:piggybank/services/database/sqlite-migration-service.dart';
 import 'package:piggybank/services/service-config.dart';
 import 'package:sqflite_common_ffi/sqflite_ffi.dart';
 import 'package:timezone/data/latest_all.dart' as tz;
@@ -175,4 +176,74 @@ void main() {
       expect(eur.balance, closeTo(92.0, 0.001));
     });
   });
+
+  group('monthly checkpoints', () {
+    Future<double> balanceAsOf(int walletId, DateTime asOf) async {
+      final wallets = await ServiceConfig.database.getWalletsBalanceAsOf(asOf);
+      return wallets.firstWhere((w) => w.id == walletId).balance!;
+    }
+
+    test('as-of balances stay right as records move between months',
+        () async {
+      DatabaseInterface db = ServiceConfig.database;
+      SqliteDatabase sqliteDb = ServiceConfig.database as SqliteDatabase;
+      final rawDb = (await sqliteDb.database)!;
+
+      final srcId = await db.addWallet(Wallet('Src', initialAmount: 100.0));
+      final destId = await db.addWallet(Wallet('Dest', initialAmount: 0.0));
+      await _insertRecord(rawDb, srcId, -10.0, DateTime.utc(2022, 12, 31, 23));
+      await _insertRecord(rawDb, srcId, -20.0, DateTime.utc(2023, 1, 31, 23));
+      await _insertRecord(rawDb, srcId, -40.0, DateTime.utc(2023, 2, 1));
+      await _insertTransfer(
+          rawDb, srcId, destId, -5.0, 4.0, DateTime.utc(2023, 3, 15));
+
+      expect(await balanceAsOf(srcId, DateTime.utc(2022, 12, 31, 23)),
+          closeTo(90.0, 0.001));
+      expect(await balanceAsOf(srcId, DateTime.utc(2023, 1, 31, 22)),
+          closeTo(90.0, 0.001));
+      expect(await balanceAsOf(srcId, DateTime.utc(2023, 2, 28)),
+          closeTo(30.0, 0.001));
+      expect(await balanceAsOf(destId, DateTime.utc(2023, 3, 14)),
+          closeTo(0.0, 0.001));
+      expect(await balanceAsOf(destId, DateTime.utc(2024, 1, 1)),
+          closeTo(4.0, 0.001));
+
+      // Moving the January record to March and deleting the February one
+      // updates the checkpoints through the triggers.
+      await rawDb.rawUpdate(
+        "UPDATE records SET datetime = ? WHERE value = -20",
+        [DateTime.utc(2023, 3, 1).millisecondsSinceEpoch],
+      );
+      await rawDb.rawDelete("DELETE FROM records WHERE value = -40");
+      expect(await balanceAsOf(srcId, DateTime.utc(2023, 2, 28)),
+          closeTo(90.0, 0.001));
+      expect(await balanceAsOf(srcId, DateTime.utc(2023, 3, 31)),
+          closeTo(65.0, 0.001));
+      expect((await db.getWalletById(srcId))!.balance, closeTo(65.0, 0.001));
+    });
+
+    test('migration 34 -> 35 rebuilds balances and checkpoints', () async {
+      DatabaseInterface db = ServiceConfig.database;
+      SqliteDatabase sqliteDb = ServiceConfig.database as SqliteDatabase;
+      final rawDb = (await sqliteDb.database)!;
+
+      final srcId = await db.addWallet(Wallet('Src', initialAmount: 100.0));
+      final destId = await db.addWallet(Wallet('Dest', initialAmount: 0.0));
+      await _insertRecord(rawDb, srcId, -30.0, before);
+      await _insertTransfer(rawDb, srcId, destId, -50.0, null, after);
+
+      await rawDb.execute("DROP TABLE wallet_monthly_totals");
+      await rawDb.rawUpdate("UPDATE wallets SET records_total = 0");
+      await SqliteMigrationService.onUpgrade(rawDb, 34, 35);
+
+      expect((await db.getWalletById(srcId))!.balance, closeTo(20.0, 0.001));
+      expect((await db.getWalletById(destId))!.balance, closeTo(50.0, 0.001));
+      expect(await balanceAsOf(srcId, cutoff), closeTo(70.0, 0.001));
+      expect(await balanceAsOf(destId, cutoff), closeTo(0.0, 0.001));
+
+      // The triggers are in place again.
+      await _insertRecord(rawDb, destId, -1.0, before);
+      expect((await db.getWalletById(destId))!.balance, closeTo(49.0, 0.001));
+    });
+  });
 }